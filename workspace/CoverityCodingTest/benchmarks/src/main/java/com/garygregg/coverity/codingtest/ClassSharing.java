@@ -0,0 +1,74 @@
+package com.garygregg.coverity.codingtest;
+
+import java.util.List;
+
+/**
+ * Enumerates the ways in which a launched calculator may share class data.
+ * 
+ * @author Gary Gregg
+ */
+public enum ClassSharing {
+
+	/*
+	 * The archive of the classes of the calculator made by the build, on top
+	 * of the archive of the JDK
+	 */
+	APPLICATION {
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * com.garygregg.coverity.codingtest.ClassSharing#addOptions(java.util
+		 * .List, java.lang.String)
+		 */
+		@Override
+		public void addOptions(List<String> command, String archive) {
+			command.add("-XX:SharedArchiveFile=" + archive);
+			command.add("-Xshare:on");
+		}
+	},
+
+	// The default archive of the classes of the JDK, if the JDK has one
+	JDK {
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * com.garygregg.coverity.codingtest.ClassSharing#addOptions(java.util
+		 * .List, java.lang.String)
+		 */
+		@Override
+		public void addOptions(List<String> command, String archive) {
+			command.add("-Xshare:auto");
+		}
+	},
+
+	// No sharing; every class is loaded and verified from its class file
+	OFF {
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * com.garygregg.coverity.codingtest.ClassSharing#addOptions(java.util
+		 * .List, java.lang.String)
+		 */
+		@Override
+		public void addOptions(List<String> command, String archive) {
+			command.add("-Xshare:off");
+		}
+	};
+
+	/**
+	 * Adds the options of the virtual machine that select the sharing to a
+	 * command that launches it.
+	 * 
+	 * @param command
+	 *            The command that launches the virtual machine
+	 * @param archive
+	 *            The path of the archive of the classes of the calculator
+	 */
+	public abstract void addOptions(List<String> command, String archive);
+}
@@ -0,0 +1,99 @@
+package com.garygregg.coverity.codingtest;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures how the parser scales on corpora from the expression generator:
+ * with the size and depth of expressions, the density of 'let' operations,
+ * and so the depth of the symbol table, and the rate of malformed
+ * expressions. Every corpus has about the same number of tokens in all, and
+ * is the same for the same seed and parameters.
+ * 
+ * @author Gary Gregg
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+public class GeneratedWorkloadBenchmark {
+
+	// The number of tokens in each corpus
+	private static final int corpusTokenCount = 1 << 16;
+
+	// The probability that an expression is malformed
+	@Param({ "0.0", "0.2" })
+	public double errorRate;
+
+	// The expressions of the corpus
+	private String[] expressions;
+
+	// The probability that an operation is a 'let' operation
+	@Param({ "0.0", "0.3" })
+	public double letDensity;
+
+	// The depth of nesting of operations
+	@Param({ "4", "32" })
+	public int maximumDepth;
+
+	// The parser
+	private Parser parser;
+
+	// The seed of the generator
+	@Param({ "1" })
+	public long seed;
+
+	// The number of tokens in each expression
+	@Param({ "16", "256", "4096" })
+	public int tokenCount;
+
+	/**
+	 * Evaluates the corpus.
+	 * 
+	 * @param blackhole
+	 *            The sink for the results
+	 */
+	@Benchmark
+	public void evaluate(Blackhole blackhole) {
+
+		// Evaluate each expression, and consume its results.
+		for (String expression : expressions) {
+			blackhole.consume(parser.evaluate(expression));
+		}
+	}
+
+	/**
+	 * Generates the corpus, and creates a parser that discards its error
+	 * reports.
+	 */
+	@Setup
+	public void setUp() {
+
+		// Configure the generator, and generate the corpus.
+		final ExpressionGenerator generator = new ExpressionGenerator(seed);
+		generator.setErrorRate(errorRate);
+		generator.setLetDensity(letDensity);
+		generator.setMaximumDepth(maximumDepth);
+		generator.setTokenCount(tokenCount);
+		expressions = generator.generate(Math.max(1, corpusTokenCount
+				/ tokenCount));
+
+		// Create the parser.
+		parser = new Parser(null, new PrintStream(new NullOutputStream()));
+	}
+}
@@ -0,0 +1,378 @@
+package com.garygregg.coverity.codingtest;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener;
+import com.garygregg.coverity.codingtest.lexical_analysis.LexicalAnalyzer;
+import com.garygregg.coverity.codingtest.lexical_analysis.TokenBuffer;
+import com.garygregg.coverity.codingtest.lexical_analysis.TokenKind;
+import com.garygregg.coverity.codingtest.lexical_analysis.TokenListener;
+import com.garygregg.coverity.codingtest.token.AddToken;
+import com.garygregg.coverity.codingtest.token.CloseToken;
+import com.garygregg.coverity.codingtest.token.CommaToken;
+import com.garygregg.coverity.codingtest.token.DivideToken;
+import com.garygregg.coverity.codingtest.token.LetToken;
+import com.garygregg.coverity.codingtest.token.MultiplyToken;
+import com.garygregg.coverity.codingtest.token.OpenToken;
+import com.garygregg.coverity.codingtest.token.RegisteredOperationToken;
+import com.garygregg.coverity.codingtest.token.SubtractToken;
+import com.garygregg.coverity.codingtest.token.UnknownToken;
+import com.garygregg.coverity.codingtest.token.ValueToken;
+import com.garygregg.coverity.codingtest.token.VariableToken;
+
+/**
+ * Measures the lexical analyzer on each workload, delivering tokens in each of
+ * the ways it can: as token objects to an analysis listener, one call at a
+ * time to a token listener, and in batches through a token buffer. The
+ * listeners only count the tokens, so the times are those of the analyzer.
+ * 
+ * @author Gary Gregg
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+public class LexicalAnalyzerBenchmark {
+
+	/**
+	 * Contains a listener that counts the tokens it receives, by either
+	 * interface.
+	 * 
+	 * @author Gary Gregg
+	 */
+	private static final class CountingListener implements AnalysisListener,
+			TokenListener {
+
+		// The number of tokens received
+		private int count;
+
+		/**
+		 * Gets the number of tokens received.
+		 * 
+		 * @return The number of tokens received
+		 */
+		public int getCount() {
+			return count;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * com.garygregg.coverity.codingtest.lexical_analysis.TokenListener#
+		 * onToken(com.garygregg.coverity.codingtest.lexical_analysis.TokenKind,
+		 * int, int, int)
+		 */
+		@Override
+		public void onToken(TokenKind kind, int start, int length, int intValue) {
+			++count;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+		 * receiveAddToken(com.garygregg.coverity.codingtest.token.AddToken)
+		 */
+		@Override
+		public void receiveAddToken(AddToken token) {
+			++count;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+		 * receiveCloseToken(com.garygregg.coverity.codingtest.token.CloseToken)
+		 */
+		@Override
+		public void receiveCloseToken(CloseToken token) {
+			++count;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+		 * receiveCommaToken(com.garygregg.coverity.codingtest.token.CommaToken)
+		 */
+		@Override
+		public void receiveCommaToken(CommaToken token) {
+			++count;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+		 * receiveDivideToken(
+		 * com.garygregg.coverity.codingtest.token.DivideToken)
+		 */
+		@Override
+		public void receiveDivideToken(DivideToken token) {
+			++count;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+		 * receiveLetToken(com.garygregg.coverity.codingtest.token.LetToken)
+		 */
+		@Override
+		public void receiveLetToken(LetToken token) {
+			++count;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+		 * receiveMultiplyToken(
+		 * com.garygregg.coverity.codingtest.token.MultiplyToken)
+		 */
+		@Override
+		public void receiveMultiplyToken(MultiplyToken token) {
+			++count;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+		 * receiveOpenToken(com.garygregg.coverity.codingtest.token.OpenToken)
+		 */
+		@Override
+		public void receiveOpenToken(OpenToken token) {
+			++count;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+		 * receiveRegisteredOperationToken(
+		 * com.garygregg.coverity.codingtest.token.RegisteredOperationToken)
+		 */
+		@Override
+		public void receiveRegisteredOperationToken(
+				RegisteredOperationToken token) {
+			++count;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+		 * receiveSubtractToken(
+		 * com.garygregg.coverity.codingtest.token.SubtractToken)
+		 */
+		@Override
+		public void receiveSubtractToken(SubtractToken token) {
+			++count;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+		 * receiveUnknownToken(
+		 * com.garygregg.coverity.codingtest.token.UnknownToken)
+		 */
+		@Override
+		public void receiveUnknownToken(UnknownToken token) {
+			++count;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+		 * receiveValueToken(com.garygregg.coverity.codingtest.token.ValueToken)
+		 */
+		@Override
+		public void receiveValueToken(ValueToken token) {
+			++count;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+		 * receiveVariableToken(
+		 * com.garygregg.coverity.codingtest.token.VariableToken)
+		 */
+		@Override
+		public void receiveVariableToken(VariableToken token) {
+			++count;
+		}
+
+		/**
+		 * Clears the count of tokens.
+		 */
+		public void reset() {
+			count = 0;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+		 * startAnalysis()
+		 */
+		@Override
+		public void startAnalysis() {
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * com.garygregg.coverity.codingtest.lexical_analysis.TokenListener#
+		 * startTokens(java.lang.CharSequence)
+		 */
+		@Override
+		public void startTokens(CharSequence expression) {
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+		 * stopAnalysis()
+		 */
+		@Override
+		public void stopAnalysis() {
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * com.garygregg.coverity.codingtest.lexical_analysis.TokenListener#
+		 * stopTokens()
+		 */
+		@Override
+		public void stopTokens() {
+		}
+	}
+
+	// The lexical analyzer of each expression
+	private final LexicalAnalyzer analyzer = new LexicalAnalyzer();
+
+	// The token buffer for batched delivery
+	private final TokenBuffer buffer = new TokenBuffer();
+
+	// The expressions of the workload
+	private String[] expressions;
+
+	// The listener that counts tokens
+	private final CountingListener listener = new CountingListener();
+
+	// The approximate number of tokens in the workload
+	@Param({ "1000", "100000" })
+	public int tokenCount;
+
+	// The workload
+	@Param({ "FLAT", "DEEP", "WIDE", "VARIABLE_HEAVY", "ERROR_HEAVY" })
+	public Workload workload;
+
+	/**
+	 * Analyzes the workload, delivering token objects to an analysis
+	 * listener.
+	 * 
+	 * @return The number of tokens received
+	 */
+	@Benchmark
+	public int launchAnalysisListener() {
+
+		// Analyze each expression, and return the count of tokens.
+		listener.reset();
+		for (String expression : expressions) {
+
+			analyzer.setExpression(expression);
+			analyzer.launch();
+		}
+
+		return listener.getCount();
+	}
+
+	/**
+	 * Analyzes the workload, delivering tokens to a token listener in batches
+	 * through a token buffer.
+	 * 
+	 * @return The number of tokens received
+	 */
+	@Benchmark
+	public int launchTokenBuffer() {
+
+		// Analyze each expression, and return the count of tokens.
+		listener.reset();
+		for (String expression : expressions) {
+
+			analyzer.setExpression(expression);
+			analyzer.launch(listener, buffer);
+		}
+
+		return listener.getCount();
+	}
+
+	/**
+	 * Analyzes the workload, delivering tokens to a token listener one call
+	 * at a time.
+	 * 
+	 * @return The number of tokens received
+	 */
+	@Benchmark
+	public int launchTokenListener() {
+
+		// Analyze each expression, and return the count of tokens.
+		listener.reset();
+		for (String expression : expressions) {
+
+			analyzer.setExpression(expression);
+			analyzer.launch(listener);
+		}
+
+		return listener.getCount();
+	}
+
+	/**
+	 * Creates the workload, and adds the counting listener to the analyzer.
+	 */
+	@Setup
+	public void setUp() {
+
+		// Create the workload, and add the counting listener.
+		expressions = workload.create(tokenCount);
+		analyzer.addListener(listener);
+	}
+}
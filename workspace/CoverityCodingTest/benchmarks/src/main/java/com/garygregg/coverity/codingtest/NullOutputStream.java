@@ -0,0 +1,30 @@
+package com.garygregg.coverity.codingtest;
+
+import java.io.OutputStream;
+
+/**
+ * Contains an output stream that discards everything written to it, so that
+ * error reports cost their formatting but not their output.
+ * 
+ * @author Gary Gregg
+ */
+public final class NullOutputStream extends OutputStream {
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.OutputStream#write(byte[], int, int)
+	 */
+	@Override
+	public void write(byte[] bytes, int offset, int length) {
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.OutputStream#write(int)
+	 */
+	@Override
+	public void write(int value) {
+	}
+}
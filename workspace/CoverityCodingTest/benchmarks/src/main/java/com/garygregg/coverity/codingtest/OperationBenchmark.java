@@ -0,0 +1,137 @@
+package com.garygregg.coverity.codingtest;
+
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.garygregg.coverity.codingtest.operation.AddOperation;
+import com.garygregg.coverity.codingtest.operation.BinaryOperation;
+import com.garygregg.coverity.codingtest.operation.DivideOperation;
+import com.garygregg.coverity.codingtest.operation.MultiplyOperation;
+import com.garygregg.coverity.codingtest.operation.OperationRegistry;
+import com.garygregg.coverity.codingtest.operation.SubtractOperation;
+
+/**
+ * Measures each binary operation of the parser: the reporting operations for
+ * 'add', 'sub', 'mult' and 'div', and the 32-bit kernel of each registered
+ * operation. Each invocation performs the operation on a fixed set of random
+ * arguments, none of which makes the operation fail.
+ * 
+ * @author Gary Gregg
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+public class OperationBenchmark {
+
+	// The number of pairs of arguments
+	private static final int argumentCount = 1024;
+
+	// The seed of the random arguments
+	private static final long seed = 1L;
+
+	// The first arguments
+	private final int[] firstArguments = new int[argumentCount];
+
+	// The operation
+	private BinaryOperation kernel;
+
+	// The name of the operation
+	@Param({ "add", "sub", "mult", "div", "mod", "min", "max", "pow", "shl",
+			"shr", "and", "or", "xor" })
+	public String operation;
+
+	// The second arguments
+	private final int[] secondArguments = new int[argumentCount];
+
+	/**
+	 * Performs the operation on each pair of arguments.
+	 * 
+	 * @return The sum of the results
+	 */
+	@Benchmark
+	@OperationsPerInvocation(argumentCount)
+	public int perform() {
+
+		// Sum the result for each pair of arguments.
+		int sum = 0;
+		for (int i = 0; i < argumentCount; ++i) {
+			sum += kernel.performOperation(firstArguments[i],
+					secondArguments[i]);
+		}
+
+		// Return the sum.
+		return sum;
+	}
+
+	/**
+	 * Gets the operation, and creates the arguments. Neither argument is
+	 * zero, so no division is by zero and no zero is raised to a negative
+	 * power.
+	 */
+	@Setup
+	public void setUp() {
+
+		/*
+		 * Get the reporting operation with the name, if there is one. Its
+		 * reports are discarded.
+		 */
+		final PrintStream reportStream = new PrintStream(
+				new NullOutputStream());
+		if ("add".equals(operation)) {
+			kernel = new AddOperation(reportStream);
+		}
+
+		// The operation is subtraction.
+		else if ("sub".equals(operation)) {
+			kernel = new SubtractOperation(reportStream);
+		}
+
+		// The operation is multiplication.
+		else if ("mult".equals(operation)) {
+			kernel = new MultiplyOperation(reportStream);
+		}
+
+		// The operation is division.
+		else if ("div".equals(operation)) {
+			kernel = new DivideOperation(reportStream);
+		}
+
+		// The operation is registered. Get its 32-bit kernel.
+		else {
+			kernel = OperationRegistry.getInstance().find(operation)
+					.getIntKernel();
+		}
+
+		// Create the arguments.
+		final Random random = new Random(seed);
+		for (int i = 0; i < argumentCount; ++i) {
+
+			firstArguments[i] = random.nextInt(2001) - 1000;
+			if (0 == firstArguments[i]) {
+				firstArguments[i] = 1;
+			}
+
+			secondArguments[i] = random.nextInt(63) - 31;
+			if (0 == secondArguments[i]) {
+				secondArguments[i] = 1;
+			}
+		}
+	}
+}
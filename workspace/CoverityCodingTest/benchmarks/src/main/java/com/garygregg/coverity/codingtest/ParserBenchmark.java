@@ -0,0 +1,108 @@
+package com.garygregg.coverity.codingtest;
+
+import java.io.PrintStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the parser end to end on each workload: lexical analysis, parsing
+ * and arithmetic, with errors reported to a stream that discards them. The
+ * parser evaluates each expression serially, with lexical analysis pipelined
+ * on another thread, and with lexical analysis of chunks in parallel.
+ * 
+ * @author Gary Gregg
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+public class ParserBenchmark {
+
+	// The expressions of the workload
+	private String[] expressions;
+
+	// The parser
+	private Parser parser;
+
+	// The approximate number of tokens in the workload
+	@Param({ "1000", "100000" })
+	public int tokenCount;
+
+	// The workload
+	@Param({ "FLAT", "DEEP", "WIDE", "VARIABLE_HEAVY", "ERROR_HEAVY" })
+	public Workload workload;
+
+	/**
+	 * Evaluates the workload serially.
+	 * 
+	 * @param blackhole
+	 *            The sink for the results
+	 */
+	@Benchmark
+	public void evaluate(Blackhole blackhole) {
+
+		// Evaluate each expression, and consume its results.
+		for (String expression : expressions) {
+			blackhole.consume(parser.evaluate(expression));
+		}
+	}
+
+	/**
+	 * Evaluates the workload with lexical analysis of chunks in parallel on
+	 * the common fork-join pool.
+	 * 
+	 * @param blackhole
+	 *            The sink for the results
+	 */
+	@Benchmark
+	public void evaluateParallel(Blackhole blackhole) {
+
+		// Evaluate each expression, and consume its results.
+		final ForkJoinPool pool = ForkJoinPool.commonPool();
+		for (String expression : expressions) {
+			blackhole.consume(parser.evaluateParallel(expression, pool));
+		}
+	}
+
+	/**
+	 * Evaluates the workload with lexical analysis pipelined on another
+	 * thread.
+	 * 
+	 * @param blackhole
+	 *            The sink for the results
+	 */
+	@Benchmark
+	public void evaluatePipelined(Blackhole blackhole) {
+
+		// Evaluate each expression, and consume its results.
+		for (String expression : expressions) {
+			blackhole.consume(parser.evaluatePipelined(expression));
+		}
+	}
+
+	/**
+	 * Creates the workload, and a parser that discards its error reports.
+	 */
+	@Setup
+	public void setUp() {
+
+		// Create the workload and the parser.
+		expressions = workload.create(tokenCount);
+		parser = new Parser(null, new PrintStream(new NullOutputStream()));
+	}
+}
@@ -0,0 +1,149 @@
+package com.garygregg.coverity.codingtest;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time to the first result of a one-shot run of the calculator,
+ * as scripts run it: from launching a new virtual machine with the calculator
+ * jar and a single expression, to reading the line of results from its
+ * standard output. The virtual machine shares class data in each of the ways
+ * it can. The jar and archive are those built in the calculator module, found
+ * relative to the directory in which the benchmarks are run, unless given as
+ * parameters.
+ * 
+ * @author Gary Gregg
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 2)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 2, time = 2)
+public class StartupBenchmark {
+
+	// The prefix of the line in which the calculator echoes its expression
+	private static final String echoPrefix = "Running calculator";
+
+	// The command that launches the calculator
+	private final List<String> command = new ArrayList<String>();
+
+	// The launched calculator
+	private Process process;
+
+	// The path of the class data sharing archive of the calculator
+	@Param("calculator/target/CoverityCodingTest.jsa")
+	public String archive;
+
+	// The expression the calculator evaluates
+	@Param("let(a,5,add(a,mult(a,2)))")
+	public String expression;
+
+	// The path of the calculator jar
+	@Param("calculator/target/CoverityCodingTest.jar")
+	public String jar;
+
+	// The class data sharing of the launched calculator
+	@Param({ "OFF", "JDK", "APPLICATION" })
+	public ClassSharing sharing;
+
+	/**
+	 * Launches the calculator, and reads its standard output until the line
+	 * of results.
+	 * 
+	 * @return The line of results
+	 * @throws IOException
+	 *             Indicates that the calculator could not be launched, or its
+	 *             output could not be read
+	 */
+	@Benchmark
+	public String launch() throws IOException {
+
+		/*
+		 * Launch the calculator, discarding its diagnostics. Read lines of its
+		 * output until one is not the echo of the expression.
+		 */
+		process = new ProcessBuilder(command).redirectError(
+				ProcessBuilder.Redirect.DISCARD).start();
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(
+				process.getInputStream()));
+		String line = null;
+		while ((null != (line = reader.readLine()))
+				&& line.startsWith(echoPrefix)) {
+
+			// Skip the echo of the expression.
+		}
+
+		// Return the line of results, if any.
+		return line;
+	}
+
+	/**
+	 * Builds the command that launches the calculator.
+	 * 
+	 * @throws IllegalStateException
+	 *             Indicates that the jar, or the archive, does not exist
+	 */
+	@Setup
+	public void setUp() {
+
+		/*
+		 * The jar must exist, and so must the archive if the calculator is to
+		 * share the data of its classes.
+		 */
+		if (!new File(jar).isFile()) {
+			throw new IllegalStateException("The calculator jar '" + jar
+					+ "' does not exist; build it with 'mvn package'.");
+		}
+
+		if ((ClassSharing.APPLICATION == sharing)
+				&& (!new File(archive).isFile())) {
+			throw new IllegalStateException("The class data sharing archive '"
+					+ archive
+					+ "' does not exist; build it with 'mvn package'.");
+		}
+
+		/*
+		 * Launch the virtual machine running the benchmarks, with the options
+		 * of the sharing, and the calculator jar and expression.
+		 */
+		command.clear();
+		command.add(System.getProperty("java.home") + File.separator + "bin"
+				+ File.separator + "java");
+		sharing.addOptions(command, archive);
+		command.add("-jar");
+		command.add(jar);
+		command.add("Calculator");
+		command.add(expression);
+	}
+
+	/**
+	 * Waits for the launched calculator to exit, so that no two run at once.
+	 * 
+	 * @throws InterruptedException
+	 *             Indicates that the wait was interrupted
+	 */
+	@TearDown(Level.Invocation)
+	public void waitForExit() throws InterruptedException {
+		process.waitFor();
+	}
+}
@@ -0,0 +1,111 @@
+package com.garygregg.coverity.codingtest;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures lookups in the symbol table of the parser with a given number of
+ * enclosing 'let' operations: of the innermost variable, of the outermost one,
+ * and of a variable that is not bound, and the binding and release of a
+ * variable. The names looked up are equal to, but not the same objects as,
+ * the names bound, as they are in the parser.
+ * 
+ * @author Gary Gregg
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+public class SymbolTableBenchmark {
+
+	// The number of enclosing 'let' operations
+	@Param({ "1", "8", "64", "512" })
+	public int depth;
+
+	// The name of the innermost variable
+	private String innermost;
+
+	// The name of a variable that is not bound
+	private String missing;
+
+	// The name of the outermost variable
+	private String outermost;
+
+	// The symbol table
+	private final SymbolTable table = new SymbolTable();
+
+	/**
+	 * Binds a variable, and releases it.
+	 * 
+	 * @return True if the variable was released
+	 */
+	@Benchmark
+	public boolean bindAndRelease() {
+
+		// Bind the variable, and release it.
+		table.addSymbol(innermost, depth);
+		return table.removeLastSymbol();
+	}
+
+	/**
+	 * Looks up the innermost variable.
+	 * 
+	 * @return The value of the variable
+	 */
+	@Benchmark
+	public Integer findInnermost() {
+		return table.findValueFor(innermost);
+	}
+
+	/**
+	 * Looks up a variable that is not bound.
+	 * 
+	 * @return Null
+	 */
+	@Benchmark
+	public Integer findMissing() {
+		return table.findValueFor(missing);
+	}
+
+	/**
+	 * Looks up the outermost variable.
+	 * 
+	 * @return The value of the variable
+	 */
+	@Benchmark
+	public Integer findOutermost() {
+		return table.findValueFor(outermost);
+	}
+
+	/**
+	 * Binds a variable for each enclosing 'let' operation, and copies the
+	 * names to look up.
+	 */
+	@Setup
+	public void setUp() {
+
+		// Bind the variables, from the outermost.
+		table.clear();
+		for (int i = 0; i < depth; ++i) {
+			table.addSymbol("v" + i, i);
+		}
+
+		// Copy the names to look up.
+		innermost = new StringBuilder("v").append(depth - 1).toString();
+		missing = new StringBuilder("w").append(depth).toString();
+		outermost = new StringBuilder("v").append(0).toString();
+	}
+}
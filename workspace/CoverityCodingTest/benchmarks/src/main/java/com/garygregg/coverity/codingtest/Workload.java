@@ -0,0 +1,208 @@
+package com.garygregg.coverity.codingtest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Enumerates the shapes of synthetic input on which the benchmarks run. Each
+ * shape creates a list of expressions with about a given number of tokens in
+ * all, and creates the same list for the same number of tokens.
+ * 
+ * @author Gary Gregg
+ */
+public enum Workload {
+
+	// A single expression of deeply nested operations
+	DEEP {
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see com.garygregg.coverity.codingtest.Workload#create(int)
+		 */
+		@Override
+		public String[] create(int tokenCount) {
+
+			/*
+			 * Open an operation for each level, each taking five tokens with
+			 * its second argument, and close them all.
+			 */
+			final int levelCount = Math.max(1, tokenCount / 5);
+			final StringBuilder builder = new StringBuilder();
+			for (int i = 0; i < levelCount; ++i) {
+				builder.append(operations[i % operations.length]).append('(');
+			}
+
+			builder.append(1);
+			for (int i = levelCount - 1; 0 <= i; --i) {
+				builder.append(',').append(i % 7 + 1).append(')');
+			}
+
+			// Return the single expression.
+			return new String[] { builder.toString() };
+		}
+	},
+
+	/*
+	 * Small expressions, half of which are malformed or fail to evaluate, so
+	 * that the error paths are measured
+	 */
+	ERROR_HEAVY {
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see com.garygregg.coverity.codingtest.Workload#create(int)
+		 */
+		@Override
+		public String[] create(int tokenCount) {
+
+			// Cycle through the canned expressions until there are enough.
+			final List<String> expressions = new ArrayList<String>();
+			for (int count = 0; count < tokenCount; count += errorTokenCount) {
+				expressions.add(errorExpressions[expressions.size()
+						% errorExpressions.length]);
+			}
+
+			// Return the expressions.
+			return expressions.toArray(new String[expressions.size()]);
+		}
+	},
+
+	/*
+	 * Lines of many small top-level expressions, none of which is nested or
+	 * binds a variable
+	 */
+	FLAT {
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see com.garygregg.coverity.codingtest.Workload#create(int)
+		 */
+		@Override
+		public String[] create(int tokenCount) {
+
+			/*
+			 * Create lines until there are enough tokens. Each line has a run
+			 * of operations of six tokens each.
+			 */
+			final List<String> expressions = new ArrayList<String>();
+			int value = 0;
+			for (int count = 0; count < tokenCount; count += flatRunLength * 6) {
+
+				final StringBuilder builder = new StringBuilder();
+				for (int i = 0; i < flatRunLength; ++i) {
+					builder.append(operations[i % operations.length])
+							.append('(').append(++value).append(',')
+							.append(i + 1).append(") ");
+				}
+
+				expressions.add(builder.toString());
+			}
+
+			// Return the expressions.
+			return expressions.toArray(new String[expressions.size()]);
+		}
+	},
+
+	/*
+	 * Lines of nested 'let' operations whose bodies refer to the variables
+	 * many times
+	 */
+	VARIABLE_HEAVY {
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see com.garygregg.coverity.codingtest.Workload#create(int)
+		 */
+		@Override
+		public String[] create(int tokenCount) {
+
+			/*
+			 * Build the line: a 'let' operation for each variable, each bound
+			 * to the value of the last, around the sum of many references to
+			 * the variables.
+			 */
+			final StringBuilder builder = new StringBuilder();
+			for (int i = 0; i < letDepth; ++i) {
+				builder.append("let(v").append(i).append(',')
+						.append((0 == i) ? "1" : ("v" + (i - 1))).append(',');
+			}
+
+			builder.append("add(");
+			for (int i = 0; i < letDepth * letDepth; ++i) {
+				builder.append((0 == i) ? "v" : ",v").append(i % letDepth);
+			}
+
+			builder.append(')');
+			for (int i = 0; i < letDepth; ++i) {
+				builder.append(')');
+			}
+
+			/*
+			 * Repeat the line until there are enough tokens. Each 'let'
+			 * operation takes seven tokens, and each reference two.
+			 */
+			final String line = builder.toString();
+			final List<String> expressions = new ArrayList<String>();
+			for (int count = 0; count < tokenCount; count += letDepth * 7
+					+ letDepth * letDepth * 2 + 2) {
+				expressions.add(line);
+			}
+
+			// Return the expressions.
+			return expressions.toArray(new String[expressions.size()]);
+		}
+	},
+
+	// A single variadic operation with very many arguments
+	WIDE {
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see com.garygregg.coverity.codingtest.Workload#create(int)
+		 */
+		@Override
+		public String[] create(int tokenCount) {
+
+			// Add an argument and a separator for every two tokens.
+			final int argumentCount = Math.max(2, tokenCount / 2);
+			final StringBuilder builder = new StringBuilder("add(1");
+			for (int i = 1; i < argumentCount; ++i) {
+				builder.append(',').append(i % 1000);
+			}
+
+			// Return the single expression.
+			return new String[] { builder.append(')').toString() };
+		}
+	};
+
+	// Canned expressions for error-heavy input, alternately good and bad
+	private static final String[] errorExpressions = { "add(2,3)", "add(5,7",
+			"let(b,2,add(b,1))", "div(8,sub(1,1))", "mult(6,7)", "%^&*(",
+			"sub(6,max(7,9))", "let(a,5,add(a,b))" };
+
+	// The approximate number of tokens in each error-heavy expression
+	private static final int errorTokenCount = 8;
+
+	// The number of operations on a line of flat input
+	private static final int flatRunLength = 16;
+
+	// The number of nested 'let' operations on a line of variable-heavy input
+	private static final int letDepth = 8;
+
+	// The operations used in flat and deep input
+	private static final String[] operations = { "add", "sub", "mult", "max" };
+
+	/**
+	 * Creates the expressions of the workload.
+	 * 
+	 * @param tokenCount
+	 *            The approximate number of tokens in all the expressions
+	 * @return The expressions of the workload
+	 */
+	public abstract String[] create(int tokenCount);
+}
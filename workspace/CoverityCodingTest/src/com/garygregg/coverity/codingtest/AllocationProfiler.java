@@ -0,0 +1,127 @@
+package com.garygregg.coverity.codingtest;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import com.garygregg.coverity.codingtest.recording.AccountedClass;
+import com.garygregg.coverity.codingtest.recording.AllocationAccounting;
+
+/**
+ * Contains a profiler of the allocations of the calculator, one expression at
+ * a time. The profiler evaluates each expression with a parser, measuring the
+ * bytes allocated by its lexical analysis and by the rest of the parse, which
+ * includes the arithmetic of the reductions, and counting the tokens, token
+ * information and pairs it creates. It then compiles the expression and
+ * measures the bytes allocated evaluating the program, in the wrapped
+ * arithmetic of the parser. Every measurement is of the current thread, so a
+ * profiler may be used by only one thread at a time. Creating a profiler
+ * enables the accounting of allocations for the whole calculator.
+ * 
+ * @author Gary Gregg
+ */
+public class AllocationProfiler {
+
+	// The numeric mode in which compiled programs are evaluated
+	private static final NumericMode mode = NumericMode.WRAPPED_INT;
+
+	// The accounting of the allocations of the calculator
+	private final AllocationAccounting accounting = AllocationAccounting
+			.getInstance();
+
+	// The compiler of the expressions
+	private final Compiler compiler = new Compiler(mode);
+
+	/*
+	 * The evaluator of the compiled programs, whose diagnostics are discarded
+	 * since the parser has already output them
+	 */
+	private final ProgramEvaluator evaluator = ProgramEvaluator.forMode(mode,
+			new PrintStream(OutputStream.nullOutputStream()));
+
+	// The parser of the expressions
+	private final Parser parser = new Parser();
+
+	/**
+	 * Constructs the allocation profiler, enabling the accounting of
+	 * allocations.
+	 * 
+	 * @throws UnsupportedOperationException
+	 *             Indicates that the virtual machine cannot measure the bytes
+	 *             allocated by a thread
+	 */
+	public AllocationProfiler() {
+		accounting.setEnabled(true);
+	}
+
+	/**
+	 * Profiles the allocations of the calculator for an expression.
+	 * 
+	 * @param expression
+	 *            The expression to profile
+	 * @return The allocations of the calculator for the expression
+	 */
+	public AllocationReport profile(String expression) {
+
+		/*
+		 * Note the bytes allocated, and the counts of the accounted classes,
+		 * before the parse. Evaluate the expression with the parser.
+		 */
+		final long startBytes = accounting.getAllocatedBytes();
+		final long startTokens = accounting.getCount(AccountedClass.TOKEN);
+		final long startInformation = accounting
+				.getCount(AccountedClass.TOKEN_INFORMATION);
+		final long startPairs = accounting.getCount(AccountedClass.PAIR);
+		parser.evaluate(expression);
+
+		/*
+		 * Note the bytes allocated by the parse, and the counts of the
+		 * accounted classes it created.
+		 */
+		final long parseBytes = accounting.getAllocatedBytes() - startBytes;
+		final long tokenCount = accounting.getCount(AccountedClass.TOKEN)
+				- startTokens;
+		final long informationCount = accounting
+				.getCount(AccountedClass.TOKEN_INFORMATION) - startInformation;
+		final long pairCount = accounting.getCount(AccountedClass.PAIR)
+				- startPairs;
+
+		/*
+		 * Compile the expression, and measure the bytes allocated evaluating
+		 * its program, up to the error if evaluation fails.
+		 */
+		long evaluateBytes = -1L;
+		long startEvaluateBytes = -1L;
+		try {
+
+			final Program program = compiler.compile(expression);
+			startEvaluateBytes = accounting.getAllocatedBytes();
+			evaluator.evaluateValues(program);
+			evaluateBytes = accounting.getAllocatedBytes()
+					- startEvaluateBytes;
+		}
+
+		// The expression could not be compiled; there is no evaluation.
+		catch (CompilationException exception) {
+			evaluateBytes = -1L;
+		}
+
+		/*
+		 * The program could not be evaluated. Its allocations, which include
+		 * the exception, are those up to the error.
+		 */
+		catch (EvaluationException exception) {
+			evaluateBytes = accounting.getAllocatedBytes()
+					- startEvaluateBytes;
+		}
+
+		/*
+		 * Return the report. The bytes allocated by the parse do not include
+		 * those allocated by the lexical analysis.
+		 */
+		final long lexBytes = parser.getScanAllocation();
+		return new AllocationReport(
+				(null == expression) ? 0 : expression.length(), lexBytes,
+				parseBytes - lexBytes, evaluateBytes, tokenCount,
+				informationCount, pairCount);
+	}
+}
@@ -0,0 +1,179 @@
+package com.garygregg.coverity.codingtest;
+
+/**
+ * Contains the allocations of the calculator for a single expression: the
+ * bytes allocated by the lexical analysis, the parse and the evaluation of
+ * its compiled program, and the number of tokens, token information and pairs
+ * created by the parse.
+ * 
+ * @author Gary Gregg
+ */
+public class AllocationReport {
+
+	// The names of the columns of a report, separated by tabs
+	private static final String header = "length\tlexBytes\tparseBytes"
+			+ "\tevaluateBytes\ttokens\ttokenInformation\tpairs";
+
+	// The text of an allocation that was not measured
+	private static final String unmeasured = "-";
+
+	/**
+	 * Gets the names of the columns of a report, as a single line of
+	 * tab-separated values that matches the string form of a report.
+	 * 
+	 * @return The names of the columns of a report, without a new line
+	 */
+	public static String getHeader() {
+		return header;
+	}
+
+	/*
+	 * The bytes allocated evaluating the compiled program, up to the error if
+	 * its evaluation failed, or -1 if there is no program
+	 */
+	private final long evaluateBytes;
+
+	// The length of the expression
+	private final int expressionLength;
+
+	// The bytes allocated by the lexical analysis
+	private final long lexBytes;
+
+	// The number of pairs created by the parse
+	private final long pairCount;
+
+	/*
+	 * The bytes allocated by the parse, not counting those allocated by the
+	 * lexical analysis
+	 */
+	private final long parseBytes;
+
+	// The number of tokens created by the parse
+	private final long tokenCount;
+
+	// The number of token information created by the parse
+	private final long tokenInformationCount;
+
+	/**
+	 * Constructs the allocation report.
+	 * 
+	 * @param expressionLength
+	 *            The length of the expression
+	 * @param lexBytes
+	 *            The bytes allocated by the lexical analysis
+	 * @param parseBytes
+	 *            The bytes allocated by the parse, not counting those allocated
+	 *            by the lexical analysis
+	 * @param evaluateBytes
+	 *            The bytes allocated evaluating the compiled program, up to
+	 *            the error if its evaluation failed, or -1 if the expression
+	 *            could not be compiled
+	 * @param tokenCount
+	 *            The number of tokens created by the parse
+	 * @param tokenInformationCount
+	 *            The number of token information created by the parse
+	 * @param pairCount
+	 *            The number of pairs created by the parse
+	 */
+	public AllocationReport(int expressionLength, long lexBytes,
+			long parseBytes, long evaluateBytes, long tokenCount,
+			long tokenInformationCount, long pairCount) {
+
+		// Set the member variables.
+		this.expressionLength = expressionLength;
+		this.lexBytes = lexBytes;
+		this.parseBytes = parseBytes;
+		this.evaluateBytes = evaluateBytes;
+		this.tokenCount = tokenCount;
+		this.tokenInformationCount = tokenInformationCount;
+		this.pairCount = pairCount;
+	}
+
+	/**
+	 * Gets the bytes allocated evaluating the compiled program.
+	 * 
+	 * @return The bytes allocated evaluating the compiled program, up to the
+	 *         error if its evaluation failed, or -1 if the expression could
+	 *         not be compiled
+	 */
+	public long getEvaluateBytes() {
+		return evaluateBytes;
+	}
+
+	/**
+	 * Gets the length of the expression.
+	 * 
+	 * @return The length of the expression
+	 */
+	public int getExpressionLength() {
+		return expressionLength;
+	}
+
+	/**
+	 * Gets the bytes allocated by the lexical analysis.
+	 * 
+	 * @return The bytes allocated by the lexical analysis
+	 */
+	public long getLexBytes() {
+		return lexBytes;
+	}
+
+	/**
+	 * Gets the number of pairs created by the parse.
+	 * 
+	 * @return The number of pairs created by the parse
+	 */
+	public long getPairCount() {
+		return pairCount;
+	}
+
+	/**
+	 * Gets the bytes allocated by the parse, not counting those allocated by
+	 * the lexical analysis.
+	 * 
+	 * @return The bytes allocated by the parse
+	 */
+	public long getParseBytes() {
+		return parseBytes;
+	}
+
+	/**
+	 * Gets the number of tokens created by the parse.
+	 * 
+	 * @return The number of tokens created by the parse
+	 */
+	public long getTokenCount() {
+		return tokenCount;
+	}
+
+	/**
+	 * Gets the number of token information created by the parse.
+	 * 
+	 * @return The number of token information created by the parse
+	 */
+	public long getTokenInformationCount() {
+		return tokenInformationCount;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+
+		// Build and return a line of the columns, separated by tabs.
+		return new StringBuilder()
+				.append(expressionLength)
+				.append('\t')
+				.append(lexBytes)
+				.append('\t')
+				.append(parseBytes)
+				.append('\t')
+				.append((0L > evaluateBytes) ? unmeasured : Long
+						.toString(evaluateBytes)).append('\t')
+				.append(tokenCount).append('\t').append(tokenInformationCount)
+				.append('\t').append(pairCount).toString();
+	}
+}
@@ -0,0 +1,293 @@
+package com.garygregg.coverity.codingtest;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import com.garygregg.coverity.codingtest.metrics.MetricsRegistry;
+import com.garygregg.coverity.codingtest.metrics.Phase;
+import com.garygregg.coverity.codingtest.operation.IntrinsicArithmetic;
+import com.garygregg.coverity.codingtest.operation.OperationRegistry;
+
+/**
+ * Contains an evaluator of programs in arbitrary precision arithmetic. No
+ * result overflows, and since there is no largest value to stand in for an
+ * infinite quotient, division by zero is an error.
+ * 
+ * @author Gary Gregg
+ */
+public class BigIntegerEvaluator extends ProgramEvaluator {
+
+	/**
+	 * Constructs the arbitrary precision evaluator.
+	 */
+	public BigIntegerEvaluator() {
+		super(NumericMode.BIG_INTEGER);
+	}
+
+	/**
+	 * Evaluates a program.
+	 * 
+	 * @param program
+	 *            The program to evaluate
+	 * @return The value of each top-level expression of the program, in order
+	 * @throws EvaluationException
+	 *             Indicates that the program divides by zero, or that the
+	 *             result of another operation is undefined
+	 */
+	public BigInteger[] evaluate(Program program) throws EvaluationException {
+
+		/*
+		 * Check the mode of the program. Get its instruction arrays and
+		 * constants, and create the evaluation stack and the variable slots.
+		 */
+		checkMode(program);
+		final byte[] opcodes = program.getOpcodes();
+		final int[] operands = program.getOperands();
+		final Number[] constants = program.getConstants();
+		final BigInteger[] stack = new BigInteger[program
+				.getMaximumStackDepth()];
+		final BigInteger[] slots = new BigInteger[program.getSlotCount()];
+
+		/*
+		 * Get the registry for calls to kernels. Declare the top of the stack,
+		 * and cycle for each instruction.
+		 */
+		final OperationRegistry registry = OperationRegistry.getInstance();
+		int top = 0;
+		final int size = opcodes.length;
+		for (int i = 0; i < size; ++i) {
+
+			/*
+			 * Which instruction is it? An arithmetic exception means that its
+			 * result is undefined.
+			 */
+			try {
+				switch (opcodes[i]) {
+
+				// Push a value.
+				case Program.pushOpcode:
+					stack[top++] = BigInteger.valueOf(operands[i]);
+					break;
+
+				// Push a constant.
+				case Program.constantOpcode:
+					stack[top++] = (BigInteger) constants[operands[i]];
+					break;
+
+				// Push the value of a variable.
+				case Program.loadOpcode:
+					stack[top++] = slots[operands[i]];
+					break;
+
+				// Pop a value into the slot of a variable.
+				case Program.bindOpcode:
+					slots[operands[i]] = stack[--top];
+					stack[top] = null;
+					break;
+
+				// End a 'let' operation; its value is already on the stack.
+				case Program.letOpcode:
+					break;
+
+				/*
+				 * Add the values on top of the stack; the operand is their
+				 * number.
+				 */
+				case Program.addOpcode: {
+
+					final int first = top - operands[i];
+					BigInteger result = stack[first];
+					for (int j = first + 1; j < top; ++j) {
+						result = result.add(stack[j]);
+						stack[j] = null;
+					}
+
+					stack[first] = result;
+					top = first + 1;
+					break;
+				}
+
+				// Subtract the two values on top of the stack.
+				case Program.subtractOpcode:
+					--top;
+					stack[top - 1] = stack[top - 1].subtract(stack[top]);
+					stack[top] = null;
+					break;
+
+				/*
+				 * Multiply the values on top of the stack; the operand is
+				 * their number. A product with more bits than the limit is
+				 * undefined.
+				 */
+				case Program.multiplyOpcode: {
+
+					final int first = top - operands[i];
+					BigInteger result = stack[first];
+					for (int j = first + 1; j < top; ++j) {
+						result = IntrinsicArithmetic.multiply(result, stack[j]);
+						stack[j] = null;
+					}
+
+					stack[first] = result;
+					top = first + 1;
+					break;
+				}
+
+				// Divide the two values on top of the stack, unless it is zero.
+				case Program.divideOpcode:
+					--top;
+					if (0 == stack[top].signum()) {
+
+						final int position = program.getPosition(i);
+						throw new EvaluationException(
+								"Divisor of a divide operation at position "
+										+ position + " is zero.", position);
+					}
+
+					stack[top - 1] = stack[top - 1].divide(stack[top]);
+					stack[top] = null;
+					break;
+
+				// Take the remainder of the two values on top of the stack.
+				case Program.moduloOpcode:
+					--top;
+					stack[top - 1] = stack[top - 1].remainder(stack[top]);
+					stack[top] = null;
+					break;
+
+				/*
+				 * Keep the smallest of the values on top of the stack; the
+				 * operand is their number.
+				 */
+				case Program.minimumOpcode: {
+
+					final int first = top - operands[i];
+					BigInteger result = stack[first];
+					for (int j = first + 1; j < top; ++j) {
+						result = result.min(stack[j]);
+						stack[j] = null;
+					}
+
+					stack[first] = result;
+					top = first + 1;
+					break;
+				}
+
+				/*
+				 * Keep the largest of the values on top of the stack; the
+				 * operand is their number.
+				 */
+				case Program.maximumOpcode: {
+
+					final int first = top - operands[i];
+					BigInteger result = stack[first];
+					for (int j = first + 1; j < top; ++j) {
+						result = result.max(stack[j]);
+						stack[j] = null;
+					}
+
+					stack[first] = result;
+					top = first + 1;
+					break;
+				}
+
+				// Raise the value below the top of the stack to a power.
+				case Program.powerOpcode:
+					--top;
+					stack[top - 1] = IntrinsicArithmetic.power(stack[top - 1],
+							stack[top]);
+					stack[top] = null;
+					break;
+
+				// Shift the value below the top of the stack left.
+				case Program.shiftLeftOpcode:
+					--top;
+					stack[top - 1] = IntrinsicArithmetic.shiftLeft(
+							stack[top - 1], stack[top]);
+					stack[top] = null;
+					break;
+
+				// Shift the value below the top of the stack right.
+				case Program.shiftRightOpcode:
+					--top;
+					stack[top - 1] = IntrinsicArithmetic.shiftRight(
+							stack[top - 1], stack[top]);
+					stack[top] = null;
+					break;
+
+				// And the two values on top of the stack bitwise.
+				case Program.andOpcode:
+					--top;
+					stack[top - 1] = stack[top - 1].and(stack[top]);
+					stack[top] = null;
+					break;
+
+				// Or the two values on top of the stack bitwise.
+				case Program.orOpcode:
+					--top;
+					stack[top - 1] = stack[top - 1].or(stack[top]);
+					stack[top] = null;
+					break;
+
+				// Exclusive-or the two values on top of the stack bitwise.
+				case Program.xorOpcode:
+					--top;
+					stack[top - 1] = stack[top - 1].xor(stack[top]);
+					stack[top] = null;
+					break;
+
+				/*
+				 * Replace the two values on top of the stack with the result of
+				 * the kernel of a registered operation.
+				 */
+				case Program.callOpcode:
+					--top;
+					stack[top - 1] = registry.get(operands[i])
+							.getBigIntegerKernel()
+							.performOperation(stack[top - 1], stack[top]);
+					stack[top] = null;
+					break;
+
+				// There are no other instructions in this mode.
+				default:
+					failUnknown(program, i);
+				}
+			}
+
+			// Throw an exception for an instruction with an undefined result.
+			catch (ArithmeticException exception) {
+				throw createUndefinedException(program, i, exception);
+			}
+		}
+
+		// Return the values left on the stack.
+		return Arrays.copyOf(stack, top);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.garygregg.coverity.codingtest.ProgramEvaluator#evaluateValues(com
+	 * .garygregg.coverity.codingtest.Program)
+	 */
+	@Override
+	public Number[] evaluateValues(Program program) throws EvaluationException {
+
+		/*
+		 * Evaluate the program, recording the latency of the evaluation if
+		 * metrics are recorded.
+		 */
+		final MetricsRegistry metrics = MetricsRegistry.getInstance();
+		final boolean metered = metrics.isEnabled();
+		final long startTime = metered ? System.nanoTime() : 0L;
+		final BigInteger[] results = evaluate(program);
+		if (metered) {
+			metrics.recordLatency(Phase.EVALUATE, System.nanoTime()
+					- startTime);
+		}
+
+		// Return the results.
+		return results;
+	}
+}
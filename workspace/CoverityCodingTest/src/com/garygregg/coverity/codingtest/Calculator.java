@@ -1,5 +1,18 @@
 package com.garygregg.coverity.codingtest;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.util.concurrent.ForkJoinPool;
+
+import com.garygregg.coverity.codingtest.metrics.MetricsRegistry;
+
 /**
  * Runs the calculator.
  * 
@@ -7,6 +20,74 @@ package com.garygregg.coverity.codingtest;
  */
 public class Calculator {
 
+	/*
+	 * The command line argument that selects allocation profiling of one
+	 * expression per line of a file, or of standard input
+	 */
+	private static final String allocationsArgument = "--allocations";
+
+	// The command line argument that selects line-oriented batch mode
+	private static final String batchArgument = "--batch";
+
+	/*
+	 * The command line argument that selects the compiled evaluator, and may
+	 * be followed by a mode separator and the name of a numeric mode
+	 */
+	private static final String compiledArgument = "--compiled";
+
+	// The number of expressions generated if no number is given
+	private static final int defaultGenerateCount = 1000;
+
+	/*
+	 * The command line argument that selects generation of synthetic
+	 * expressions
+	 */
+	private static final String generateArgument = "--generate";
+
+	/*
+	 * The command line argument that runs the calculator with the arguments
+	 * that follow it, and then prints a snapshot of its metrics
+	 */
+	private static final String metricsArgument = "--metrics";
+
+	// The separator between the compiled argument and a numeric mode
+	private static final String modeSeparator = "=";
+
+	/*
+	 * The command line argument that selects evaluation of a single expression
+	 * read from a file, or from standard input, with lexical analysis in
+	 * parallel
+	 */
+	private static final String parallelArgument = "--parallel";
+
+	/*
+	 * The command line argument that selects pipelined evaluation of a single
+	 * expression read from a file, or from standard input
+	 */
+	private static final String pipelinedArgument = "--pipelined";
+
+	// The number of characters read at a time in pipelined mode
+	private static final int readLength = 1 << 16;
+
+	/*
+	 * The command line argument that runs the calculator with the arguments
+	 * that follow it, with parsers that recover from unexpected tokens in
+	 * panic mode
+	 */
+	private static final String recoverArgument = "--recover";
+
+	// The command line argument that selects server mode
+	private static final String serverArgument = "--server";
+
+	// The file name that selects standard input in batch mode
+	private static final String standardInputName = "-";
+
+	/*
+	 * The command line argument that selects validation, without evaluation,
+	 * of one expression per line of a file, or of standard input
+	 */
+	private static final String validateArgument = "--validate";
+
 	/**
 	 * Runs the parser with the first command line argument.
 	 * 
@@ -39,41 +120,618 @@ public class Calculator {
 	// }
 
 	/**
-	 * Runs the calculator once with command line arguments.
+	 * Formats the results of a parse as a single line of tab-separated values.
+	 * 
+	 * @param results
+	 *            The results of a parse
+	 * @return The results of the parse as a single line of tab-separated
+	 *         values, without a new line
+	 */
+	static String formatResults(Integer[] results) {
+
+		/*
+		 * Declare a string builder to receive the formatted results. Get the
+		 * length of the results array. Is there at least one result?
+		 */
+		final StringBuilder builder = new StringBuilder();
+		final int length = results.length;
+		if (0 < length) {
+
+			// There is at least one result. Append the first.
+			int i = 0;
+			builder.append(results[i]);
+
+			// Append each subsequent result preceded by a tab.
+			for (++i; i < length; ++i) {
+				builder.append('\t').append(results[i]);
+			}
+		}
+
+		// Return the formatted results.
+		return builder.toString();
+	}
+
+	/**
+	 * Runs the calculator in allocation profiling mode, profiling one
+	 * expression per line of a file, or of standard input. A line of
+	 * allocations is written for each line read, in order, after a line naming
+	 * the columns.
+	 * 
+	 * @param fileName
+	 *            The name of the file containing the expressions, or null (or
+	 *            '-') to read expressions from standard input
+	 */
+	private static void runAllocations(String fileName) {
+
+		/*
+		 * Create a print stream that tags diagnostics with the number of the
+		 * line that caused them. Set it as the print stream for the parser
+		 * class before any parser is created.
+		 */
+		final TaggingPrintStream errorStream = new TaggingPrintStream(
+				System.err);
+		Parser.setPrintStream(errorStream);
+
+		/*
+		 * Create a profiler, a reader for the expressions and a writer for the
+		 * allocations. Write the names of the columns.
+		 */
+		try (final BufferedReader reader = new BufferedReader(
+				((null == fileName) || standardInputName.equals(fileName)) ? new InputStreamReader(
+						System.in) : new FileReader(fileName));
+				final PrintWriter writer = new PrintWriter(new BufferedWriter(
+						new OutputStreamWriter(System.out)))) {
+
+			final AllocationProfiler profiler = new AllocationProfiler();
+			writer.println("line\t" + AllocationReport.getHeader());
+
+			// Profile each line, and write its allocations.
+			int lineNumber = 0;
+			String line = null;
+			while (null != (line = reader.readLine())) {
+
+				errorStream.setTag("Line " + (++lineNumber) + ": ");
+				writer.println(lineNumber + "\t" + profiler.profile(line));
+			}
+
+			// Clear the tag.
+			errorStream.setTag(null);
+		}
+
+		// Output an error message if the expressions could not be read.
+		catch (IOException exception) {
+			System.err.println("The calculator could not read expressions: "
+					+ exception.getMessage());
+		}
+
+		/*
+		 * Output an error message if the virtual machine cannot measure
+		 * allocations.
+		 */
+		catch (UnsupportedOperationException exception) {
+			System.err.println("The calculator could not profile allocations: "
+					+ exception.getMessage());
+		}
+	}
+
+	/**
+	 * Runs the calculator in batch mode, evaluating one expression per line of
+	 * a file, or of standard input.
+	 * 
+	 * @param fileName
+	 *            The name of the file containing the expressions, or null (or
+	 *            '-') to read expressions from standard input
+	 */
+	private static void runBatch(String fileName) {
+
+		/*
+		 * Create a print stream that tags diagnostics with the number of the
+		 * line that caused them. Set it as the print stream for the parser
+		 * class before any parser is created.
+		 */
+		final TaggingPrintStream errorStream = new TaggingPrintStream(
+				System.err);
+		Parser.setPrintStream(errorStream);
+
+		/*
+		 * Create a calculator, a reader for the expressions and a writer for
+		 * the results. Run the calculator with the reader and writer.
+		 */
+		final Calculator calculator = new Calculator();
+		try (final BufferedReader reader = new BufferedReader(
+				((null == fileName) || standardInputName.equals(fileName)) ? new InputStreamReader(
+						System.in) : new FileReader(fileName));
+				final PrintWriter writer = new PrintWriter(new BufferedWriter(
+						new OutputStreamWriter(System.out)))) {
+			calculator.run(reader, writer, errorStream);
+		}
+
+		// Output an error message if the expressions could not be read.
+		catch (IOException exception) {
+			System.err.println("The calculator could not read expressions: "
+					+ exception.getMessage());
+		}
+	}
+
+	/**
+	 * Runs the calculator once with a single expression, compiling the
+	 * expression and evaluating the compiled program.
+	 * 
+	 * @param modeArgument
+	 *            The command line argument that selected the compiled
+	 *            evaluator, and that may name a numeric mode
+	 * @param expression
+	 *            The single expression for the calculator to compile and
+	 *            evaluate
+	 * @param cacheName
+	 *            The name of the directory of a program cache, or null to
+	 *            compile without one
+	 */
+	private static void runCompiled(String modeArgument, String expression,
+			String cacheName) {
+
+		/*
+		 * Get the name of the numeric mode that follows the mode separator, if
+		 * any, and the mode with that name. Wrapped arithmetic is the default.
+		 */
+		final String modeSuffix = modeArgument.substring(compiledArgument
+				.length());
+		final NumericMode mode = modeSuffix.isEmpty() ? NumericMode.WRAPPED_INT
+				: modeSuffix.startsWith(modeSeparator) ? NumericMode
+						.forName(modeSuffix.substring(modeSeparator.length()))
+						: null;
+
+		// Output an error message if there is no such numeric mode.
+		if (null == mode) {
+			System.err.println("The calculator has no numeric mode for '"
+					+ modeArgument + "'.");
+		}
+
+		// There is such a numeric mode.
+		else {
+			runCompiled(mode, expression, cacheName);
+		}
+	}
+
+	/**
+	 * Runs the calculator once with a single expression, compiling the
+	 * expression in a numeric mode and evaluating the compiled program.
+	 * 
+	 * @param mode
+	 *            The numeric mode in which to compile and evaluate
+	 * @param expression
+	 *            The single expression for the calculator to compile and
+	 *            evaluate
+	 * @param cacheName
+	 *            The name of the directory of a program cache, or null to
+	 *            compile without one
+	 */
+	private static void runCompiled(NumericMode mode, String expression,
+			String cacheName) {
+
+		// Output the expression being compiled.
+		System.out.println("Running compiled calculator in " + mode.getName()
+				+ " mode for expression: '" + expression + "'.");
+
+		/*
+		 * Compile the expression, or load it from the program cache if there
+		 * is one, and evaluate the program. Is there at least one result?
+		 */
+		try {
+			final Program program = (null == cacheName) ? new Compiler(mode)
+					.compile(expression) : new ProgramCache(
+					new File(cacheName), mode).compile(expression);
+			final Number[] results = ProgramEvaluator.forMode(mode, System.err)
+					.evaluateValues(program);
+			final int length = results.length;
+			if (0 < length) {
+
+				/*
+				 * There is at least one result. Build a line with each result
+				 * separated by a tab, and print it.
+				 */
+				final StringBuilder builder = new StringBuilder();
+				builder.append(results[0]);
+				for (int i = 1; i < length; ++i) {
+					builder.append('\t').append(results[i]);
+				}
+
+				System.out.print(builder.append('\n'));
+			}
+		}
+
+		// Output an error message if the expression could not be compiled.
+		catch (CompilationException exception) {
+			System.err.println(exception.getMessage());
+		}
+
+		// Output an error message if the program could not be evaluated.
+		catch (EvaluationException exception) {
+			System.err.println(exception.getMessage());
+		}
+
+		// Output an error message if the program cache could not be created.
+		catch (IOException exception) {
+			System.err.println("The calculator could not use its program"
+					+ " cache: " + exception.getMessage());
+		}
+	}
+
+	/**
+	 * Generates synthetic expressions, and writes them one per line to
+	 * standard output, where they may be piped to the calculator in batch
+	 * mode.
 	 * 
 	 * @param args
-	 *            The command line arguments
+	 *            The command line arguments: after the argument that selects
+	 *            generation, the number of expressions to generate, and any
+	 *            expression generator settings, such as 'seed=42'
 	 */
-	private static void runWithCommandLineArgs(String[] args) {
+	private static void runGenerate(String[] args) {
+
+		/*
+		 * Get the number of expressions, and configure a generator with each
+		 * setting.
+		 */
+		try {
+			final int count = (2 < args.length) ? Integer.parseInt(args[2])
+					: defaultGenerateCount;
+			final ExpressionGenerator generator = new ExpressionGenerator();
+			for (int i = 3; i < args.length; ++i) {
+				generator.configure(args[i]);
+			}
+
+			// Generate and write each expression.
+			final PrintWriter writer = new PrintWriter(new BufferedWriter(
+					new OutputStreamWriter(System.out)));
+			for (int i = 0; i < count; ++i) {
+				writer.println(generator.generate());
+			}
+
+			writer.flush();
+		}
+
+		/*
+		 * Output an error message if the number is not a number, or if a
+		 * setting is not valid.
+		 */
+		catch (IllegalArgumentException exception) {
+			System.err.println("The calculator could not generate expressions: "
+					+ exception.getMessage());
+		}
+	}
+
+	/**
+	 * Runs the calculator as a server on the loopback interface until the
+	 * process is stopped.
+	 * 
+	 * @param port
+	 *            The port on which to listen, or null to use an ephemeral port
+	 */
+	private static void runServer(String port) {
+
+		// Create the server, and bind it to its port.
+		try {
+			final CalculatorServer server = new CalculatorServer(
+					(null == port) ? 0 : Integer.parseInt(port));
+			server.bind();
+
+			// Report the port, and serve until the process is stopped.
+			System.out.println("Calculator server listening on port "
+					+ server.getPort() + ".");
+			server.serve();
+		}
+
+		// Output an error message if the port is not a number.
+		catch (NumberFormatException exception) {
+			System.err.println("The calculator server port is not a number: '"
+					+ port + "'.");
+		}
+
+		// Output an error message if the server failed.
+		catch (IOException exception) {
+			System.err.println("The calculator server failed: "
+					+ exception.getMessage());
+		}
+	}
+
+	/**
+	 * Runs the calculator in validation mode, validating one expression per
+	 * line of a file, or of standard input, without evaluating it. A line is
+	 * written for each line read, in order: -1 if the expression is well
+	 * formed, otherwise the position of its first error and the kind of the
+	 * error, separated by a tab.
+	 * 
+	 * @param fileName
+	 *            The name of the file containing the expressions, or null (or
+	 *            '-') to read expressions from standard input
+	 */
+	private static void runValidate(String fileName) {
+
+		/*
+		 * Create a validator, a reader for the expressions and a writer for
+		 * the results.
+		 */
+		final Validator validator = new Validator();
+		try (final BufferedReader reader = new BufferedReader(
+				((null == fileName) || standardInputName.equals(fileName)) ? new InputStreamReader(
+						System.in) : new FileReader(fileName));
+				final PrintWriter writer = new PrintWriter(new BufferedWriter(
+						new OutputStreamWriter(System.out)))) {
+
+			// Validate each line, and write its result.
+			String line = null;
+			while (null != (line = reader.readLine())) {
+
+				// Write only the position if the expression is well formed.
+				final int position = validator.validate(line);
+				if (0 > position) {
+					writer.println(position);
+				}
+
+				// Write the position and the kind of the error.
+				else {
+					writer.println(position + "\t" + validator.getErrorKind());
+				}
+			}
+		}
+
+		// Output an error message if the expressions could not be read.
+		catch (IOException exception) {
+			System.err.println("The calculator could not read expressions: "
+					+ exception.getMessage());
+		}
+	}
+
+	/**
+	 * Runs the calculator once with a single, possibly very large, expression
+	 * read in full from a file, or from standard input. The expression is
+	 * evaluated either with lexical analysis on one thread pipelined with
+	 * parsing on another, or with lexical analysis of chunks of the expression
+	 * in parallel.
+	 * 
+	 * @param modeArgument
+	 *            The command line argument that selected the mode of
+	 *            evaluation
+	 * @param fileName
+	 *            The name of the file containing the expression, or null (or
+	 *            '-') to read the expression from standard input
+	 */
+	private static void runWholeInput(String modeArgument, String fileName) {
 
 		/*
-		 * Set the print stream for the parser class. Only proceed if there is
-		 * at least two command line arguments.
+		 * Set the print stream for the parser class. Create a reader for the
+		 * expression, and a builder to receive it.
 		 */
 		Parser.setPrintStream(System.err);
-		if (1 < args.length) {
+		try (final Reader reader = ((null == fileName) || standardInputName
+				.equals(fileName)) ? new InputStreamReader(System.in)
+				: new FileReader(fileName)) {
+			final StringBuilder builder = new StringBuilder();
+
+			// Read the expression into the builder.
+			final char[] characters = new char[readLength];
+			int length = 0;
+			while (0 <= (length = reader.read(characters))) {
+				builder.append(characters, 0, length);
+			}
+
+			// Create a parser. Evaluate the expression pipelined if selected.
+			final Parser parser = new Parser();
+			Integer[] results = null;
+			if (pipelinedArgument.equals(modeArgument)) {
+				results = parser.evaluatePipelined(builder.toString());
+			}
 
 			/*
-			 * There are two or more command line arguments. Create a
-			 * calculator, and run it with the second command line argument.
+			 * Otherwise evaluate the expression with lexical analysis in
+			 * parallel on a fork-join pool with a thread for each processor.
 			 */
-			final Calculator calculator = new Calculator();
-			calculator.run(args[1]);
+			else {
+				final ForkJoinPool pool = new ForkJoinPool();
+				try {
+					results = parser.evaluateParallel(builder.toString(), pool);
+				}
+
+				// Shut the pool down in any case.
+				finally {
+					pool.shutdown();
+				}
+			}
+
+			// Print the results on one line if there is at least one.
+			if (0 < results.length) {
+				System.out.print(formatResults(results) + "\n");
+			}
+		}
+
+		// Output an error message if the expression could not be read.
+		catch (IOException exception) {
+			System.err.println("The calculator could not read an expression: "
+					+ exception.getMessage());
+		}
+	}
+
+	/**
+	 * Runs the calculator once with command line arguments.
+	 * 
+	 * @param args
+	 *            The command line arguments
+	 */
+	private static void runWithCommandLineArgs(String[] args) {
+
+		/*
+		 * Run with the arguments after the second if the second command line
+		 * argument selects metrics, and print a snapshot of the metrics to
+		 * standard error.
+		 */
+		if ((1 < args.length) && metricsArgument.equals(args[1])) {
+
+			final String[] remainingArgs = new String[args.length - 1];
+			remainingArgs[0] = args[0];
+			System.arraycopy(args, 2, remainingArgs, 1, args.length - 2);
+			runWithCommandLineArgs(remainingArgs);
+			MetricsRegistry.getInstance().snapshot().print(System.err);
+		}
+
+		/*
+		 * Run with the arguments after the second if the second command line
+		 * argument selects recovery, with parsers that recover in panic mode.
+		 */
+		else if ((1 < args.length) && recoverArgument.equals(args[1])) {
+
+			final String[] remainingArgs = new String[args.length - 1];
+			remainingArgs[0] = args[0];
+			System.arraycopy(args, 2, remainingArgs, 1, args.length - 2);
+			Parser.setDefaultPanicMode(true);
+			runWithCommandLineArgs(remainingArgs);
+		}
+
+		/*
+		 * Profile allocations if the second command line argument selects it.
+		 * Use the third command line argument, if any, as the name of the file
+		 * containing the expressions.
+		 */
+		else if ((1 < args.length) && allocationsArgument.equals(args[1])) {
+			runAllocations((2 < args.length) ? args[2] : null);
+		}
+
+		/*
+		 * Run in batch mode if the second command line argument selects it.
+		 * Use the third command line argument, if any, as the name of the file
+		 * containing the expressions.
+		 */
+		else if ((1 < args.length) && batchArgument.equals(args[1])) {
+			runBatch((2 < args.length) ? args[2] : null);
+		}
+
+		/*
+		 * Run the compiled evaluator if the second command line argument
+		 * selects it, in the numeric mode it names. Use the third command line
+		 * argument as the expression, and the fourth, if any, as the name of
+		 * the directory of a program cache.
+		 */
+		else if ((2 < args.length) && args[1].startsWith(compiledArgument)) {
+			runCompiled(args[1], args[2], (3 < args.length) ? args[3] : null);
 		}
 
 		/*
-		 * There are fewer than two command line arguments. Output an error
-		 * message.
+		 * Generate expressions if the second command line argument selects
+		 * it.
+		 */
+		else if ((1 < args.length) && generateArgument.equals(args[1])) {
+			runGenerate(args);
+		}
+
+		/*
+		 * Run in pipelined or parallel mode if the second command line
+		 * argument selects it. Use the third command line argument, if any, as
+		 * the name of the file containing the expression.
+		 */
+		else if ((1 < args.length)
+				&& (pipelinedArgument.equals(args[1]) || parallelArgument
+						.equals(args[1]))) {
+			runWholeInput(args[1], (2 < args.length) ? args[2] : null);
+		}
+
+		/*
+		 * Run in server mode if the second command line argument selects it.
+		 * Use the third command line argument, if any, as the port.
+		 */
+		else if ((1 < args.length) && serverArgument.equals(args[1])) {
+			runServer((2 < args.length) ? args[2] : null);
+		}
+
+		/*
+		 * Run in validation mode if the second command line argument selects
+		 * it. Use the third command line argument, if any, as the name of the
+		 * file containing the expressions.
+		 */
+		else if ((1 < args.length) && validateArgument.equals(args[1])) {
+			runValidate((2 < args.length) ? args[2] : null);
+		}
+
+		/*
+		 * Neither batch nor server mode is selected. Set the print stream for
+		 * the parser class. Only proceed if there is at least two command line
+		 * arguments.
 		 */
 		else {
-			System.err
-					.println("The calculator is missing a command line argument to parse.");
+			Parser.setPrintStream(System.err);
+			if (1 < args.length) {
+
+				/*
+				 * There are two or more command line arguments. Create a
+				 * calculator, and run it with the second command line argument.
+				 */
+				final Calculator calculator = new Calculator();
+				calculator.run(args[1]);
+			}
+
+			/*
+			 * There are fewer than two command line arguments. Output an error
+			 * message.
+			 */
+			else {
+				System.err
+						.println("The calculator is missing a command line argument to parse.");
+			}
 		}
 	}
 
 	// The parser for the calculator.
 	private final Parser parser = new Parser();
 
+	/**
+	 * Runs a calculator parser with each line from a reader as a single
+	 * expression. One line of results is written for each line read, in order.
+	 * 
+	 * @param reader
+	 *            The reader of the expressions, one per line
+	 * @param writer
+	 *            The writer for the results, one line per expression
+	 * @param errorStream
+	 *            The print stream receiving diagnostics, tagged here with the
+	 *            line number of the expression being parsed
+	 * @throws IOException
+	 *             Indicates that a line could not be read
+	 */
+	private void run(BufferedReader reader, PrintWriter writer,
+			TaggingPrintStream errorStream) throws IOException {
+
+		// Declare a line number and a variable to receive each line.
+		int lineNumber = 0;
+		String line = null;
+
+		// Cycle while lines exist.
+		while (null != (line = reader.readLine())) {
+
+			/*
+			 * Tag diagnostics with the number of the line. Evaluate the line,
+			 * and write its results.
+			 */
+			errorStream.setTag("Line " + (++lineNumber) + ": ");
+			try {
+				writer.println(formatResults(parser.evaluate(line)));
+			}
+
+			/*
+			 * An unexpected failure on one line should not stop the batch.
+			 * Output an error message, and write an empty line of results so
+			 * that the output stays aligned with the input.
+			 */
+			catch (RuntimeException exception) {
+				errorStream.println("Error: evaluation failed with " + exception
+						+ "; no results for this line.");
+				writer.println();
+			}
+		}
+
+		// Clear the tag, and flush the results.
+		errorStream.setTag(null);
+		writer.flush();
+	}
+
 	/**
 	 * Runs a calculator parser with a single given expression.
 	 * 
@@ -86,33 +744,15 @@ public class Calculator {
 		System.out.println("Running calculator for expression: '" + expression
 				+ "'.");
 
-		// Set the expression in the parser, and connect it for analysis.
-		parser.setExpression(expression);
-		parser.connectForAnalysis();
-
-		// Launch the parser, and disconnect it from analysis.
-		parser.launch();
-		parser.disconnectFromAnalysis();
-
 		/*
-		 * Get the results of the parse, and the length of the returned array.
-		 * Is there at least one result?
+		 * Evaluate the expression, and get the results of the parse. Is there
+		 * at least one result?
 		 */
-		final Integer[] results = parser.getResults();
-		final int length = results.length;
-		if (0 < length) {
-
-			// There is at least one result. Print the first.
-			int i = 0;
-			System.out.print(results[i]);
-
-			// Print each subsequent result preceded by a tab.
-			for (++i; i < length; ++i) {
-				System.out.print("\t" + results[i]);
-			}
+		final Integer[] results = parser.evaluate(expression);
+		if (0 < results.length) {
 
-			// Print a new line.
-			System.out.print("\n");
+			// There is at least one result. Print the results on one line.
+			System.out.print(formatResults(results) + "\n");
 		}
 	}
 
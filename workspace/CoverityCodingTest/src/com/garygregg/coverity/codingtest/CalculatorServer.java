@@ -0,0 +1,475 @@
+package com.garygregg.coverity.codingtest;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Contains a long-running calculator server that listens on the loopback
+ * interface. Each line received on a connection is evaluated as an
+ * independent expression. The reply to each line is zero or more diagnostic
+ * lines, each prefixed with '! ', followed by exactly one result line,
+ * prefixed with '= ', that holds the tab-separated results of the expression.
+ * Each connection is served by its own thread - a virtual thread when the
+ * runtime supports them - with a parser borrowed from a shared pool. A line
+ * longer than the limit of the server is not evaluated; its reply is a
+ * diagnostic and no results.
+ * 
+ * @author Gary Gregg
+ */
+public class CalculatorServer {
+
+	// The character set of the protocol
+	private static final Charset charset = Charset.forName("UTF-8");
+
+	// The default limit on the number of characters in a line
+	public static final int defaultMaximumLineLength = 1 << 20;
+
+	// The prefix of a diagnostic line in a reply
+	private static final String diagnosticPrefix = "! ";
+
+	// The prefix of the result line in a reply
+	private static final String resultPrefix = "= ";
+
+	/**
+	 * Creates the thread factory for connections. Virtual threads are used if
+	 * the runtime supports them; daemon platform threads are used otherwise.
+	 * 
+	 * @return The thread factory for connections
+	 */
+	private static ThreadFactory createConnectionThreadFactory() {
+
+		/*
+		 * Try to get a factory for virtual threads by reflection, so that this
+		 * class works on runtimes with and without them.
+		 */
+		ThreadFactory factory = null;
+		try {
+			final Object builder = Thread.class.getMethod("ofVirtual").invoke(
+					null);
+			factory = (ThreadFactory) Class.forName("java.lang.Thread$Builder")
+					.getMethod("factory").invoke(builder);
+		}
+
+		/*
+		 * Virtual threads are not available. Use a factory for daemon platform
+		 * threads.
+		 */
+		catch (ReflectiveOperationException | RuntimeException exception) {
+			factory = new ThreadFactory() {
+
+				/*
+				 * (non-Javadoc)
+				 * 
+				 * @see
+				 * java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable
+				 * )
+				 */
+				@Override
+				public Thread newThread(Runnable runnable) {
+
+					// Create a daemon thread for the runnable.
+					final Thread thread = new Thread(runnable,
+							"calculator-connection");
+					thread.setDaemon(true);
+					return thread;
+				}
+			};
+		}
+
+		// Return the factory.
+		return factory;
+	}
+
+	// The thread that accepts connections, or null if not started
+	private Thread acceptThread;
+
+	// The thread factory for connections
+	private final ThreadFactory connectionThreadFactory = createConnectionThreadFactory();
+
+	// The limit on the number of characters in a line
+	private final int maximumLineLength;
+
+	// The sockets of the open connections
+	private final Set<Socket> openSockets = Collections
+			.newSetFromMap(new ConcurrentHashMap<Socket, Boolean>());
+
+	// The pool of parsers shared by the connections
+	private final ParserPool parserPool = new ParserPool();
+
+	// The requested port, zero to use an ephemeral port
+	private final int requestedPort;
+
+	// The server socket, or null if not bound
+	private volatile ServerSocket serverSocket;
+
+	/**
+	 * Constructs the calculator server.
+	 * 
+	 * @param port
+	 *            The loopback port on which to listen, or zero to use an
+	 *            ephemeral port
+	 */
+	public CalculatorServer(int port) {
+		this(port, defaultMaximumLineLength);
+	}
+
+	/**
+	 * Constructs the calculator server.
+	 * 
+	 * @param port
+	 *            The loopback port on which to listen, or zero to use an
+	 *            ephemeral port
+	 * @param maximumLineLength
+	 *            The limit on the number of characters in a line; must be
+	 *            positive
+	 */
+	public CalculatorServer(int port, int maximumLineLength) {
+
+		// Throw an exception if the limit is not positive.
+		if (0 >= maximumLineLength) {
+			throw new IllegalArgumentException(
+					"The limit on line length must be positive; it was "
+							+ maximumLineLength + ".");
+		}
+
+		// Set the member variables.
+		requestedPort = port;
+		this.maximumLineLength = maximumLineLength;
+	}
+
+	/**
+	 * Binds the server to its loopback port.
+	 * 
+	 * @throws IOException
+	 *             Indicates that the server could not be bound
+	 */
+	public synchronized void bind() throws IOException {
+
+		// Only bind if the server is not already bound.
+		if (null == serverSocket) {
+
+			/*
+			 * Create a server socket, and bind it to the requested port of the
+			 * loopback interface.
+			 */
+			final ServerSocket socket = new ServerSocket();
+			socket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+					requestedPort));
+			serverSocket = socket;
+		}
+	}
+
+	/**
+	 * Gets the number of parsers idle in the pool of the server.
+	 * 
+	 * @return The number of parsers idle in the pool of the server
+	 */
+	public int getIdleParserCount() {
+		return parserPool.getIdleCount();
+	}
+
+	/**
+	 * Gets the limit on the number of characters in a line.
+	 * 
+	 * @return The limit on the number of characters in a line
+	 */
+	public int getMaximumLineLength() {
+		return maximumLineLength;
+	}
+
+	/**
+	 * Gets the port on which the server listens.
+	 * 
+	 * @return The port on which the server listens, or -1 if the server is not
+	 *         bound
+	 */
+	public int getPort() {
+
+		// Return the local port of the server socket, if any.
+		final ServerSocket socket = serverSocket;
+		return (null == socket) ? -1 : socket.getLocalPort();
+	}
+
+	/**
+	 * Accepts connections until the server is stopped, serving each on a
+	 * thread of its own. The server is bound first if it is not already.
+	 * 
+	 * @throws IOException
+	 *             Indicates that the server could not be bound
+	 */
+	public void serve() throws IOException {
+
+		// Bind the server, and get the server socket.
+		bind();
+		final ServerSocket socket = serverSocket;
+
+		// Cycle while the server socket is open.
+		while ((null != socket) && !socket.isClosed()) {
+
+			// Accept the first/next connection, and start a thread to serve it.
+			try {
+				final Socket connection = socket.accept();
+				openSockets.add(connection);
+				connectionThreadFactory.newThread(new Runnable() {
+
+					/*
+					 * (non-Javadoc)
+					 * 
+					 * @see java.lang.Runnable#run()
+					 */
+					@Override
+					public void run() {
+						serve(connection);
+					}
+				}).start();
+			}
+
+			// The server socket was closed while waiting to accept.
+			catch (SocketException exception) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Binds the server, and starts accepting connections on a background
+	 * thread.
+	 * 
+	 * @throws IOException
+	 *             Indicates that the server could not be bound
+	 */
+	public synchronized void start() throws IOException {
+
+		// Only start if the server has not already been started.
+		if (null == acceptThread) {
+
+			// Bind the server, and create a thread to accept connections.
+			bind();
+			acceptThread = new Thread(new Runnable() {
+
+				/*
+				 * (non-Javadoc)
+				 * 
+				 * @see java.lang.Runnable#run()
+				 */
+				@Override
+				public void run() {
+
+					// Serve until the server is stopped.
+					try {
+						serve();
+					} catch (IOException exception) {
+						System.err.println("The calculator server stopped: "
+								+ exception.getMessage());
+					}
+				}
+			}, "calculator-accept");
+
+			// Make the accept thread a daemon, and start it.
+			acceptThread.setDaemon(true);
+			acceptThread.start();
+		}
+	}
+
+	/**
+	 * Stops the server, closing the server socket and all open connections.
+	 */
+	public synchronized void stop() {
+
+		// Close the server socket, if any.
+		final ServerSocket socket = serverSocket;
+		if (null != socket) {
+			close(socket);
+		}
+
+		// Close each open connection.
+		for (Socket connection : openSockets) {
+			close(connection);
+		}
+
+		// Clear the open connections, and the accept thread.
+		openSockets.clear();
+		acceptThread = null;
+	}
+
+	/**
+	 * Closes a closeable, ignoring any error.
+	 * 
+	 * @param closeable
+	 *            The closeable to close
+	 */
+	private void close(AutoCloseable closeable) {
+
+		// Close the closeable. There is nothing more to do on failure.
+		try {
+			closeable.close();
+		} catch (Exception exception) {
+		}
+	}
+
+	/**
+	 * Reads a line, keeping no more of it than the limit on the number of
+	 * characters in a line. A line ends with a line feed, a carriage return,
+	 * or a carriage return followed by a line feed, as for a buffered reader.
+	 * 
+	 * @param reader
+	 *            The reader from which to read the line
+	 * @param line
+	 *            A builder to receive the characters of the line, up to the
+	 *            limit
+	 * @return The number of characters in the line, which may exceed the
+	 *         number kept, or -1 if the reader ended before any character of
+	 *         a line
+	 * @throws IOException
+	 *             Indicates that the line could not be read
+	 */
+	private int readLine(BufferedReader reader, StringBuilder line)
+			throws IOException {
+
+		/*
+		 * Clear the builder, and read the first character; the length is -1
+		 * if the reader has ended. Cycle until the line or the reader ends,
+		 * keeping characters up to the limit.
+		 */
+		line.setLength(0);
+		int character = reader.read();
+		int length = (-1 == character) ? -1 : 0;
+		while ((-1 != character) && ('\n' != character)
+				&& ('\r' != character)) {
+
+			// Keep the character if the line is within the limit.
+			if (maximumLineLength > length) {
+				line.append((char) character);
+			}
+
+			++length;
+			character = reader.read();
+		}
+
+		/*
+		 * Skip a line feed that follows a carriage return, as part of the end
+		 * of the line.
+		 */
+		if ('\r' == character) {
+
+			reader.mark(1);
+			if ('\n' != reader.read()) {
+				reader.reset();
+			}
+		}
+
+		// Return the length of the line.
+		return length;
+	}
+
+	/**
+	 * Serves one connection until the client closes it.
+	 * 
+	 * @param connection
+	 *            The socket of the connection
+	 */
+	private void serve(Socket connection) {
+
+		// Borrow a parser for the connection.
+		ParserPool.PooledParser parser = parserPool.borrow();
+		try (final BufferedReader reader = new BufferedReader(
+				new InputStreamReader(connection.getInputStream(), charset));
+				final PrintWriter writer = new PrintWriter(new BufferedWriter(
+						new OutputStreamWriter(connection.getOutputStream(),
+								charset)))) {
+
+			// Cycle while lines exist.
+			final StringBuilder line = new StringBuilder();
+			int length = 0;
+			while (-1 != (length = readLine(reader, line))) {
+
+				/*
+				 * Is the line longer than the limit? Reply with a diagnostic,
+				 * and no results, without evaluating the line.
+				 */
+				Integer[] results = null;
+				boolean failed = false;
+				if (maximumLineLength < length) {
+					writer.print(diagnosticPrefix + "Error: line of " + length
+							+ " characters exceeds the limit of "
+							+ maximumLineLength
+							+ "; no results for this line.\n");
+					results = new Integer[0];
+				}
+
+				/*
+				 * The line is within the limit. Evaluate it, and reply with its
+				 * diagnostics followed by its results.
+				 */
+				else {
+
+					try {
+						results = parser.evaluate(line.toString());
+					}
+
+					/*
+					 * An unexpected failure on one line, including a line
+					 * nested too deeply for the stack, should not end the
+					 * connection. Reply with a diagnostic, and no results.
+					 */
+					catch (RuntimeException | StackOverflowError exception) {
+						writer.print(diagnosticPrefix
+								+ "Error: evaluation failed with " + exception
+								+ "; no results for this line.\n");
+						results = new Integer[0];
+						failed = true;
+					}
+
+					// Write the diagnostics of the evaluation.
+					for (String error : parser.getErrors()) {
+						writer.print(diagnosticPrefix + error + "\n");
+					}
+				}
+
+				/*
+				 * A parser whose evaluation failed may be left in an
+				 * inconsistent state. Drop it, and borrow another.
+				 */
+				if (failed) {
+					parser = parserPool.borrow();
+				}
+
+				// Write the results, and flush the reply.
+				writer.print(resultPrefix + Calculator.formatResults(results)
+						+ "\n");
+				writer.flush();
+			}
+		}
+
+		/*
+		 * The connection failed, or was closed by a stop. There is no one to
+		 * whom to report the failure.
+		 */
+		catch (IOException exception) {
+		}
+
+		/*
+		 * Give the parser back to the pool, and forget the socket of the
+		 * connection.
+		 */
+		finally {
+			parserPool.giveBack(parser);
+			openSockets.remove(connection);
+			close(connection);
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package com.garygregg.coverity.codingtest;
+
+/**
+ * Indicates that an expression could not be compiled.
+ * 
+ * @author Gary Gregg
+ */
+public class CompilationException extends Exception {
+
+	// The serial version UID of the class
+	private static final long serialVersionUID = 1L;
+
+	// The position in the input stream of the error, or -1 if none
+	private final int position;
+
+	/**
+	 * Constructs the compilation exception.
+	 * 
+	 * @param message
+	 *            A description of the error
+	 * @param position
+	 *            The position in the input stream of the error, or -1 if the
+	 *            error has no position
+	 */
+	public CompilationException(String message, int position) {
+
+		// Set the message and the position.
+		super(message);
+		this.position = position;
+	}
+
+	/**
+	 * Gets the position in the input stream of the error.
+	 * 
+	 * @return The position in the input stream of the error, or -1 if the
+	 *         error has no position
+	 */
+	public int getPosition() {
+		return position;
+	}
+}
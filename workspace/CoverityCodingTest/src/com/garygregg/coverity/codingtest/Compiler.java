@@ -0,0 +1,1099 @@
+package com.garygregg.coverity.codingtest;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener;
+import com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListenerAdapter;
+import com.garygregg.coverity.codingtest.lexical_analysis.CountingTokenListener;
+import com.garygregg.coverity.codingtest.lexical_analysis.LexicalAnalyzer;
+import com.garygregg.coverity.codingtest.lexical_analysis.TokenBuffer;
+import com.garygregg.coverity.codingtest.metrics.MetricsRegistry;
+import com.garygregg.coverity.codingtest.metrics.Phase;
+import com.garygregg.coverity.codingtest.operation.Intrinsic;
+import com.garygregg.coverity.codingtest.operation.OperationDescriptor;
+import com.garygregg.coverity.codingtest.token.AddToken;
+import com.garygregg.coverity.codingtest.token.CloseToken;
+import com.garygregg.coverity.codingtest.token.CommaToken;
+import com.garygregg.coverity.codingtest.token.DivideToken;
+import com.garygregg.coverity.codingtest.token.KeyToken;
+import com.garygregg.coverity.codingtest.token.LetToken;
+import com.garygregg.coverity.codingtest.token.MultiplyToken;
+import com.garygregg.coverity.codingtest.token.OpenToken;
+import com.garygregg.coverity.codingtest.token.RegisteredOperationToken;
+import com.garygregg.coverity.codingtest.token.SubtractToken;
+import com.garygregg.coverity.codingtest.token.Token;
+import com.garygregg.coverity.codingtest.token.UnknownToken;
+import com.garygregg.coverity.codingtest.token.ValueToken;
+import com.garygregg.coverity.codingtest.token.VariableToken;
+
+/**
+ * Contains a compiler that translates an expression into a postfix program.
+ * Like the parser, the compiler keeps the operations still open on an explicit
+ * stack rather than on the Java stack, so the depth of nesting it accepts is
+ * limited only by its configurable limits. Unlike the parser, the compiler
+ * stops at the first error, and resolves each variable to a slot when it is
+ * compiled. Each program is compiled for a numeric mode, which decides the
+ * range of the values it may contain.
+ * 
+ * @author Gary Gregg
+ */
+public class Compiler implements AnalysisListener {
+
+	/*
+	 * The number of arguments of an arithmetic operation, or the least number
+	 * of a variadic one
+	 */
+	private static final int binaryArgumentCount = 2;
+
+	// The default limit on the depth of nesting of operations
+	public static final int defaultMaximumDepth = 1 << 24;
+
+	// The default limit on the number of instructions of a program
+	public static final int defaultMaximumSize = 1 << 26;
+
+	// The initial capacity of the growable arrays
+	private static final int initialCapacity = 64;
+
+	/*
+	 * An adapter that delivers tokens to the compiler in a single call each,
+	 * recycling key tokens since the compiler keeps none
+	 */
+	private final AnalysisListenerAdapter adapter = new AnalysisListenerAdapter(
+			this, true);
+
+	// The constants compiled so far that are too wide for an operand
+	private final List<Number> constants = new ArrayList<Number>();
+
+	/*
+	 * The listener that counts the tokens of a compilation while metrics are
+	 * recorded
+	 */
+	private final CountingTokenListener counter = new CountingTokenListener();
+
+	// The description of the first error, or null if there has been none
+	private String errorMessage;
+
+	// The position of the first error in the input stream, or -1 if none
+	private int errorPosition;
+
+	// The code size at which compilation started for each open operation
+	private int[] frameCodeStarts = new int[initialCapacity];
+
+	// The number of open operations
+	private int frameCount;
+
+	// The variable being bound by each open 'let' operation, if known
+	private String[] frameNames = new String[initialCapacity];
+
+	// The opcode of each open operation
+	private byte[] frameOpcodes = new byte[initialCapacity];
+
+	/*
+	 * The operand of the instruction that ends each open operation, unless it
+	 * is a 'let' operation; for a variadic operation, the number of its
+	 * arguments so far
+	 */
+	private int[] frameOperands = new int[initialCapacity];
+
+	// The position in the input stream of each open operation
+	private int[] framePositions = new int[initialCapacity];
+
+	// The parse state at the time each open operation was received
+	private State[] frameStates = new State[initialCapacity];
+
+	// The lexical analyzer for the compiler
+	private final LexicalAnalyzer lexicalAnalyzer = new LexicalAnalyzer();
+
+	// The limit on the depth of nesting of operations
+	private int maximumDepth = defaultMaximumDepth;
+
+	// The limit on the number of instructions of a program
+	private int maximumSize = defaultMaximumSize;
+
+	// The maximum number of variables bound at the same time
+	private int maximumSlotCount;
+
+	// The maximum depth of the evaluation stack
+	private int maximumStackDepth;
+
+	// The numeric mode for which the compiler compiles programs
+	private final NumericMode mode;
+
+	// The opcodes of the instructions compiled so far
+	private byte[] opcodes = new byte[initialCapacity];
+
+	// The operands of the instructions compiled so far
+	private int[] operands = new int[initialCapacity];
+
+	// The source positions of the instructions compiled so far
+	private int[] positions = new int[initialCapacity];
+
+	// The number of top-level expressions compiled so far
+	private int resultCount;
+
+	// The slot each bound variable shadowed when it was bound, or null if none
+	private Integer[] shadowedSlots = new Integer[initialCapacity];
+
+	// The number of instructions compiled so far
+	private int size;
+
+	// The number of variables currently bound
+	private int slotCount;
+
+	// The names of the variables currently bound, by slot
+	private String[] slotNames = new String[initialCapacity];
+
+	// The depth of the evaluation stack after the instructions so far
+	private int stackDepth;
+
+	// The state of the compiler
+	private State state;
+
+	/*
+	 * The index of the first instruction of the subexpression ended by each
+	 * instruction compiled so far
+	 */
+	private int[] subtreeStarts = new int[initialCapacity];
+
+	// The buffer in which the lexical analyzer collects batches of tokens
+	private final TokenBuffer tokenBuffer = new TokenBuffer();
+
+	// The slots of the variables that are currently visible, by name
+	private final Map<String, Integer> visibleSlots = new HashMap<String, Integer>();
+
+	/**
+	 * Constructs the compiler for wrapped 32-bit arithmetic.
+	 */
+	public Compiler() {
+		this(NumericMode.WRAPPED_INT);
+	}
+
+	/**
+	 * Constructs the compiler for an explicit numeric mode.
+	 * 
+	 * @param mode
+	 *            The numeric mode for which to compile programs
+	 */
+	public Compiler(NumericMode mode) {
+		this.mode = mode;
+	}
+
+	/**
+	 * Compiles an expression into a program.
+	 * 
+	 * @param expression
+	 *            The expression to compile
+	 * @return The program for the expression
+	 * @throws CompilationException
+	 *             Indicates that the expression is malformed, uses an
+	 *             undefined variable, contains a value out of the range of the
+	 *             numeric mode, or exceeds a limit of the compiler
+	 */
+	public Program compile(String expression) throws CompilationException {
+
+		/*
+		 * Note the start of the compilation if metrics are recorded. Set the
+		 * expression in the lexical analyzer, and launch the analyzer with the
+		 * compiler as its only token listener, delivering tokens in batches
+		 * and counting them if metrics are recorded.
+		 */
+		final MetricsRegistry metrics = MetricsRegistry.getInstance();
+		final boolean metered = metrics.isEnabled();
+		final long startTime = metered ? System.nanoTime() : 0L;
+		lexicalAnalyzer.setExpression(expression);
+		lexicalAnalyzer.launch(counter.attach(adapter, metered), tokenBuffer);
+
+		/*
+		 * Record the latencies of the compilation and of its lexical analysis,
+		 * and count the tokens, if metrics are recorded.
+		 */
+		if (metered) {
+
+			metrics.recordLatency(Phase.PARSE, System.nanoTime() - startTime);
+			metrics.recordLatency(Phase.LEX, lexicalAnalyzer.getScanTime());
+			metrics.countTokens(counter);
+		}
+
+		// Throw an exception if there was an error.
+		if (null != errorMessage) {
+			throw new CompilationException(errorMessage, errorPosition);
+		}
+
+		// Create and return the program.
+		return new Program(mode, Arrays.copyOf(opcodes, size),
+				Arrays.copyOf(operands, size), Arrays.copyOf(positions, size),
+				Arrays.copyOf(subtreeStarts, size),
+				constants.toArray(new Number[constants.size()]),
+				maximumSlotCount, maximumStackDepth, resultCount);
+	}
+
+	/**
+	 * Gets the limit on the depth of nesting of operations.
+	 * 
+	 * @return The limit on the depth of nesting of operations
+	 */
+	public int getMaximumDepth() {
+		return maximumDepth;
+	}
+
+	/**
+	 * Gets the limit on the number of instructions of a program.
+	 * 
+	 * @return The limit on the number of instructions of a program
+	 */
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	/**
+	 * Gets the numeric mode for which the compiler compiles programs.
+	 * 
+	 * @return The numeric mode for which the compiler compiles programs
+	 */
+	public NumericMode getMode() {
+		return mode;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+	 * receiveAddToken(com.garygregg.coverity.codingtest.token.AddToken)
+	 */
+	@Override
+	public void receiveAddToken(AddToken token) {
+		receiveOperationToken(token, Program.addOpcode, binaryArgumentCount,
+				State.EXPECTING_OPEN);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+	 * receiveCloseToken(com.garygregg.coverity.codingtest.token.CloseToken)
+	 */
+	@Override
+	public void receiveCloseToken(CloseToken token) {
+
+		// Only receive the token if there has been no error.
+		if (null == errorMessage) {
+
+			// We can only close if our current state is EXPECTING_CLOSE.
+			if (State.EXPECTING_CLOSE.equals(state)) {
+
+				/*
+				 * Pop the operation being closed. Get its opcode, the position of
+				 * the operation, and the index of its first instruction.
+				 */
+				final int frame = --frameCount;
+				final byte opcode = frameOpcodes[frame];
+				final int position = framePositions[frame];
+				final int codeStart = frameCodeStarts[frame];
+
+				// Is the operation a 'let' operation?
+				if (Program.letOpcode == opcode) {
+
+					/*
+					 * The operation is a 'let' operation. End it, and unbind its
+					 * variable, which is the most recently bound.
+					 */
+					emit(opcode, slotCount - 1, position, codeStart, 0);
+					unbind();
+				}
+
+				/*
+				 * The operation is an arithmetic operation. It replaces its
+				 * arguments with its result; a variadic operation counts its
+				 * arguments in its operand.
+				 */
+				else {
+
+					final int operand = frameOperands[frame];
+					emit(opcode, operand, position, codeStart, 1 - (Program
+							.isVariadic(opcode) ? operand : binaryArgumentCount));
+				}
+
+				/*
+				 * The result of the operation is an argument in the state in which
+				 * the operation was received. Restore that state, and complete the
+				 * argument.
+				 */
+				state = frameStates[frame];
+				frameNames[frame] = null;
+				completeArgument(position);
+			}
+
+			/*
+			 * We are not in the EXPECTING_CLOSE state. Record an unexpected token
+			 * error.
+			 */
+			else {
+				failUnexpected(token);
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+	 * receiveCommaToken(com.garygregg.coverity.codingtest.token.CommaToken)
+	 */
+	@Override
+	public void receiveCommaToken(CommaToken token) {
+
+		// Only receive the token if there has been no error.
+		if (null == errorMessage) {
+
+			/*
+			 * Transition to the expecting last argument state if the current state
+			 * is expecting last comma.
+			 */
+			if (State.EXPECTING_LAST_COMMA.equals(state)) {
+				state = State.EXPECTING_LAST_ARGUMENT;
+			}
+
+			/*
+			 * Otherwise transition to the expecting 2nd argument after 'let' state
+			 * if the current state is expecting comma after 'let'.
+			 */
+			else if (State.EXPECTING_COMMA_AFTER_LET.equals(state)) {
+				state = State.EXPECTING_SECOND_ARGUMENT_AFTER_LET;
+			}
+
+			/*
+			 * Otherwise transition back to the expecting last argument state if
+			 * the current state is expecting close, and the innermost operation
+			 * is variadic. Count its extra argument.
+			 */
+			else if (State.EXPECTING_CLOSE.equals(state)
+					&& Program.isVariadic(frameOpcodes[frameCount - 1])) {
+
+				++frameOperands[frameCount - 1];
+				state = State.EXPECTING_LAST_ARGUMENT;
+			}
+
+			// Otherwise record an unexpected token error.
+			else {
+				failUnexpected(token);
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+	 * receiveDivideToken(com.garygregg.coverity.codingtest.token.DivideToken)
+	 */
+	@Override
+	public void receiveDivideToken(DivideToken token) {
+		receiveOperationToken(token, Program.divideOpcode,
+				binaryArgumentCount, State.EXPECTING_OPEN);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+	 * receiveLetToken(com.garygregg.coverity.codingtest.token.LetToken)
+	 */
+	@Override
+	public void receiveLetToken(LetToken token) {
+		receiveOperationToken(token, Program.letOpcode, 0,
+				State.EXPECTING_OPEN_AFTER_LET);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+	 * receiveMultiplyToken
+	 * (com.garygregg.coverity.codingtest.token.MultiplyToken)
+	 */
+	@Override
+	public void receiveMultiplyToken(MultiplyToken token) {
+		receiveOperationToken(token, Program.multiplyOpcode,
+				binaryArgumentCount, State.EXPECTING_OPEN);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+	 * receiveOpenToken(com.garygregg.coverity.codingtest.token.OpenToken)
+	 */
+	@Override
+	public void receiveOpenToken(OpenToken token) {
+
+		// Only receive the token if there has been no error.
+		if (null == errorMessage) {
+
+			/*
+			 * Transition to the expecting 1st argument state if the current state
+			 * is expecting open.
+			 */
+			if (State.EXPECTING_OPEN.equals(state)) {
+				state = State.EXPECTING_FIRST_ARGUMENT;
+			}
+
+			/*
+			 * Otherwise transition to the 1st argument after 'let' state if the
+			 * current state is expecting open after 'let'.
+			 */
+			else if (State.EXPECTING_OPEN_AFTER_LET.equals(state)) {
+				state = State.EXPECTING_FIRST_ARGUMENT_AFTER_LET;
+			}
+
+			// Otherwise record an unexpected token error.
+			else {
+				failUnexpected(token);
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+	 * receiveRegisteredOperationToken
+	 * (com.garygregg.coverity.codingtest.token.RegisteredOperationToken)
+	 */
+	@Override
+	public void receiveRegisteredOperationToken(RegisteredOperationToken token) {
+
+		/*
+		 * Get the descriptor of the operation. Compile an intrinsic operation
+		 * to its own instruction, and any other to a call of its kernel.
+		 */
+		final OperationDescriptor descriptor = token.getDescriptor();
+		final Intrinsic intrinsic = descriptor.getIntrinsic();
+		if (null == intrinsic) {
+			receiveOperationToken(token, Program.callOpcode,
+					descriptor.getId(), State.EXPECTING_OPEN);
+		}
+
+		else {
+			receiveOperationToken(token, getOpcode(intrinsic),
+					binaryArgumentCount, State.EXPECTING_OPEN);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+	 * receiveSubtractToken
+	 * (com.garygregg.coverity.codingtest.token.SubtractToken)
+	 */
+	@Override
+	public void receiveSubtractToken(SubtractToken token) {
+		receiveOperationToken(token, Program.subtractOpcode,
+				binaryArgumentCount, State.EXPECTING_OPEN);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+	 * receiveUnknownToken(com.garygregg.coverity.codingtest.token.UnknownToken)
+	 */
+	@Override
+	public void receiveUnknownToken(UnknownToken token) {
+
+		// Record an unexpected token error if there has been no error.
+		if (null == errorMessage) {
+			failUnexpected(token);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+	 * receiveValueToken(com.garygregg.coverity.codingtest.token.ValueToken)
+	 */
+	@Override
+	public void receiveValueToken(ValueToken token) {
+
+		// Only receive the token if there has been no error.
+		if (null == errorMessage) {
+
+			// May a value token be received in the current state?
+			if (mayReceiveArgument()) {
+
+				/*
+				 * A value token may be received in the current state. Push its
+				 * value, and complete the argument.
+				 */
+				pushValue(token);
+				completeArgument(token.getPosition());
+			}
+
+			/*
+			 * A value token may not be received in the current state. Record an
+			 * unexpected token error.
+			 */
+			else {
+				failUnexpected(token);
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+	 * receiveVariableToken
+	 * (com.garygregg.coverity.codingtest.token.VariableToken)
+	 */
+	@Override
+	public void receiveVariableToken(VariableToken token) {
+
+		// Only receive the token if there has been no error.
+		if (null == errorMessage) {
+
+			/*
+			 * Is the current state the one in which a 'let' operation expects the
+			 * variable it binds?
+			 */
+			final String name = token.getExpression();
+			if (State.EXPECTING_FIRST_ARGUMENT_AFTER_LET.equals(state)) {
+
+				/*
+				 * The variable is the one the 'let' operation binds. Remember its
+				 * name until its value has been compiled.
+				 */
+				frameNames[frameCount - 1] = name;
+				state = State.EXPECTING_COMMA_AFTER_LET;
+			}
+
+			// Otherwise may an argument be received in the current state?
+			else if (mayReceiveArgument()) {
+
+				/*
+				 * An argument may be received in the current state. Find the slot
+				 * of the variable. Is the variable undefined?
+				 */
+				final Integer slot = visibleSlots.get(name);
+				final int position = token.getPosition();
+				if (null == slot) {
+
+					// The variable is undefined. Record an error.
+					fail("Attempt to use undefined symbol, '" + name
+							+ "' at position " + position + ".", position);
+				}
+
+				/*
+				 * The variable is defined. Push the value of its slot, and complete
+				 * the argument.
+				 */
+				else {
+					emit(Program.loadOpcode, slot, position, size, 1);
+					completeArgument(position);
+				}
+			}
+
+			/*
+			 * A variable token may not be received in the current state. Record an
+			 * unexpected token error.
+			 */
+			else {
+				failUnexpected(token);
+			}
+		}
+	}
+
+	/**
+	 * Sets the limit on the depth of nesting of operations.
+	 * 
+	 * @param maximumDepth
+	 *            The limit on the depth of nesting of operations
+	 */
+	public void setMaximumDepth(int maximumDepth) {
+		this.maximumDepth = maximumDepth;
+	}
+
+	/**
+	 * Sets the limit on the number of instructions of a program.
+	 * 
+	 * @param maximumSize
+	 *            The limit on the number of instructions of a program
+	 */
+	public void setMaximumSize(int maximumSize) {
+		this.maximumSize = maximumSize;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+	 * startAnalysis()
+	 */
+	@Override
+	public void startAnalysis() {
+
+		// Clear any error, and the code and constants compiled so far.
+		errorMessage = null;
+		errorPosition = -1;
+		size = 0;
+		constants.clear();
+		stackDepth = 0;
+		maximumStackDepth = 0;
+		resultCount = 0;
+
+		// Clear the open operations and the bound variables.
+		Arrays.fill(frameNames, 0, frameCount, null);
+		frameCount = 0;
+		while (0 < slotCount) {
+			unbind();
+		}
+
+		// Clear the maximum slot count, and expect an operation.
+		maximumSlotCount = 0;
+		state = State.EXPECTING_OPERATION;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+	 * stopAnalysis()
+	 */
+	@Override
+	public void stopAnalysis() {
+
+		/*
+		 * At this point our state should be EXPECTING_OPERATION, unless there
+		 * has already been an error.
+		 */
+		if ((null == errorMessage) && !State.EXPECTING_OPERATION.equals(state)) {
+			fail("Error: parse of input has ended in state of " + state + ".",
+					-1);
+		}
+	}
+
+	/**
+	 * Binds the variable of the innermost open 'let' operation to the value on
+	 * top of the evaluation stack.
+	 * 
+	 * @param position
+	 *            The position of the token that completed the value
+	 */
+	private void bind(int position) {
+
+		/*
+		 * Get the name of the variable, and the slot it is bound to. Pop the
+		 * value into the slot.
+		 */
+		final String name = frameNames[frameCount - 1];
+		final int slot = slotCount;
+		emit(Program.bindOpcode, slot, position, size, -1);
+
+		// Make the slot visible by the name, remembering what it shadows.
+		ensureSlotCapacity(slot + 1);
+		slotNames[slot] = name;
+		shadowedSlots[slot] = visibleSlots.put(name, slot);
+
+		// Increment the slot count, and update its maximum.
+		if (maximumSlotCount < ++slotCount) {
+			maximumSlotCount = slotCount;
+		}
+	}
+
+	/**
+	 * Completes an argument in the current state, and transitions to the next
+	 * state.
+	 * 
+	 * @param position
+	 *            The position of the token that completed the argument
+	 */
+	private void completeArgument(int position) {
+
+		// Which state are we in?
+		switch (state) {
+
+		/*
+		 * A top-level operation has completed. Count its result, and expect
+		 * another operation.
+		 */
+		case EXPECTING_OPERATION:
+			++resultCount;
+			break;
+
+		// A first argument has completed. Expect the last comma.
+		case EXPECTING_FIRST_ARGUMENT:
+			state = State.EXPECTING_LAST_COMMA;
+			break;
+
+		// A last argument has completed. Expect a close.
+		case EXPECTING_LAST_ARGUMENT:
+			state = State.EXPECTING_CLOSE;
+			break;
+
+		/*
+		 * The value of a 'let' variable has completed. Bind it, and expect the
+		 * last comma.
+		 */
+		case EXPECTING_SECOND_ARGUMENT_AFTER_LET:
+			bind(position);
+			state = State.EXPECTING_LAST_COMMA;
+			break;
+
+		// No argument may complete in any other state.
+		default:
+			assert false : state;
+		}
+	}
+
+	/**
+	 * Appends an instruction to the program.
+	 * 
+	 * @param opcode
+	 *            The opcode of the instruction
+	 * @param operand
+	 *            The operand of the instruction
+	 * @param position
+	 *            The source position of the instruction
+	 * @param subtreeStart
+	 *            The index of the first instruction of the subexpression that
+	 *            the instruction ends
+	 * @param stackEffect
+	 *            The change in the depth of the evaluation stack caused by the
+	 *            instruction
+	 */
+	private void emit(byte opcode, int operand, int position,
+			int subtreeStart, int stackEffect) {
+
+		// Record an error if the program would exceed its limit.
+		if (maximumSize <= size) {
+			fail("Compiled expression size exceeds the limit of "
+					+ maximumSize + " instructions at position " + position
+					+ ".", position);
+		}
+
+		// The program is within its limit.
+		else {
+
+			// Grow the instruction arrays if they are full.
+			if (opcodes.length == size) {
+
+				final int capacity = grow(size);
+				opcodes = Arrays.copyOf(opcodes, capacity);
+				operands = Arrays.copyOf(operands, capacity);
+				positions = Arrays.copyOf(positions, capacity);
+				subtreeStarts = Arrays.copyOf(subtreeStarts, capacity);
+			}
+
+			// Append the instruction.
+			opcodes[size] = opcode;
+			operands[size] = operand;
+			positions[size] = position;
+			subtreeStarts[size++] = subtreeStart;
+
+			// Update the depth of the evaluation stack, and its maximum.
+			if (maximumStackDepth < (stackDepth += stackEffect)) {
+				maximumStackDepth = stackDepth;
+			}
+		}
+	}
+
+	/**
+	 * Ensures that the slot arrays have at least a given capacity.
+	 * 
+	 * @param capacity
+	 *            The capacity required
+	 */
+	private void ensureSlotCapacity(int capacity) {
+
+		// Grow the slot arrays if they are too small.
+		if (slotNames.length < capacity) {
+
+			final int newCapacity = grow(slotNames.length);
+			slotNames = Arrays.copyOf(slotNames, newCapacity);
+			shadowedSlots = Arrays.copyOf(shadowedSlots, newCapacity);
+		}
+	}
+
+	/**
+	 * Records an error, unless an error has already been recorded.
+	 * 
+	 * @param message
+	 *            A description of the error
+	 * @param position
+	 *            The position of the error in the input stream, or -1 if none
+	 */
+	private void fail(String message, int position) {
+
+		// Record the error if it is the first.
+		if (null == errorMessage) {
+
+			errorMessage = message;
+			errorPosition = position;
+		}
+	}
+
+	/**
+	 * Records an unexpected token error.
+	 * 
+	 * @param token
+	 *            The token that was unexpected
+	 */
+	private void failUnexpected(Token token) {
+
+		// Get the position of the token, and record the error.
+		final Integer position = token.getPosition();
+		fail("Unexpected " + token.toString() + " encountered at position "
+				+ position + " while expecting "
+				+ Parser.getWhileExpectingString(state) + ".",
+				(null == position) ? -1 : position);
+	}
+
+	/**
+	 * Gets the opcode of an intrinsic operation.
+	 * 
+	 * @param intrinsic
+	 *            The intrinsic operation
+	 * @return The opcode of the intrinsic operation
+	 */
+	private static byte getOpcode(Intrinsic intrinsic) {
+
+		// Declare a variable to receive the opcode. Which intrinsic is it?
+		byte opcode = Program.callOpcode;
+		switch (intrinsic) {
+
+		// The intrinsic is a bitwise conjunction.
+		case AND:
+			opcode = Program.andOpcode;
+			break;
+
+		// The intrinsic is a maximum.
+		case MAXIMUM:
+			opcode = Program.maximumOpcode;
+			break;
+
+		// The intrinsic is a minimum.
+		case MINIMUM:
+			opcode = Program.minimumOpcode;
+			break;
+
+		// The intrinsic is a remainder.
+		case MODULO:
+			opcode = Program.moduloOpcode;
+			break;
+
+		// The intrinsic is a bitwise disjunction.
+		case OR:
+			opcode = Program.orOpcode;
+			break;
+
+		// The intrinsic is a power.
+		case POWER:
+			opcode = Program.powerOpcode;
+			break;
+
+		// The intrinsic is a left shift.
+		case SHIFT_LEFT:
+			opcode = Program.shiftLeftOpcode;
+			break;
+
+		// The intrinsic is a right shift.
+		case SHIFT_RIGHT:
+			opcode = Program.shiftRightOpcode;
+			break;
+
+		// The intrinsic is a bitwise exclusive disjunction.
+		case XOR:
+			opcode = Program.xorOpcode;
+			break;
+		}
+
+		// Return the opcode.
+		return opcode;
+	}
+
+	/**
+	 * Calculates a grown capacity for a full array.
+	 * 
+	 * @param capacity
+	 *            The current capacity of the array
+	 * @return The grown capacity of the array
+	 */
+	private int grow(int capacity) {
+		return capacity + (capacity >> 1) + 1;
+	}
+
+	/**
+	 * Determines if the compiler may currently receive an argument.
+	 * 
+	 * @return True if the compiler may receive an argument, false otherwise
+	 */
+	private boolean mayReceiveArgument() {
+		return State.EXPECTING_FIRST_ARGUMENT.equals(state)
+				|| State.EXPECTING_LAST_ARGUMENT.equals(state)
+				|| State.EXPECTING_SECOND_ARGUMENT_AFTER_LET.equals(state);
+	}
+
+	/**
+	 * Pushes a constant too wide for an operand.
+	 * 
+	 * @param constant
+	 *            The constant
+	 * @param position
+	 *            The position of the token for the constant
+	 */
+	private void pushConstant(Number constant, int position) {
+
+		// Push the constant by its index in the pool, and add it to the pool.
+		emit(Program.constantOpcode, constants.size(), position, size, 1);
+		constants.add(constant);
+	}
+
+	/**
+	 * Pushes the value of a value token: as an operand if it fits in one, or
+	 * as a constant if it is within the range of the numeric mode. Records an
+	 * error if the value is out of that range.
+	 * 
+	 * @param token
+	 *            The value token
+	 */
+	private void pushValue(ValueToken token) {
+
+		/*
+		 * Get the literal text, the value and the position of the token. Is
+		 * the literal within the range of an integer?
+		 */
+		final String literal = token.getExpression();
+		final int value = token.getValue();
+		final int position = token.getPosition();
+		if (LexicalAnalyzer.isIntegerLiteral(literal, value)) {
+
+			// Push the value as an operand.
+			emit(Program.pushOpcode, value, position, size, 1);
+		}
+
+		/*
+		 * The literal is too wide for an operand. Push it as a constant in
+		 * arbitrary precision mode.
+		 */
+		else if (NumericMode.BIG_INTEGER.equals(mode)) {
+			pushConstant(new BigInteger(literal), position);
+		}
+
+		/*
+		 * Otherwise push it as a constant in long mode if it is within the
+		 * range of a long.
+		 */
+		else if (NumericMode.LONG.equals(mode)
+				&& (Long.SIZE > new BigInteger(literal).bitLength())) {
+			pushConstant(Long.valueOf(new BigInteger(literal).longValue()),
+					position);
+		}
+
+		// Otherwise the literal is out of range. Record an error.
+		else {
+			fail("Value '" + literal + "' at position " + position
+					+ " is out of range for " + mode.getName()
+					+ " arithmetic.", position);
+		}
+	}
+
+	/**
+	 * Receives an operation token.
+	 * 
+	 * @param token
+	 *            The operation token to be received
+	 * @param opcode
+	 *            The opcode of the operation
+	 * @param operand
+	 *            The operand of the instruction that ends the operation,
+	 *            unless it is a 'let' operation
+	 * @param transitionTo
+	 *            The state to transition to if the token may be received
+	 */
+	private void receiveOperationToken(KeyToken token, byte opcode,
+			int operand, State transitionTo) {
+
+		// Only receive the token if there has been no error.
+		if (null == errorMessage) {
+
+			// May an operation be received in the current state?
+			final int position = token.getStart();
+			if (State.EXPECTING_OPERATION.equals(state) || mayReceiveArgument()) {
+
+				/*
+				 * An operation may be received in the current state. Record an
+				 * error if the operation would exceed the nesting limit.
+				 */
+				if (maximumDepth <= frameCount) {
+					fail("Expression nesting depth exceeds the limit of "
+							+ maximumDepth + " at position " + position + ".",
+							position);
+				}
+
+				/*
+				 * The operation is within the nesting limit. Push it as an open
+				 * operation.
+				 */
+				else {
+
+					// Grow the operation arrays if they are full.
+					if (frameOpcodes.length == frameCount) {
+
+						final int capacity = grow(frameCount);
+						frameCodeStarts = Arrays.copyOf(frameCodeStarts, capacity);
+						frameNames = Arrays.copyOf(frameNames, capacity);
+						frameOpcodes = Arrays.copyOf(frameOpcodes, capacity);
+						frameOperands = Arrays.copyOf(frameOperands, capacity);
+						framePositions = Arrays.copyOf(framePositions, capacity);
+						frameStates = Arrays.copyOf(frameStates, capacity);
+					}
+
+					// Push the operation, and transition.
+					frameCodeStarts[frameCount] = size;
+					frameOpcodes[frameCount] = opcode;
+					frameOperands[frameCount] = operand;
+					framePositions[frameCount] = position;
+					frameStates[frameCount++] = state;
+					state = transitionTo;
+				}
+			}
+
+			/*
+			 * An operation may not be received in the current state. Record an
+			 * unexpected token error.
+			 */
+			else {
+				failUnexpected(token);
+			}
+		}
+	}
+
+	/**
+	 * Unbinds the most recently bound variable.
+	 */
+	private void unbind() {
+
+		/*
+		 * Get the slot of the variable, and restore the slot it shadowed, if
+		 * any.
+		 */
+		final int slot = --slotCount;
+		final String name = slotNames[slot];
+		final Integer shadowed = shadowedSlots[slot];
+		if (null == shadowed) {
+			visibleSlots.remove(name);
+		} else {
+			visibleSlots.put(name, shadowed);
+		}
+
+		// Clear the slot.
+		slotNames[slot] = null;
+		shadowedSlots[slot] = null;
+	}
+}
@@ -0,0 +1,39 @@
+package com.garygregg.coverity.codingtest;
+
+/**
+ * Indicates that a compiled program could not be evaluated.
+ * 
+ * @author Gary Gregg
+ */
+public class EvaluationException extends Exception {
+
+	// The serial version UID of the class
+	private static final long serialVersionUID = 1L;
+
+	// The position in the input stream of the error
+	private final int position;
+
+	/**
+	 * Constructs the evaluation exception.
+	 * 
+	 * @param message
+	 *            A description of the error
+	 * @param position
+	 *            The position in the input stream of the error
+	 */
+	public EvaluationException(String message, int position) {
+
+		// Set the message and the position.
+		super(message);
+		this.position = position;
+	}
+
+	/**
+	 * Gets the position in the input stream of the error.
+	 * 
+	 * @return The position in the input stream of the error
+	 */
+	public int getPosition() {
+		return position;
+	}
+}
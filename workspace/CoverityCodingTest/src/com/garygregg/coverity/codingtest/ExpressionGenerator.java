@@ -0,0 +1,723 @@
+package com.garygregg.coverity.codingtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.garygregg.coverity.codingtest.operation.OperationDescriptor;
+import com.garygregg.coverity.codingtest.operation.OperationRegistry;
+
+/**
+ * Generates synthetic expressions in the calculator language for stress and
+ * scaling tests. Each expression is a line of one or more top-level
+ * operations with about a given number of tokens, nested no deeper than a
+ * given depth. The settings control how often an operation is a 'let'
+ * operation, how often a leaf refers to a bound variable rather than being a
+ * literal, how often a 'let' operation shadows a visible variable rather than
+ * binding a fresh one, the magnitude of literals, and how often an expression
+ * is made malformed. Every expression is well formed unless it is made
+ * malformed, though it may still divide by zero. The same seed and settings
+ * generate the same expressions, for the same operations in the registry.
+ * 
+ * @author Gary Gregg
+ */
+public class ExpressionGenerator {
+
+	// The default depth of nesting of operations
+	public static final int defaultMaximumDepth = 8;
+
+	// The default number of tokens in an expression
+	public static final int defaultTokenCount = 64;
+
+	// The greatest depth of nesting of operations that may be set
+	public static final int depthLimit = 1 << 12;
+
+	// The setting that selects the error rate
+	private static final String errorRateSetting = "errors";
+
+	// The operations known to the parser but not in the registry
+	private static final String[] keyOperations = { "add", "sub", "mult",
+			"div" };
+
+	// The setting that selects the 'let' density
+	private static final String letDensitySetting = "lets";
+
+	// The setting that selects the literal magnitude
+	private static final String literalMagnitudeSetting = "magnitude";
+
+	// The setting that selects the maximum depth
+	private static final String maximumDepthSetting = "depth";
+
+	// The most arguments given to a variadic operation
+	private static final int maximumVariadicArity = 5;
+
+	// The least number of tokens in a 'let' operation
+	private static final int minimumLetTokens = 9;
+
+	// The least number of tokens in an operation
+	private static final int minimumOperationTokens = 6;
+
+	// The prefix of the names of variables
+	private static final String namePrefix = "v";
+
+	// The setting that selects the seed
+	private static final String seedSetting = "seed";
+
+	// The separator between the name and value of a setting
+	private static final String settingSeparator = "=";
+
+	// The setting that selects the shadowing rate
+	private static final String shadowingRateSetting = "shadowing";
+
+	// The setting that selects the number of tokens
+	private static final String tokenCountSetting = "tokens";
+
+	// An unknown token that makes an expression malformed
+	private static final String unknownToken = "^";
+
+	// The setting that selects the variable reuse rate
+	private static final String variableReuseRateSetting = "reuse";
+
+	/**
+	 * Checks that a rate is a probability.
+	 * 
+	 * @param rate
+	 *            The rate
+	 * @param description
+	 *            A description of the rate for an error message
+	 * @return The rate
+	 * @throws IllegalArgumentException
+	 *             Indicates that the rate is not between zero and one
+	 */
+	private static double checkRate(double rate, String description) {
+
+		// Throw an exception if the rate is not a probability.
+		if (!((0.0 <= rate) && (1.0 >= rate))) {
+			throw new IllegalArgumentException("The " + description
+					+ " of an expression generator must be between 0 and 1;"
+					+ " it is " + rate + ".");
+		}
+
+		// Return the rate.
+		return rate;
+	}
+
+	// The probability that an expression is made malformed
+	private double errorRate;
+
+	// The probability that an operation is a 'let' operation
+	private double letDensity = 0.1;
+
+	// The greatest magnitude of a literal
+	private long literalMagnitude = 1000L;
+
+	// The depth of nesting of operations
+	private int maximumDepth = defaultMaximumDepth;
+
+	// The names of the operations, keyed and registered
+	private final String[] operationNames;
+
+	// The source of randomness
+	private final Random random;
+
+	// The seed of the generator
+	private long seed;
+
+	// The probability that a 'let' operation shadows a visible variable
+	private double shadowingRate = 0.1;
+
+	// The number of tokens in an expression
+	private int tokenCount = defaultTokenCount;
+
+	// The probability that a leaf refers to a visible variable
+	private double variableReuseRate = 0.5;
+
+	// Whether each operation is variadic
+	private final boolean[] variadic;
+
+	// The names of the visible variables, from the outermost
+	private final List<String> visibleNames = new ArrayList<String>();
+
+	/**
+	 * Constructs the expression generator with a seed of zero.
+	 */
+	public ExpressionGenerator() {
+		this(0L);
+	}
+
+	/**
+	 * Constructs the expression generator with an explicit seed.
+	 * 
+	 * @param seed
+	 *            The seed of the generator
+	 */
+	public ExpressionGenerator(long seed) {
+
+		// Set the seed, and get the operations.
+		random = new Random(seed);
+		this.seed = seed;
+		final OperationRegistry registry = OperationRegistry.getInstance();
+		final String[] registeredNames = registry.getNames();
+		operationNames = new String[keyOperations.length
+				+ registeredNames.length];
+		variadic = new boolean[operationNames.length];
+
+		// Add the keyed operations, of which 'add' and 'mult' are variadic.
+		for (int i = 0; i < keyOperations.length; ++i) {
+
+			operationNames[i] = keyOperations[i];
+			variadic[i] = "add".equals(keyOperations[i])
+					|| "mult".equals(keyOperations[i]);
+		}
+
+		// Add the registered operations.
+		for (int i = 0; i < registeredNames.length; ++i) {
+
+			final OperationDescriptor descriptor = registry
+					.find(registeredNames[i]);
+			operationNames[keyOperations.length + i] = registeredNames[i];
+			variadic[keyOperations.length + i] = descriptor.isVariadic();
+		}
+	}
+
+	/**
+	 * Configures a setting given as its name, a separator and its value, as
+	 * on a command line: 'seed', 'tokens', 'depth', 'lets', 'reuse',
+	 * 'shadowing', 'magnitude' or 'errors'.
+	 * 
+	 * @param setting
+	 *            The setting, such as 'depth=12'
+	 * @throws IllegalArgumentException
+	 *             Indicates that the setting is not known, or that its value
+	 *             is not valid
+	 */
+	public void configure(String setting) {
+
+		/*
+		 * Split the setting into its name and value. Throw an exception if
+		 * there is no separator.
+		 */
+		final int index = setting.indexOf(settingSeparator);
+		if (0 > index) {
+			throw new IllegalArgumentException("The expression generator"
+					+ " setting '" + setting + "' has no value.");
+		}
+
+		/*
+		 * Set the seed if the name selects it. Number format exceptions are
+		 * illegal argument exceptions.
+		 */
+		final String name = setting.substring(0, index);
+		final String value = setting.substring(index
+				+ settingSeparator.length());
+		if (seedSetting.equals(name)) {
+			setSeed(Long.parseLong(value));
+		}
+
+		// Set the number of tokens if the name selects it.
+		else if (tokenCountSetting.equals(name)) {
+			setTokenCount(Integer.parseInt(value));
+		}
+
+		// Set the maximum depth if the name selects it.
+		else if (maximumDepthSetting.equals(name)) {
+			setMaximumDepth(Integer.parseInt(value));
+		}
+
+		// Set the 'let' density if the name selects it.
+		else if (letDensitySetting.equals(name)) {
+			setLetDensity(Double.parseDouble(value));
+		}
+
+		// Set the variable reuse rate if the name selects it.
+		else if (variableReuseRateSetting.equals(name)) {
+			setVariableReuseRate(Double.parseDouble(value));
+		}
+
+		// Set the shadowing rate if the name selects it.
+		else if (shadowingRateSetting.equals(name)) {
+			setShadowingRate(Double.parseDouble(value));
+		}
+
+		// Set the literal magnitude if the name selects it.
+		else if (literalMagnitudeSetting.equals(name)) {
+			setLiteralMagnitude(Long.parseLong(value));
+		}
+
+		// Set the error rate if the name selects it.
+		else if (errorRateSetting.equals(name)) {
+			setErrorRate(Double.parseDouble(value));
+		}
+
+		// The name selects no setting.
+		else {
+			throw new IllegalArgumentException("The expression generator has"
+					+ " no setting named '" + name + "'.");
+		}
+	}
+
+	/**
+	 * Generates the next expression.
+	 * 
+	 * @return The next expression
+	 */
+	public String generate() {
+
+		/*
+		 * Append top-level expressions, separated by spaces, until there are
+		 * enough tokens.
+		 */
+		final StringBuilder builder = new StringBuilder();
+		int count = 0;
+		do {
+
+			if (0 < count) {
+				builder.append(' ');
+			}
+
+			count += appendExpression(builder, tokenCount - count, 0);
+		} while (tokenCount > count);
+
+		// Make the expression malformed at the error rate.
+		if (random.nextDouble() < errorRate) {
+			corrupt(builder);
+		}
+
+		// Return the expression.
+		return builder.toString();
+	}
+
+	/**
+	 * Generates a number of expressions.
+	 * 
+	 * @param count
+	 *            The number of expressions
+	 * @return The expressions
+	 */
+	public String[] generate(int count) {
+
+		// Generate each expression.
+		final String[] expressions = new String[count];
+		for (int i = 0; i < count; ++i) {
+			expressions[i] = generate();
+		}
+
+		// Return the expressions.
+		return expressions;
+	}
+
+	/**
+	 * Gets the probability that an expression is made malformed.
+	 * 
+	 * @return The probability that an expression is made malformed
+	 */
+	public double getErrorRate() {
+		return errorRate;
+	}
+
+	/**
+	 * Gets the probability that an operation is a 'let' operation.
+	 * 
+	 * @return The probability that an operation is a 'let' operation
+	 */
+	public double getLetDensity() {
+		return letDensity;
+	}
+
+	/**
+	 * Gets the greatest magnitude of a literal.
+	 * 
+	 * @return The greatest magnitude of a literal
+	 */
+	public long getLiteralMagnitude() {
+		return literalMagnitude;
+	}
+
+	/**
+	 * Gets the depth of nesting of operations.
+	 * 
+	 * @return The depth of nesting of operations
+	 */
+	public int getMaximumDepth() {
+		return maximumDepth;
+	}
+
+	/**
+	 * Gets the seed with which the generator was last seeded.
+	 * 
+	 * @return The seed with which the generator was last seeded
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Gets the probability that a 'let' operation shadows a visible variable.
+	 * 
+	 * @return The probability that a 'let' operation shadows a visible
+	 *         variable
+	 */
+	public double getShadowingRate() {
+		return shadowingRate;
+	}
+
+	/**
+	 * Gets the number of tokens in an expression.
+	 * 
+	 * @return The number of tokens in an expression
+	 */
+	public int getTokenCount() {
+		return tokenCount;
+	}
+
+	/**
+	 * Gets the probability that a leaf refers to a visible variable.
+	 * 
+	 * @return The probability that a leaf refers to a visible variable
+	 */
+	public double getVariableReuseRate() {
+		return variableReuseRate;
+	}
+
+	/**
+	 * Sets the probability that an expression is made malformed: truncated, or
+	 * given an unknown token.
+	 * 
+	 * @param errorRate
+	 *            The probability that an expression is made malformed
+	 * @throws IllegalArgumentException
+	 *             Indicates that the rate is not between zero and one
+	 */
+	public void setErrorRate(double errorRate) {
+		this.errorRate = checkRate(errorRate, "error rate");
+	}
+
+	/**
+	 * Sets the probability that an operation is a 'let' operation.
+	 * 
+	 * @param letDensity
+	 *            The probability that an operation is a 'let' operation
+	 * @throws IllegalArgumentException
+	 *             Indicates that the density is not between zero and one
+	 */
+	public void setLetDensity(double letDensity) {
+		this.letDensity = checkRate(letDensity, "'let' density");
+	}
+
+	/**
+	 * Sets the greatest magnitude of a literal. A magnitude beyond the range
+	 * of an integer generates literals of which the parser uses the low 32
+	 * bits.
+	 * 
+	 * @param literalMagnitude
+	 *            The greatest magnitude of a literal
+	 * @throws IllegalArgumentException
+	 *             Indicates that the magnitude is negative
+	 */
+	public void setLiteralMagnitude(long literalMagnitude) {
+
+		// Throw an exception if the magnitude is negative.
+		if (0L > literalMagnitude) {
+			throw new IllegalArgumentException("The literal magnitude of an"
+					+ " expression generator may not be negative; it is "
+					+ literalMagnitude + ".");
+		}
+
+		// Set the magnitude.
+		this.literalMagnitude = literalMagnitude;
+	}
+
+	/**
+	 * Sets the depth of nesting of operations.
+	 * 
+	 * @param maximumDepth
+	 *            The depth of nesting of operations
+	 * @throws IllegalArgumentException
+	 *             Indicates that the depth is not positive, or is greater than
+	 *             the depth limit
+	 */
+	public void setMaximumDepth(int maximumDepth) {
+
+		// Throw an exception if the depth is out of range.
+		if ((0 >= maximumDepth) || (depthLimit < maximumDepth)) {
+			throw new IllegalArgumentException("The maximum depth of an"
+					+ " expression generator must be between 1 and "
+					+ depthLimit + "; it is " + maximumDepth + ".");
+		}
+
+		// Set the depth.
+		this.maximumDepth = maximumDepth;
+	}
+
+	/**
+	 * Seeds the generator again, so that it generates the same expressions as
+	 * a new generator with the seed.
+	 * 
+	 * @param seed
+	 *            The seed of the generator
+	 */
+	public void setSeed(long seed) {
+
+		// Seed the source of randomness, and remember the seed.
+		random.setSeed(seed);
+		this.seed = seed;
+	}
+
+	/**
+	 * Sets the probability that a 'let' operation shadows a visible variable
+	 * rather than binding a fresh one.
+	 * 
+	 * @param shadowingRate
+	 *            The probability that a 'let' operation shadows a visible
+	 *            variable
+	 * @throws IllegalArgumentException
+	 *             Indicates that the rate is not between zero and one
+	 */
+	public void setShadowingRate(double shadowingRate) {
+		this.shadowingRate = checkRate(shadowingRate, "shadowing rate");
+	}
+
+	/**
+	 * Sets the number of tokens in an expression. An expression has at least
+	 * this many tokens, and no more than a few more.
+	 * 
+	 * @param tokenCount
+	 *            The number of tokens in an expression
+	 * @throws IllegalArgumentException
+	 *             Indicates that the number is not positive
+	 */
+	public void setTokenCount(int tokenCount) {
+
+		// Throw an exception if the number is not positive.
+		if (0 >= tokenCount) {
+			throw new IllegalArgumentException("The token count of an"
+					+ " expression generator must be positive; it is "
+					+ tokenCount + ".");
+		}
+
+		// Set the number.
+		this.tokenCount = tokenCount;
+	}
+
+	/**
+	 * Sets the probability that a leaf refers to a visible variable, if there
+	 * is one, rather than being a literal.
+	 * 
+	 * @param variableReuseRate
+	 *            The probability that a leaf refers to a visible variable
+	 * @throws IllegalArgumentException
+	 *             Indicates that the rate is not between zero and one
+	 */
+	public void setVariableReuseRate(double variableReuseRate) {
+		this.variableReuseRate = checkRate(variableReuseRate,
+				"variable reuse rate");
+	}
+
+	/**
+	 * Appends an expression with about a given number of tokens.
+	 * 
+	 * @param builder
+	 *            The builder to which to append the expression
+	 * @param budget
+	 *            The number of tokens the expression should have
+	 * @param depth
+	 *            The depth of nesting of the expression
+	 * @return The number of tokens appended
+	 */
+	private int appendExpression(StringBuilder builder, int budget, int depth) {
+
+		/*
+		 * Append a leaf if the budget allows no operation, or if the
+		 * expression is as deep as it may be. A top-level expression is always
+		 * an operation.
+		 */
+		int count = 0;
+		if ((0 < depth) && ((minimumOperationTokens > budget)
+				|| (maximumDepth <= depth))) {
+			count = appendLeaf(builder);
+		}
+
+		// Otherwise append a 'let' operation at the density of them.
+		else if ((minimumLetTokens <= budget)
+				&& (random.nextDouble() < letDensity)) {
+			count = appendLet(builder, budget, depth);
+		}
+
+		// Otherwise append another operation.
+		else {
+			count = appendOperation(builder, budget, depth);
+		}
+
+		// Return the number of tokens appended.
+		return count;
+	}
+
+	/**
+	 * Appends a leaf: a visible variable at the reuse rate, or otherwise a
+	 * literal.
+	 * 
+	 * @param builder
+	 *            The builder to which to append the leaf
+	 * @return The number of tokens appended, which is one
+	 */
+	private int appendLeaf(StringBuilder builder) {
+
+		/*
+		 * Append a visible variable at the reuse rate, if any variable is
+		 * visible.
+		 */
+		if ((!visibleNames.isEmpty())
+				&& (random.nextDouble() < variableReuseRate)) {
+			builder.append(visibleNames.get(random.nextInt(visibleNames
+					.size())));
+		}
+
+		/*
+		 * Otherwise append a literal no greater in magnitude than the
+		 * greatest, negative half the time.
+		 */
+		else {
+
+			long magnitude = random.nextLong() & Long.MAX_VALUE;
+			if (Long.MAX_VALUE != literalMagnitude) {
+				magnitude %= literalMagnitude + 1L;
+			}
+
+			builder.append(random.nextBoolean() ? -magnitude : magnitude);
+		}
+
+		// A leaf is one token.
+		return 1;
+	}
+
+	/**
+	 * Appends a 'let' operation with about a given number of tokens, binding a
+	 * fresh variable or shadowing a visible one.
+	 * 
+	 * @param builder
+	 *            The builder to which to append the operation
+	 * @param budget
+	 *            The number of tokens the operation should have, at least the
+	 *            fewest a 'let' operation takes
+	 * @param depth
+	 *            The depth of nesting of the operation
+	 * @return The number of tokens appended
+	 */
+	private int appendLet(StringBuilder builder, int budget, int depth) {
+
+		/*
+		 * Shadow a visible variable at the shadowing rate, or otherwise name a
+		 * fresh one. No visible name has an index as great as the number of
+		 * visible names.
+		 */
+		final String name = ((!visibleNames.isEmpty()) && (random
+				.nextDouble() < shadowingRate)) ? visibleNames.get(random
+				.nextInt(visibleNames.size())) : namePrefix
+				+ visibleNames.size();
+
+		/*
+		 * Split the tokens other than the seven of the operation itself between
+		 * the value and the body, giving the value the smaller share. Append
+		 * the value, in which the variable is not yet visible.
+		 */
+		final int remaining = budget - 7;
+		final int valueBudget = 1 + random.nextInt(Math.max(1, remaining / 4));
+		builder.append("let(").append(name).append(',');
+		int count = 7 + appendExpression(builder, valueBudget, depth + 1);
+
+		// Append the body, in which the variable is visible.
+		builder.append(',');
+		visibleNames.add(name);
+		count += appendExpression(builder, remaining - valueBudget, depth + 1);
+		visibleNames.remove(visibleNames.size() - 1);
+		builder.append(')');
+
+		// Return the number of tokens appended.
+		return count;
+	}
+
+	/**
+	 * Appends an operation other than 'let' with about a given number of
+	 * tokens.
+	 * 
+	 * @param builder
+	 *            The builder to which to append the operation
+	 * @param budget
+	 *            The number of tokens the operation should have, at least the
+	 *            fewest an operation takes
+	 * @param depth
+	 *            The depth of nesting of the operation
+	 * @return The number of tokens appended
+	 */
+	private int appendOperation(StringBuilder builder, int budget, int depth) {
+
+		/*
+		 * Choose the operation, and the number of its arguments. A variadic
+		 * operation takes as many as the budget allows, up to a limit; each
+		 * argument takes at least two tokens with its comma.
+		 */
+		final int index = random.nextInt(operationNames.length);
+		int arity = 2;
+		if (variadic[index]) {
+			arity += random.nextInt(Math.max(1, Math.min(
+					maximumVariadicArity - 1, (budget - 2) / 2 - 1)));
+		}
+
+		/*
+		 * Append the operation. The name, the parentheses and the commas take
+		 * two more tokens than there are arguments; split the rest of the
+		 * budget about evenly between the arguments.
+		 */
+		builder.append(operationNames[index]).append('(');
+		int remaining = budget - arity - 2;
+		int count = arity + 2;
+		for (int i = 0; i < arity; ++i) {
+
+			/*
+			 * Give the argument between half and one and a half times its
+			 * share, leaving at least one token for each argument after it.
+			 */
+			final int left = arity - i;
+			final int share = Math.max(0, remaining / left);
+			final int argumentBudget = (1 == left) ? remaining : Math.max(1,
+					Math.min(remaining - left + 1,
+							share / 2 + random.nextInt(share + 1)));
+			if (0 < i) {
+				builder.append(',');
+			}
+
+			count += appendExpression(builder, argumentBudget, depth + 1);
+			remaining -= argumentBudget;
+		}
+
+		// Close the operation, and return the number of tokens appended.
+		builder.append(')');
+		return count;
+	}
+
+	/**
+	 * Makes an expression malformed, either by truncating it within an
+	 * operation, or by inserting an unknown token.
+	 * 
+	 * @param builder
+	 *            The builder holding the expression
+	 */
+	private void corrupt(StringBuilder builder) {
+
+		/*
+		 * Truncate the expression half the time, if it has an operation: after
+		 * the first opening parenthesis, and no later than the first closing
+		 * one, so that an operation is never closed.
+		 */
+		final int open = builder.indexOf("(");
+		if ((0 <= open) && random.nextBoolean()) {
+			builder.setLength(open + 1
+					+ random.nextInt(builder.indexOf(")") - open));
+		}
+
+		// Otherwise insert an unknown token at a random position.
+		else {
+			builder.insert(random.nextInt(builder.length() + 1), unknownToken);
+		}
+	}
+}
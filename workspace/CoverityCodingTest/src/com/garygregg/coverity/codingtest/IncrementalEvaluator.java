@@ -0,0 +1,1228 @@
+package com.garygregg.coverity.codingtest;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.garygregg.coverity.codingtest.lexical_analysis.LexicalAnalyzer;
+import com.garygregg.coverity.codingtest.lexical_analysis.TokenBuffer;
+import com.garygregg.coverity.codingtest.lexical_analysis.TokenKind;
+import com.garygregg.coverity.codingtest.operation.AddOperation;
+import com.garygregg.coverity.codingtest.operation.BinaryOperation;
+import com.garygregg.coverity.codingtest.operation.DivideOperation;
+import com.garygregg.coverity.codingtest.operation.MultiplyOperation;
+import com.garygregg.coverity.codingtest.operation.OperationRegistry;
+import com.garygregg.coverity.codingtest.operation.SubtractOperation;
+
+/**
+ * Contains an evaluator for an expression that is edited a little at a time,
+ * as in an editor that shows results while the user types. The evaluator
+ * keeps the tokens of the expression and a syntax tree whose nodes cache their
+ * values. After an edit, tokens are found again only from the last token that
+ * ends before the edit until the scan falls back into step with the old
+ * tokens after it. The tree is parsed again reusing every node whose tokens
+ * the edit did not touch, so that only the operations enclosing the edit are
+ * new; and evaluation reuses the cached value of every node whose free
+ * variables have the values they had when it was cached, so that only the
+ * new operations are computed. With a memo, the value of an operation that
+ * recurs with the same bindings - in the expression, or in any expression
+ * evaluated before - is also reused. An expression that is not well formed is
+ * evaluated by a parser instead, which reports its errors; the results are
+ * those of the parser either way.
+ * 
+ * @author Gary Gregg
+ */
+public class IncrementalEvaluator {
+
+	/*
+	 * The number of arguments of an operation that is not variadic, and the
+	 * least number of arguments of one that is
+	 */
+	private static final int binaryArgumentCount = 2;
+
+	// The initial capacity of the arrays of the evaluator
+	private static final int initialCapacity = 64;
+
+	/**
+	 * Ensures that an array holds at least a given number of elements.
+	 * 
+	 * @param array
+	 *            An array
+	 * @param size
+	 *            The number of elements the array must hold
+	 * @return The array if it is large enough, or else a larger copy of it
+	 */
+	private static int[] ensureCapacity(int[] array, int size) {
+		return (array.length >= size) ? array : Arrays.copyOf(array,
+				Math.max(size, array.length << 1));
+	}
+
+	/**
+	 * Ensures that an array holds at least a given number of elements.
+	 * 
+	 * @param array
+	 *            An array
+	 * @param size
+	 *            The number of elements the array must hold
+	 * @return The array if it is large enough, or else a larger copy of it
+	 */
+	private static <T> T[] ensureCapacity(T[] array, int size) {
+		return (array.length >= size) ? array : Arrays.copyOf(array,
+				Math.max(size, array.length << 1));
+	}
+
+	/**
+	 * Determines if a token kind is the kind of an operation.
+	 * 
+	 * @param kind
+	 *            A token kind
+	 * @return True if the kind is the kind of an operation, false otherwise
+	 */
+	private static boolean isOperation(TokenKind kind) {
+		return (TokenKind.ADD == kind) || (TokenKind.DIVIDE == kind)
+				|| (TokenKind.LET == kind) || (TokenKind.MULTIPLY == kind)
+				|| (TokenKind.REGISTERED_OPERATION == kind)
+				|| (TokenKind.SUBTRACT == kind);
+	}
+
+	// Our add operation
+	private final AddOperation addOperation;
+
+	// The number of parsed expressions awaiting their operations
+	private int argumentCount;
+
+	// The parsed expressions awaiting their operations, or the roots
+	private SyntaxNode[] argumentNodes = new SyntaxNode[initialCapacity];
+
+	// The index of the first token of each parsed expression
+	private int[] argumentStarts = new int[initialCapacity];
+
+	// Our divide operation
+	private final DivideOperation divideOperation;
+
+	// The print stream for errors
+	private final PrintStream errorStream;
+
+	// The number of nodes being evaluated
+	private int evaluationCount;
+
+	// The index of the next argument to evaluate of each node being evaluated
+	private int[] evaluationNexts = new int[initialCapacity];
+
+	// The nodes being evaluated, innermost last
+	private SyntaxNode[] evaluationNodes = new SyntaxNode[initialCapacity];
+
+	// The index of the first token of each node being evaluated
+	private int[] evaluationStarts = new int[initialCapacity];
+
+	// The expression
+	private String expression = "";
+
+	// The parser for an expression that is not well formed
+	private final Parser fallbackParser;
+
+	// The integer value of each token
+	private int[] intValues = new int[initialCapacity];
+
+	// The kind of each token
+	private TokenKind[] kinds = new TokenKind[initialCapacity];
+
+	// The length of each token in the expression
+	private int[] lengths = new int[initialCapacity];
+
+	// The lexical analyzer that finds the tokens
+	private final LexicalAnalyzer lexicalAnalyzer = new LexicalAnalyzer();
+
+	// The memo of values of subexpressions, or null
+	private SubtreeMemo memo;
+
+	// Our multiply operation
+	private final MultiplyOperation multiplyOperation;
+
+	// The node that starts at each token, or null
+	private SyntaxNode[] nodes = new SyntaxNode[initialCapacity];
+
+	/*
+	 * The number of parsed expressions awaiting their operations when each
+	 * open operation was opened
+	 */
+	private int[] parseBases = new int[initialCapacity];
+
+	// The number of operations open in the parse
+	private int parseCount;
+
+	// The index of the first token of each operation open in the parse
+	private int[] parseStarts = new int[initialCapacity];
+
+	// The registry of operations
+	private final OperationRegistry registry = OperationRegistry.getInstance();
+
+	// The integer value of each token found again after an edit
+	private int[] scanIntValues = new int[initialCapacity];
+
+	// The kind of each token found again after an edit
+	private TokenKind[] scanKinds = new TokenKind[initialCapacity];
+
+	// The length of each token found again after an edit
+	private int[] scanLengths = new int[initialCapacity];
+
+	// The position of each token found again after an edit
+	private int[] scanStarts = new int[initialCapacity];
+
+	// The position of each token in the expression
+	private int[] starts = new int[initialCapacity];
+
+	// Our subtract operation
+	private final SubtractOperation subtractOperation;
+
+	// The buffer in which the lexical analyzer collects batches of tokens
+	private final TokenBuffer tokenBuffer = new TokenBuffer();
+
+	// The number of tokens in the expression
+	private int tokenCount;
+
+	// The number of values on the value stack
+	private int valueCount;
+
+	// The value stack of evaluation
+	private int[] values = new int[initialCapacity];
+
+	/*
+	 * The index of the binding each bound variable shadowed when it was
+	 * bound, or null if none
+	 */
+	private Integer[] shadowedVariables = new Integer[initialCapacity];
+
+	// The number of bound variables
+	private int variableCount;
+
+	// The names of the bound variables, innermost last
+	private String[] variableNames = new String[initialCapacity];
+
+	// The values of the bound variables, innermost last
+	private int[] variableValues = new int[initialCapacity];
+
+	// The index of the innermost binding of each bound variable, by name
+	private final Map<String, Integer> visibleVariables = new HashMap<String, Integer>();
+
+	/**
+	 * Constructs the incremental evaluator with a default print stream for
+	 * errors.
+	 */
+	public IncrementalEvaluator() {
+		this(null);
+	}
+
+	/**
+	 * Constructs the incremental evaluator with an explicit print stream for
+	 * errors.
+	 * 
+	 * @param errorStream
+	 *            The print stream for errors, or null to use the print stream
+	 *            set for the parser class
+	 */
+	public IncrementalEvaluator(PrintStream errorStream) {
+
+		/*
+		 * Create the parser for expressions that are not well formed, and use
+		 * its print stream for errors. Create the arithmetic operations that
+		 * report to the stream.
+		 */
+		fallbackParser = new Parser(null, errorStream);
+		this.errorStream = fallbackParser.getErrorStream();
+		addOperation = new AddOperation(this.errorStream);
+		divideOperation = new DivideOperation(this.errorStream);
+		multiplyOperation = new MultiplyOperation(this.errorStream);
+		subtractOperation = new SubtractOperation(this.errorStream);
+	}
+
+	/**
+	 * Replaces a range of the expression, and evaluates the result
+	 * incrementally.
+	 * 
+	 * @param start
+	 *            The position of the first character to replace
+	 * @param end
+	 *            The position after the last character to replace
+	 * @param replacement
+	 *            The text that replaces the range
+	 * @return The results of the edited expression
+	 * @throws IndexOutOfBoundsException
+	 *             Indicates that the range is not in the expression
+	 */
+	public Integer[] edit(int start, int end, String replacement) {
+
+		// Throw an exception if the range is not in the expression.
+		if ((0 > start) || (start > end) || (expression.length() < end)) {
+			throw new IndexOutOfBoundsException("Range " + start + " to "
+					+ end + " of an edit is not in an expression of length "
+					+ expression.length() + ".");
+		}
+
+		/*
+		 * Replace the range. Find the first token that does not end before
+		 * the range, which is the first that may change. A word just before
+		 * it may change too, since whether it names an operation depends on
+		 * whether an open follows it. Find the tokens again from there.
+		 */
+		expression = expression.substring(0, start) + replacement
+				+ expression.substring(end);
+		int first = findFirstEndingFrom(start);
+		final TokenKind before = (0 < first) ? kinds[first - 1] : null;
+		if ((TokenKind.VARIABLE == before)
+				|| (TokenKind.REGISTERED_OPERATION == before)) {
+			--first;
+		}
+		final int scanCount = rescan(first, start, end, replacement.length());
+
+		// Evaluate, reusing what the new tokens do not touch.
+		return reevaluate(first, first + scanCount);
+	}
+
+	/**
+	 * Evaluates a new expression from scratch, and keeps it for later edits.
+	 * 
+	 * @param expression
+	 *            The expression to evaluate
+	 * @return The results of the expression
+	 */
+	public Integer[] evaluate(String expression) {
+
+		// Set the expression, and forget the tokens and nodes.
+		this.expression = (null == expression) ? "" : expression;
+		Arrays.fill(nodes, 0, tokenCount, null);
+		tokenCount = 0;
+
+		// Find all the tokens of the expression.
+		lexicalAnalyzer.setExpression(this.expression);
+		while (0 < lexicalAnalyzer.fill(tokenBuffer)) {
+
+			// Keep each token in the buffer.
+			ensureTokenCapacity(tokenCount + tokenBuffer.getSize());
+			for (int i = 0; i < tokenBuffer.getSize(); ++i) {
+
+				kinds[tokenCount] = tokenBuffer.getKind(i);
+				starts[tokenCount] = tokenBuffer.getStart(i);
+				lengths[tokenCount] = tokenBuffer.getLength(i);
+				intValues[tokenCount++] = tokenBuffer.getIntValue(i);
+			}
+		}
+
+		// Evaluate, with every token new.
+		return reevaluate(0, tokenCount);
+	}
+
+	/**
+	 * Gets the expression as it stands after the last edit.
+	 * 
+	 * @return The expression
+	 */
+	public String getExpression() {
+		return expression;
+	}
+
+	/**
+	 * Gets the memo of values of subexpressions.
+	 * 
+	 * @return The memo of values of subexpressions, or null if there is none
+	 */
+	public SubtreeMemo getMemo() {
+		return memo;
+	}
+
+	/**
+	 * Sets the memo of values of subexpressions, which keeps the values of
+	 * operations computed by the evaluator for reuse wherever the same
+	 * operations recur with the same bindings. An arithmetic error is not
+	 * reported again when a value is reused.
+	 * 
+	 * @param memo
+	 *            The memo of values of subexpressions, or null for none
+	 */
+	public void setMemo(SubtreeMemo memo) {
+		this.memo = memo;
+	}
+
+	/**
+	 * Adds a parsed expression to those awaiting their operations.
+	 * 
+	 * @param node
+	 *            The node of the expression
+	 * @param start
+	 *            The index of the first token of the expression
+	 */
+	private void addArgument(SyntaxNode node, int start) {
+
+		// Make room for the expression, and add it.
+		argumentNodes = ensureCapacity(argumentNodes, argumentCount + 1);
+		argumentStarts = ensureCapacity(argumentStarts, argumentCount + 1);
+		argumentNodes[argumentCount] = node;
+		argumentStarts[argumentCount++] = start;
+	}
+
+	/**
+	 * Binds a variable, shadowing any binding of the same name.
+	 * 
+	 * @param name
+	 *            The name of the variable
+	 * @param value
+	 *            The value of the variable
+	 */
+	private void bindVariable(String name, int value) {
+
+		// Make room for the binding.
+		variableNames = ensureCapacity(variableNames, variableCount + 1);
+		shadowedVariables = ensureCapacity(shadowedVariables,
+				variableCount + 1);
+		variableValues = ensureCapacity(variableValues, variableCount + 1);
+
+		/*
+		 * Add the binding, make it the visible binding of its name, and record
+		 * the binding it shadows, if any.
+		 */
+		variableNames[variableCount] = name;
+		variableValues[variableCount] = value;
+		shadowedVariables[variableCount] = visibleVariables.put(name,
+				variableCount);
+		++variableCount;
+	}
+
+	/**
+	 * Closes the innermost open operation of the parse: creates its node from
+	 * the parsed expressions awaiting it, and adds the node to the parsed
+	 * expressions.
+	 * 
+	 * @param close
+	 *            The index of the close token of the operation
+	 */
+	private void closeOperation(int close) {
+
+		/*
+		 * Get the first token of the operation, and copy its arguments with
+		 * their offsets from that token.
+		 */
+		final int start = parseStarts[--parseCount];
+		final int base = parseBases[parseCount];
+		final SyntaxNode[] children = Arrays.copyOfRange(argumentNodes, base,
+				argumentCount);
+		final int[] childOffsets = new int[children.length];
+		for (int i = 0; i < childOffsets.length; ++i) {
+			childOffsets[i] = argumentStarts[base + i] - start;
+		}
+
+		/*
+		 * Create the node. The variable bound by a 'let' operation follows its
+		 * open token. Remember the node at its first token, and replace its
+		 * arguments with it.
+		 */
+		final TokenKind kind = kinds[start];
+		final SyntaxNode node = new SyntaxNode(kind, intValues[start],
+				(TokenKind.LET == kind) ? getText(start + 2) : null, children,
+				childOffsets, close - start + 1);
+		nodes[start] = node;
+		argumentCount = base;
+		addArgument(node, start);
+	}
+
+	/**
+	 * Computes the value of an arithmetic operation from the values of its
+	 * arguments, which are popped from the value stack. An undefined result is
+	 * reported as the parser reports it, and has a default of zero.
+	 * 
+	 * @param node
+	 *            The node of the operation
+	 * @param start
+	 *            The index of the first token of the operation
+	 * @return The value of the operation
+	 */
+	private int compute(SyntaxNode node, int start) {
+
+		/*
+		 * Pop the arguments. Get the operation, and reduce the arguments with
+		 * it. A registered operation signals an undefined result with an
+		 * arithmetic exception.
+		 */
+		valueCount -= node.getChildCount();
+		final BinaryOperation operation = getOperation(node);
+		int result = values[valueCount];
+		try {
+			for (int i = 1; i < node.getChildCount(); ++i) {
+				result = operation.performOperation(result, values[valueCount
+						+ i]);
+			}
+		}
+
+		// Output an error message, and use a default result of zero.
+		catch (ArithmeticException exception) {
+
+			result = 0;
+			errorStream.println("The operation at position " + starts[start]
+					+ " has no result (" + exception.getMessage()
+					+ "); using a default of " + result + ".");
+		}
+
+		// Return the result.
+		return result;
+	}
+
+	/**
+	 * Starts the evaluation of a node: pushes its value if it is a value, a
+	 * variable, a node whose cached value is current, or a node whose value
+	 * is in the memo; otherwise pushes the node for evaluation.
+	 * 
+	 * @param node
+	 *            The node to evaluate
+	 * @param start
+	 *            The index of the first token of the node
+	 */
+	private void descend(SyntaxNode node, int start) {
+
+		// Push the value of a value.
+		final TokenKind kind = node.getKind();
+		if (TokenKind.VALUE == kind) {
+			pushValue(node.getValue());
+		}
+
+		// Push the value bound to a variable.
+		else if (TokenKind.VARIABLE == kind) {
+			pushValue(findValue(node.getName()));
+		}
+
+		// Push the cached value of an operation if it is current.
+		else if (isCurrent(node)) {
+			pushValue(node.getCachedValue());
+		}
+
+		// Push the value of an operation if it is in the memo.
+		else if (recall(node)) {
+			pushValue(node.getCachedValue());
+		}
+
+		// Push the operation for evaluation from its first argument.
+		else {
+
+			evaluationNodes = ensureCapacity(evaluationNodes,
+					evaluationCount + 1);
+			evaluationNexts = ensureCapacity(evaluationNexts,
+					evaluationCount + 1);
+			evaluationStarts = ensureCapacity(evaluationStarts,
+					evaluationCount + 1);
+			evaluationNodes[evaluationCount] = node;
+			evaluationNexts[evaluationCount] = 0;
+			evaluationStarts[evaluationCount++] = start;
+		}
+	}
+
+	/**
+	 * Ensures that the token arrays hold at least a given number of tokens.
+	 * 
+	 * @param size
+	 *            The number of tokens the arrays must hold
+	 */
+	private void ensureTokenCapacity(int size) {
+
+		// Grow each array that is too small.
+		intValues = ensureCapacity(intValues, size);
+		kinds = ensureCapacity(kinds, size);
+		lengths = ensureCapacity(lengths, size);
+		nodes = ensureCapacity(nodes, size);
+		starts = ensureCapacity(starts, size);
+	}
+
+	/**
+	 * Evaluates a top-level expression, computing only the operations whose
+	 * cached values are not current.
+	 * 
+	 * @param root
+	 *            The node of the expression
+	 * @param start
+	 *            The index of the first token of the expression
+	 * @return The value of the expression
+	 */
+	private int evaluateRoot(SyntaxNode root, int start) {
+
+		// Start the evaluation with nothing bound. Cycle while nodes remain.
+		evaluationCount = 0;
+		valueCount = 0;
+		variableCount = 0;
+		visibleVariables.clear();
+		descend(root, start);
+		while (0 < evaluationCount) {
+
+			/*
+			 * Get the innermost node being evaluated. Does it have arguments
+			 * left to evaluate?
+			 */
+			final int top = evaluationCount - 1;
+			final SyntaxNode node = evaluationNodes[top];
+			final int next = evaluationNexts[top];
+			if (next < node.getChildCount()) {
+
+				/*
+				 * The node has arguments left to evaluate. The body of a 'let'
+				 * operation is evaluated with its variable bound to the value
+				 * of its first argument.
+				 */
+				if ((TokenKind.LET == node.getKind()) && (1 == next)) {
+
+					bindVariable(node.getName(), values[--valueCount]);
+				}
+
+				// Evaluate the next argument.
+				evaluationNexts[top] = next + 1;
+				descend(node.getChild(next), evaluationStarts[top]
+						+ node.getChildOffset(next));
+			}
+
+			/*
+			 * The arguments of the node have been evaluated. Find the value of
+			 * the node: the value of the body of a 'let' operation, whose
+			 * variable is then unbound, or else the value of an arithmetic
+			 * operation.
+			 */
+			else {
+
+				int value = 0;
+				if (TokenKind.LET == node.getKind()) {
+
+					value = values[--valueCount];
+					unbindVariable();
+				}
+
+				// Compute the value of an arithmetic operation.
+				else {
+					value = compute(node, evaluationStarts[top]);
+				}
+
+				/*
+				 * Cache the value with the values of the free variables of the
+				 * node, and keep it in the memo if the node is large enough.
+				 * Pop the node, and push its value.
+				 */
+				node.cache(value, findValues(node.getFreeVariables(),
+						node.getCachedFreeValues()));
+				if ((null != memo) && memo.isKept(node)) {
+					memo.keep(node, node.getCachedFreeValues(), value);
+				}
+
+				evaluationNodes[--evaluationCount] = null;
+				pushValue(value);
+			}
+		}
+
+		// Return the value of the expression.
+		return values[--valueCount];
+	}
+
+	/**
+	 * Finds the first token that ends at or after a position.
+	 * 
+	 * @param position
+	 *            A position in the expression
+	 * @return The index of the first token that ends at or after the position,
+	 *         or the number of tokens if there is none
+	 */
+	private int findFirstEndingFrom(int position) {
+
+		// Search the tokens, whose ends ascend as their starts do.
+		int low = 0;
+		int high = tokenCount;
+		while (low < high) {
+
+			// Search above the middle token if it ends before the position.
+			final int middle = (low + high) >>> 1;
+			if (starts[middle] + lengths[middle] < position) {
+				low = middle + 1;
+			}
+
+			// Otherwise search at and below the middle token.
+			else {
+				high = middle;
+			}
+		}
+
+		// Return the index of the token.
+		return low;
+	}
+
+	/**
+	 * Finds the first token that starts at or after a position.
+	 * 
+	 * @param position
+	 *            A position in the expression
+	 * @return The index of the first token that starts at or after the
+	 *         position, or the number of tokens if there is none
+	 */
+	private int findFirstStartingFrom(int position) {
+
+		// Search the tokens.
+		int low = 0;
+		int high = tokenCount;
+		while (low < high) {
+
+			// Search above the middle token if it starts before the position.
+			final int middle = (low + high) >>> 1;
+			if (starts[middle] < position) {
+				low = middle + 1;
+			}
+
+			// Otherwise search at and below the middle token.
+			else {
+				high = middle;
+			}
+		}
+
+		// Return the index of the token.
+		return low;
+	}
+
+	/**
+	 * Finds the value of the innermost binding of a variable.
+	 * 
+	 * @param name
+	 *            The name of the variable
+	 * @return The value of the variable
+	 * @throws IllegalStateException
+	 *             Indicates that the variable is not bound, which parsing
+	 *             rules out
+	 */
+	private int findValue(String name) {
+
+		// Get the innermost binding of the variable. Is the variable unbound?
+		final Integer index = visibleVariables.get(name);
+		if (null == index) {
+
+			// The variable is not bound. Throw an exception.
+			throw new IllegalStateException("Variable '" + name
+					+ "' is not bound.");
+		}
+
+		// Return the value of the variable.
+		return variableValues[index];
+	}
+
+	/**
+	 * Finds the values of variables.
+	 * 
+	 * @param names
+	 *            The names of the variables
+	 * @param array
+	 *            An array to reuse for the values if it has the right length,
+	 *            or null
+	 * @return The values of the variables, in the order of their names
+	 */
+	private int[] findValues(VariableSet names, int[] array) {
+
+		// Use the given array if it has the right length, and fill it.
+		final int size = names.size();
+		final int[] found = ((null != array) && (size == array.length)) ? array
+				: new int[size];
+		for (int i = 0; i < size; ++i) {
+			found[i] = findValue(names.get(i));
+		}
+
+		// Return the values.
+		return found;
+	}
+
+	/**
+	 * Gets the arithmetic operation of a node.
+	 * 
+	 * @param node
+	 *            A node of an arithmetic operation
+	 * @return The operation of the node
+	 */
+	private BinaryOperation getOperation(SyntaxNode node) {
+
+		// Get the operation of an add token.
+		final TokenKind kind = node.getKind();
+		BinaryOperation operation = null;
+		if (TokenKind.ADD == kind) {
+			operation = addOperation;
+		}
+
+		// Get the operation of a divide token.
+		else if (TokenKind.DIVIDE == kind) {
+			operation = divideOperation;
+		}
+
+		// Get the operation of a multiply token.
+		else if (TokenKind.MULTIPLY == kind) {
+			operation = multiplyOperation;
+		}
+
+		// Get the operation of a subtract token.
+		else if (TokenKind.SUBTRACT == kind) {
+			operation = subtractOperation;
+		}
+
+		// Get the kernel of a registered operation.
+		else {
+			operation = registry.get(node.getValue()).getIntKernel();
+		}
+
+		// Return the operation.
+		return operation;
+	}
+
+	/**
+	 * Gets the text of a token.
+	 * 
+	 * @param index
+	 *            The index of the token
+	 * @return The text of the token in the expression
+	 */
+	private String getText(int index) {
+		return expression.substring(starts[index], starts[index]
+				+ lengths[index]);
+	}
+
+	/**
+	 * Determines if the cached value of a node is current: if it has one, and
+	 * each of its free variables has the value it had when the value was
+	 * cached.
+	 * 
+	 * @param node
+	 *            A node
+	 * @return True if the cached value of the node is current, false
+	 *         otherwise
+	 */
+	private boolean isCurrent(SyntaxNode node) {
+
+		/*
+		 * The cached value is current if there is one, until a free variable
+		 * is found whose value has changed.
+		 */
+		boolean current = node.isCached();
+		final VariableSet names = node.getFreeVariables();
+		final int[] cachedValues = node.getCachedFreeValues();
+		for (int i = 0; current && (i < names.size()); ++i) {
+			current = (cachedValues[i] == findValue(names.get(i)));
+		}
+
+		// Return whether the cached value is current.
+		return current;
+	}
+
+	/**
+	 * Determines whether the literal of a value token is within the range of
+	 * an integer. A literal that is not is left to the parser to report.
+	 * 
+	 * @param index
+	 *            The index of the value token
+	 * @return True if the literal of the value token is within the range of
+	 *         an integer, false otherwise
+	 */
+	private boolean isIntegerValue(int index) {
+
+		/*
+		 * Any literal of fewer than ten characters is within range; otherwise
+		 * compare its text with its value.
+		 */
+		return (10 > lengths[index])
+				|| LexicalAnalyzer.isIntegerLiteral(getText(index),
+						intValues[index]);
+	}
+
+	/**
+	 * Determines if an operation takes any number of arguments.
+	 * 
+	 * @param index
+	 *            The index of the first token of the operation
+	 * @return True if the operation is variadic, false otherwise
+	 */
+	private boolean isVariadic(int index) {
+
+		/*
+		 * The add and multiply operations are variadic, as are some registered
+		 * operations.
+		 */
+		final TokenKind kind = kinds[index];
+		return (TokenKind.ADD == kind)
+				|| (TokenKind.MULTIPLY == kind)
+				|| ((TokenKind.REGISTERED_OPERATION == kind) && registry.get(
+						intValues[index]).isVariadic());
+	}
+
+	/**
+	 * Opens an operation in the parse, if its open token follows it, and if
+	 * the variable and comma of a 'let' operation follow that.
+	 * 
+	 * @param start
+	 *            The index of the first token of the operation
+	 * @return The index of the first token of the first argument of the
+	 *         operation, or -1 if the operation is not well formed
+	 */
+	private int openOperation(int start) {
+
+		/*
+		 * The open token follows the operation. A 'let' operation then has a
+		 * variable and a comma before its first argument.
+		 */
+		int next = start + 1;
+		boolean valid = (next < tokenCount) && (TokenKind.OPEN == kinds[next]);
+		if (valid && (TokenKind.LET == kinds[start])) {
+
+			valid = (next + 2 < tokenCount)
+					&& (TokenKind.VARIABLE == kinds[next + 1])
+					&& (TokenKind.COMMA == kinds[next + 2]);
+			next += 2;
+		}
+
+		// Push the operation if it is well formed.
+		if (valid) {
+
+			parseBases = ensureCapacity(parseBases, parseCount + 1);
+			parseStarts = ensureCapacity(parseStarts, parseCount + 1);
+			parseBases[parseCount] = argumentCount;
+			parseStarts[parseCount++] = start;
+		}
+
+		// Return the index of the first argument, or -1.
+		return valid ? next + 1 : -1;
+	}
+
+	/**
+	 * Parses the tokens into top-level expressions, reusing the node that
+	 * starts at a token wherever none of its tokens is new. The top-level
+	 * expressions are left as the parsed expressions.
+	 * 
+	 * @param newStart
+	 *            The index of the first new token
+	 * @param newEnd
+	 *            The index after the last new token
+	 * @return True if the expression is well formed, false otherwise
+	 */
+	private boolean parse(int newStart, int newEnd) {
+
+		// Start with nothing parsed. Cycle while tokens remain.
+		Arrays.fill(argumentNodes, 0, argumentCount, null);
+		argumentCount = 0;
+		parseCount = 0;
+		boolean expectingArgument = false;
+		boolean valid = true;
+		int index = 0;
+		while (valid && (index < tokenCount)) {
+
+			/*
+			 * Is an expression expected - an argument, or a top-level
+			 * operation? If so, get the node that starts at the token, unless
+			 * any of its tokens are new.
+			 */
+			final TokenKind kind = kinds[index];
+			if ((0 == parseCount) || expectingArgument) {
+
+				SyntaxNode node = nodes[index];
+				if ((null != node) && (index < newEnd)
+						&& (newStart < index + node.getTokenCount())) {
+					node = null;
+				}
+
+				/*
+				 * Reuse the node if there is one; only an operation may be at
+				 * the top level.
+				 */
+				if (null != node) {
+
+					valid = (0 < parseCount) || isOperation(node.getKind());
+					addArgument(node, index);
+					index += node.getTokenCount();
+					expectingArgument = false;
+				}
+
+				/*
+				 * Create a node for a value or variable, which may only be an
+				 * argument; a value must be within the range of an integer.
+				 */
+				else if ((TokenKind.VALUE == kind)
+						|| (TokenKind.VARIABLE == kind)) {
+
+					valid = (0 < parseCount)
+							&& ((TokenKind.VARIABLE == kind)
+									|| isIntegerValue(index));
+					node = new SyntaxNode(kind, intValues[index],
+							(TokenKind.VARIABLE == kind) ? getText(index)
+									: null, null, null, 1);
+					nodes[index] = node;
+					addArgument(node, index++);
+					expectingArgument = false;
+				}
+
+				// Open an operation.
+				else if (isOperation(kind)) {
+
+					index = openOperation(index);
+					valid = (0 <= index);
+					expectingArgument = true;
+				}
+
+				// No other token may start an expression.
+				else {
+					valid = false;
+				}
+			}
+
+			/*
+			 * A comma or a close is expected. A comma must be followed by
+			 * another argument, of which only a variadic operation may have
+			 * more than two.
+			 */
+			else if (TokenKind.COMMA == kind) {
+
+				valid = (binaryArgumentCount > argumentCount
+						- parseBases[parseCount - 1])
+						|| isVariadic(parseStarts[parseCount - 1]);
+				++index;
+				expectingArgument = true;
+			}
+
+			/*
+			 * A close ends an operation, which must have at least two
+			 * arguments.
+			 */
+			else if (TokenKind.CLOSE == kind) {
+
+				valid = (binaryArgumentCount <= argumentCount
+						- parseBases[parseCount - 1]);
+				if (valid) {
+					closeOperation(index++);
+					expectingArgument = false;
+				}
+			}
+
+			// No other token may follow an argument.
+			else {
+				valid = false;
+			}
+		}
+
+		/*
+		 * The expression is well formed if no operation is left open, and if
+		 * no top-level expression uses a variable it does not bind.
+		 */
+		valid = valid && (0 == parseCount);
+		for (int i = 0; valid && (i < argumentCount); ++i) {
+			valid = (0 == argumentNodes[i].getFreeVariables().size());
+		}
+
+		// Return whether the expression is well formed.
+		return valid;
+	}
+
+	/**
+	 * Pushes a value on the value stack.
+	 * 
+	 * @param value
+	 *            The value to push
+	 */
+	private void pushValue(int value) {
+
+		// Make room for the value, and push it.
+		values = ensureCapacity(values, valueCount + 1);
+		values[valueCount++] = value;
+	}
+
+	/**
+	 * Looks for the value of an operation in the memo, with the current values
+	 * of its free variables, and caches it in the node if it is found.
+	 * 
+	 * @param node
+	 *            The node of the operation
+	 * @return True if the value was found, false otherwise
+	 */
+	private boolean recall(SyntaxNode node) {
+
+		/*
+		 * Look in the memo if there is one, and the node is large enough.
+		 * Cache the value if it is found.
+		 */
+		boolean found = (null != memo) && memo.isKept(node);
+		if (found) {
+
+			final int[] freeValues = findValues(node.getFreeVariables(), null);
+			final Integer value = memo.find(node, freeValues);
+			found = (null != value);
+			if (found) {
+				node.cache(value, freeValues);
+			}
+		}
+
+		// Return whether the value was found.
+		return found;
+	}
+
+	/**
+	 * Parses the tokens, and evaluates the top-level expressions; or, if the
+	 * expression is not well formed, forgets the nodes, and evaluates the
+	 * expression with the parser, which reports the errors.
+	 * 
+	 * @param newStart
+	 *            The index of the first new token
+	 * @param newEnd
+	 *            The index after the last new token
+	 * @return The results of the expression
+	 */
+	private Integer[] reevaluate(int newStart, int newEnd) {
+
+		/*
+		 * Declare a variable to receive the results. Is the expression well
+		 * formed?
+		 */
+		Integer[] results = null;
+		if (parse(newStart, newEnd)) {
+
+			// The expression is well formed. Evaluate each top-level expression.
+			results = new Integer[argumentCount];
+			for (int i = 0; i < argumentCount; ++i) {
+				results[i] = evaluateRoot(argumentNodes[i], argumentStarts[i]);
+			}
+		}
+
+		/*
+		 * The expression is not well formed. Forget the nodes, none of which
+		 * may be reused, and evaluate the expression with the parser.
+		 */
+		else {
+
+			Arrays.fill(nodes, 0, tokenCount, null);
+			results = fallbackParser.evaluate(expression);
+		}
+
+		// Return the results.
+		return results;
+	}
+
+	/**
+	 * Finds the tokens of the expression again after an edit, from the end of
+	 * the last token before the edit until a token is found where an old token
+	 * after the edit starts; the tokens from there on are the old ones,
+	 * moved. The new tokens replace the old ones between, without nodes.
+	 * 
+	 * @param first
+	 *            The index of the first token that may change
+	 * @param start
+	 *            The position of the edit
+	 * @param end
+	 *            The position after the replaced range, before the edit
+	 * @param replacementLength
+	 *            The length of the replacement
+	 * @return The number of new tokens
+	 */
+	private int rescan(int first, int start, int end, int replacementLength) {
+
+		/*
+		 * Get the shift of the tokens after the edit, and the end of the
+		 * replacement. Find the first old token that starts after the edit;
+		 * the scan may fall into step with it or one after it. Scan from the
+		 * end of the token before the first that may change.
+		 */
+		final int shift = replacementLength - (end - start);
+		final int replacementEnd = start + replacementLength;
+		int resume = findFirstStartingFrom(end);
+		lexicalAnalyzer.setExpression(expression);
+		lexicalAnalyzer.setScanPosition((0 == first) ? 0 : starts[first - 1]
+				+ lengths[first - 1]);
+
+		// Cycle until the scan falls into step, or the tokens are exhausted.
+		boolean inStep = false;
+		int scanCount = 0;
+		while ((!inStep) && (0 < lexicalAnalyzer.fill(tokenBuffer))) {
+			for (int i = 0; (!inStep) && (i < tokenBuffer.getSize()); ++i) {
+
+				/*
+				 * Skip the old tokens that start before the token, once moved.
+				 * The scan is in step if the token is after the replacement,
+				 * and an old token starts there.
+				 */
+				final int tokenStart = tokenBuffer.getStart(i);
+				while ((resume < tokenCount)
+						&& (starts[resume] + shift < tokenStart)) {
+					++resume;
+				}
+
+				inStep = (replacementEnd <= tokenStart)
+						&& (resume < tokenCount)
+						&& (starts[resume] + shift == tokenStart);
+
+				// Keep the token if the scan is not in step.
+				if (!inStep) {
+
+					scanIntValues = ensureCapacity(scanIntValues, scanCount + 1);
+					scanKinds = ensureCapacity(scanKinds, scanCount + 1);
+					scanLengths = ensureCapacity(scanLengths, scanCount + 1);
+					scanStarts = ensureCapacity(scanStarts, scanCount + 1);
+					scanIntValues[scanCount] = tokenBuffer.getIntValue(i);
+					scanKinds[scanCount] = tokenBuffer.getKind(i);
+					scanLengths[scanCount] = tokenBuffer.getLength(i);
+					scanStarts[scanCount++] = tokenStart;
+				}
+			}
+		}
+
+		// No old token is kept after the edit if the scan never fell into step.
+		if (!inStep) {
+			resume = tokenCount;
+		}
+
+		/*
+		 * Move the old tokens kept after the edit, with their nodes, to follow
+		 * the new tokens, and shift their positions.
+		 */
+		final int keptCount = tokenCount - resume;
+		final int newCount = first + scanCount + keptCount;
+		final int kept = first + scanCount;
+		ensureTokenCapacity(newCount);
+		System.arraycopy(intValues, resume, intValues, kept, keptCount);
+		System.arraycopy(kinds, resume, kinds, kept, keptCount);
+		System.arraycopy(lengths, resume, lengths, kept, keptCount);
+		System.arraycopy(nodes, resume, nodes, kept, keptCount);
+		System.arraycopy(starts, resume, starts, kept, keptCount);
+		for (int i = kept; i < newCount; ++i) {
+			starts[i] += shift;
+		}
+
+		// Copy the new tokens into place, without nodes.
+		System.arraycopy(scanIntValues, 0, intValues, first, scanCount);
+		System.arraycopy(scanKinds, 0, kinds, first, scanCount);
+		System.arraycopy(scanLengths, 0, lengths, first, scanCount);
+		System.arraycopy(scanStarts, 0, starts, first, scanCount);
+		Arrays.fill(nodes, first, kept, null);
+
+		// Forget the nodes past the new end of the tokens.
+		if (newCount < tokenCount) {
+			Arrays.fill(nodes, newCount, tokenCount, null);
+		}
+
+		// Set the number of tokens, and return the number of new tokens.
+		tokenCount = newCount;
+		return scanCount;
+	}
+
+	/**
+	 * Unbinds the innermost bound variable, making visible again the binding
+	 * it shadowed, if any.
+	 */
+	private void unbindVariable() {
+
+		/*
+		 * Get the name of the variable, and restore the binding it shadowed,
+		 * if any.
+		 */
+		final int index = --variableCount;
+		final String name = variableNames[index];
+		final Integer shadowed = shadowedVariables[index];
+		if (null == shadowed) {
+			visibleVariables.remove(name);
+		}
+
+		// Make the shadowed binding visible again.
+		else {
+			visibleVariables.put(name, shadowed);
+		}
+
+		// Clear the binding.
+		variableNames[index] = null;
+		shadowedVariables[index] = null;
+	}
+}
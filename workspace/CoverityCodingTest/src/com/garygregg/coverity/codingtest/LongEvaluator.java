@@ -0,0 +1,336 @@
+package com.garygregg.coverity.codingtest;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import com.garygregg.coverity.codingtest.metrics.MetricsRegistry;
+import com.garygregg.coverity.codingtest.metrics.Phase;
+import com.garygregg.coverity.codingtest.operation.DivideOperation;
+import com.garygregg.coverity.codingtest.operation.IntrinsicArithmetic;
+import com.garygregg.coverity.codingtest.operation.OperationRegistry;
+
+/**
+ * Contains an evaluator of programs in exact 64-bit arithmetic, in which an
+ * operation whose result overflows is an error rather than wrapping around.
+ * 
+ * @author Gary Gregg
+ */
+public class LongEvaluator extends ProgramEvaluator {
+
+	// The divide operation, which reports division by zero
+	private final DivideOperation divideOperation;
+
+	/**
+	 * Constructs the long evaluator with a default print stream.
+	 */
+	public LongEvaluator() {
+		this(System.err);
+	}
+
+	/**
+	 * Constructs the long evaluator with an explicit print stream.
+	 * 
+	 * @param reportStream
+	 *            The print stream for reporting information
+	 */
+	public LongEvaluator(PrintStream reportStream) {
+
+		// Set the mode, and create the divide operation.
+		super(NumericMode.LONG);
+		divideOperation = new DivideOperation(reportStream);
+	}
+
+	/**
+	 * Evaluates a program.
+	 * 
+	 * @param program
+	 *            The program to evaluate
+	 * @return The value of each top-level expression of the program, in order
+	 * @throws EvaluationException
+	 *             Indicates that the result of an operation overflows 64 bits,
+	 *             or is undefined
+	 */
+	public long[] evaluate(Program program) throws EvaluationException {
+
+		/*
+		 * Check the mode of the program. Get its instruction arrays, and create
+		 * the evaluation stack and the variable slots.
+		 */
+		checkMode(program);
+		final byte[] opcodes = program.getOpcodes();
+		final int[] operands = program.getOperands();
+		final long[] stack = new long[program.getMaximumStackDepth()];
+		final long[] slots = new long[program.getSlotCount()];
+
+		// Unbox the constants of the program.
+		final Number[] constantValues = program.getConstants();
+		final long[] constants = new long[constantValues.length];
+		for (int i = 0; i < constants.length; ++i) {
+			constants[i] = constantValues[i].longValue();
+		}
+
+		/*
+		 * Get the registry for calls to kernels. Declare the top of the stack,
+		 * and cycle for each instruction.
+		 */
+		final OperationRegistry registry = OperationRegistry.getInstance();
+		int top = 0;
+		final int size = opcodes.length;
+		for (int i = 0; i < size; ++i) {
+
+			/*
+			 * Which instruction is it? An arithmetic exception means that its
+			 * result is undefined.
+			 */
+			try {
+				switch (opcodes[i]) {
+
+				// Push a value.
+				case Program.pushOpcode:
+					stack[top++] = operands[i];
+					break;
+
+				// Push a constant.
+				case Program.constantOpcode:
+					stack[top++] = constants[operands[i]];
+					break;
+
+				// Push the value of a variable.
+				case Program.loadOpcode:
+					stack[top++] = slots[operands[i]];
+					break;
+
+				// Pop a value into the slot of a variable.
+				case Program.bindOpcode:
+					slots[operands[i]] = stack[--top];
+					break;
+
+				// End a 'let' operation; its value is already on the stack.
+				case Program.letOpcode:
+					break;
+
+				/*
+				 * Add the values on top of the stack; the operand is their
+				 * number. A sum overflows if it differs in sign from both of
+				 * its arguments.
+				 */
+				case Program.addOpcode: {
+
+					final int first = top - operands[i];
+					long result = stack[first];
+					for (int j = first + 1; j < top; ++j) {
+						final long argument = stack[j];
+						final long sum = result + argument;
+						if (0 > ((result ^ sum) & (argument ^ sum))) {
+							throw createOverflowException(program, i);
+						}
+
+						result = sum;
+					}
+
+					stack[first] = result;
+					top = first + 1;
+					break;
+				}
+
+				/*
+				 * Subtract the two values on top of the stack. The difference
+				 * overflows if the arguments differ in sign, and the difference
+				 * differs in sign from the first argument.
+				 */
+				case Program.subtractOpcode: {
+
+					final long argument2 = stack[--top];
+					final long argument1 = stack[top - 1];
+					final long result = argument1 - argument2;
+					if (0 > ((argument1 ^ argument2) & (argument1 ^ result))) {
+						throw createOverflowException(program, i);
+					}
+
+					stack[top - 1] = result;
+					break;
+				}
+
+				/*
+				 * Multiply the values on top of the stack; the operand is
+				 * their number. A product overflows if dividing it by its
+				 * second argument does not give back the first, or if it is
+				 * the minimum long negated.
+				 */
+				case Program.multiplyOpcode: {
+
+					final int first = top - operands[i];
+					long result = stack[first];
+					for (int j = first + 1; j < top; ++j) {
+						final long argument = stack[j];
+						final long product = result * argument;
+						if ((0 != argument)
+								&& (((product / argument) != result) || ((Long.MIN_VALUE == result) && (-1 == argument)))) {
+							throw createOverflowException(program, i);
+						}
+
+						result = product;
+					}
+
+					stack[first] = result;
+					top = first + 1;
+					break;
+				}
+
+				/*
+				 * Divide the two values on top of the stack. Let the divide
+				 * operation handle (and report) a divisor of zero. The only
+				 * quotient that overflows is the minimum long divided by -1.
+				 */
+				case Program.divideOpcode: {
+
+					final long argument2 = stack[--top];
+					final long argument1 = stack[top - 1];
+					if ((Long.MIN_VALUE == argument1) && (-1 == argument2)) {
+						throw createOverflowException(program, i);
+					}
+
+					stack[top - 1] = (0 == argument2) ? divideOperation
+							.performOperation(argument1, argument2) : argument1
+							/ argument2;
+					break;
+				}
+
+				// Take the remainder of the two values on top of the stack.
+				case Program.moduloOpcode:
+					--top;
+					stack[top - 1] = IntrinsicArithmetic.remainder(
+							stack[top - 1], stack[top]);
+					break;
+
+				/*
+				 * Keep the smallest of the values on top of the stack; the
+				 * operand is their number.
+				 */
+				case Program.minimumOpcode: {
+
+					final int first = top - operands[i];
+					long result = stack[first];
+					for (int j = first + 1; j < top; ++j) {
+						result = Math.min(result, stack[j]);
+					}
+
+					stack[first] = result;
+					top = first + 1;
+					break;
+				}
+
+				/*
+				 * Keep the largest of the values on top of the stack; the
+				 * operand is their number.
+				 */
+				case Program.maximumOpcode: {
+
+					final int first = top - operands[i];
+					long result = stack[first];
+					for (int j = first + 1; j < top; ++j) {
+						result = Math.max(result, stack[j]);
+					}
+
+					stack[first] = result;
+					top = first + 1;
+					break;
+				}
+
+				// Raise the value below the top of the stack to a power.
+				case Program.powerOpcode:
+					--top;
+					stack[top - 1] = IntrinsicArithmetic.powerExact(
+							stack[top - 1], stack[top]);
+					break;
+
+				// Shift the value below the top of the stack left.
+				case Program.shiftLeftOpcode:
+					--top;
+					stack[top - 1] = IntrinsicArithmetic.shiftLeftExact(
+							stack[top - 1], stack[top]);
+					break;
+
+				// Shift the value below the top of the stack right.
+				case Program.shiftRightOpcode:
+					--top;
+					stack[top - 1] = IntrinsicArithmetic.shiftRightExact(
+							stack[top - 1], stack[top]);
+					break;
+
+				// And the two values on top of the stack bitwise.
+				case Program.andOpcode:
+					--top;
+					stack[top - 1] &= stack[top];
+					break;
+
+				// Or the two values on top of the stack bitwise.
+				case Program.orOpcode:
+					--top;
+					stack[top - 1] |= stack[top];
+					break;
+
+				// Exclusive-or the two values on top of the stack bitwise.
+				case Program.xorOpcode:
+					--top;
+					stack[top - 1] ^= stack[top];
+					break;
+
+				/*
+				 * Replace the two values on top of the stack with the result of
+				 * the kernel of a registered operation.
+				 */
+				case Program.callOpcode:
+					--top;
+					stack[top - 1] = registry.get(operands[i]).getLongKernel()
+							.performOperation(stack[top - 1], stack[top]);
+					break;
+
+				// There are no other instructions in this mode.
+				default:
+					failUnknown(program, i);
+				}
+			}
+
+			// Throw an exception for an instruction with an undefined result.
+			catch (ArithmeticException exception) {
+				throw createUndefinedException(program, i, exception);
+			}
+		}
+
+		// Return the values left on the stack.
+		return Arrays.copyOf(stack, top);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.garygregg.coverity.codingtest.ProgramEvaluator#evaluateValues(com
+	 * .garygregg.coverity.codingtest.Program)
+	 */
+	@Override
+	public Number[] evaluateValues(Program program) throws EvaluationException {
+
+		/*
+		 * Evaluate the program, recording the latency of the evaluation if
+		 * metrics are recorded. Box each of its results.
+		 */
+		final MetricsRegistry metrics = MetricsRegistry.getInstance();
+		final boolean metered = metrics.isEnabled();
+		final long startTime = metered ? System.nanoTime() : 0L;
+		final long[] results = evaluate(program);
+		if (metered) {
+			metrics.recordLatency(Phase.EVALUATE, System.nanoTime()
+					- startTime);
+		}
+
+		final Number[] values = new Number[results.length];
+		for (int i = 0; i < results.length; ++i) {
+			values[i] = results[i];
+		}
+
+		// Return the boxed results.
+		return values;
+	}
+}
@@ -0,0 +1,77 @@
+package com.garygregg.coverity.codingtest;
+
+/**
+ * Enumerates the kinds of arithmetic with which a compiled program may be
+ * evaluated.
+ * 
+ * @author Gary Gregg
+ */
+public enum NumericMode {
+
+	/*
+	 * Arbitrary precision arithmetic; no value overflows, and division by zero
+	 * is an error
+	 */
+	BIG_INTEGER("big-integer"),
+
+	// 32-bit arithmetic in which overflow is an error
+	EXACT_INT("exact-int"),
+
+	// 64-bit arithmetic in which overflow is an error
+	LONG("long"),
+
+	/*
+	 * 32-bit arithmetic in which overflow silently wraps around, as in the
+	 * parser
+	 */
+	WRAPPED_INT("wrapped-int");
+
+	/**
+	 * Gets the numeric mode with a given name.
+	 * 
+	 * @param name
+	 *            The name of the numeric mode
+	 * @return The numeric mode with the given name, or null if there is none
+	 */
+	public static NumericMode forName(String name) {
+
+		/*
+		 * Declare a variable to receive the numeric mode, and cycle for each
+		 * mode until one with the given name is found.
+		 */
+		NumericMode result = null;
+		final NumericMode[] modes = values();
+		for (int i = 0; (null == result) && (i < modes.length); ++i) {
+
+			// Set the result if the mode has the given name.
+			if (modes[i].getName().equals(name)) {
+				result = modes[i];
+			}
+		}
+
+		// Return the result.
+		return result;
+	}
+
+	// The name of the numeric mode
+	private final String name;
+
+	/**
+	 * Constructs the numeric mode.
+	 * 
+	 * @param name
+	 *            The name of the numeric mode
+	 */
+	private NumericMode(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Gets the name of the numeric mode.
+	 * 
+	 * @return The name of the numeric mode
+	 */
+	public String getName() {
+		return name;
+	}
+}
@@ -1,5 +1,8 @@
 package com.garygregg.coverity.codingtest;
 
+import com.garygregg.coverity.codingtest.recording.AccountedClass;
+import com.garygregg.coverity.codingtest.recording.AllocationAccounting;
+
 /**
  * Contains a class that associates one object with one other object.
  * 
@@ -28,9 +31,10 @@ class Pair<S, T> {
 	 */
 	public Pair(S firstObject, T secondObject) {
 
-		// Set the member variables.
+		// Set the member variables, and count the pair.
 		this.firstObject = firstObject;
 		this.secondObject = secondObject;
+		AllocationAccounting.getInstance().count(AccountedClass.PAIR);
 	}
 
 	/**
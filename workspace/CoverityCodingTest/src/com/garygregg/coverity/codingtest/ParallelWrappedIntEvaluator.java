@@ -0,0 +1,365 @@
+package com.garygregg.coverity.codingtest;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Contains an evaluator of programs in wrapped 32-bit arithmetic that
+ * evaluates independent subexpressions of a large program in parallel on a
+ * fork-join pool. A run of sibling subexpressions - the top-level expressions,
+ * or the arguments of an operation - is split in two near its middle, and the
+ * halves are evaluated as separate tasks; a run smaller than a threshold is
+ * executed sequentially, as is a run nested so deeply - in a long chain of
+ * operations, say - that splitting it further would exhaust the stack of the
+ * thread. Each task has its own copy of the variable slots, so
+ * the bindings of enclosing 'let' operations are a frame that no other task
+ * can change. The results, and the first undefined result in program order,
+ * are the same as those of sequential evaluation.
+ * 
+ * @author Gary Gregg
+ */
+public class ParallelWrappedIntEvaluator extends WrappedIntEvaluator {
+
+	/**
+	 * Contains a task that evaluates a run of sibling subexpressions, and
+	 * records, rather than throws, an undefined result.
+	 * 
+	 * @author Gary Gregg
+	 */
+	private class SiblingTask extends RecursiveTask<int[]> {
+
+		// The serial version UID of the class
+		private static final long serialVersionUID = 1L;
+
+		// The depth of the run in the splitting of the program
+		private final int depth;
+
+		// The index after the last instruction of the run
+		private final int end;
+
+		// The exception for an undefined result, or null
+		private EvaluationException failure;
+
+		// The program being evaluated
+		private final Program program;
+
+		// The variable slots of the task
+		private final int[] slots;
+
+		// The index of the first instruction of the run
+		private final int start;
+
+		/**
+		 * Constructs the sibling task.
+		 * 
+		 * @param program
+		 *            The program being evaluated
+		 * @param start
+		 *            The index of the first instruction of the run
+		 * @param end
+		 *            The index after the last instruction of the run
+		 * @param slots
+		 *            The variable slots of the task
+		 * @param depth
+		 *            The depth of the run in the splitting of the program
+		 */
+		public SiblingTask(Program program, int start, int end, int[] slots,
+				int depth) {
+
+			// Set the member variables.
+			this.program = program;
+			this.start = start;
+			this.end = end;
+			this.slots = slots;
+			this.depth = depth;
+		}
+
+		/**
+		 * Gets the exception for an undefined result.
+		 * 
+		 * @return The exception for an undefined result, or null if the
+		 *         results of the run are defined
+		 */
+		public EvaluationException getFailure() {
+			return failure;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.concurrent.RecursiveTask#compute()
+		 */
+		@Override
+		protected int[] compute() {
+
+			// Evaluate the run, recording an undefined result.
+			int[] values = null;
+			try {
+				values = evaluateSiblings(program, start, end, slots, depth);
+			}
+
+			// Record an undefined result.
+			catch (EvaluationException exception) {
+				failure = exception;
+			}
+
+			// Return the values of the run.
+			return values;
+		}
+	}
+
+	// The default size of a run of instructions that is split for parallelism
+	public static final int defaultThreshold = 1 << 13;
+
+	/*
+	 * The depth of splitting beyond which a run is executed sequentially
+	 * whatever its size
+	 */
+	private static final int maximumDepth = 64;
+
+	// The fork-join pool on which to evaluate
+	private final ForkJoinPool pool;
+
+	// The size of a run of instructions that is split for parallelism
+	private final int threshold;
+
+	/**
+	 * Constructs the parallel evaluator with a default threshold.
+	 * 
+	 * @param reportStream
+	 *            The print stream for reporting information
+	 * @param pool
+	 *            The fork-join pool on which to evaluate
+	 */
+	public ParallelWrappedIntEvaluator(PrintStream reportStream,
+			ForkJoinPool pool) {
+		this(reportStream, pool, defaultThreshold);
+	}
+
+	/**
+	 * Constructs the parallel evaluator with an explicit threshold.
+	 * 
+	 * @param reportStream
+	 *            The print stream for reporting information
+	 * @param pool
+	 *            The fork-join pool on which to evaluate
+	 * @param threshold
+	 *            The size of a run of instructions that is split for
+	 *            parallelism; smaller runs are executed sequentially
+	 * @throws IllegalArgumentException
+	 *             Indicates that the threshold is less than two
+	 */
+	public ParallelWrappedIntEvaluator(PrintStream reportStream,
+			ForkJoinPool pool, int threshold) {
+
+		// Set the mode and the report stream.
+		super(reportStream);
+
+		/*
+		 * Throw an exception if the threshold is less than two; a run that
+		 * small may be a single value.
+		 */
+		if (2 > threshold) {
+			throw new IllegalArgumentException(
+					"Threshold of a parallel evaluator must be at least two; it is "
+							+ threshold + ".");
+		}
+
+		// Set the pool and the threshold.
+		this.pool = pool;
+		this.threshold = threshold;
+	}
+
+	/*
+	 * (non-Javadoc) @see
+	 * com.garygregg.coverity.codingtest.WrappedIntEvaluator#evaluate(com.garygregg
+	 * .coverity.codingtest.Program)
+	 */
+	@Override
+	public int[] evaluate(Program program) throws EvaluationException {
+
+		/*
+		 * Check the mode of the program. Evaluate its top-level expressions as
+		 * one run of siblings on the pool.
+		 */
+		checkMode(program);
+		final SiblingTask task = new SiblingTask(program, 0,
+				program.getSize(), new int[program.getSlotCount()], 0);
+		final int[] values = pool.invoke(task);
+
+		// Throw the exception for an undefined result, if any.
+		if (null != task.getFailure()) {
+			throw task.getFailure();
+		}
+
+		// Return the values of the top-level expressions.
+		return values;
+	}
+
+	/**
+	 * Gets the size of a run of instructions that is split for parallelism.
+	 * 
+	 * @return The size of a run of instructions that is split for parallelism
+	 */
+	public int getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * Evaluates a run of sibling subexpressions: executes it sequentially if it
+	 * is small or deep, or else evaluates its halves in parallel if it has
+	 * more than one subexpression, or else evaluates its single subexpression.
+	 * 
+	 * @param program
+	 *            The program being evaluated
+	 * @param start
+	 *            The index of the first instruction of the run
+	 * @param end
+	 *            The index after the last instruction of the run
+	 * @param slots
+	 *            The variable slots, which belong to the caller
+	 * @param depth
+	 *            The depth of the run in the splitting of the program
+	 * @return The value of each subexpression of the run, in order
+	 * @throws EvaluationException
+	 *             Indicates that the result of an operation is undefined
+	 */
+	private int[] evaluateSiblings(Program program, int start, int end,
+			int[] slots, int depth) throws EvaluationException {
+
+		// Declare a variable to receive the values. Is the run small or deep?
+		int[] values = null;
+		if ((threshold > end - start) || (maximumDepth <= depth)) {
+
+			/*
+			 * The run is small or deep. Execute it sequentially, and take the
+			 * values it leaves on the stack.
+			 */
+			final int[] stack = new int[program.getMaximumStackDepth()];
+			values = Arrays.copyOf(stack,
+					execute(program, start, end, stack, 0, slots));
+		}
+
+		/*
+		 * The run is large and shallow. Find the boundary between its
+		 * subexpressions that is nearest its middle, walking back from its last
+		 * subexpression. The boundary is the end of the run if it has only one
+		 * subexpression.
+		 */
+		else {
+
+			final int midpoint = start + ((end - start) >>> 1);
+			int middle = end;
+			int boundary = end;
+			while ((start < boundary) && (midpoint < boundary)) {
+				middle = boundary;
+				boundary = program.getSubtreeStart(boundary - 1);
+			}
+
+			if ((start < boundary) && (midpoint - boundary < middle - midpoint)) {
+				middle = boundary;
+			}
+
+			// Evaluate the single subexpression if there is only one.
+			if (end == middle) {
+				values = evaluateSubtree(program, start, end, slots, depth + 1);
+			}
+
+			/*
+			 * There is more than one subexpression. Fork a task for the second
+			 * half with a copy of the slots, and evaluate the first half here.
+			 */
+			else {
+
+				final SiblingTask task = new SiblingTask(program, middle, end,
+						slots.clone(), depth + 1);
+				task.fork();
+				int[] firstValues = null;
+				try {
+					firstValues = evaluateSiblings(program, start, middle,
+							slots, depth + 1);
+				}
+
+				// Cancel the task, and throw the exception.
+				catch (EvaluationException exception) {
+					task.cancel(false);
+					throw exception;
+				}
+
+				/*
+				 * Join the task, and throw the exception for an undefined
+				 * result in the second half, if any.
+				 */
+				final int[] secondValues = task.join();
+				if (null != task.getFailure()) {
+					throw task.getFailure();
+				}
+
+				// Concatenate the values of the halves.
+				values = Arrays.copyOf(firstValues, firstValues.length
+						+ secondValues.length);
+				System.arraycopy(secondValues, 0, values, firstValues.length,
+						secondValues.length);
+			}
+		}
+
+		// Return the values.
+		return values;
+	}
+
+	/**
+	 * Evaluates a single large subexpression, which is an operation.
+	 * 
+	 * @param program
+	 *            The program being evaluated
+	 * @param start
+	 *            The index of the first instruction of the subexpression
+	 * @param end
+	 *            The index after the last instruction of the subexpression
+	 * @param slots
+	 *            The variable slots, which belong to the caller
+	 * @param depth
+	 *            The depth of the subexpression in the splitting of the
+	 *            program
+	 * @return The value of the subexpression, alone in an array
+	 * @throws EvaluationException
+	 *             Indicates that the result of an operation is undefined
+	 */
+	private int[] evaluateSubtree(Program program, int start, int end,
+			int[] slots, int depth) throws EvaluationException {
+
+		/*
+		 * Declare a variable to receive the value. Is the subexpression a 'let'
+		 * operation?
+		 */
+		int[] values = null;
+		final int last = end - 1;
+		if (Program.letOpcode == program.getOpcode(last)) {
+
+			/*
+			 * The subexpression is a 'let' operation: its value, a bind, and
+			 * its body. Evaluate the value, and bind it in the slots. Evaluate
+			 * the body in the slots.
+			 */
+			final int bind = program.getSubtreeStart(last - 1) - 1;
+			slots[program.getOperand(bind)] = evaluateSiblings(program, start,
+					bind, slots, depth)[0];
+			values = evaluateSiblings(program, bind + 1, last, slots, depth);
+		}
+
+		/*
+		 * The subexpression is an arithmetic operation. Evaluate its arguments
+		 * as a run of siblings, and execute the operation on them.
+		 */
+		else {
+			values = evaluateSiblings(program, start, last, slots, depth);
+			values = Arrays.copyOf(values,
+					execute(program, last, end, values, values.length, slots));
+		}
+
+		// Return the value.
+		return values;
+	}
+}
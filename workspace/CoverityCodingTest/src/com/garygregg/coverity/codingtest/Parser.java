@@ -3,6 +3,7 @@ package com.garygregg.coverity.codingtest;
 import java.io.PrintStream;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -10,14 +11,30 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
 
 import com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener;
+import com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListenerAdapter;
+import com.garygregg.coverity.codingtest.lexical_analysis.CountingTokenListener;
 import com.garygregg.coverity.codingtest.lexical_analysis.LexicalAnalyzer;
+import com.garygregg.coverity.codingtest.lexical_analysis.TokenBuffer;
+import com.garygregg.coverity.codingtest.lexical_analysis.TokenKind;
+import com.garygregg.coverity.codingtest.lexical_analysis.TokenListener;
+import com.garygregg.coverity.codingtest.lexical_analysis.TokenRing;
+import com.garygregg.coverity.codingtest.metrics.DiagnosticKind;
+import com.garygregg.coverity.codingtest.metrics.MetricsRegistry;
+import com.garygregg.coverity.codingtest.metrics.Phase;
 import com.garygregg.coverity.codingtest.operation.AddOperation;
 import com.garygregg.coverity.codingtest.operation.BinaryOperation;
 import com.garygregg.coverity.codingtest.operation.DivideOperation;
 import com.garygregg.coverity.codingtest.operation.MultiplyOperation;
+import com.garygregg.coverity.codingtest.operation.OperationDescriptor;
+import com.garygregg.coverity.codingtest.operation.OperationRegistry;
 import com.garygregg.coverity.codingtest.operation.SubtractOperation;
+import com.garygregg.coverity.codingtest.recording.DiagnosticEvent;
+import com.garygregg.coverity.codingtest.recording.ParseEvent;
+import com.garygregg.coverity.codingtest.recording.ReductionEvent;
 import com.garygregg.coverity.codingtest.token.AddToken;
 import com.garygregg.coverity.codingtest.token.CloseToken;
 import com.garygregg.coverity.codingtest.token.CommaToken;
@@ -26,6 +43,7 @@ import com.garygregg.coverity.codingtest.token.LetToken;
 import com.garygregg.coverity.codingtest.token.MultiplyToken;
 import com.garygregg.coverity.codingtest.token.OpenToken;
 import com.garygregg.coverity.codingtest.token.OperationToken;
+import com.garygregg.coverity.codingtest.token.RegisteredOperationToken;
 import com.garygregg.coverity.codingtest.token.SubtractToken;
 import com.garygregg.coverity.codingtest.token.Token;
 import com.garygregg.coverity.codingtest.token.UnknownToken;
@@ -39,19 +57,41 @@ import com.garygregg.coverity.codingtest.token.VariableToken;
  */
 class Parser implements AnalysisListener {
 
+	/**
+	 * Holds the map of parser states to 'whileExpecting' strings. Only
+	 * diagnostics need the map, so it is built the first time one does, when
+	 * the holder is initialized, rather than whenever the parser is.
+	 * 
+	 * @author Gary Gregg
+	 */
+	private static final class WhileExpectingHolder {
+
+		// A map of states to 'whileExpecting' strings (used for error output)
+		private static final Map<State, String> whileExpectingMap = buildWhileExpectingMap();
+	}
+
 	/*
 	 * A map of states to their transition states when argument tokens are
 	 * received
 	 */
 	private static final Map<State, State> argumentTransitionMap = new HashMap<State, State>();
 
+	// The number of arguments of an operation that is not variadic
+	private static final int binaryArgumentCount = 2;
+
 	// A set of common states where value or variable tokens may be received
 	private static final Set<State> commonStatesWhereValuesOrVariablesArePossible = new HashSet<State>();
 
-	// The print stream for errors
-	private static PrintStream errorStream = getDefaultPrintStream();
+	// The print stream for errors of parsers without an explicit print stream
+	private static PrintStream defaultErrorStream = getDefaultPrintStream();
+
+	// True if parsers subsequently constructed recover in panic mode
+	private static boolean defaultPanicMode;
 
-	// An array of the operation token expressions
+	// The initial capacity of the argument buffer
+	private static final int initialArgumentCapacity = 8;
+
+	// An array of the built-in operation token expressions
 	private static final String[] knownOperationTokenExpressions = {
 			AddToken.getCommonExpression(), DivideToken.getCommonExpression(),
 			LetToken.getCommonExpression(),
@@ -59,17 +99,14 @@ class Parser implements AnalysisListener {
 			SubtractToken.getCommonExpression() };
 
 	/*
-	 * A map of states from the last state on the stack to the state for
-	 * substitute tokens that replace operations
+	 * A map of the states in which operations were received to the state for
+	 * substitute tokens that replace the operations
 	 */
 	private static final Map<State, State> operationSubstitutionTransitionMap = new HashMap<State, State>();
 
 	// A set of states where operation tokens may be received
 	private static final Set<State> statesWhereOperationsArePossible = new HashSet<State>();
 
-	// A map of states to 'whileExpecting' strings (used for error output)
-	private static final Map<State, String> whileExpectingMap = new HashMap<State, String>();
-
 	static {
 
 		/*
@@ -81,23 +118,35 @@ class Parser implements AnalysisListener {
 
 		/*
 		 * Build the set of states where operation tokens may be received and
-		 * the set of states where value tokens may be received. Build the map
-		 * of parser states to strings describing what token(s) are expected in
-		 * each state.
+		 * the set of states where value tokens may be received. The map of
+		 * parser states to strings describing what token(s) are expected in
+		 * each state is built by its holder when first needed.
 		 */
 		buildStatesWhereOperationsArePossible();
 		buildCommonStatesWhereValueOrVariableTokensArePossible();
-		buildWhileExpectingMap();
 	}
 
 	/**
-	 * Sets the print stream.
+	 * Sets whether parsers subsequently constructed recover from unexpected
+	 * tokens in panic mode.
+	 * 
+	 * @param panicMode
+	 *            True if parsers subsequently constructed recover in panic
+	 *            mode, false if they report each unexpected token
+	 */
+	public static void setDefaultPanicMode(boolean panicMode) {
+		Parser.defaultPanicMode = panicMode;
+	}
+
+	/**
+	 * Sets the print stream for parsers subsequently constructed without an
+	 * explicit print stream.
 	 * 
 	 * @param printStream
 	 *            The print stream
 	 */
 	public static void setPrintStream(PrintStream printStream) {
-		Parser.errorStream = (null == printStream) ? getDefaultPrintStream()
+		Parser.defaultErrorStream = (null == printStream) ? getDefaultPrintStream()
 				: printStream;
 	}
 
@@ -151,31 +200,29 @@ class Parser implements AnalysisListener {
 	}
 
 	/**
-	 * Builds the map of states from the last state on the stack to the state
-	 * for substitute tokens that replace operations.
+	 * Builds the map of the states in which operations were received to the
+	 * state for substitute tokens that replace the operations. A substitute
+	 * token is an argument received in the same state as its operation, except
+	 * that the substitute for a top-level operation is received in the null
+	 * state.
 	 */
 	private static void buildOperationSubstitutionTransitionMap() {
 
-		// null
-		operationSubstitutionTransitionMap.put(null, null);
-
 		// EXPECTING_OPERATION
-		operationSubstitutionTransitionMap.put(State.EXPECTING_OPERATION,
-				State.EXPECTING_FIRST_ARGUMENT);
+		operationSubstitutionTransitionMap.put(State.EXPECTING_OPERATION, null);
 
 		// EXPECTING_FIRST_ARGUMENT
 		operationSubstitutionTransitionMap.put(State.EXPECTING_FIRST_ARGUMENT,
-				State.EXPECTING_LAST_ARGUMENT);
+				State.EXPECTING_FIRST_ARGUMENT);
 
-		// EXPECTING_FIRST_ARGUMENT_AFTER_LET
-		operationSubstitutionTransitionMap.put(
-				State.EXPECTING_FIRST_ARGUMENT_AFTER_LET,
-				State.EXPECTING_SECOND_ARGUMENT_AFTER_LET);
+		// EXPECTING_LAST_ARGUMENT
+		operationSubstitutionTransitionMap.put(State.EXPECTING_LAST_ARGUMENT,
+				State.EXPECTING_LAST_ARGUMENT);
 
 		// EXPECTING_SECOND_ARGUMENT_AFTER_LET
 		operationSubstitutionTransitionMap.put(
 				State.EXPECTING_SECOND_ARGUMENT_AFTER_LET,
-				State.EXPECTING_LAST_ARGUMENT);
+				State.EXPECTING_SECOND_ARGUMENT_AFTER_LET);
 	}
 
 	/**
@@ -208,10 +255,11 @@ class Parser implements AnalysisListener {
 	private static String buildWhileExpectingForOperations() {
 
 		/*
-		 * Get the length of the array of known token expressions. Declare and
-		 * initialize a variable for the word 'operation'.
+		 * Get the known operation expressions, and the length of the array of
+		 * them. Declare and initialize a variable for the word 'operation'.
 		 */
-		int length = knownOperationTokenExpressions.length;
+		final String[] knownExpressions = getKnownOperationExpressions();
+		int length = knownExpressions.length;
 		final String operation = " operation";
 
 		/*
@@ -228,7 +276,7 @@ class Parser implements AnalysisListener {
 			 * vowel?
 			 */
 			int i = 0;
-			String expression = knownOperationTokenExpressions[i];
+			String expression = knownExpressions[i];
 			if (expression.matches("[AEIOUaeiou].*")) {
 
 				/*
@@ -251,7 +299,7 @@ class Parser implements AnalysisListener {
 				 * Append to the return value a comma followed by the next known
 				 * expression.
 				 */
-				whileExpectingForOperations += (", " + knownOperationTokenExpressions[i]);
+				whileExpectingForOperations += (", " + knownExpressions[i]);
 			}
 
 			/*
@@ -259,7 +307,7 @@ class Parser implements AnalysisListener {
 			 * expression, followed by the word 'operation'.
 			 */
 			whileExpectingForOperations += " or "
-					+ knownOperationTokenExpressions[length] + operation;
+					+ knownExpressions[length] + operation;
 
 		}
 
@@ -279,21 +327,24 @@ class Parser implements AnalysisListener {
 	/**
 	 * Builds the map of parser states to strings describing what token(s) are
 	 * expected in each state.
+	 * 
+	 * @return The map of parser states to 'whileExpecting' strings
 	 */
-	private static void buildWhileExpectingMap() {
+	private static Map<State, String> buildWhileExpectingMap() {
 
 		/*
-		 * Declare and initialize the description of an argument and an open
-		 * parenthesis.
+		 * Declare and initialize the map, and the description of an argument
+		 * and an open parenthesis.
 		 */
+		final Map<State, String> whileExpectingMap = new HashMap<State, String>();
 		final String argumentDescription = "an operation, integer value or defined variable";
 		final String openParenthesisDescription = "an opening parenthesis, '('";
 
-		// Add the string for EXPECTING_OPERATION.
-		whileExpectingMap.put(State.EXPECTING_OPERATION,
-				buildWhileExpectingForOperations());
-
-		// Add the string for EXPECTING_OPEN.
+		/*
+		 * There is no string for EXPECTING_OPERATION in the map; it depends on
+		 * the operations registered at the time. Add the string for
+		 * EXPECTING_OPEN.
+		 */
 		whileExpectingMap.put(State.EXPECTING_OPEN, openParenthesisDescription
 				+ ", after an arithmetic operation");
 
@@ -330,6 +381,9 @@ class Parser implements AnalysisListener {
 		whileExpectingMap.put(State.EXPECTING_SECOND_ARGUMENT_AFTER_LET,
 				"as a second argument for a 'let' statement, "
 						+ argumentDescription);
+
+		// Return the map.
+		return whileExpectingMap;
 	}
 
 	/**
@@ -340,12 +394,38 @@ class Parser implements AnalysisListener {
 	}
 
 	/**
-	 * Gets the error stream.
+	 * Gets the known operation expressions: those of the built-in operations,
+	 * and the names of the registered operations.
 	 * 
-	 * @return The error stream
+	 * @return The known operation expressions, in alphabetical order
 	 */
-	private static PrintStream getErrorStream() {
-		return errorStream;
+	private static String[] getKnownOperationExpressions() {
+
+		// Collect the built-in and registered expressions in order.
+		final Set<String> expressions = new TreeSet<String>(
+				Arrays.asList(knownOperationTokenExpressions));
+		expressions.addAll(Arrays.asList(OperationRegistry.getInstance()
+				.getNames()));
+
+		// Return the expressions as an array.
+		return expressions.toArray(new String[expressions.size()]);
+	}
+
+	/**
+	 * Gets the 'while expecting' string for a given state.
+	 * 
+	 * @param state
+	 *            A parse state
+	 * @return The 'while expecting' string for the given state
+	 */
+	static String getWhileExpectingString(State state) {
+
+		/*
+		 * Build the string for EXPECTING_OPERATION from the operations known
+		 * now; get any other from the map, which is built the first time.
+		 */
+		return State.EXPECTING_OPERATION.equals(state) ? buildWhileExpectingForOperations()
+				: WhileExpectingHolder.whileExpectingMap.get(state);
 	}
 
 	/**
@@ -364,21 +444,39 @@ class Parser implements AnalysisListener {
 	 * Returns the state for a substitute token that replaces an operation when
 	 * the operation is complete.
 	 * 
-	 * @param lastStateOnTokenDeque
-	 *            The last state on the token deque
+	 * @param operationState
+	 *            The state in which the operation was received
 	 * @return The state for a substitute token that replaces an operation when
 	 *         the operation is complete
 	 */
-	private static State transitionFromCloseStateTo(State lastStateOnTokenDeque) {
-		return operationSubstitutionTransitionMap.get(lastStateOnTokenDeque);
+	private static State transitionFromCloseStateTo(State operationState) {
+		return operationSubstitutionTransitionMap.get(operationState);
 	}
 
+	/*
+	 * An adapter that delivers tokens to the parser in a single call each,
+	 * recycling key tokens since the parser keeps none
+	 */
+	private final AnalysisListenerAdapter adapter = new AnalysisListenerAdapter(
+			this, true);
+
 	// Our add operation
-	private final AddOperation addOperation = new AddOperation(errorStream);
+	private final AddOperation addOperation;
+
+	// A buffer for the arguments of an operation being reduced
+	private int[] arguments = new int[initialArgumentCapacity];
+
+	/*
+	 * The listener that counts the tokens of an evaluation while parsing is
+	 * recorded
+	 */
+	private final CountingTokenListener counter = new CountingTokenListener();
 
 	// Our divide operation
-	private final DivideOperation divideOperation = new DivideOperation(
-			errorStream);
+	private final DivideOperation divideOperation;
+
+	// The print stream for errors
+	private final PrintStream errorStream;
 
 	// Our let operation
 	private final BinaryOperation letOperation = new BinaryOperation() {
@@ -404,23 +502,140 @@ class Parser implements AnalysisListener {
 	// The lexical analyzer for the parser
 	private final LexicalAnalyzer lexicalAnalyzer;
 
+	// True if the current evaluation records metrics, false otherwise
+	private boolean metered;
+
+	// The metrics of the calculator
+	private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
 	// Our multiply operation
-	private final MultiplyOperation multiplyOperation = new MultiplyOperation(
-			errorStream);
+	private final MultiplyOperation multiplyOperation;
+
+	// A deque of the operations awaiting their close, innermost first
+	private final Deque<TokenInformation> operationDeque = new ArrayDeque<TokenInformation>();
+
+	// True if evaluations recover from unexpected tokens in panic mode
+	private boolean panicMode;
+
+	// True if the current evaluation recovers in panic mode
+	private boolean recovering;
+
+	/*
+	 * The number of parentheses left open in the malformed region being
+	 * skipped, or -1 if no region is being skipped
+	 */
+	private int skipDepth = -1;
+
+	/*
+	 * A listener that skips the tokens of a malformed region, without
+	 * creating them, and passes any other token to the adapter
+	 */
+	private final TokenListener skippingListener = new TokenListener() {
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * com.garygregg.coverity.codingtest.lexical_analysis.TokenListener
+		 * #onToken(com.garygregg.coverity.codingtest.lexical_analysis.
+		 * TokenKind, int, int, int)
+		 */
+		@Override
+		public void onToken(TokenKind kind, int start, int length,
+				int intValue) {
+
+			// Pass the token to the adapter if no region is being skipped.
+			if (0 > skipDepth) {
+				adapter.onToken(kind, start, length, intValue);
+			}
+
+			// Skip an open or a close, counting its parenthesis.
+			else if (TokenKind.OPEN == kind) {
+				skipParenthesis(true);
+			}
+
+			else if (TokenKind.CLOSE == kind) {
+				skipParenthesis(false);
+			}
+
+			/*
+			 * Skip an unknown token, counting any parentheses in its text,
+			 * which runs to the next whitespace.
+			 */
+			else if (TokenKind.UNKNOWN == kind) {
+				skipUnknownText(lexicalAnalyzer.getExpression(), start, start
+						+ length);
+			}
+
+			/*
+			 * An operation outside of any parentheses ends a region that
+			 * began outside of them. Pass the operation to the adapter; it
+			 * begins the next top-level expression. Skip any other token.
+			 */
+			else if (kind.isOperation() && (0 == skipDepth)
+					&& (!skippingToClose)) {
+
+				skipDepth = -1;
+				adapter.onToken(kind, start, length, intValue);
+			}
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * com.garygregg.coverity.codingtest.lexical_analysis.TokenListener
+		 * #startTokens(java.lang.CharSequence)
+		 */
+		@Override
+		public void startTokens(CharSequence expression) {
+			adapter.startTokens(expression);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * com.garygregg.coverity.codingtest.lexical_analysis.TokenListener
+		 * #stopTokens()
+		 */
+		@Override
+		public void stopTokens() {
+			adapter.stopTokens();
+		}
+	};
+
+	/*
+	 * True if the malformed region being skipped began inside parentheses,
+	 * and so ends at the close of the last of them; false if it ends at the
+	 * next operation outside of any parentheses
+	 */
+	private boolean skippingToClose;
+
+	// The time at which the current evaluation started, in nanoseconds
+	private long startTime;
 
 	// The state of the parser
 	private State state;
 
 	// Our subtract operation
-	private final SubtractOperation subtractOperation = new SubtractOperation(
-			errorStream);
+	private final SubtractOperation subtractOperation;
 
 	// The symbol table
 	private final SymbolTable symbolTable = new SymbolTable();
 
+	// The buffer in which the lexical analyzer collects batches of tokens
+	private final TokenBuffer tokenBuffer = new TokenBuffer();
+
 	// A deque for tokens and their metadata
 	private final Deque<TokenInformation> tokenDeque = new ArrayDeque<TokenInformation>();
 
+	/*
+	 * The ring through which a lexical analyzer on another thread passes
+	 * batches of tokens, created when first needed
+	 */
+	private TokenRing tokenRing;
+
 	/**
 	 * Constructs a parser with a default expression.
 	 */
@@ -435,6 +650,34 @@ class Parser implements AnalysisListener {
 	 *            The expression to be used by this parser
 	 */
 	public Parser(String expression) {
+		this(expression, null);
+	}
+
+	/**
+	 * Constructs the parser with an explicit expression and an explicit print
+	 * stream for errors.
+	 * 
+	 * @param expression
+	 *            The expression to be used by this parser
+	 * @param errorStream
+	 *            The print stream for errors of this parser, or null to use
+	 *            the print stream set for the parser class
+	 */
+	public Parser(String expression, PrintStream errorStream) {
+
+		/*
+		 * Set the print stream for errors, and create the arithmetic
+		 * operations that report to it.
+		 */
+		this.errorStream = (null == errorStream) ? defaultErrorStream
+				: errorStream;
+		addOperation = new AddOperation(this.errorStream);
+		divideOperation = new DivideOperation(this.errorStream);
+		multiplyOperation = new MultiplyOperation(this.errorStream);
+		subtractOperation = new SubtractOperation(this.errorStream);
+
+		// Recover in panic mode if parsers do by default.
+		panicMode = defaultPanicMode;
 
 		// Create the lexical analyzer, and set the expression.
 		lexicalAnalyzer = new LexicalAnalyzer();
@@ -455,6 +698,96 @@ class Parser implements AnalysisListener {
 		lexicalAnalyzer.removeListener(this);
 	}
 
+	/**
+	 * Evaluates an expression: sets the expression, and launches the lexical
+	 * analyzer with the parser as its only token listener, filling a token
+	 * buffer with a batch of tokens at a time.
+	 * 
+	 * @param expression
+	 *            The expression to evaluate
+	 * @return The results of the parse as an array of token values
+	 */
+	public Integer[] evaluate(String expression) {
+
+		/*
+		 * Begin the evaluation and an event for it, setting the expression in
+		 * the parser. Launch the lexical analyzer for the parser, delivering
+		 * tokens in batches.
+		 */
+		final ParseEvent event = new ParseEvent();
+		lexicalAnalyzer.launch(beginEvaluation(event, expression), tokenBuffer);
+
+		// End the evaluation, and return the results of the parse.
+		endEvaluation(event, true);
+		return getResults();
+	}
+
+	/**
+	 * Evaluates an expression with lexical analysis in parallel: sets the
+	 * expression, and launches the lexical analyzer to find the tokens of
+	 * chunks of the expression on a fork-join pool, delivering them to the
+	 * parser in order. This pays for itself only for very large expressions.
+	 * 
+	 * @param expression
+	 *            The expression to evaluate
+	 * @param pool
+	 *            The fork-join pool on which to find the tokens
+	 * @return The results of the parse as an array of token values
+	 */
+	public Integer[] evaluateParallel(String expression, ForkJoinPool pool) {
+
+		/*
+		 * Begin the evaluation and an event for it, setting the expression in
+		 * the parser. Launch the lexical analyzer for the parser on the pool.
+		 */
+		final ParseEvent event = new ParseEvent();
+		lexicalAnalyzer.launch(beginEvaluation(event, expression), pool);
+
+		// End the evaluation, and return the results of the parse.
+		endEvaluation(event, false);
+		return getResults();
+	}
+
+	/**
+	 * Evaluates an expression with lexical analysis pipelined: sets the
+	 * expression, and launches the lexical analyzer on another thread, which
+	 * passes batches of tokens to the parser on this thread through a token
+	 * ring. This pays for itself only for very large expressions, where
+	 * lexical analysis of later tokens overlaps parsing of earlier ones.
+	 * 
+	 * @param expression
+	 *            The expression to evaluate
+	 * @return The results of the parse as an array of token values
+	 */
+	public Integer[] evaluatePipelined(String expression) {
+
+		// Create the token ring if it has not yet been created.
+		if (null == tokenRing) {
+			tokenRing = new TokenRing();
+		}
+
+		/*
+		 * Begin the evaluation and an event for it, setting the expression in
+		 * the parser. Launch the lexical analyzer for the parser through the
+		 * token ring.
+		 */
+		final ParseEvent event = new ParseEvent();
+		lexicalAnalyzer.launch(beginEvaluation(event, expression), tokenRing);
+
+		// End the evaluation, and return the results of the parse.
+		endEvaluation(event, true);
+		return getResults();
+	}
+
+	/**
+	 * Gets the print stream for errors.
+	 * 
+	 * @return The print stream for errors
+	 */
+	public PrintStream getErrorStream() {
+		return errorStream;
+	}
+
 	/**
 	 * Gets the results of the parse.
 	 * 
@@ -497,6 +830,27 @@ class Parser implements AnalysisListener {
 		return results.toArray(new Integer[results.size()]);
 	}
 
+	/**
+	 * Gets the bytes allocated by the lexical analyzer filling token buffers
+	 * during the last evaluation, while allocations were accounted.
+	 * 
+	 * @return The bytes allocated filling token buffers
+	 */
+	public long getScanAllocation() {
+		return lexicalAnalyzer.getScanAllocation();
+	}
+
+	/**
+	 * Determines whether evaluations recover from unexpected tokens in panic
+	 * mode.
+	 * 
+	 * @return True if evaluations recover in panic mode, false if they report
+	 *         each unexpected token
+	 */
+	public boolean isPanicMode() {
+		return panicMode;
+	}
+
 	/**
 	 * Launches the lexical parser.
 	 */
@@ -512,7 +866,7 @@ class Parser implements AnalysisListener {
 	 */
 	@Override
 	public void receiveAddToken(AddToken token) {
-		receiveOperationToken(token, State.EXPECTING_OPEN, addOperation);
+		receiveOperationToken(token, State.EXPECTING_OPEN, addOperation, true);
 	}
 
 	/*
@@ -533,16 +887,22 @@ class Parser implements AnalysisListener {
 			 * and the metadata does not have an operation (i.e., it is an
 			 * argument token).
 			 */
-			final Deque<Integer> argumentDeque = new ArrayDeque<Integer>();
+			int argumentCount = 0;
 			TokenInformation metadata = popLastToken();
 			while ((null != metadata) && (!metadata.hasOperation())) {
 
 				/*
 				 * The metadata indicates that the first/next token is an
-				 * argument token. Get the argument value, and push it onto the
-				 * argument deque. Pop the next token.
+				 * argument token. Get the argument value, and add it to the
+				 * argument buffer, growing the buffer if it is full. Pop the
+				 * next token.
 				 */
-				argumentDeque.push(getArgumentValue(metadata.getToken()));
+				if (arguments.length == argumentCount) {
+					arguments = Arrays.copyOf(arguments, argumentCount << 1);
+				}
+
+				arguments[argumentCount++] = getArgumentValue(metadata
+						.getToken());
 				metadata = popLastToken();
 			}
 
@@ -553,17 +913,17 @@ class Parser implements AnalysisListener {
 			if (null == metadata) {
 
 				// Output an error message, and do not change state.
-				getErrorStream()
-						.println(
-								"Error: no token with an operation was found upon operation reduction.");
+				outputDiagnostic(DiagnosticKind.MISSING_OPERATION,
+						"Error: no token with an operation was found upon operation reduction.");
 			}
 
 			/*
-			 * The metadata is not null, and the token is an operation. Perform
-			 * a binary operation.
+			 * The metadata is not null, and the token is an operation. The
+			 * operation is no longer awaiting its close; perform it.
 			 */
 			else {
-				performBinaryOperation(argumentDeque, metadata);
+				operationDeque.pop();
+				performOperation(argumentCount, metadata);
 			}
 		}
 
@@ -601,6 +961,16 @@ class Parser implements AnalysisListener {
 			state = State.EXPECTING_SECOND_ARGUMENT_AFTER_LET;
 		}
 
+		/*
+		 * Otherwise transition back to the expecting last argument state if the
+		 * current state is expecting close, and the innermost operation accepts
+		 * another argument.
+		 */
+		else if (State.EXPECTING_CLOSE.equals(state)
+				&& isInnermostOperationVariadic()) {
+			state = State.EXPECTING_LAST_ARGUMENT;
+		}
+
 		// Otherwise output an unexpected token message.
 		else {
 			outputUnexpectedToken(token, getWhileExpectingString());
@@ -647,7 +1017,8 @@ class Parser implements AnalysisListener {
 	 */
 	@Override
 	public void receiveMultiplyToken(MultiplyToken token) {
-		receiveOperationToken(token, State.EXPECTING_OPEN, multiplyOperation);
+		receiveOperationToken(token, State.EXPECTING_OPEN, multiplyOperation,
+				true);
 	}
 
 	/*
@@ -681,6 +1052,22 @@ class Parser implements AnalysisListener {
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.garygregg.coverity.codingtest.lexical_analysis.AnalysisListener#
+	 * receiveRegisteredOperationToken
+	 * (com.garygregg.coverity.codingtest.token.RegisteredOperationToken)
+	 */
+	@Override
+	public void receiveRegisteredOperationToken(RegisteredOperationToken token) {
+
+		// Receive the token with the kernel of its operation for 32 bits.
+		final OperationDescriptor descriptor = token.getDescriptor();
+		receiveOperationToken(token, State.EXPECTING_OPEN,
+				descriptor.getIntKernel(), descriptor.isVariadic());
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -717,14 +1104,34 @@ class Parser implements AnalysisListener {
 		if (mayReceiveValueToken()) {
 
 			/*
-			 * A value token may be received in the current state. Try to add a
-			 * symbol for the value, if appropriate. Use the given token along
-			 * with the current state to create token metadata. Push the token
-			 * metadata onto the token deque. Perform the indicated state
+			 * A value token may be received in the current state. Is it from
+			 * the input stream, with a literal outside the range of an
+			 * integer?
+			 */
+			ValueToken received = token;
+			final Integer position = token.getPosition();
+			if ((null != position)
+					&& !LexicalAnalyzer.isIntegerLiteral(token.getExpression(),
+							token.getValue())) {
+
+				/*
+				 * The literal is out of range. Output an error message, and
+				 * use a default value of zero rather than its low 32 bits.
+				 */
+				outputDiagnostic(DiagnosticKind.VALUE_OUT_OF_RANGE, "Value '"
+						+ token.getExpression() + "' at position " + position
+						+ " is out of range; using a default of 0.");
+				received = new ValueToken(0, position);
+			}
+
+			/*
+			 * Try to add a symbol for the value, if appropriate. Use the token
+			 * along with the current state to create token metadata. Push the
+			 * token metadata onto the token deque. Perform the indicated state
 			 * transition as a last step.
 			 */
-			addSymbol(token.getValue());
-			tokenDeque.push(new TokenInformation(token, state));
+			addSymbol(received.getValue());
+			tokenDeque.push(new TokenInformation(received, state));
 			state = transitionFromArgumentStateTo();
 		}
 
@@ -780,8 +1187,20 @@ class Parser implements AnalysisListener {
 		lexicalAnalyzer.reset();
 		symbolTable.clear();
 
-		// Clear the token deque, and start analysis.
+		/*
+		 * Clear the token counts, and the token and operation deques. Start
+		 * analysis.
+		 */
+		counter.attach(adapter, false);
 		tokenDeque.clear();
+		operationDeque.clear();
+
+		/*
+		 * Do not recover in panic mode unless an evaluation does, and skip no
+		 * malformed region. Start analysis.
+		 */
+		recovering = false;
+		skipDepth = -1;
 		startAnalysis();
 	}
 
@@ -798,6 +1217,25 @@ class Parser implements AnalysisListener {
 		reset();
 	}
 
+	/**
+	 * Sets whether evaluations recover from unexpected tokens in panic mode.
+	 * In panic mode, the first unexpected token in a top-level expression
+	 * discards the expression, and begins a malformed region whose tokens are
+	 * skipped. The region ends at the close of the parentheses open around the
+	 * unexpected token, if any, or else at the next operation outside of any
+	 * parentheses, which begins the next top-level expression. Each region is
+	 * reported once, and has no results. An expression left unfinished at the
+	 * end of the input is reported, and discarded. The mode applies to
+	 * evaluations, not to launches of a connected parser.
+	 * 
+	 * @param panicMode
+	 *            True if evaluations recover in panic mode, false if they
+	 *            report each unexpected token and continue to parse
+	 */
+	public void setPanicMode(boolean panicMode) {
+		this.panicMode = panicMode;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -826,12 +1264,21 @@ class Parser implements AnalysisListener {
 			 * missing close parenthesis, or any number of poorly formatted
 			 * input strings. Output an error message.
 			 */
-			getErrorStream().println(
+			outputDiagnostic(DiagnosticKind.UNFINISHED_PARSE,
 					"Error: parse of input has ended in state of " + state
 							+ ".");
+
+			/*
+			 * Discard the unfinished top-level expression if the evaluation
+			 * recovers in panic mode, so that it has no results.
+			 */
+			if (recovering) {
+				discardExpression();
+			}
 		}
 
-		// Restart the analysis.
+		// Stop skipping any malformed region, and restart the analysis.
+		skipDepth = -1;
 		startAnalysis();
 	}
 
@@ -858,7 +1305,7 @@ class Parser implements AnalysisListener {
 		if (null == value) {
 
 			// The value is null. Output an error message.
-			getErrorStream().println(
+			outputDiagnostic(DiagnosticKind.UNDEFINED_SYMBOL,
 					"Attempt to use undefined symbol, '" + expression
 							+ "' at position " + token.getPosition() + ".");
 
@@ -943,6 +1390,166 @@ class Parser implements AnalysisListener {
 		return okayToAdd;
 	}
 
+	/**
+	 * Begins an evaluation: notes its start if metrics are recorded, begins
+	 * its event, and sets the expression in the parser.
+	 * 
+	 * @param event
+	 *            The event for the evaluation
+	 * @param expression
+	 *            The expression to evaluate
+	 * @return The listener for which to launch the lexical analyzer, which
+	 *         counts the tokens on their way to the parser if either metrics
+	 *         are recorded or the event is enabled
+	 */
+	private TokenListener beginEvaluation(ParseEvent event, String expression) {
+
+		// Note the start of the evaluation if metrics are recorded.
+		metered = metrics.isEnabled();
+		if (metered) {
+			startTime = System.nanoTime();
+		}
+
+		/*
+		 * Begin the event, and set the expression. Recover in panic mode if
+		 * the parser does, passing the tokens through the listener that skips
+		 * malformed regions. Return the listener for the tokens.
+		 */
+		event.begin();
+		setExpression(expression);
+		recovering = panicMode;
+		return counter.attach(recovering ? skippingListener : adapter,
+				metered || event.isEnabled());
+	}
+
+	/**
+	 * Begins recovery in panic mode from an unexpected token: discards the
+	 * top-level expression in which the token was received, and begins to
+	 * skip the malformed region that the token begins, unless the token also
+	 * ends it.
+	 * 
+	 * @param token
+	 *            The unexpected token
+	 * @return A description of the recovery, for the diagnostic
+	 */
+	private String beginSkipping(Token token) {
+
+		/*
+		 * Count the parentheses open around the token: one for each operation
+		 * awaiting its close, less one if the innermost has yet to receive
+		 * its open.
+		 */
+		int depth = operationDeque.size();
+		if (State.EXPECTING_OPEN.equals(state)
+				|| State.EXPECTING_OPEN_AFTER_LET.equals(state)) {
+			--depth;
+		}
+
+		/*
+		 * Discard the top-level expression, and begin to skip the region. The
+		 * region ends at a close if it begins inside parentheses.
+		 */
+		discardExpression();
+		skippingToClose = (0 < depth);
+		skipDepth = depth;
+
+		// Count any parentheses of the token itself.
+		if (token instanceof OpenToken) {
+			skipParenthesis(true);
+		}
+
+		else if (token instanceof CloseToken) {
+			skipParenthesis(false);
+		}
+
+		else if (token instanceof UnknownToken) {
+
+			final String text = token.getExpression();
+			skipUnknownText(text, 0, text.length());
+		}
+
+		// Has the token closed the last of the parentheses open around it?
+		final String recovery;
+		if (0 > skipDepth) {
+
+			// The token ends the region; there is nothing to skip.
+			recovery = "discarding the malformed expression";
+		}
+
+		/*
+		 * Otherwise is the token an operation outside of any parentheses? It
+		 * ends the region, and begins the next top-level expression.
+		 */
+		else if ((!skippingToClose) && (token instanceof OperationToken)) {
+
+			skipDepth = -1;
+			recovery = "discarding the malformed expression, and restarting at the operation";
+		}
+
+		// Otherwise the region is skipped to its end.
+		else {
+			recovery = skippingToClose ? "skipping to the matching ')'"
+					: "skipping to the next operation";
+		}
+
+		// Return the description of the recovery.
+		return recovery;
+	}
+
+	/**
+	 * Discards the top-level expression being parsed: its tokens, the
+	 * operations awaiting their close, and the symbols bound by its 'let'
+	 * operations. The results of earlier top-level expressions are kept.
+	 */
+	private void discardExpression() {
+
+		/*
+		 * Pop tokens back to the result of the last top-level expression,
+		 * which was received in no state.
+		 */
+		while ((!tokenDeque.isEmpty())
+				&& (null != tokenDeque.peek().getState())) {
+			tokenDeque.pop();
+		}
+
+		/*
+		 * No operation awaits its close, and no symbol is bound, between
+		 * top-level expressions. Expect the next.
+		 */
+		operationDeque.clear();
+		symbolTable.clear();
+		state = State.EXPECTING_OPERATION;
+	}
+
+	/**
+	 * Ends an evaluation: commits its event, and records its metrics if they
+	 * are recorded.
+	 * 
+	 * @param event
+	 *            The event for the evaluation
+	 * @param scanned
+	 *            True if the lexical analyzer filled token buffers, so that
+	 *            the time it took to find the tokens is known; false otherwise
+	 */
+	private void endEvaluation(ParseEvent event, boolean scanned) {
+
+		// Commit the event. Are metrics recorded?
+		counter.commit(event);
+		if (metered) {
+
+			/*
+			 * Metrics are recorded. Record the latency of the evaluation, and
+			 * of the lexical analysis if it is known. Count the tokens.
+			 */
+			metrics.recordLatency(Phase.PARSE, System.nanoTime() - startTime);
+			if (scanned) {
+				metrics.recordLatency(Phase.LEX, lexicalAnalyzer.getScanTime());
+			}
+
+			metrics.countTokens(counter);
+		}
+	}
+
 	/**
 	 * Gets the value for an argument token.
 	 * 
@@ -973,7 +1580,7 @@ class Parser implements AnalysisListener {
 			 * There is neither a value for the token, nor a value for its
 			 * expression in the symbol table. Output an error message.
 			 */
-			getErrorStream().println(
+			outputDiagnostic(DiagnosticKind.UNRESOLVED_VALUE,
 					"Cannot resolve value for token expression '"
 							+ token.getExpression()
 							+ "', using default value of zero.");
@@ -987,71 +1594,42 @@ class Parser implements AnalysisListener {
 	}
 
 	/**
-	 * Gets the state of the last token metadata on the token deque.
+	 * Gets the length of the expression of the parser.
 	 * 
-	 * @return The state of the last token metadata on the token deque
+	 * @return The length of the expression of the parser, or zero if there is
+	 *         no expression
 	 */
-	private State getLastState() {
+	private int getExpressionLength() {
 
-		/*
-		 * Get the token metadata for the last token on the token deque. Return
-		 * null if the metadata is null, or the state in the metadata if the
-		 * metadata is not null.
-		 */
-		final TokenInformation metadata = peekLastToken();
-		return (null == metadata) ? null : metadata.getState();
+		// Return the length of the expression, or zero if there is none.
+		final String expression = lexicalAnalyzer.getExpression();
+		return (null == expression) ? 0 : expression.length();
 	}
 
 	/**
-	 * Gets the next argument from an argument deque.
+	 * Gets the 'while expecting' string for a given state.
 	 * 
-	 * @param deque
-	 *            The deque containing the arguments.
-	 * @param argumentNumber
-	 *            The number of the argument being sought (for reporting
-	 *            purposes)
-	 * @param position
-	 *            The position of the argument
-	 * @return The next argument from the given argument deque
-	 */
-	private int getNextArgumentValue(Deque<? extends Integer> deque,
-			int argumentNumber, Integer position) {
-
-		/*
-		 * Pop the last argument. Declare and initialize the return value. Is
-		 * the argument value null?
-		 */
-		final Integer argumentValue = deque.isEmpty() ? null : deque.pop();
-		int returnValue = 0;
-		if (null == argumentValue) {
-
-			// The argument value is null. Output an error message.
-			getErrorStream().println(
-					"No argument number "
-							+ Integer.toString(argumentNumber + 1)
-							+ " for the operation at position " + position
-							+ "; using a default of " + returnValue + ".");
-		}
-
-		/*
-		 * The last argument is not null. Unbox it and assign it to the return
-		 * value.
-		 */
-		else {
-			returnValue = argumentValue;
-		}
-
-		// Return the value.
-		return returnValue;
+	 * @return The 'while expecting' string for the given state
+	 */
+	private String getWhileExpectingString() {
+		return getWhileExpectingString(state);
 	}
 
 	/**
-	 * Gets the 'while expecting' string for a given state.
+	 * Determines if the innermost operation awaiting its close accepts more
+	 * than two arguments.
 	 * 
-	 * @return The 'while expecting' string for the given state
+	 * @return True if the innermost operation accepts more than two
+	 *         arguments, false otherwise
 	 */
-	private String getWhileExpectingString() {
-		return whileExpectingMap.get(state);
+	private boolean isInnermostOperationVariadic() {
+
+		/*
+		 * Get the metadata of the innermost operation, and return whether it is
+		 * variadic.
+		 */
+		final TokenInformation metadata = operationDeque.peek();
+		return (null != metadata) && metadata.isVariadic();
 	}
 
 	/**
@@ -1084,6 +1662,42 @@ class Parser implements AnalysisListener {
 				|| (State.EXPECTING_FIRST_ARGUMENT_AFTER_LET.equals(state));
 	}
 
+	/**
+	 * Outputs a diagnostic to the error stream, counts it if metrics are
+	 * recorded, and records it if diagnostics are recorded.
+	 * 
+	 * @param kind
+	 *            The kind of the diagnostic
+	 * @param message
+	 *            The message of the diagnostic
+	 */
+	private void outputDiagnostic(DiagnosticKind kind, String message) {
+
+		/*
+		 * Output the message to the error stream, and count the diagnostic if
+		 * metrics are recorded.
+		 */
+		getErrorStream().println(message);
+		if (metrics.isEnabled()) {
+			metrics.countDiagnostic(kind);
+		}
+
+		// Should the diagnostic be recorded?
+		final DiagnosticEvent event = new DiagnosticEvent();
+		if (event.shouldCommit()) {
+
+			/*
+			 * The diagnostic should be recorded. Describe the expression so far
+			 * as its tokens have been counted, and commit the event.
+			 */
+			counter.describe(event);
+			event.setExpressionLength(getExpressionLength());
+			event.setKind(kind.name());
+			event.setMessage(message);
+			event.commit();
+		}
+	}
+
 	/**
 	 * Outputs unexpected tokens to the error stream in a uniform way.
 	 * 
@@ -1094,11 +1708,16 @@ class Parser implements AnalysisListener {
 	 */
 	private void outputUnexpectedToken(Token token, String whileExpecting) {
 
-		// Output the message to the error stream.
-		getErrorStream().println(
-				"Unexpected " + token.toString() + " encountered at position "
-						+ token.getPosition() + " while expecting "
-						+ whileExpecting + "; continuing to parse.");
+		/*
+		 * Begin recovery if the evaluation recovers in panic mode, or else
+		 * continue to parse. Output the message to the error stream.
+		 */
+		final String recovery = recovering ? beginSkipping(token)
+				: "continuing to parse";
+		outputDiagnostic(DiagnosticKind.UNEXPECTED_TOKEN, "Unexpected "
+				+ token.toString() + " encountered at position "
+				+ token.getPosition() + " while expecting " + whileExpecting
+				+ "; " + recovery + ".");
 	}
 
 	/**
@@ -1112,50 +1731,104 @@ class Parser implements AnalysisListener {
 	}
 
 	/**
-	 * Performs a binary operation.
+	 * Performs an operation, reducing its arguments from the first to the
+	 * last.
 	 * 
-	 * @param argumentDeque
-	 *            An argument deque where the two arguments for the binary
-	 *            operation are the first two on the deque
+	 * @param argumentCount
+	 *            The number of arguments in the argument buffer, which holds
+	 *            them in the order they were popped (i.e., last first)
 	 * @param metadata
 	 *            Token metadata containing the operation to be performed and
 	 *            the position of the operation
 	 */
-	private void performBinaryOperation(final Deque<Integer> argumentDeque,
-			TokenInformation metadata) {
-
-		// Pop all but the last two arguments from the argument deque.
-		while (2 < argumentDeque.size()) {
-			argumentDeque.pop();
-		}
+	private void performOperation(int argumentCount, TokenInformation metadata) {
 
 		/*
-		 * Get the position of the operation. Declare and initialize an argument
-		 * number variable.
+		 * Begin an event for the reduction. Get the position of the operation.
+		 * Reverse the arguments, so that they are in order from the first.
 		 */
-		final Integer operationPosition = metadata.getToken().getPosition();
-		int argumentNumber = 0;
+		final ReductionEvent event = new ReductionEvent();
+		event.begin();
+		final int operationPosition = metadata.getPosition();
+		for (int i = 0, j = argumentCount - 1; i < j; ++i, --j) {
+
+			// Swap the arguments at each end.
+			final int argument = arguments[i];
+			arguments[i] = arguments[j];
+			arguments[j] = argument;
+		}
+
+		// Use a default of zero for each missing argument.
+		int count = argumentCount;
+		while (binaryArgumentCount > count) {
+
+			// Output an error message, and use the default.
+			arguments[count++] = 0;
+			outputDiagnostic(DiagnosticKind.MISSING_ARGUMENT,
+					"No argument number " + Integer.toString(count)
+							+ " for the operation at position "
+							+ operationPosition + "; using a default of 0.");
+		}
 
 		/*
-		 * Get the last argument from the argument deque. This the first
-		 * argument to our operation.
+		 * An operation that is not variadic takes only its last two arguments;
+		 * the first argument of a 'let' operation is the variable it binds.
 		 */
-		final int firstArgument = getNextArgumentValue(argumentDeque,
-				argumentNumber++, operationPosition);
+		final int first = (metadata.isVariadic() || (binaryArgumentCount >= count)) ? 0
+				: count - binaryArgumentCount;
 
 		/*
-		 * Get the 2nd to last argument from the argument deque. This is the
-		 * second argument to our operation.
+		 * Reduce the arguments with the operation as specified in the token
+		 * metadata. A registered operation signals an undefined result with an
+		 * arithmetic exception.
 		 */
-		final int secondArgument = getNextArgumentValue(argumentDeque,
-				argumentNumber, operationPosition);
+		final BinaryOperation operation = metadata.getOperation();
+		int result = arguments[first];
+		try {
+			for (int i = first + 1; i < count; ++i) {
+				result = operation.performOperation(result, arguments[i]);
+			}
+		}
+
+		// Output an error message, and use a default result of zero.
+		catch (ArithmeticException exception) {
+
+			result = 0;
+			outputDiagnostic(DiagnosticKind.NO_RESULT,
+					"The operation at position " + operationPosition
+							+ " has no result (" + exception.getMessage()
+							+ "); using a default of " + result + ".");
+		}
 
-		// Perform the operation as specified in the token metadata.
-		final int result = metadata.getOperation().performOperation(
-				firstArgument, secondArgument);
+		// Count the reduction if metrics are recorded.
+		if (metrics.isEnabled()) {
+			metrics.countReduction(metadata.getExpression());
+		}
+
+		// End the event. Should it be committed?
+		event.end();
+		if (event.shouldCommit()) {
+
+			/*
+			 * The event should be committed. Describe the operation, and the
+			 * expression so far as its tokens have been counted. The operation
+			 * is no longer awaiting its close, so its depth is one more than
+			 * the number that are.
+			 */
+			counter.describe(event);
+			event.setArgumentCount(argumentCount);
+			event.setDepth(operationDeque.size() + 1);
+			event.setExpressionLength(getExpressionLength());
+			event.setOperation(metadata.getExpression());
+			event.setPosition(operationPosition);
+			event.commit();
+		}
 
-		// State the state, and receive a new value token.
-		state = transitionFromCloseStateTo();
+		/*
+		 * Set the state from the state in which the operation was received, and
+		 * receive a new value token.
+		 */
+		state = transitionFromCloseStateTo(metadata);
 		receiveValueToken(new ValueToken(result));
 	}
 
@@ -1181,6 +1854,24 @@ class Parser implements AnalysisListener {
 	 */
 	private void receiveOperationToken(OperationToken token,
 			State transitionTo, BinaryOperation operation) {
+		receiveOperationToken(token, transitionTo, operation, false);
+	}
+
+	/**
+	 * Receives an operation token with an explicit variadic flag.
+	 * 
+	 * @param token
+	 *            The key token to be received
+	 * @param transitionTo
+	 *            The state to transition if the given key token may be received
+	 * @param operation
+	 *            The operation to be performed when the operation is reduced
+	 * @param variadic
+	 *            True if the operation accepts more than two arguments, which
+	 *            it reduces from the first to the last
+	 */
+	private void receiveOperationToken(OperationToken token,
+			State transitionTo, BinaryOperation operation, boolean variadic) {
 
 		// May an operation token be received in the current state?
 		if (mayReceiveOperationToken()) {
@@ -1188,19 +1879,28 @@ class Parser implements AnalysisListener {
 			/*
 			 * An operation may be received in the current state. Use the given
 			 * token and operation - along with the current state - to create
-			 * token metadata. Push the token metadata onto the token deque.
-			 * Perform the indicated state transition as a last step.
+			 * token metadata. Push the token metadata onto the token and
+			 * operation deques. Perform the indicated state transition as a
+			 * last step.
 			 */
-			tokenDeque.push(new TokenInformation(token, state, operation));
+			final TokenInformation metadata = new TokenInformation(token,
+					state, operation, variadic);
+			tokenDeque.push(metadata);
+			operationDeque.push(metadata);
 			state = transitionTo;
 		}
 
 		/*
 		 * An operation may not be received in the current state. Output an
-		 * unexpected token message.
+		 * unexpected token message. In panic mode, an operation that skips no
+		 * region restarts the parse; receive it again.
 		 */
 		else {
+
 			outputUnexpectedToken(token, getWhileExpectingString());
+			if (recovering && (0 > skipDepth)) {
+				receiveOperationToken(token, transitionTo, operation, variadic);
+			}
 		}
 	}
 
@@ -1227,6 +1927,68 @@ class Parser implements AnalysisListener {
 		return okayToRemove;
 	}
 
+	/**
+	 * Counts a parenthesis in the malformed region being skipped. The region
+	 * ends if it began inside parentheses, and the parenthesis closes the last
+	 * of them.
+	 * 
+	 * @param open
+	 *            True if the parenthesis opens, false if it closes
+	 */
+	private void skipParenthesis(boolean open) {
+
+		// Count an open parenthesis.
+		if (open) {
+			++skipDepth;
+		}
+
+		/*
+		 * Count a close parenthesis, if any is open. End the region if it
+		 * began inside parentheses, and none is now open.
+		 */
+		else if ((0 < skipDepth) && (0 == --skipDepth) && skippingToClose) {
+			skipDepth = -1;
+		}
+	}
+
+	/**
+	 * Counts the parentheses in the text of an unknown token in the malformed
+	 * region being skipped, until the region ends. The lexical analyzer folds
+	 * any punctuation that follows an unknown character into the unknown
+	 * token, so that the close that ends a region may be found only in its
+	 * text. The parentheses are counted only if the region began inside
+	 * parentheses; an unknown token outside of any does not open a region of
+	 * parentheses of its own.
+	 * 
+	 * @param text
+	 *            The text containing the unknown token
+	 * @param start
+	 *            The position of the unknown token in the text
+	 * @param end
+	 *            The position after the unknown token in the text
+	 */
+	private void skipUnknownText(CharSequence text, int start, int end) {
+
+		/*
+		 * Count the parentheses only if the region began inside parentheses.
+		 * Cycle for each character of the token while the region continues.
+		 */
+		if (skippingToClose) {
+			for (int i = start; (i < end) && (0 <= skipDepth); ++i) {
+
+				// Count an open or close parenthesis.
+				final char character = text.charAt(i);
+				if ('(' == character) {
+					skipParenthesis(true);
+				}
+
+				else if (')' == character) {
+					skipParenthesis(false);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Returns the transition state from a known argument acceptance state.
 	 * 
@@ -1247,17 +2009,21 @@ class Parser implements AnalysisListener {
 	 * Returns the state for a substitute token that replaces an operation when
 	 * the operation is complete.
 	 * 
+	 * @param metadata
+	 *            Token metadata for the operation
 	 * @return The state for a substitute token that replaces an operation when
 	 *         the operation is complete
 	 */
-	private State transitionFromCloseStateTo() {
+	private State transitionFromCloseStateTo(TokenInformation metadata) {
 
 		/*
-		 * Get the new state when transitioning from the last state on the token
-		 * deque. Assert that the new state is not null, then return it.
+		 * Get the new state when transitioning from the state in which the
+		 * operation was received. Assert that the operation was received in a
+		 * known state (the new state is null for a top-level operation), then
+		 * return the new state.
 		 */
-		final State newState = transitionFromCloseStateTo(getLastState());
-		assert (null != newState);
-		return newState;
+		final State operationState = metadata.getState();
+		assert operationSubstitutionTransitionMap.containsKey(operationState);
+		return transitionFromCloseStateTo(operationState);
 	}
 }
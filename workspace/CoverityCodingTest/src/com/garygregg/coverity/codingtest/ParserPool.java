@@ -0,0 +1,154 @@
+package com.garygregg.coverity.codingtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Contains a thread-safe pool of parsers, each of which reports its errors to
+ * a private buffer so that concurrent evaluations do not mix their
+ * diagnostics. The pool keeps a bounded number of idle parsers; a parser given
+ * back to a full pool is dropped, so that a burst of borrowers does not leave
+ * its parsers pooled for good.
+ * 
+ * @author Gary Gregg
+ */
+class ParserPool {
+
+	/**
+	 * Contains a parser whose errors are captured in a private buffer.
+	 * 
+	 * @author Gary Gregg
+	 */
+	static class PooledParser {
+
+		// The character set of the errors, independent of the host locale
+		private static final Charset charset = Charset.forName("UTF-8");
+
+		// The buffer receiving the errors of the parser
+		private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+		// The parser
+		private final Parser parser = new Parser(null, new PrintStream(buffer,
+				true, charset));
+
+		/**
+		 * Evaluates an expression with the parser.
+		 * 
+		 * @param expression
+		 *            The expression to evaluate
+		 * @return The results of the evaluation
+		 */
+		public Integer[] evaluate(String expression) {
+
+			// Clear the errors of any previous evaluation, and evaluate.
+			buffer.reset();
+			return parser.evaluate(expression);
+		}
+
+		/**
+		 * Gets the errors reported by the most recent evaluation.
+		 * 
+		 * @return The errors reported by the most recent evaluation, one per
+		 *         element; empty if there were none
+		 */
+		public String[] getErrors() {
+
+			/*
+			 * Get the content of the buffer. Return an empty array if the
+			 * buffer is empty, or the lines of the buffer otherwise.
+			 */
+			final String content = buffer.toString(charset);
+			return content.isEmpty() ? new String[0] : content
+					.split("\\r?\\n");
+		}
+	}
+
+	// The default limit on the number of idle parsers
+	public static final int defaultMaximumIdleCount = 64;
+
+	// The parsers that are not currently borrowed
+	private final Queue<PooledParser> idleParsers;
+
+	// The limit on the number of idle parsers
+	private final int maximumIdleCount;
+
+	/**
+	 * Constructs the parser pool with the default limit on the number of idle
+	 * parsers.
+	 */
+	public ParserPool() {
+		this(defaultMaximumIdleCount);
+	}
+
+	/**
+	 * Constructs the parser pool.
+	 * 
+	 * @param maximumIdleCount
+	 *            The limit on the number of idle parsers; must be positive
+	 */
+	public ParserPool(int maximumIdleCount) {
+
+		// Throw an exception if the limit is not positive.
+		if (0 >= maximumIdleCount) {
+			throw new IllegalArgumentException(
+					"The limit on idle parsers must be positive; it was "
+							+ maximumIdleCount + ".");
+		}
+
+		// Set the limit, and create a queue bounded by it.
+		this.maximumIdleCount = maximumIdleCount;
+		idleParsers = new ArrayBlockingQueue<PooledParser>(maximumIdleCount);
+	}
+
+	/**
+	 * Borrows a parser from the pool, creating one if none is idle.
+	 * 
+	 * @return A parser for the exclusive use of the caller until it is given
+	 *         back
+	 */
+	public PooledParser borrow() {
+
+		// Poll for an idle parser. Create a new parser if there is none.
+		final PooledParser parser = idleParsers.poll();
+		return (null == parser) ? new PooledParser() : parser;
+	}
+
+	/**
+	 * Gets the number of idle parsers in the pool.
+	 * 
+	 * @return The number of idle parsers in the pool
+	 */
+	public int getIdleCount() {
+		return idleParsers.size();
+	}
+
+	/**
+	 * Gets the limit on the number of idle parsers in the pool.
+	 * 
+	 * @return The limit on the number of idle parsers in the pool
+	 */
+	public int getMaximumIdleCount() {
+		return maximumIdleCount;
+	}
+
+	/**
+	 * Gives a borrowed parser back to the pool. The parser is dropped if the
+	 * pool already holds as many idle parsers as its limit.
+	 * 
+	 * @param parser
+	 *            The parser to give back; ignored if null
+	 * @return True if the parser was kept in the pool, false if it was null or
+	 *         dropped
+	 */
+	public boolean giveBack(PooledParser parser) {
+
+		/*
+		 * Offer the parser to the idle parsers if it is not null; the offer
+		 * fails if the pool is full, and the parser is dropped.
+		 */
+		return (null != parser) && idleParsers.offer(parser);
+	}
+}
@@ -0,0 +1,354 @@
+package com.garygregg.coverity.codingtest;
+
+/**
+ * Contains a compiled calculator program: a postfix instruction sequence that
+ * leaves the value of each top-level expression on an evaluation stack. Each
+ * instruction is an opcode with an integer operand, and the source position of
+ * the token that caused it. The instruction that ends a subexpression also
+ * records the index of the first instruction of that subexpression, so the
+ * instruction sequence doubles as a flattened expression tree. A program is
+ * compiled for one numeric mode; values too wide for an operand are kept in a
+ * pool of constants. A variadic operation reduces any number of values, from
+ * the deepest to the top, with one instruction.
+ * 
+ * @author Gary Gregg
+ */
+public final class Program {
+
+	/*
+	 * The opcode that adds the values on top of the stack; its operand is the
+	 * number of them
+	 */
+	static final byte addOpcode = 4;
+
+	/*
+	 * The opcode that replaces the two values on top of the stack with their
+	 * bitwise conjunction
+	 */
+	static final byte andOpcode = 15;
+
+	/*
+	 * The opcode that pops the value on top of the stack into the slot of its
+	 * operand
+	 */
+	static final byte bindOpcode = 2;
+
+	/*
+	 * The opcode that replaces the two values on top of the stack with the
+	 * result of the kernel of the registered operation whose identifier is its
+	 * operand
+	 */
+	static final byte callOpcode = 18;
+
+	/*
+	 * The opcode that pushes the constant whose index in the pool is its
+	 * operand
+	 */
+	static final byte constantOpcode = 8;
+
+	// The opcode that divides the two values on top of the stack
+	static final byte divideOpcode = 7;
+
+	/*
+	 * The opcode that ends a 'let' expression whose bound slot is its operand;
+	 * it does not change the stack
+	 */
+	static final byte letOpcode = 3;
+
+	// The opcode that pushes the value of the slot of its operand
+	static final byte loadOpcode = 1;
+
+	/*
+	 * The opcode that replaces the values on top of the stack with the largest
+	 * of them; its operand is the number of them
+	 */
+	static final byte maximumOpcode = 11;
+
+	/*
+	 * The opcode that replaces the values on top of the stack with the
+	 * smallest of them; its operand is the number of them
+	 */
+	static final byte minimumOpcode = 10;
+
+	/*
+	 * The opcode that replaces the two values on top of the stack with the
+	 * remainder of dividing them
+	 */
+	static final byte moduloOpcode = 9;
+
+	/*
+	 * The opcode that multiplies the values on top of the stack; its operand is
+	 * the number of them
+	 */
+	static final byte multiplyOpcode = 6;
+
+	/*
+	 * The opcode that replaces the two values on top of the stack with their
+	 * bitwise disjunction
+	 */
+	static final byte orOpcode = 16;
+
+	/*
+	 * The opcode that raises the value below the top of the stack to the power
+	 * of the value on top
+	 */
+	static final byte powerOpcode = 12;
+
+	// The opcode that pushes its operand as a value
+	static final byte pushOpcode = 0;
+
+	/*
+	 * The opcode that shifts the value below the top of the stack left by the
+	 * value on top
+	 */
+	static final byte shiftLeftOpcode = 13;
+
+	/*
+	 * The opcode that shifts the value below the top of the stack right by the
+	 * value on top
+	 */
+	static final byte shiftRightOpcode = 14;
+
+	// The opcode that subtracts the two values on top of the stack
+	static final byte subtractOpcode = 5;
+
+	/*
+	 * The opcode that replaces the two values on top of the stack with their
+	 * bitwise exclusive disjunction
+	 */
+	static final byte xorOpcode = 17;
+
+	/**
+	 * Determines if an opcode is variadic, reducing the number of values given
+	 * by its operand rather than exactly two.
+	 * 
+	 * @param opcode
+	 *            An opcode
+	 * @return True if the opcode is variadic, false otherwise
+	 */
+	static boolean isVariadic(byte opcode) {
+		return (addOpcode == opcode) || (maximumOpcode == opcode)
+				|| (minimumOpcode == opcode) || (multiplyOpcode == opcode);
+	}
+
+	// The pool of constants too wide for an operand
+	private final Number[] constants;
+
+	// The maximum depth of the evaluation stack
+	private final int maximumStackDepth;
+
+	// The numeric mode for which the program was compiled
+	private final NumericMode mode;
+
+	// The opcodes of the instructions
+	private final byte[] opcodes;
+
+	// The operands of the instructions
+	private final int[] operands;
+
+	// The source positions of the instructions
+	private final int[] positions;
+
+	// The number of top-level expressions, and so of results
+	private final int resultCount;
+
+	// The number of variable slots
+	private final int slotCount;
+
+	/*
+	 * For each instruction, the index of the first instruction of the
+	 * subexpression it ends
+	 */
+	private final int[] subtreeStarts;
+
+	/**
+	 * Constructs the program.
+	 * 
+	 * @param mode
+	 *            The numeric mode for which the program was compiled
+	 * @param opcodes
+	 *            The opcodes of the instructions
+	 * @param operands
+	 *            The operands of the instructions
+	 * @param positions
+	 *            The source positions of the instructions
+	 * @param subtreeStarts
+	 *            For each instruction, the index of the first instruction of
+	 *            the subexpression it ends
+	 * @param constants
+	 *            The pool of constants too wide for an operand
+	 * @param slotCount
+	 *            The number of variable slots
+	 * @param maximumStackDepth
+	 *            The maximum depth of the evaluation stack
+	 * @param resultCount
+	 *            The number of top-level expressions, and so of results
+	 */
+	Program(NumericMode mode, byte[] opcodes, int[] operands,
+			int[] positions, int[] subtreeStarts, Number[] constants,
+			int slotCount, int maximumStackDepth, int resultCount) {
+
+		// Set the numeric mode, the instruction arrays and the constants.
+		this.mode = mode;
+		this.opcodes = opcodes;
+		this.operands = operands;
+		this.positions = positions;
+		this.subtreeStarts = subtreeStarts;
+		this.constants = constants;
+
+		// Set the sizes.
+		this.slotCount = slotCount;
+		this.maximumStackDepth = maximumStackDepth;
+		this.resultCount = resultCount;
+	}
+
+	/**
+	 * Gets a constant from the pool.
+	 * 
+	 * @param index
+	 *            The index of the constant in the pool
+	 * @return The constant, a Long or a BigInteger according to the numeric
+	 *         mode of the program
+	 */
+	public Number getConstant(int index) {
+		return constants[index];
+	}
+
+	/**
+	 * Gets the number of constants in the pool.
+	 * 
+	 * @return The number of constants in the pool
+	 */
+	public int getConstantCount() {
+		return constants.length;
+	}
+
+	/**
+	 * Gets the maximum depth of the evaluation stack.
+	 * 
+	 * @return The maximum depth of the evaluation stack
+	 */
+	public int getMaximumStackDepth() {
+		return maximumStackDepth;
+	}
+
+	/**
+	 * Gets the numeric mode for which the program was compiled.
+	 * 
+	 * @return The numeric mode for which the program was compiled
+	 */
+	public NumericMode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Gets the opcode of an instruction.
+	 * 
+	 * @param index
+	 *            The index of the instruction
+	 * @return The opcode of the instruction
+	 */
+	public byte getOpcode(int index) {
+		return opcodes[index];
+	}
+
+	/**
+	 * Gets the operand of an instruction.
+	 * 
+	 * @param index
+	 *            The index of the instruction
+	 * @return The operand of the instruction
+	 */
+	public int getOperand(int index) {
+		return operands[index];
+	}
+
+	/**
+	 * Gets the source position of an instruction.
+	 * 
+	 * @param index
+	 *            The index of the instruction
+	 * @return The position in the input stream of the token that caused the
+	 *         instruction
+	 */
+	public int getPosition(int index) {
+		return positions[index];
+	}
+
+	/**
+	 * Gets the number of top-level expressions, and so of results.
+	 * 
+	 * @return The number of top-level expressions, and so of results
+	 */
+	public int getResultCount() {
+		return resultCount;
+	}
+
+	/**
+	 * Gets the number of instructions.
+	 * 
+	 * @return The number of instructions
+	 */
+	public int getSize() {
+		return opcodes.length;
+	}
+
+	/**
+	 * Gets the number of variable slots.
+	 * 
+	 * @return The number of variable slots
+	 */
+	public int getSlotCount() {
+		return slotCount;
+	}
+
+	/**
+	 * Gets the index of the first instruction of the subexpression that an
+	 * instruction ends.
+	 * 
+	 * @param index
+	 *            The index of the instruction
+	 * @return The index of the first instruction of the subexpression that the
+	 *         instruction ends; the index itself for a value, a variable or a
+	 *         bind
+	 */
+	public int getSubtreeStart(int index) {
+		return subtreeStarts[index];
+	}
+
+	/**
+	 * Gets the pool of constants, without copying.
+	 * 
+	 * @return The pool of constants
+	 */
+	Number[] getConstants() {
+		return constants;
+	}
+
+	/**
+	 * Gets the opcodes of the instructions, without copying.
+	 * 
+	 * @return The opcodes of the instructions
+	 */
+	byte[] getOpcodes() {
+		return opcodes;
+	}
+
+	/**
+	 * Gets the operands of the instructions, without copying.
+	 * 
+	 * @return The operands of the instructions
+	 */
+	int[] getOperands() {
+		return operands;
+	}
+
+	/**
+	 * Gets the source positions of the instructions, without copying.
+	 * 
+	 * @return The source positions of the instructions
+	 */
+	int[] getPositions() {
+		return positions;
+	}
+}
@@ -0,0 +1,259 @@
+package com.garygregg.coverity.codingtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import com.garygregg.coverity.codingtest.metrics.MetricsRegistry;
+
+/**
+ * Contains a directory of compiled programs, so that an expression compiled
+ * once need only be loaded on later runs. Each program is kept in a file of
+ * its own in the binary form of the program codec, named for a SHA-256 digest
+ * of its numeric mode and its expression, and is mapped into memory when
+ * loaded. A file that cannot be loaded - because it is corrupt, of another
+ * version of the binary form, or calls an operation no longer registered - is
+ * rejected, and its expression is compiled again and the file replaced. The
+ * directory may be shared by caches in other processes, since each file is
+ * replaced atomically; a cache itself may be used by only one thread at a
+ * time.
+ * 
+ * @author Gary Gregg
+ */
+public class ProgramCache {
+
+	// The algorithm of the digest that names the file of a program
+	private static final String digestAlgorithm = "SHA-256";
+
+	// The suffix of the file of a program
+	private static final String fileSuffix = ".program";
+
+	// The hexadecimal digits
+	private static final char[] hexDigits = "0123456789abcdef".toCharArray();
+
+	// The name of the cache in the metrics
+	private static final String metricsName = "program";
+
+	// The compiler of expressions not in the cache
+	private final Compiler compiler;
+
+	// The digest that names the file of a program
+	private final MessageDigest digest;
+
+	// The directory of the cache
+	private final File directory;
+
+	// The number of programs loaded from the cache
+	private long hitCount;
+
+	// The number of programs not in the cache
+	private long missCount;
+
+	// The numeric mode of the programs in the cache
+	private final NumericMode mode;
+
+	// The number of files in the cache that could not be loaded
+	private long rejectCount;
+
+	/**
+	 * Constructs the program cache.
+	 * 
+	 * @param directory
+	 *            The directory of the cache, which is created if it does not
+	 *            exist
+	 * @param mode
+	 *            The numeric mode in which to compile programs
+	 * @throws IOException
+	 *             Indicates that the directory does not exist, and could not be
+	 *             created
+	 */
+	public ProgramCache(File directory, NumericMode mode) throws IOException {
+
+		// Create the directory if it does not exist.
+		if ((!directory.isDirectory()) && (!directory.mkdirs())) {
+			throw new IOException("The program cache directory '" + directory
+					+ "' could not be created.");
+		}
+
+		// Set the member variables.
+		this.directory = directory;
+		this.mode = mode;
+		compiler = new Compiler(mode);
+
+		// Get the digest. Every Java platform supports SHA-256.
+		try {
+			digest = MessageDigest.getInstance(digestAlgorithm);
+		}
+
+		// The platform does not support the digest.
+		catch (NoSuchAlgorithmException exception) {
+			throw new IllegalStateException(exception);
+		}
+	}
+
+	/**
+	 * Gets the program for an expression, loading it from the cache if it is
+	 * there, or else compiling it and saving it in the cache.
+	 * 
+	 * @param expression
+	 *            The expression
+	 * @return The program for the expression
+	 * @throws CompilationException
+	 *             Indicates that the expression is not in the cache, and could
+	 *             not be compiled
+	 */
+	public Program compile(String expression) throws CompilationException {
+
+		/*
+		 * Load the program from its file if the file exists. The program must
+		 * be in the numeric mode of the cache.
+		 */
+		final File file = getFile(expression);
+		Program program = null;
+		if (file.isFile()) {
+			try {
+				program = ProgramCodec.read(file);
+				if (mode != program.getMode()) {
+					program = null;
+				}
+			}
+
+			// The file could not be loaded.
+			catch (IOException exception) {
+				program = null;
+			}
+
+			// Count a hit or a rejection.
+			if (null == program) {
+				++rejectCount;
+			}
+
+			// The program was loaded.
+			else {
+				++hitCount;
+			}
+		}
+
+		// The file does not exist.
+		else {
+			++missCount;
+		}
+
+		/*
+		 * Count a hit or a miss in the metrics if they are recorded; a
+		 * rejection is a miss.
+		 */
+		final MetricsRegistry metrics = MetricsRegistry.getInstance();
+		if (metrics.isEnabled()) {
+
+			// A program that was not loaded is a miss.
+			if (null == program) {
+				metrics.countCacheMiss(metricsName);
+			}
+
+			// The program was loaded.
+			else {
+				metrics.countCacheHit(metricsName);
+			}
+		}
+
+		/*
+		 * Compile the expression if the program was not loaded, and save the
+		 * program.
+		 */
+		if (null == program) {
+
+			program = compiler.compile(expression);
+			try {
+				ProgramCodec.write(program, file);
+			}
+
+			/*
+			 * The program could not be saved. The cache is only an
+			 * optimization, so carry on with the program compiled.
+			 */
+			catch (IOException exception) {
+			}
+		}
+
+		// Return the program.
+		return program;
+	}
+
+	/**
+	 * Gets the directory of the cache.
+	 * 
+	 * @return The directory of the cache
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Gets the number of programs loaded from the cache.
+	 * 
+	 * @return The number of programs loaded from the cache
+	 */
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Gets the number of programs not in the cache.
+	 * 
+	 * @return The number of programs not in the cache
+	 */
+	public long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Gets the numeric mode of the programs in the cache.
+	 * 
+	 * @return The numeric mode of the programs in the cache
+	 */
+	public NumericMode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Gets the number of files in the cache that could not be loaded, and
+	 * were replaced.
+	 * 
+	 * @return The number of files in the cache that could not be loaded
+	 */
+	public long getRejectCount() {
+		return rejectCount;
+	}
+
+	/**
+	 * Gets the file of the program for an expression.
+	 * 
+	 * @param expression
+	 *            The expression
+	 * @return The file of the program for the expression
+	 */
+	private File getFile(String expression) {
+
+		/*
+		 * Digest the name of the numeric mode and the expression, separated
+		 * by a character that neither contains.
+		 */
+		digest.update(mode.getName().getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+		final byte[] hash = digest.digest(expression
+				.getBytes(StandardCharsets.UTF_8));
+
+		// Name the file with the digest in hexadecimal.
+		final StringBuilder builder = new StringBuilder(
+				(hash.length << 1) + fileSuffix.length());
+		for (byte next : hash) {
+			builder.append(hexDigits[(next >>> 4) & 0xF]).append(
+					hexDigits[next & 0xF]);
+		}
+
+		return new File(directory, builder.append(fileSuffix).toString());
+	}
+}
@@ -0,0 +1,1084 @@
+package com.garygregg.coverity.codingtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import com.garygregg.coverity.codingtest.operation.OperationDescriptor;
+import com.garygregg.coverity.codingtest.operation.OperationRegistry;
+
+/**
+ * Contains the compact binary form of compiled programs, so that a program may
+ * be saved once and loaded at each start rather than compiled again. The form
+ * starts with a magic number and a version, and ends with a CRC-32 checksum.
+ * Between them are the numeric mode and sizes of the program, the names of the
+ * registered operations it calls, its instructions, and its constants.
+ * Integers are written as variable-length quantities, and source positions and
+ * subtree starts as differences, so that most take a single byte. A program
+ * is validated as it is loaded: the checksum must match, each call must name
+ * an operation in the registry (under whatever identifier it now has), and
+ * the instructions must build the expression tree their subtree starts
+ * describe without going outside the stack, the variable slots or the
+ * constants, so that the evaluators may execute the program safely. Many
+ * programs may also be kept in a single pack, each with the expression from
+ * which it was compiled, to be loaded together at start.
+ * 
+ * @author Gary Gregg
+ */
+public final class ProgramCodec {
+
+	// The version of the binary form that is written and read
+	public static final int version = 1;
+
+	// The tag of a constant that is a BigInteger
+	private static final int bigIntegerTag = 1;
+
+	// The number of bytes checksummed at a time
+	private static final int checksumChunkLength = 1 << 13;
+
+	// The number of bytes of the checksum at the end of the binary form
+	private static final int checksumLength = 4;
+
+	// The tag of a constant that is a Long
+	private static final int longTag = 0;
+
+	// The magic number at the start of the binary form ('CALC')
+	private static final int magic = 0x43414C43;
+
+	// The magic number at the start of a pack of programs ('CALP')
+	private static final int packMagic = 0x43414C50;
+
+	// The least number of bytes in the binary form of an instruction
+	private static final int minimumInstructionLength = 4;
+
+	/**
+	 * Decodes a program from its binary form, and validates it.
+	 * 
+	 * @param buffer
+	 *            A buffer holding the binary form of a program from its
+	 *            position to its limit; its position is advanced to its limit
+	 * @return The program
+	 * @throws ProgramFormatException
+	 *             Indicates that the binary form is truncated, corrupt or of
+	 *             another version, or that the program it describes could not
+	 *             be executed safely
+	 */
+	public static Program decode(ByteBuffer buffer)
+			throws ProgramFormatException {
+
+		/*
+		 * Verify the checksum. Read the body of the binary form, up to the
+		 * checksum, through a view of the buffer. A body that ends too soon is
+		 * truncated.
+		 */
+		verifyChecksum(buffer);
+		final ByteBuffer body = buffer.duplicate();
+		body.limit(buffer.limit() - checksumLength);
+		Program program = null;
+		try {
+
+			// Check the magic number and the version.
+			if (magic != body.getInt()) {
+				throw new ProgramFormatException(
+						"The data is not the binary form of a program.");
+			}
+
+			final long formVersion = readUnsigned(body);
+			if (version != formVersion) {
+				throw new ProgramFormatException("Version " + formVersion
+						+ " of the binary form of a program is not supported;"
+						+ " version " + version + " is.");
+			}
+
+			// Read the numeric mode.
+			final String modeName = readString(body);
+			final NumericMode mode = NumericMode.forName(modeName);
+			if (null == mode) {
+				throw new ProgramFormatException(
+						"The program is in numeric mode '" + modeName
+								+ "', which is not known.");
+			}
+
+			/*
+			 * Read the sizes. No program has more slots, a deeper stack or
+			 * more results than it has instructions.
+			 */
+			final int size = readCount(body, minimumInstructionLength);
+			final int slotCount = readBounded(body, size, "slot count");
+			final int maximumStackDepth = readBounded(body, size,
+					"maximum stack depth");
+			final int resultCount = readBounded(body, size, "result count");
+
+			/*
+			 * Read the operations called, with the identifier each now has in
+			 * the registry.
+			 */
+			final Map<Integer, Integer> callIds = readCalls(body);
+
+			/*
+			 * Read the instructions. The identifier of each called operation
+			 * is replaced with the one it now has.
+			 */
+			final byte[] opcodes = new byte[size];
+			final int[] operands = new int[size];
+			final int[] positions = new int[size];
+			final int[] subtreeStarts = new int[size];
+			long position = 0L;
+			for (int i = 0; i < size; ++i) {
+
+				opcodes[i] = body.get();
+				operands[i] = readSigned(body);
+				position += readSigned(body);
+				positions[i] = toInt(position, "position");
+				subtreeStarts[i] = i - readBounded(body, i, "subtree start");
+				if (Program.callOpcode == opcodes[i]) {
+
+					// Replace the identifier of the called operation.
+					final Integer id = callIds.get(operands[i]);
+					if (null == id) {
+						throw new ProgramFormatException("The instruction at "
+								+ i + " calls an operation that is not named.");
+					}
+
+					operands[i] = id;
+				}
+			}
+
+			// Read the constants, and check that the body is exhausted.
+			final Number[] constants = readConstants(body, mode);
+			if (body.hasRemaining()) {
+				throw new ProgramFormatException(
+						"The binary form of a program has " + body.remaining()
+								+ " bytes too many.");
+			}
+
+			/*
+			 * Create the program, validate it, and consume the buffer up to its
+			 * limit.
+			 */
+			program = new Program(mode, opcodes, operands, positions,
+					subtreeStarts, constants, slotCount, maximumStackDepth,
+					resultCount);
+			validate(program);
+			buffer.position(buffer.limit());
+		}
+
+		// The body ended too soon.
+		catch (BufferUnderflowException exception) {
+			throw new ProgramFormatException(
+					"The binary form of a program is truncated.");
+		}
+
+		// Return the program.
+		return program;
+	}
+
+	/**
+	 * Encodes a program in its binary form.
+	 * 
+	 * @param program
+	 *            A program
+	 * @return The binary form of the program
+	 */
+	public static byte[] encode(Program program) {
+
+		/*
+		 * Write the magic number, the version, the numeric mode and the sizes
+		 * of the program.
+		 */
+		final int size = program.getSize();
+		final ByteArrayOutputStream out = new ByteArrayOutputStream(
+				64 + (size << 2));
+		writeInt(out, magic);
+		writeUnsigned(out, version);
+		writeString(out, program.getMode().getName());
+		writeUnsigned(out, size);
+		writeUnsigned(out, program.getSlotCount());
+		writeUnsigned(out, program.getMaximumStackDepth());
+		writeUnsigned(out, program.getResultCount());
+
+		/*
+		 * Collect the identifiers of the operations called, in order of first
+		 * call. Write each with the name of its operation.
+		 */
+		final Set<Integer> callIds = new LinkedHashSet<Integer>();
+		for (int i = 0; i < size; ++i) {
+			if (Program.callOpcode == program.getOpcode(i)) {
+				callIds.add(program.getOperand(i));
+			}
+		}
+
+		final OperationRegistry registry = OperationRegistry.getInstance();
+		writeUnsigned(out, callIds.size());
+		for (Integer id : callIds) {
+
+			writeUnsigned(out, id);
+			writeString(out, registry.get(id).getName());
+		}
+
+		/*
+		 * Write each instruction: its opcode, its operand, the difference of
+		 * its position from the last, and how far back its subtree starts.
+		 */
+		long position = 0L;
+		for (int i = 0; i < size; ++i) {
+
+			out.write(program.getOpcode(i));
+			writeSigned(out, program.getOperand(i));
+			writeSigned(out, program.getPosition(i) - position);
+			position = program.getPosition(i);
+			writeUnsigned(out, i - program.getSubtreeStart(i));
+		}
+
+		// Write each constant, tagged with its type.
+		final int constantCount = program.getConstantCount();
+		writeUnsigned(out, constantCount);
+		for (int i = 0; i < constantCount; ++i) {
+
+			/*
+			 * Write a BigInteger as the length and bytes of its two's
+			 * complement.
+			 */
+			final Number constant = program.getConstant(i);
+			if (constant instanceof BigInteger) {
+
+				final byte[] bytes = ((BigInteger) constant).toByteArray();
+				out.write(bigIntegerTag);
+				writeUnsigned(out, bytes.length);
+				out.write(bytes, 0, bytes.length);
+			}
+
+			// Write any other constant as a long.
+			else {
+
+				out.write(longTag);
+				writeSigned(out, constant.longValue());
+			}
+		}
+
+		// Append the checksum, and return the binary form.
+		return appendChecksum(out);
+	}
+
+	/**
+	 * Reads a program from a file in its binary form. The file is mapped into
+	 * memory rather than read through a stream.
+	 * 
+	 * @param file
+	 *            The file
+	 * @return The program
+	 * @throws IOException
+	 *             Indicates that the file could not be read, or that it does
+	 *             not hold a valid program
+	 */
+	public static Program read(File file) throws IOException {
+		return decode(map(file));
+	}
+
+	/**
+	 * Reads a pack of programs from a file. The file is mapped into memory
+	 * once for all the programs, which makes a pack quicker to load than a
+	 * file for each of many small programs.
+	 * 
+	 * @param file
+	 *            The file
+	 * @return The programs, by their expressions, in the order they were
+	 *         written
+	 * @throws IOException
+	 *             Indicates that the file could not be read, or that it does
+	 *             not hold a valid pack of programs
+	 */
+	public static Map<String, Program> readAll(File file) throws IOException {
+
+		/*
+		 * Map the file, and verify the checksum of the pack. Read the body of
+		 * the pack, up to the checksum, through a view of the mapping.
+		 */
+		final ByteBuffer buffer = map(file);
+		verifyChecksum(buffer);
+		final ByteBuffer body = buffer.duplicate();
+		body.limit(buffer.limit() - checksumLength);
+		final Map<String, Program> programs = new LinkedHashMap<String, Program>();
+		try {
+
+			// Check the magic number and the version.
+			if (packMagic != body.getInt()) {
+				throw new ProgramFormatException("The file '" + file
+						+ "' does not hold a pack of programs.");
+			}
+
+			final long packVersion = readUnsigned(body);
+			if (version != packVersion) {
+				throw new ProgramFormatException("Version " + packVersion
+						+ " of a pack of programs is not supported; version "
+						+ version + " is.");
+			}
+
+			/*
+			 * Read the number of programs. Cycle for each, reading its
+			 * expression and the length of its binary form.
+			 */
+			final int count = readCount(body, 2);
+			for (int i = 0; i < count; ++i) {
+
+				final String expression = readString(body);
+				final int length = readCount(body, 1);
+
+				/*
+				 * Decode the program from a view of its binary form, and skip
+				 * the binary form.
+				 */
+				final ByteBuffer form = body.slice();
+				form.limit(length);
+				programs.put(expression, decode(form));
+				body.position(body.position() + length);
+			}
+
+			// Check that the body is exhausted.
+			if (body.hasRemaining()) {
+				throw new ProgramFormatException("The pack of programs in '"
+						+ file + "' has " + body.remaining()
+						+ " bytes too many.");
+			}
+		}
+
+		// The body ended too soon.
+		catch (BufferUnderflowException exception) {
+			throw new ProgramFormatException("The pack of programs in '"
+					+ file + "' is truncated.");
+		}
+
+		// Return the programs.
+		return programs;
+	}
+
+	/**
+	 * Writes a program to a file in its binary form. The program is written
+	 * to a temporary file in the same directory that is then moved over the
+	 * file, so that a reader never sees a partly written program.
+	 * 
+	 * @param program
+	 *            The program
+	 * @param file
+	 *            The file
+	 * @throws IOException
+	 *             Indicates that the file could not be written
+	 */
+	public static void write(Program program, File file) throws IOException {
+		writeAtomically(encode(program), file);
+	}
+
+	/**
+	 * Writes a pack of programs to a file, each with the expression from
+	 * which it was compiled. The pack is written to a temporary file in the
+	 * same directory that is then moved over the file, so that a reader never
+	 * sees a partly written pack.
+	 * 
+	 * @param programs
+	 *            The programs, by their expressions
+	 * @param file
+	 *            The file
+	 * @throws IOException
+	 *             Indicates that the file could not be written
+	 */
+	public static void writeAll(Map<String, Program> programs, File file)
+			throws IOException {
+
+		// Write the magic number, the version and the number of programs.
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writeInt(out, packMagic);
+		writeUnsigned(out, version);
+		writeUnsigned(out, programs.size());
+
+		/*
+		 * Write each expression, and the length and bytes of the binary form
+		 * of its program.
+		 */
+		for (Map.Entry<String, Program> entry : programs.entrySet()) {
+
+			final byte[] form = encode(entry.getValue());
+			writeString(out, entry.getKey());
+			writeUnsigned(out, form.length);
+			out.write(form, 0, form.length);
+		}
+
+		// Append the checksum, and write the pack.
+		writeAtomically(appendChecksum(out), file);
+	}
+
+	/**
+	 * Appends the checksum of the bytes written to a stream.
+	 * 
+	 * @param out
+	 *            The stream
+	 * @return The bytes written to the stream, followed by their checksum
+	 */
+	private static byte[] appendChecksum(ByteArrayOutputStream out) {
+
+		// Checksum the bytes, and append the checksum to a copy of them.
+		final byte[] bytes = out.toByteArray();
+		final CRC32 checksum = new CRC32();
+		checksum.update(bytes, 0, bytes.length);
+		final byte[] form = Arrays.copyOf(bytes, bytes.length
+				+ checksumLength);
+		putInt(form, bytes.length, (int) checksum.getValue());
+		return form;
+	}
+
+	/**
+	 * Maps a file into memory, read only. The mapping remains valid after
+	 * the file is closed.
+	 * 
+	 * @param file
+	 *            The file
+	 * @return A buffer of the mapping
+	 * @throws IOException
+	 *             Indicates that the file could not be mapped
+	 */
+	private static ByteBuffer map(File file) throws IOException {
+
+		// Open the file, and check that it is not too large to map.
+		ByteBuffer buffer = null;
+		try (final FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.READ)) {
+
+			final long length = channel.size();
+			if (Integer.MAX_VALUE < length) {
+				throw new ProgramFormatException("The file '" + file
+						+ "' is too large to map.");
+			}
+
+			// Map the file.
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, length);
+		}
+
+		// Return the mapping.
+		return buffer;
+	}
+
+	/**
+	 * Puts an integer in an array, with its most significant byte first.
+	 * 
+	 * @param array
+	 *            The array
+	 * @param index
+	 *            The index in the array of the first byte
+	 * @param value
+	 *            The integer
+	 */
+	private static void putInt(byte[] array, int index, int value) {
+
+		// Put each byte, from the most significant.
+		for (int i = 0; i < 4; ++i) {
+			array[index + i] = (byte) (value >>> (24 - (i << 3)));
+		}
+	}
+
+	/**
+	 * Reads a non-negative integer that may be no greater than a bound.
+	 * 
+	 * @param buffer
+	 *            The buffer from which to read
+	 * @param bound
+	 *            The greatest value the integer may have
+	 * @param description
+	 *            A description of the integer for an error message
+	 * @return The integer
+	 * @throws ProgramFormatException
+	 *             Indicates that the integer is greater than the bound, or not
+	 *             well formed
+	 */
+	private static int readBounded(ByteBuffer buffer, int bound,
+			String description) throws ProgramFormatException {
+
+		// Read the integer, and throw an exception if it is out of bounds.
+		final long value = readUnsigned(buffer);
+		if (bound < value) {
+			throw new ProgramFormatException("The " + description + " "
+					+ value + " of a program is out of bounds.");
+		}
+
+		// Return the integer.
+		return (int) value;
+	}
+
+	/**
+	 * Reads the operations called by a program: the identifier each had when
+	 * the program was written, and its name.
+	 * 
+	 * @param buffer
+	 *            The buffer from which to read
+	 * @return A map of the identifier each operation had to the identifier it
+	 *         now has in the registry
+	 * @throws ProgramFormatException
+	 *             Indicates that an operation is not in the registry, or that
+	 *             the operations are not well formed
+	 */
+	private static Map<Integer, Integer> readCalls(ByteBuffer buffer)
+			throws ProgramFormatException {
+
+		// Read the number of operations. Cycle for each.
+		final OperationRegistry registry = OperationRegistry.getInstance();
+		final int count = readCount(buffer, 2);
+		final Map<Integer, Integer> callIds = new HashMap<Integer, Integer>();
+		for (int i = 0; i < count; ++i) {
+
+			/*
+			 * Read the identifier and the name. Find the operation by name in
+			 * the registry, and map its identifier.
+			 */
+			final int id = readBounded(buffer, Integer.MAX_VALUE,
+					"operation identifier");
+			final String name = readString(buffer);
+			final OperationDescriptor descriptor = registry.find(name);
+			if (null == descriptor) {
+				throw new ProgramFormatException("The program calls operation '"
+						+ name + "', which is not registered.");
+			}
+
+			callIds.put(id, descriptor.getId());
+		}
+
+		// Return the map of identifiers.
+		return callIds;
+	}
+
+	/**
+	 * Reads the constants of a program, each of which must be of the type the
+	 * numeric mode of the program uses.
+	 * 
+	 * @param buffer
+	 *            The buffer from which to read
+	 * @param mode
+	 *            The numeric mode of the program
+	 * @return The constants
+	 * @throws ProgramFormatException
+	 *             Indicates that a constant is of the wrong type, or not well
+	 *             formed
+	 */
+	private static Number[] readConstants(ByteBuffer buffer, NumericMode mode)
+			throws ProgramFormatException {
+
+		// Read the number of constants. Cycle for each.
+		final Number[] constants = new Number[readCount(buffer, 2)];
+		for (int i = 0; i < constants.length; ++i) {
+
+			// Read a long, if the numeric mode uses longs.
+			final int tag = buffer.get();
+			if ((longTag == tag) && (NumericMode.LONG == mode)) {
+				constants[i] = Long.valueOf(readSignedLong(buffer));
+			}
+
+			/*
+			 * Otherwise read a BigInteger, if the numeric mode uses them. It
+			 * has at least one byte.
+			 */
+			else if ((bigIntegerTag == tag)
+					&& (NumericMode.BIG_INTEGER == mode)) {
+
+				final byte[] bytes = new byte[readCount(buffer, 1)];
+				if (0 == bytes.length) {
+					throw new ProgramFormatException("Constant " + i
+							+ " of a program has no bytes.");
+				}
+
+				buffer.get(bytes);
+				constants[i] = new BigInteger(bytes);
+			}
+
+			// The constant is of a type the numeric mode does not use.
+			else {
+				throw new ProgramFormatException("Constant " + i
+						+ " of a program in " + mode.getName()
+						+ " mode has the wrong type.");
+			}
+		}
+
+		// Return the constants.
+		return constants;
+	}
+
+	/**
+	 * Reads the number of items that follow, each of which takes at least a
+	 * given number of bytes.
+	 * 
+	 * @param buffer
+	 *            The buffer from which to read
+	 * @param minimumLength
+	 *            The least number of bytes each item takes
+	 * @return The number of items
+	 * @throws ProgramFormatException
+	 *             Indicates that the items would not fit in what remains of
+	 *             the buffer, or that the number is not well formed
+	 */
+	private static int readCount(ByteBuffer buffer, int minimumLength)
+			throws ProgramFormatException {
+
+		/*
+		 * Read the number, bounded by the number of items that fit in the
+		 * rest of the buffer. This keeps a corrupt count from allocating an
+		 * enormous array.
+		 */
+		final int bound = buffer.remaining() / minimumLength;
+		return readBounded(buffer, bound, "count");
+	}
+
+	/**
+	 * Reads a signed integer.
+	 * 
+	 * @param buffer
+	 *            The buffer from which to read
+	 * @return The integer
+	 * @throws ProgramFormatException
+	 *             Indicates that the integer is out of range, or not well
+	 *             formed
+	 */
+	private static int readSigned(ByteBuffer buffer)
+			throws ProgramFormatException {
+		return toInt(readSignedLong(buffer), "integer");
+	}
+
+	/**
+	 * Reads a signed long, which is written zig-zag encoded so that integers
+	 * near zero take few bytes whatever their sign.
+	 * 
+	 * @param buffer
+	 *            The buffer from which to read
+	 * @return The long
+	 * @throws ProgramFormatException
+	 *             Indicates that the long is not well formed
+	 */
+	private static long readSignedLong(ByteBuffer buffer)
+			throws ProgramFormatException {
+
+		// Read the encoding, and undo the zig-zag.
+		final long encoding = readUnsigned(buffer);
+		return (encoding >>> 1) ^ -(encoding & 1L);
+	}
+
+	/**
+	 * Reads a string as the length and bytes of its UTF-8 encoding.
+	 * 
+	 * @param buffer
+	 *            The buffer from which to read
+	 * @return The string
+	 * @throws ProgramFormatException
+	 *             Indicates that the string is not well formed
+	 */
+	private static String readString(ByteBuffer buffer)
+			throws ProgramFormatException {
+
+		// Read the bytes, and decode them.
+		final byte[] bytes = new byte[readCount(buffer, 1)];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reads an unsigned long, written seven bits at a time from the least
+	 * significant, with the high bit of each byte set if more follow.
+	 * 
+	 * @param buffer
+	 *            The buffer from which to read
+	 * @return The long
+	 * @throws ProgramFormatException
+	 *             Indicates that the long has too many bytes
+	 */
+	private static long readUnsigned(ByteBuffer buffer)
+			throws ProgramFormatException {
+
+		/*
+		 * Cycle for each byte, until one without the high bit. A long has at
+		 * most ten.
+		 */
+		long value = 0L;
+		int shift = 0;
+		byte next = 0;
+		do {
+
+			// Throw an exception if there are too many bytes.
+			if (64 <= shift) {
+				throw new ProgramFormatException("An integer in the binary"
+						+ " form of a program is too long.");
+			}
+
+			// Add the low seven bits of the byte.
+			next = buffer.get();
+			value |= (next & 0x7FL) << shift;
+			shift += 7;
+		} while (0 > next);
+
+		// Return the long.
+		return value;
+	}
+
+	/**
+	 * Converts a long to an integer, if it is in range.
+	 * 
+	 * @param value
+	 *            The long
+	 * @param description
+	 *            A description of the long for an error message
+	 * @return The integer
+	 * @throws ProgramFormatException
+	 *             Indicates that the long is out of the range of an integer
+	 */
+	private static int toInt(long value, String description)
+			throws ProgramFormatException {
+
+		// Throw an exception if the long is out of range.
+		if ((Integer.MIN_VALUE > value) || (Integer.MAX_VALUE < value)) {
+			throw new ProgramFormatException("The " + description + " "
+					+ value + " in a program is out of range.");
+		}
+
+		// Return the integer.
+		return (int) value;
+	}
+
+	/**
+	 * Validates a decoded program, by simulating the evaluation stack as the
+	 * instructions would build it. Each entry on the simulated stack is the
+	 * start of the subexpression whose value it is, or of the value bound by a
+	 * bind. Every operand must be in range, every operation must find its
+	 * arguments, the stack must stay within its maximum depth, every
+	 * instruction must record the start of the subexpression it ends, and the
+	 * values left must be the results.
+	 * 
+	 * @param program
+	 *            The program
+	 * @throws ProgramFormatException
+	 *             Indicates that the program could not be executed safely
+	 */
+	private static void validate(Program program)
+			throws ProgramFormatException {
+
+		/*
+		 * Declare the simulated stack: the start of each entry, and whether
+		 * it is a bind rather than a value. Declare the number of binds of
+		 * each slot in effect. Cycle for each instruction.
+		 */
+		final int size = program.getSize();
+		final int registrySize = OperationRegistry.getInstance().getSize();
+		final int[] bindCounts = new int[program.getSlotCount()];
+		final int[] starts = new int[size];
+		final boolean[] binds = new boolean[size];
+		int depth = 0;
+		int top = 0;
+		for (int i = 0; i < size; ++i) {
+
+			/*
+			 * Get the instruction. Is it a value, a variable or a constant?
+			 * Those start their own subexpressions.
+			 */
+			final byte opcode = program.getOpcode(i);
+			final int operand = program.getOperand(i);
+			final int subtreeStart = program.getSubtreeStart(i);
+			int arity = 0;
+			boolean valid = true;
+			if ((Program.pushOpcode == opcode)
+					|| (Program.loadOpcode == opcode)
+					|| (Program.constantOpcode == opcode)) {
+
+				/*
+				 * A variable must name a slot bound by an enclosing 'let'
+				 * operation, and a constant must be in the pool. Push the
+				 * value.
+				 */
+				valid = (i == subtreeStart);
+				if (Program.loadOpcode == opcode) {
+					valid = valid && (0 <= operand)
+							&& (bindCounts.length > operand)
+							&& (0 < bindCounts[operand]);
+				}
+
+				// Check the constant.
+				else if (Program.constantOpcode == opcode) {
+					valid = valid && (0 <= operand)
+							&& (program.getConstantCount() > operand);
+				}
+
+				starts[top] = i;
+				binds[top++] = false;
+				++depth;
+			}
+
+			/*
+			 * Otherwise is it a bind? It pops a value into a slot, and starts
+			 * its own subexpression; the value stays on the simulated stack as
+			 * a bind, and the slot is bound until its 'let' operation ends.
+			 */
+			else if (Program.bindOpcode == opcode) {
+
+				valid = (i == subtreeStart) && (0 < top) && (!binds[top - 1])
+						&& (0 <= operand) && (bindCounts.length > operand);
+				if (valid) {
+
+					binds[top - 1] = true;
+					++bindCounts[operand];
+					--depth;
+				}
+			}
+
+			/*
+			 * Otherwise is it the end of a 'let' operation? Its body must
+			 * follow its bind, which must follow its value, where the 'let'
+			 * operation starts. Its value is that of its body, and it
+			 * releases the slot of its bind.
+			 */
+			else if (Program.letOpcode == opcode) {
+
+				valid = (1 < top) && (!binds[top - 1]) && binds[top - 2]
+						&& (Program.bindOpcode == program
+								.getOpcode(starts[top - 1] - 1))
+						&& (subtreeStart == starts[top - 2]);
+				if (valid) {
+
+					--bindCounts[program.getOperand(starts[top - 1] - 1)];
+					binds[--top - 1] = false;
+				}
+			}
+
+			/*
+			 * Otherwise it is an operation, or an unknown opcode. A variadic
+			 * operation reduces at least two values, and a call must name a
+			 * registered operation.
+			 */
+			else {
+
+				arity = Program.isVariadic(opcode) ? operand : 2;
+				valid = (Program.addOpcode <= opcode)
+						&& (Program.callOpcode >= opcode) && (2 <= arity)
+						&& (arity <= top);
+				if (Program.callOpcode == opcode) {
+					valid = valid && (0 <= operand) && (registrySize > operand);
+				}
+
+				/*
+				 * The arguments must all be values, and the operation must
+				 * start where its first argument does. Pop the arguments, and
+				 * push the result in place of the first.
+				 */
+				for (int j = top - arity; valid && (j < top); ++j) {
+					valid = !binds[j];
+				}
+
+				if (valid) {
+
+					valid = (subtreeStart == starts[top - arity]);
+					top -= arity - 1;
+					depth -= arity - 1;
+				}
+			}
+
+			// Throw an exception if the instruction is not valid.
+			if ((!valid) || (program.getMaximumStackDepth() < depth)) {
+				throw new ProgramFormatException("The instruction at " + i
+						+ " of a program is not valid.");
+			}
+		}
+
+		/*
+		 * The values left must be the results, and none of them may be a
+		 * bind.
+		 */
+		boolean valid = (program.getResultCount() == top);
+		for (int i = 0; valid && (i < top); ++i) {
+			valid = !binds[i];
+		}
+
+		// Throw an exception if the results are not valid.
+		if (!valid) {
+			throw new ProgramFormatException(
+					"The results of a program are not valid.");
+		}
+	}
+
+	/**
+	 * Verifies the checksum at the end of the binary form of a program, which
+	 * covers every byte before it.
+	 * 
+	 * @param buffer
+	 *            A buffer holding the binary form of a program from its
+	 *            position to its limit; its position is not changed
+	 * @throws ProgramFormatException
+	 *             Indicates that the binary form is too short to hold a
+	 *             checksum, or that the checksum does not match
+	 */
+	private static void verifyChecksum(ByteBuffer buffer)
+			throws ProgramFormatException {
+
+		// Throw an exception if the buffer is too short to hold a checksum.
+		final int end = buffer.limit() - checksumLength;
+		if (buffer.position() > end) {
+			throw new ProgramFormatException(
+					"The binary form of a program is truncated.");
+		}
+
+		/*
+		 * Checksum the bytes before the checksum a chunk at a time, through a
+		 * view of the buffer.
+		 */
+		final ByteBuffer view = buffer.duplicate();
+		view.limit(end);
+		final byte[] chunk = new byte[Math.min(checksumChunkLength,
+				view.remaining())];
+		final CRC32 checksum = new CRC32();
+		while (view.hasRemaining()) {
+
+			final int length = Math.min(chunk.length, view.remaining());
+			view.get(chunk, 0, length);
+			checksum.update(chunk, 0, length);
+		}
+
+		// Assemble the stored checksum, most significant byte first.
+		int stored = 0;
+		for (int i = 0; i < checksumLength; ++i) {
+			stored = (stored << 8) | (buffer.get(end + i) & 0xFF);
+		}
+
+		// Throw an exception if the checksums do not match.
+		if ((int) checksum.getValue() != stored) {
+			throw new ProgramFormatException("The checksum of the binary form"
+					+ " of a program does not match.");
+		}
+	}
+
+	/**
+	 * Writes bytes to a file through a temporary file in the same directory
+	 * that is then moved over the file, atomically if the file system allows.
+	 * 
+	 * @param bytes
+	 *            The bytes
+	 * @param file
+	 *            The file
+	 * @throws IOException
+	 *             Indicates that the file could not be written
+	 */
+	private static void writeAtomically(byte[] bytes, File file)
+			throws IOException {
+
+		// Create a temporary file in the directory of the file.
+		final File temporary = File.createTempFile(file.getName(), ".tmp",
+				file.getAbsoluteFile().getParentFile());
+		boolean moved = false;
+		try {
+
+			/*
+			 * Write the temporary file, and move it over the file, atomically
+			 * if the file system allows.
+			 */
+			Files.write(temporary.toPath(), bytes);
+			try {
+				Files.move(temporary.toPath(), file.toPath(),
+						StandardCopyOption.ATOMIC_MOVE);
+			}
+
+			// Replace the file, not atomically.
+			catch (AtomicMoveNotSupportedException exception) {
+				Files.move(temporary.toPath(), file.toPath(),
+						StandardCopyOption.REPLACE_EXISTING);
+			}
+
+			moved = true;
+		}
+
+		// Delete the temporary file if it was not moved.
+		finally {
+			if (!moved) {
+				temporary.delete();
+			}
+		}
+	}
+
+
+	/**
+	 * Writes an integer, with its most significant byte first.
+	 * 
+	 * @param out
+	 *            The stream to which to write
+	 * @param value
+	 *            The integer
+	 */
+	private static void writeInt(ByteArrayOutputStream out, int value) {
+
+		// Write each byte, from the most significant.
+		for (int i = 0; i < 4; ++i) {
+			out.write(value >>> (24 - (i << 3)));
+		}
+	}
+
+	/**
+	 * Writes a signed long, zig-zag encoded so that integers near zero take
+	 * few bytes whatever their sign.
+	 * 
+	 * @param out
+	 *            The stream to which to write
+	 * @param value
+	 *            The long
+	 */
+	private static void writeSigned(ByteArrayOutputStream out, long value) {
+		writeUnsigned(out, (value << 1) ^ (value >> 63));
+	}
+
+	/**
+	 * Writes a string as the length and bytes of its UTF-8 encoding.
+	 * 
+	 * @param out
+	 *            The stream to which to write
+	 * @param string
+	 *            The string
+	 */
+	private static void writeString(ByteArrayOutputStream out, String string) {
+
+		// Encode the string, and write its length and bytes.
+		final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		writeUnsigned(out, bytes.length);
+		out.write(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Writes an unsigned long seven bits at a time from the least
+	 * significant, with the high bit of each byte set if more follow.
+	 * 
+	 * @param out
+	 *            The stream to which to write
+	 * @param value
+	 *            The long
+	 */
+	private static void writeUnsigned(ByteArrayOutputStream out, long value) {
+
+		// Write each seven bits but the last with the high bit set.
+		long rest = value;
+		while (0L != (rest & ~0x7FL)) {
+
+			out.write((int) ((rest & 0x7FL) | 0x80L));
+			rest >>>= 7;
+		}
+
+		// Write the last seven bits.
+		out.write((int) rest);
+	}
+
+	/**
+	 * Prevents the class from being instantiated.
+	 */
+	private ProgramCodec() {
+	}
+}
@@ -0,0 +1,243 @@
+package com.garygregg.coverity.codingtest;
+
+import java.io.PrintStream;
+
+import com.garygregg.coverity.codingtest.operation.Intrinsic;
+import com.garygregg.coverity.codingtest.operation.OperationRegistry;
+
+/**
+ * Contains an evaluator of compiled programs. An evaluator runs the postfix
+ * instructions of a program on an explicit evaluation stack whose depth was
+ * computed when the program was compiled, so evaluation never recurses no
+ * matter how deeply the expression was nested. Each numeric mode has its own
+ * evaluator with a stack of its own primitive type, so that the arithmetic of
+ * one mode costs nothing in the others.
+ * 
+ * @author Gary Gregg
+ */
+public abstract class ProgramEvaluator {
+
+	/**
+	 * Creates an evaluator for a numeric mode.
+	 * 
+	 * @param mode
+	 *            The numeric mode of the programs to evaluate
+	 * @param reportStream
+	 *            The print stream for reporting information
+	 * @return An evaluator for the numeric mode
+	 */
+	public static ProgramEvaluator forMode(NumericMode mode,
+			PrintStream reportStream) {
+
+		// Declare a variable to receive the evaluator. Which mode is it?
+		ProgramEvaluator evaluator = null;
+		switch (mode) {
+
+		// Create an arbitrary precision evaluator.
+		case BIG_INTEGER:
+			evaluator = new BigIntegerEvaluator();
+			break;
+
+		// Create an exact 32-bit evaluator.
+		case EXACT_INT:
+			evaluator = new ExactIntEvaluator(reportStream);
+			break;
+
+		// Create an exact 64-bit evaluator.
+		case LONG:
+			evaluator = new LongEvaluator(reportStream);
+			break;
+
+		// Create a wrapped 32-bit evaluator.
+		case WRAPPED_INT:
+			evaluator = new WrappedIntEvaluator(reportStream);
+			break;
+		}
+
+		// Return the evaluator.
+		return evaluator;
+	}
+
+	// The numeric mode of the programs the evaluator evaluates
+	private final NumericMode mode;
+
+	/**
+	 * Constructs the program evaluator.
+	 * 
+	 * @param mode
+	 *            The numeric mode of the programs the evaluator evaluates
+	 */
+	protected ProgramEvaluator(NumericMode mode) {
+		this.mode = mode;
+	}
+
+	/**
+	 * Evaluates a program, boxing its results.
+	 * 
+	 * @param program
+	 *            The program to evaluate
+	 * @return The value of each top-level expression of the program, in order
+	 * @throws EvaluationException
+	 *             Indicates that an operation of the program could not be
+	 *             evaluated in the numeric mode of the evaluator
+	 */
+	public abstract Number[] evaluateValues(Program program)
+			throws EvaluationException;
+
+	/**
+	 * Gets the numeric mode of the programs the evaluator evaluates.
+	 * 
+	 * @return The numeric mode of the programs the evaluator evaluates
+	 */
+	public NumericMode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Checks that a program was compiled for the numeric mode of the
+	 * evaluator.
+	 * 
+	 * @param program
+	 *            The program to check
+	 * @throws IllegalArgumentException
+	 *             Indicates that the program was compiled for another numeric
+	 *             mode
+	 */
+	void checkMode(Program program) {
+
+		// Throw an exception if the program has a different mode.
+		if (!mode.equals(program.getMode())) {
+			throw new IllegalArgumentException("Program compiled for "
+					+ program.getMode().getName() + " arithmetic cannot be "
+					+ "evaluated in " + mode.getName() + " arithmetic.");
+		}
+	}
+
+	/**
+	 * Creates an exception for an instruction whose result overflows.
+	 * 
+	 * @param program
+	 *            The program being evaluated
+	 * @param index
+	 *            The index of the instruction
+	 * @return An exception for the instruction
+	 */
+	EvaluationException createOverflowException(Program program, int index) {
+
+		// Create the exception with the position of the instruction.
+		final int position = program.getPosition(index);
+		return new EvaluationException("Result of '"
+				+ getOperationName(program, index) + "' operation at position "
+				+ position + " overflows " + mode.getName() + " arithmetic.",
+				position);
+	}
+
+	/**
+	 * Creates an exception for an instruction whose result is undefined.
+	 * 
+	 * @param program
+	 *            The program being evaluated
+	 * @param index
+	 *            The index of the instruction
+	 * @param exception
+	 *            The arithmetic exception that signalled the undefined result
+	 * @return An exception for the instruction
+	 */
+	EvaluationException createUndefinedException(Program program, int index,
+			ArithmeticException exception) {
+
+		// Create the exception with the position of the instruction.
+		final int position = program.getPosition(index);
+		return new EvaluationException("Result of '"
+				+ getOperationName(program, index) + "' operation at position "
+				+ position + " is undefined in " + mode.getName()
+				+ " arithmetic (" + exception.getMessage() + ").", position);
+	}
+
+	/**
+	 * Throws an exception for an unknown instruction.
+	 * 
+	 * @param program
+	 *            The program being evaluated
+	 * @param index
+	 *            The index of the instruction
+	 * @throws IllegalStateException
+	 *             Always
+	 */
+	void failUnknown(Program program, int index) {
+		throw new IllegalStateException("Unknown opcode "
+				+ program.getOpcode(index) + " at instruction " + index + ".");
+	}
+
+	/**
+	 * Gets the name of the operation of an arithmetic instruction.
+	 * 
+	 * @param program
+	 *            The program being evaluated
+	 * @param index
+	 *            The index of an arithmetic instruction
+	 * @return The name of the operation of the instruction, as it appears in
+	 *         an expression
+	 */
+	private String getOperationName(Program program, int index) {
+
+		// Declare a variable to receive the name. Which opcode is it?
+		String name = null;
+		final byte opcode = program.getOpcode(index);
+		switch (opcode) {
+
+		// The opcode is an add.
+		case Program.addOpcode:
+			name = "add";
+			break;
+
+		// The opcode is a divide.
+		case Program.divideOpcode:
+			name = "div";
+			break;
+
+		// The opcode is a multiply.
+		case Program.multiplyOpcode:
+			name = "mult";
+			break;
+
+		// The opcode is a subtract.
+		case Program.subtractOpcode:
+			name = "sub";
+			break;
+
+		// The opcode is a remainder.
+		case Program.moduloOpcode:
+			name = Intrinsic.MODULO.getName();
+			break;
+
+		// The opcode is a power.
+		case Program.powerOpcode:
+			name = Intrinsic.POWER.getName();
+			break;
+
+		// The opcode is a left shift.
+		case Program.shiftLeftOpcode:
+			name = Intrinsic.SHIFT_LEFT.getName();
+			break;
+
+		// The opcode is a right shift.
+		case Program.shiftRightOpcode:
+			name = Intrinsic.SHIFT_RIGHT.getName();
+			break;
+
+		// The opcode is a call. Use the name of the registered operation.
+		case Program.callOpcode:
+			name = OperationRegistry.getInstance()
+					.get(program.getOperand(index)).getName();
+			break;
+
+		// No other opcode has an undefined or overflowing result.
+		default:
+			name = "opcode " + opcode;
+		}
+
+		// Return the name.
+		return name;
+	}
+}
@@ -0,0 +1,26 @@
+package com.garygregg.coverity.codingtest;
+
+import java.io.IOException;
+
+/**
+ * Indicates that the binary form of a program could not be loaded: it is
+ * truncated or corrupt, of another version, or describes a program that the
+ * evaluators could not execute safely.
+ * 
+ * @author Gary Gregg
+ */
+public class ProgramFormatException extends IOException {
+
+	// The serial version UID of the class
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Constructs the program format exception.
+	 * 
+	 * @param message
+	 *            A description of the error
+	 */
+	public ProgramFormatException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,428 @@
+package com.garygregg.coverity.codingtest;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.garygregg.coverity.codingtest.metrics.MetricsRegistry;
+
+/**
+ * Contains a bounded table of the values of subexpressions, keyed by the
+ * structure of a subexpression and the values of its free variables, so that
+ * a subexpression that recurs with the same bindings - in the same expression,
+ * or across a batch of related expressions - is computed only once. An entry
+ * holds on to the syntax tree of its subexpression, so the size of the table
+ * is bounded by the number of tokens in those trees rather than by the number
+ * of entries. When the table is full, entries are evicted by the CLOCK
+ * algorithm: a hand sweeps the entries, sparing once each entry found since
+ * it last passed. A memo may be used by only one thread at a time.
+ * 
+ * @author Gary Gregg
+ */
+public final class SubtreeMemo {
+
+	/**
+	 * Contains the key of an entry: a subexpression, and the values of its
+	 * free variables.
+	 * 
+	 * @author Gary Gregg
+	 */
+	private static final class Key {
+
+		// The values of the free variables of the subexpression
+		private final int[] freeValues;
+
+		// The hash of the key
+		private final int hash;
+
+		// The node of the subexpression
+		private final SyntaxNode node;
+
+		/**
+		 * Constructs the key.
+		 * 
+		 * @param node
+		 *            The node of the subexpression
+		 * @param freeValues
+		 *            The values of the free variables of the subexpression
+		 */
+		public Key(SyntaxNode node, int[] freeValues) {
+
+			// Set the member variables, and hash them.
+			this.node = node;
+			this.freeValues = freeValues;
+			hash = (31 * node.getStructuralHash())
+					+ Arrays.hashCode(freeValues);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object object) {
+
+			/*
+			 * The object is equal if it is a key with the same hash, the same
+			 * free values and a subexpression of the same structure.
+			 */
+			boolean equal = (this == object);
+			if ((!equal) && (object instanceof Key)) {
+
+				final Key other = (Key) object;
+				equal = (hash == other.hash)
+						&& Arrays.equals(freeValues, other.freeValues)
+						&& node.hasSameStructure(other.node);
+			}
+
+			// Return whether the object is equal.
+			return equal;
+		}
+
+		/**
+		 * Gets the node of the subexpression.
+		 * 
+		 * @return The node of the subexpression
+		 */
+		public SyntaxNode getNode() {
+			return node;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	// The default number of tokens in the subexpressions of a memo
+	public static final int defaultCapacity = 1 << 18;
+
+	/*
+	 * The default number of tokens of the smallest subexpression whose value
+	 * is kept
+	 */
+	public static final int defaultMinimumTokenCount = 8;
+
+	// The initial number of entries for which a memo has room
+	private static final int initialEntryCapacity = 64;
+
+	// The name of the memo in the metrics
+	private static final String metricsName = "subtree";
+
+	// The number of tokens in the subexpressions of the memo
+	private final int capacity;
+
+	// The number of entries in the memo
+	private int entryCount;
+
+	// The number of free entries below the number of entries ever used
+	private int freeCount;
+
+	// The indices of the free entries below the number of entries ever used
+	private int[] freeIndices = new int[initialEntryCapacity];
+
+	// The index of the entry at which the hand of the clock points
+	private int hand;
+
+	// The number of lookups that found an entry
+	private long hitCount;
+
+	// The index of each entry, by its key
+	private final Map<Key, Integer> indexMap = new HashMap<Key, Integer>();
+
+	// The key of each entry, or null for a free entry
+	private Key[] keys = new Key[initialEntryCapacity];
+
+	// The number of tokens of the smallest subexpression whose value is kept
+	private final int minimumTokenCount;
+
+	// The number of lookups that found no entry
+	private long missCount;
+
+	// True for each entry found since the hand last passed it
+	private boolean[] referenced = new boolean[initialEntryCapacity];
+
+	// The number of tokens in the subexpressions of the entries
+	private int tokenCount;
+
+	// The number of entries ever used, free or not
+	private int usedCount;
+
+	// The value of each entry
+	private int[] values = new int[initialEntryCapacity];
+
+	/**
+	 * Constructs the memo with a default capacity and a default minimum size
+	 * of subexpression.
+	 */
+	public SubtreeMemo() {
+		this(defaultCapacity, defaultMinimumTokenCount);
+	}
+
+	/**
+	 * Constructs the memo with an explicit capacity and an explicit minimum
+	 * size of subexpression.
+	 * 
+	 * @param capacity
+	 *            The number of tokens in the subexpressions of the memo
+	 * @param minimumTokenCount
+	 *            The number of tokens of the smallest subexpression whose
+	 *            value is kept; smaller ones are cheaper to compute again
+	 * @throws IllegalArgumentException
+	 *             Indicates that the capacity is not positive
+	 */
+	public SubtreeMemo(int capacity, int minimumTokenCount) {
+
+		// Throw an exception if the capacity is not positive.
+		if (0 >= capacity) {
+			throw new IllegalArgumentException(
+					"Capacity of a subtree memo must be positive; it is "
+							+ capacity + ".");
+		}
+
+		// Set the capacity and the minimum size.
+		this.capacity = capacity;
+		this.minimumTokenCount = minimumTokenCount;
+	}
+
+	/**
+	 * Removes every entry from the memo, and clears its counts.
+	 */
+	public void clear() {
+
+		// Forget the entries.
+		indexMap.clear();
+		Arrays.fill(keys, 0, usedCount, null);
+		Arrays.fill(referenced, 0, usedCount, false);
+		entryCount = 0;
+		freeCount = 0;
+		hand = 0;
+		tokenCount = 0;
+		usedCount = 0;
+
+		// Clear the counts.
+		hitCount = 0L;
+		missCount = 0L;
+	}
+
+	/**
+	 * Gets the number of tokens in the subexpressions the memo holds.
+	 * 
+	 * @return The number of tokens in the subexpressions the memo holds
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Gets the number of lookups that found an entry.
+	 * 
+	 * @return The number of lookups that found an entry
+	 */
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Gets the number of tokens of the smallest subexpression whose value is
+	 * kept.
+	 * 
+	 * @return The number of tokens of the smallest subexpression whose value
+	 *         is kept
+	 */
+	public int getMinimumTokenCount() {
+		return minimumTokenCount;
+	}
+
+	/**
+	 * Gets the number of lookups that found no entry.
+	 * 
+	 * @return The number of lookups that found no entry
+	 */
+	public long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Gets the number of entries in the memo.
+	 * 
+	 * @return The number of entries in the memo
+	 */
+	public int getSize() {
+		return entryCount;
+	}
+
+	/**
+	 * Gets the number of tokens in the subexpressions of the entries.
+	 * 
+	 * @return The number of tokens in the subexpressions of the entries
+	 */
+	public int getTokenCount() {
+		return tokenCount;
+	}
+
+	/**
+	 * Finds the value of a subexpression with the given values of its free
+	 * variables.
+	 * 
+	 * @param node
+	 *            The node of the subexpression
+	 * @param freeValues
+	 *            The values of the free variables of the subexpression
+	 * @return The value of the subexpression, or null if it is not in the memo
+	 */
+	Integer find(SyntaxNode node, int[] freeValues) {
+
+		/*
+		 * Look for the entry. Count a miss if there is none, in the metrics
+		 * too if they are recorded.
+		 */
+		final Integer index = indexMap.get(new Key(node, freeValues));
+		final MetricsRegistry metrics = MetricsRegistry.getInstance();
+		Integer value = null;
+		if (null == index) {
+
+			++missCount;
+			if (metrics.isEnabled()) {
+				metrics.countCacheMiss(metricsName);
+			}
+		}
+
+		/*
+		 * Count a hit, in the metrics too if they are recorded, and mark the
+		 * entry so that the hand spares it once. Get the value.
+		 */
+		else {
+
+			++hitCount;
+			if (metrics.isEnabled()) {
+				metrics.countCacheHit(metricsName);
+			}
+
+			referenced[index] = true;
+			value = values[index];
+		}
+
+		// Return the value, or null.
+		return value;
+	}
+
+	/**
+	 * Determines if a subexpression is large enough for its value to be kept.
+	 * 
+	 * @param node
+	 *            The node of the subexpression
+	 * @return True if the subexpression is large enough, false otherwise
+	 */
+	boolean isKept(SyntaxNode node) {
+		return minimumTokenCount <= node.getTokenCount();
+	}
+
+	/**
+	 * Keeps the value of a subexpression with the given values of its free
+	 * variables, evicting entries until it fits. A subexpression larger than
+	 * the capacity of the memo is not kept.
+	 * 
+	 * @param node
+	 *            The node of the subexpression
+	 * @param freeValues
+	 *            The values of the free variables of the subexpression, which
+	 *            are copied
+	 * @param value
+	 *            The value of the subexpression
+	 */
+	void keep(SyntaxNode node, int[] freeValues, int value) {
+
+		/*
+		 * Update the value of the entry with the same key if there is one.
+		 * Otherwise keep the value unless the subexpression is too large.
+		 */
+		final Key key = new Key(node, freeValues.clone());
+		final Integer index = indexMap.get(key);
+		final int tokens = node.getTokenCount();
+		if (null != index) {
+			values[index] = value;
+		}
+
+		/*
+		 * Evict entries until the subexpression fits. Use a free entry if
+		 * there is one, or else the next entry never used.
+		 */
+		else if (capacity >= tokens) {
+
+			while (capacity - tokenCount < tokens) {
+				evict();
+			}
+
+			int free = 0;
+			if (0 < freeCount) {
+				free = freeIndices[--freeCount];
+			}
+
+			// Make room for an entry never used, and use it.
+			else {
+
+				ensureEntryCapacity(usedCount + 1);
+				free = usedCount++;
+			}
+
+			// Set the entry, unreferenced, and index it.
+			keys[free] = key;
+			values[free] = value;
+			referenced[free] = false;
+			indexMap.put(key, free);
+			++entryCount;
+			tokenCount += tokens;
+		}
+	}
+
+	/**
+	 * Ensures that the entry arrays have room for at least a given number of
+	 * entries.
+	 * 
+	 * @param size
+	 *            The number of entries for which the arrays must have room
+	 */
+	private void ensureEntryCapacity(int size) {
+
+		// Grow the arrays if they are too small.
+		if (keys.length < size) {
+
+			final int length = Math.max(size, keys.length << 1);
+			freeIndices = Arrays.copyOf(freeIndices, length);
+			keys = Arrays.copyOf(keys, length);
+			referenced = Arrays.copyOf(referenced, length);
+			values = Arrays.copyOf(values, length);
+		}
+	}
+
+	/**
+	 * Evicts an entry, which the memo must have: sweeps the hand past free
+	 * entries and referenced ones, sparing each referenced entry once, and
+	 * evicts the first entry that is not referenced.
+	 */
+	private void evict() {
+
+		// Sweep the hand until it reaches an entry that is not referenced.
+		while ((null == keys[hand]) || referenced[hand]) {
+
+			referenced[hand] = false;
+			hand = (hand + 1) % usedCount;
+		}
+
+		// Forget the entry, free it, and advance the hand past it.
+		final Key key = keys[hand];
+		indexMap.remove(key);
+		tokenCount -= key.getNode().getTokenCount();
+		--entryCount;
+		keys[hand] = null;
+		freeIndices[freeCount++] = hand;
+		hand = (hand + 1) % usedCount;
+	}
+}
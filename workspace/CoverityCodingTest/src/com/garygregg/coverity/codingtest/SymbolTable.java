@@ -4,6 +4,9 @@ import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.Iterator;
 
+import com.garygregg.coverity.codingtest.metrics.MetricsRegistry;
+import com.garygregg.coverity.codingtest.recording.SymbolLookupEvent;
+
 /**
  * Contains a symbol table.
  * 
@@ -66,20 +69,49 @@ class SymbolTable {
 	public Integer findValueFor(String symbol) {
 
 		/*
-		 * Create an iterator for the symbol deque. Declare and initialize other
-		 * local variables.
+		 * Begin an event for the lookup. Create an iterator for the symbol
+		 * deque. Declare and initialize other local variables.
 		 */
+		final SymbolLookupEvent event = new SymbolLookupEvent();
+		event.begin();
 		final Iterator<Pair<String, Integer>> iterator = symbolDeque.iterator();
 		boolean match = false;
 		Pair<String, Integer> pair = null;
+		int scanLength = 0;
 
 		/*
 		 * Cycle until symbols are exhausted, or until a match is found for the
-		 * given symbol.
+		 * given symbol. Count the symbols compared.
 		 */
 		while (iterator.hasNext()
-				&& !(match = compare(symbol, pair = iterator.next())))
-			;
+				&& !(match = compare(symbol, pair = iterator.next()))) {
+			++scanLength;
+		}
+
+		/*
+		 * Count the matching symbol as compared. Count the lookup if metrics
+		 * are recorded.
+		 */
+		if (match) {
+			++scanLength;
+		}
+
+		final MetricsRegistry metrics = MetricsRegistry.getInstance();
+		if (metrics.isEnabled()) {
+			metrics.countSymbolLookup(scanLength);
+		}
+
+		// End the event. Should it be committed?
+		event.end();
+		if (event.shouldCommit()) {
+
+			// Describe the lookup in the event, and commit it.
+			event.setFound(match);
+			event.setScanLength(scanLength);
+			event.setSymbol(symbol);
+			event.setTableSize(symbolDeque.size());
+			event.commit();
+		}
 
 		/*
 		 * Return the value for the matching symbol, or null if no match was
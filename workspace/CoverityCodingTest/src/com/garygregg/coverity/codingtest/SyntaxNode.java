@@ -0,0 +1,351 @@
+package com.garygregg.coverity.codingtest;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import com.garygregg.coverity.codingtest.lexical_analysis.TokenKind;
+
+/**
+ * Contains a node of the syntax tree of an incrementally evaluated
+ * expression: a value, a variable, or an operation with its arguments. A node
+ * records where its arguments start relative to its own first token, not
+ * where it is in the expression, so that it stays valid when an edit moves
+ * it. It caches its last value together with the values of its free
+ * variables at the time, and has a hash of its structure by which equal
+ * subtrees may be found.
+ * 
+ * @author Gary Gregg
+ */
+final class SyntaxNode {
+
+	/**
+	 * Determines if two names, either of which may be null, are the same.
+	 * 
+	 * @param first
+	 *            The first name, or null
+	 * @param second
+	 *            The second name, or null
+	 * @return True if the names are the same, false otherwise
+	 */
+	private static boolean isSameName(String first, String second) {
+		return (null == first) ? (null == second) : first.equals(second);
+	}
+
+	// True if the node has a cached value
+	private boolean cached;
+
+	// The values of the free variables when the value was cached
+	private int[] cachedFreeValues;
+
+	// The cached value of the node
+	private int cachedValue;
+
+	/*
+	 * The offset of the first token of each argument from the first token of
+	 * the node
+	 */
+	private final int[] childOffsets;
+
+	// The arguments of the node
+	private final SyntaxNode[] children;
+
+	/*
+	 * The variables used but not bound in the node, which share their
+	 * structure with those of its arguments
+	 */
+	private final VariableSet freeVariables;
+
+	// The kind of the first token of the node
+	private final TokenKind kind;
+
+	// The name of a variable, or of the variable bound by a 'let' operation
+	private final String name;
+
+	// A hash of the structure of the node, including its variable names
+	private final int structuralHash;
+
+	// The number of tokens in the node
+	private final int tokenCount;
+
+	/*
+	 * The value of a value node, or the identifier of the operation of a
+	 * registered operation node
+	 */
+	private final int value;
+
+	/**
+	 * Constructs the syntax node.
+	 * 
+	 * @param kind
+	 *            The kind of the first token of the node
+	 * @param value
+	 *            The value of a value node, or the identifier of the
+	 *            operation of a registered operation node
+	 * @param name
+	 *            The name of a variable, or of the variable bound by a 'let'
+	 *            operation, or null
+	 * @param children
+	 *            The arguments of the node; for a 'let' operation, the value
+	 *            and the body
+	 * @param childOffsets
+	 *            The offset of the first token of each argument from the first
+	 *            token of the node
+	 * @param tokenCount
+	 *            The number of tokens in the node
+	 */
+	SyntaxNode(TokenKind kind, int value, String name, SyntaxNode[] children,
+			int[] childOffsets, int tokenCount) {
+
+		// Set the member variables.
+		this.kind = kind;
+		this.value = value;
+		this.name = name;
+		this.children = children;
+		this.childOffsets = childOffsets;
+		this.tokenCount = tokenCount;
+
+		// Find the free variables, and hash the structure.
+		freeVariables = findFreeVariables();
+		structuralHash = findStructuralHash();
+	}
+
+	/**
+	 * Caches the value of the node.
+	 * 
+	 * @param cachedValue
+	 *            The value of the node
+	 * @param cachedFreeValues
+	 *            The values of the free variables of the node, in the order of
+	 *            the free variables
+	 */
+	void cache(int cachedValue, int[] cachedFreeValues) {
+
+		// Set the cache.
+		cached = true;
+		this.cachedValue = cachedValue;
+		this.cachedFreeValues = cachedFreeValues;
+	}
+
+	/**
+	 * Gets the values of the free variables when the value was cached.
+	 * 
+	 * @return The values of the free variables when the value was cached, or
+	 *         null if no value is cached
+	 */
+	int[] getCachedFreeValues() {
+		return cachedFreeValues;
+	}
+
+	/**
+	 * Gets the cached value of the node.
+	 * 
+	 * @return The cached value of the node
+	 */
+	int getCachedValue() {
+		return cachedValue;
+	}
+
+	/**
+	 * Gets an argument of the node.
+	 * 
+	 * @param index
+	 *            The index of the argument
+	 * @return The argument
+	 */
+	SyntaxNode getChild(int index) {
+		return children[index];
+	}
+
+	/**
+	 * Gets the number of arguments of the node.
+	 * 
+	 * @return The number of arguments of the node
+	 */
+	int getChildCount() {
+		return (null == children) ? 0 : children.length;
+	}
+
+	/**
+	 * Gets the offset of the first token of an argument from the first token
+	 * of the node.
+	 * 
+	 * @param index
+	 *            The index of the argument
+	 * @return The offset of the first token of the argument
+	 */
+	int getChildOffset(int index) {
+		return childOffsets[index];
+	}
+
+	/**
+	 * Gets the variables used but not bound in the node.
+	 * 
+	 * @return The free variables of the node
+	 */
+	VariableSet getFreeVariables() {
+		return freeVariables;
+	}
+
+	/**
+	 * Gets the kind of the first token of the node.
+	 * 
+	 * @return The kind of the first token of the node
+	 */
+	TokenKind getKind() {
+		return kind;
+	}
+
+	/**
+	 * Gets the name of a variable, or of the variable bound by a 'let'
+	 * operation.
+	 * 
+	 * @return The name of the variable, or null
+	 */
+	String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the hash of the structure of the node. Nodes with the same
+	 * structure have the same hash.
+	 * 
+	 * @return The hash of the structure of the node
+	 */
+	int getStructuralHash() {
+		return structuralHash;
+	}
+
+	/**
+	 * Gets the number of tokens in the node.
+	 * 
+	 * @return The number of tokens in the node
+	 */
+	int getTokenCount() {
+		return tokenCount;
+	}
+
+	/**
+	 * Gets the value of a value node, or the identifier of the operation of a
+	 * registered operation node.
+	 * 
+	 * @return The value of the node, or the identifier of its operation
+	 */
+	int getValue() {
+		return value;
+	}
+
+	/**
+	 * Determines if the node has the same structure as another: the same
+	 * kinds, values, variable names and arguments throughout. The trees are
+	 * compared without recursion, however deep they are.
+	 * 
+	 * @param other
+	 *            Another node
+	 * @return True if the nodes have the same structure, false otherwise
+	 */
+	boolean hasSameStructure(SyntaxNode other) {
+
+		/*
+		 * Declare a deque of pairs of nodes to compare, starting with this
+		 * node and the other. Cycle until a difference is found, or the pairs
+		 * are exhausted.
+		 */
+		final Deque<SyntaxNode> deque = new ArrayDeque<SyntaxNode>();
+		deque.push(other);
+		deque.push(this);
+		boolean same = true;
+		while (same && (!deque.isEmpty())) {
+
+			/*
+			 * Compare the next pair of nodes; nodes with different hashes
+			 * differ. Compare their arguments in turn if they are the same.
+			 */
+			final SyntaxNode first = deque.pop();
+			final SyntaxNode second = deque.pop();
+			same = (first == second)
+					|| ((first.structuralHash == second.structuralHash)
+							&& (first.kind == second.kind)
+							&& (first.value == second.value)
+							&& isSameName(first.name, second.name) && (first
+							.getChildCount() == second.getChildCount()));
+			if (same && (first != second)) {
+				for (int i = 0; i < first.getChildCount(); ++i) {
+
+					deque.push(second.children[i]);
+					deque.push(first.children[i]);
+				}
+			}
+		}
+
+		// Return whether the nodes have the same structure.
+		return same;
+	}
+
+	/**
+	 * Determines if the node has a cached value.
+	 * 
+	 * @return True if the node has a cached value, false otherwise
+	 */
+	boolean isCached() {
+		return cached;
+	}
+
+	/**
+	 * Finds the variables used but not bound in the node: a variable itself,
+	 * or those of the arguments, less the variable that a 'let' operation
+	 * binds in its body.
+	 * 
+	 * @return The free variables of the node
+	 */
+	private VariableSet findFreeVariables() {
+
+		// Declare a variable to receive the free variables. Is this a variable?
+		VariableSet variables = VariableSet.empty;
+		if (TokenKind.VARIABLE == kind) {
+			variables = VariableSet.of(name);
+		}
+
+		/*
+		 * This is not a variable. Unite the free variables of the arguments,
+		 * if any, leaving out the variable that a 'let' operation binds in its
+		 * body. The sets are persistent, so the union shares its structure
+		 * with the sets of the arguments rather than copying them.
+		 */
+		else if (null != children) {
+
+			for (int i = 0; i < children.length; ++i) {
+
+				// Remove the variable bound in the body of a 'let' operation.
+				final VariableSet childVariables = children[i]
+						.getFreeVariables();
+				variables = variables
+						.union(((TokenKind.LET != kind) || (0 == i)) ? childVariables
+								: childVariables.remove(name));
+			}
+		}
+
+		// Return the free variables.
+		return variables;
+	}
+
+	/**
+	 * Hashes the structure of the node from its kind, its value, its name and
+	 * the hashes of its arguments.
+	 * 
+	 * @return The hash of the structure of the node
+	 */
+	private int findStructuralHash() {
+
+		// Hash the kind, the value and the name of the node.
+		int hash = (31 * kind.ordinal()) + value;
+		hash = (31 * hash) + ((null == name) ? 0 : name.hashCode());
+
+		// Fold in the hash of each argument, if any.
+		for (int i = 0; i < getChildCount(); ++i) {
+			hash = (31 * hash) + children[i].structuralHash;
+		}
+
+		// Return the hash.
+		return hash;
+	}
+}
@@ -0,0 +1,61 @@
+package com.garygregg.coverity.codingtest;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Contains a print stream that prefixes each printed line with a settable tag.
+ * 
+ * @author Gary Gregg
+ */
+class TaggingPrintStream extends PrintStream {
+
+	// The tag to prefix each printed line, or null if there is no tag
+	private String tag;
+
+	/**
+	 * Constructs the tagging print stream.
+	 * 
+	 * @param outputStream
+	 *            The output stream to which lines are printed
+	 */
+	public TaggingPrintStream(OutputStream outputStream) {
+		super(outputStream, true);
+	}
+
+	/**
+	 * Gets the tag that prefixes each printed line.
+	 * 
+	 * @return The tag that prefixes each printed line, or null if there is no
+	 *         tag
+	 */
+	public String getTag() {
+		return tag;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.PrintStream#println(java.lang.String)
+	 */
+	@Override
+	public void println(String string) {
+
+		/*
+		 * Print the string preceded by the tag if there is a tag. Otherwise
+		 * print the string alone.
+		 */
+		super.println((null == tag) ? string : tag + string);
+	}
+
+	/**
+	 * Sets the tag that prefixes each printed line.
+	 * 
+	 * @param tag
+	 *            The tag that prefixes each printed line, or null if there is
+	 *            to be no tag
+	 */
+	public void setTag(String tag) {
+		this.tag = tag;
+	}
+}
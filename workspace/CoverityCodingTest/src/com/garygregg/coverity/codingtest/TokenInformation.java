@@ -1,6 +1,9 @@
 package com.garygregg.coverity.codingtest;
 
 import com.garygregg.coverity.codingtest.operation.BinaryOperation;
+import com.garygregg.coverity.codingtest.recording.AccountedClass;
+import com.garygregg.coverity.codingtest.recording.AllocationAccounting;
+import com.garygregg.coverity.codingtest.token.KeyToken;
 import com.garygregg.coverity.codingtest.token.Token;
 
 /**
@@ -10,18 +13,33 @@ import com.garygregg.coverity.codingtest.token.Token;
  */
 class TokenInformation {
 
+	// The expression of the token
+	private final String expression;
+
 	// The binary operation represented by the token, if any
 	private final BinaryOperation operation;
 
+	/*
+	 * The position of the token in the input stream, or -1 if the token was
+	 * synthesized outside of the input stream
+	 */
+	private final int position;
+
 	// The parse state at the time the token was created
 	private final State state;
 
-	// The token
+	/*
+	 * The token, or null if the token is a key token, which may be recycled
+	 * and so is not kept
+	 */
 	private final Token token;
 
+	// True if the operation of the token accepts more than two arguments
+	private final boolean variadic;
+
 	/**
-	 * Constructs the token information with a state, an a default binary
-	 * operation
+	 * Constructs the token information for an argument token with a state,
+	 * and no binary operation.
 	 * 
 	 * @param token
 	 *            The token
@@ -29,26 +47,63 @@ class TokenInformation {
 	 *            The state at the time the token was created
 	 */
 	public TokenInformation(Token token, State state) {
-		this(token, state, null);
+
+		/*
+		 * Set the token, and its expression and position. Set the state, no
+		 * operation and no variadic flag, and count the token information.
+		 */
+		final Integer tokenPosition = token.getPosition();
+		this.token = token;
+		expression = token.getExpression();
+		position = (null == tokenPosition) ? -1 : tokenPosition;
+		this.state = state;
+		operation = null;
+		variadic = false;
+		AllocationAccounting.getInstance().count(
+				AccountedClass.TOKEN_INFORMATION);
 	}
 
 	/**
-	 * Constructs the token information with a state and an explicit binary
-	 * operation.
+	 * Constructs the token information for a key token with a state, an
+	 * explicit binary operation, and an explicit variadic flag. The
+	 * information keeps the expression and position of the key token, but not
+	 * the token itself, which may be recycled.
 	 * 
 	 * @param token
-	 *            The token
+	 *            The key token
 	 * @param state
 	 *            The parse state at the time the token was created
 	 * @param operation
 	 *            The binary operation represented by the token, if any
+	 * @param variadic
+	 *            True if the operation accepts more than two arguments, which
+	 *            it reduces from the first to the last
 	 */
-	public TokenInformation(Token token, State state, BinaryOperation operation) {
+	public TokenInformation(KeyToken token, State state,
+			BinaryOperation operation, boolean variadic) {
 
-		// Set the token, state and operation.
-		this.token = token;
+		/*
+		 * Set the expression and position of the token, but not the token.
+		 * Set the state, operation and variadic flag, and count the token
+		 * information.
+		 */
+		this.token = null;
+		expression = token.getExpression();
+		position = token.getStart();
 		this.state = state;
 		this.operation = operation;
+		this.variadic = variadic;
+		AllocationAccounting.getInstance().count(
+				AccountedClass.TOKEN_INFORMATION);
+	}
+
+	/**
+	 * Gets the expression of the token.
+	 * 
+	 * @return The expression of the token
+	 */
+	public String getExpression() {
+		return expression;
 	}
 
 	/**
@@ -60,6 +115,16 @@ class TokenInformation {
 		return operation;
 	}
 
+	/**
+	 * Gets the position of the token in the input stream.
+	 * 
+	 * @return The position of the token in the input stream, or -1 if the
+	 *         token was synthesized outside of the input stream
+	 */
+	public int getPosition() {
+		return position;
+	}
+
 	/**
 	 * Gets the parse state at the time the token was created
 	 * 
@@ -70,9 +135,9 @@ class TokenInformation {
 	}
 
 	/**
-	 * Gets the token.
+	 * Gets the token, unless it is a key token.
 	 * 
-	 * @return The token
+	 * @return The token, or null if the token is a key token
 	 */
 	public Token getToken() {
 		return token;
@@ -87,6 +152,17 @@ class TokenInformation {
 		return null != getOperation();
 	}
 
+	/**
+	 * Returns true if the operation of the token accepts more than two
+	 * arguments, false otherwise
+	 * 
+	 * @return True if the operation of the token accepts more than two
+	 *         arguments, false otherwise
+	 */
+	public boolean isVariadic() {
+		return variadic;
+	}
+
 	/**
 	 * Performs the operation of the token, if available, and returns the
 	 * result.
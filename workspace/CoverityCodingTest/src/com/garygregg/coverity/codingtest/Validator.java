@@ -0,0 +1,615 @@
+package com.garygregg.coverity.codingtest;
+
+import java.util.Arrays;
+
+import com.garygregg.coverity.codingtest.lexical_analysis.LexicalAnalyzer;
+import com.garygregg.coverity.codingtest.lexical_analysis.TokenBuffer;
+import com.garygregg.coverity.codingtest.lexical_analysis.TokenKind;
+import com.garygregg.coverity.codingtest.metrics.DiagnosticKind;
+import com.garygregg.coverity.codingtest.operation.OperationRegistry;
+
+/**
+ * Contains a validator that determines only whether an expression is well
+ * formed, with every variable bound where it is used. The validator follows
+ * the grammar of the parser, but evaluates no operation, creates no token
+ * objects and outputs no diagnostics. It pulls tokens from the lexical
+ * analyzer a buffer at a time, and stops at the first error. Errors that only
+ * evaluation finds, such as a division by zero, are not errors to the
+ * validator. A validator may be used by only one thread at a time, but may be
+ * reused for any number of expressions.
+ * 
+ * @author Gary Gregg
+ */
+public class Validator {
+
+	/*
+	 * The capacity of the token buffer; small, so that little of an expression
+	 * is scanned past its first error
+	 */
+	private static final int bufferCapacity = 128;
+
+	// The initial capacity of the growable arrays
+	private static final int initialCapacity = 16;
+
+	// The number of variables bound at the current token
+	private int boundCount;
+
+	// The length of the name of each bound variable, innermost last
+	private int[] boundLengths = new int[initialCapacity];
+
+	// The start of the name of each bound variable, innermost last
+	private int[] boundStarts = new int[initialCapacity];
+
+	// The kind of the first error of the last validation, or null if none
+	private DiagnosticKind errorKind;
+
+	// The expression being validated
+	private String expression;
+
+	// The number of operations still open
+	private int frameCount;
+
+	// Whether each open operation is a 'let' operation
+	private boolean[] frameLets = new boolean[initialCapacity];
+
+	// The length of the variable name of each open 'let' operation
+	private int[] frameNameLengths = new int[initialCapacity];
+
+	// The start of the variable name of each open 'let' operation
+	private int[] frameNameStarts = new int[initialCapacity];
+
+	// The state in which each open operation was received
+	private State[] frameStates = new State[initialCapacity];
+
+	// Whether each open operation takes any number of arguments
+	private boolean[] frameVariadics = new boolean[initialCapacity];
+
+	// The lexical analyzer that finds the tokens of each expression
+	private final LexicalAnalyzer lexicalAnalyzer = new LexicalAnalyzer();
+
+	// The operation registry, which says whether an operation is variadic
+	private final OperationRegistry registry = OperationRegistry.getInstance();
+
+	// The current state of the validation
+	private State state = State.EXPECTING_OPERATION;
+
+	// The buffer that receives the tokens of each expression
+	private final TokenBuffer tokenBuffer = new TokenBuffer(bufferCapacity);
+
+	/**
+	 * Gets the kind of the first error of the last validation.
+	 * 
+	 * @return The kind of the first error of the last validation: an
+	 *         unexpected token, an undefined symbol, a value out of range or an
+	 *         unfinished parse, or null if the last expression validated was
+	 *         well formed
+	 */
+	public DiagnosticKind getErrorKind() {
+		return errorKind;
+	}
+
+	/**
+	 * Validates an expression.
+	 * 
+	 * @param expression
+	 *            The expression to validate; null is treated as empty
+	 * @return -1 if the expression is well formed, otherwise the position of
+	 *         its first error; an expression that ends before its last
+	 *         operation is closed has its error at its length
+	 */
+	public int validate(String expression) {
+
+		/*
+		 * Set the expression for the lexical analyzer, which resets it. Reset
+		 * the validator.
+		 */
+		this.expression = expression;
+		lexicalAnalyzer.setExpression(expression);
+		boundCount = 0;
+		errorKind = null;
+		frameCount = 0;
+		state = State.EXPECTING_OPERATION;
+
+		/*
+		 * Fill the buffer, and receive each token in it, until there are no
+		 * more tokens or a token is in error.
+		 */
+		int errorPosition = -1;
+		while ((0 > errorPosition) && (0 < lexicalAnalyzer.fill(tokenBuffer))) {
+
+			final int size = tokenBuffer.getSize();
+			for (int i = 0; (0 > errorPosition) && (i < size); ++i) {
+				errorPosition = receiveToken(tokenBuffer.getKind(i),
+						tokenBuffer.getStart(i), tokenBuffer.getLength(i),
+						tokenBuffer.getIntValue(i));
+			}
+		}
+
+		/*
+		 * The expression is unfinished if no token is in error, but an
+		 * operation is still open. Its error is at its end.
+		 */
+		if ((0 > errorPosition) && !State.EXPECTING_OPERATION.equals(state)) {
+			errorPosition = fail(DiagnosticKind.UNFINISHED_PARSE,
+					(null == expression) ? 0 : expression.length());
+		}
+
+		// Forget the expression, and return the position of the error.
+		this.expression = null;
+		return errorPosition;
+	}
+
+	/**
+	 * Binds the variable of the innermost open 'let' operation.
+	 */
+	private void bind() {
+
+		// Grow the bound variable arrays if they are full.
+		if (boundStarts.length == boundCount) {
+
+			final int capacity = grow(boundCount);
+			boundLengths = Arrays.copyOf(boundLengths, capacity);
+			boundStarts = Arrays.copyOf(boundStarts, capacity);
+		}
+
+		// Bind the variable by the position of its name.
+		boundLengths[boundCount] = frameNameLengths[frameCount - 1];
+		boundStarts[boundCount++] = frameNameStarts[frameCount - 1];
+	}
+
+	/**
+	 * Completes an argument in the current state, and transitions to the next
+	 * state.
+	 */
+	private void completeArgument() {
+
+		// Which state are we in?
+		switch (state) {
+
+		// A top-level operation has completed. Expect another operation.
+		case EXPECTING_OPERATION:
+			break;
+
+		// A first argument has completed. Expect the last comma.
+		case EXPECTING_FIRST_ARGUMENT:
+			state = State.EXPECTING_LAST_COMMA;
+			break;
+
+		// A last argument has completed. Expect a close.
+		case EXPECTING_LAST_ARGUMENT:
+			state = State.EXPECTING_CLOSE;
+			break;
+
+		/*
+		 * The value of a 'let' variable has completed. Bind it, and expect the
+		 * last comma.
+		 */
+		case EXPECTING_SECOND_ARGUMENT_AFTER_LET:
+			bind();
+			state = State.EXPECTING_LAST_COMMA;
+			break;
+
+		// No argument may complete in any other state.
+		default:
+			assert false : state;
+		}
+	}
+
+	/**
+	 * Records the kind of an error.
+	 * 
+	 * @param kind
+	 *            The kind of the error
+	 * @param position
+	 *            The position of the error
+	 * @return The position of the error
+	 */
+	private int fail(DiagnosticKind kind, int position) {
+
+		// Record the kind, and return the position.
+		errorKind = kind;
+		return position;
+	}
+
+	/**
+	 * Calculates a grown capacity for a full array.
+	 * 
+	 * @param capacity
+	 *            The current capacity of the array
+	 * @return The grown capacity of the array
+	 */
+	private int grow(int capacity) {
+		return capacity + (capacity >> 1) + 1;
+	}
+
+	/**
+	 * Determines whether a variable is bound.
+	 * 
+	 * @param start
+	 *            The start of the name of the variable in the expression
+	 * @param length
+	 *            The length of the name of the variable
+	 * @return True if the variable is bound, false otherwise
+	 */
+	private boolean isBound(int start, int length) {
+
+		/*
+		 * Declare the result. Compare the name with that of each bound
+		 * variable, innermost first, until it matches.
+		 */
+		boolean bound = false;
+		for (int i = boundCount - 1; (!bound) && (0 <= i); --i) {
+			bound = (length == boundLengths[i])
+					&& expression.regionMatches(boundStarts[i], expression,
+							start, length);
+		}
+
+		// Return the result.
+		return bound;
+	}
+
+	/**
+	 * Determines if the validator may currently receive an argument.
+	 * 
+	 * @return True if the validator may receive an argument, false otherwise
+	 */
+	private boolean mayReceiveArgument() {
+		return State.EXPECTING_FIRST_ARGUMENT.equals(state)
+				|| State.EXPECTING_LAST_ARGUMENT.equals(state)
+				|| State.EXPECTING_SECOND_ARGUMENT_AFTER_LET.equals(state);
+	}
+
+	/**
+	 * Receives a close token.
+	 * 
+	 * @param start
+	 *            The position of the token
+	 * @return -1 if the token may be received, otherwise the position of the
+	 *         token
+	 */
+	private int receiveClose(int start) {
+
+		// Declare the result. May a close be received in the current state?
+		int errorPosition = -1;
+		if (State.EXPECTING_CLOSE.equals(state)) {
+
+			/*
+			 * A close may be received. Pop the innermost operation, unbinding
+			 * its variable if it is a 'let' operation.
+			 */
+			--frameCount;
+			if (frameLets[frameCount]) {
+				--boundCount;
+			}
+
+			/*
+			 * Restore the state in which the operation was received, and
+			 * complete the operation as an argument in that state.
+			 */
+			state = frameStates[frameCount];
+			completeArgument();
+		}
+
+		// A close may not be received in the current state.
+		else {
+			errorPosition = fail(DiagnosticKind.UNEXPECTED_TOKEN, start);
+		}
+
+		// Return the result.
+		return errorPosition;
+	}
+
+	/**
+	 * Receives a comma token.
+	 * 
+	 * @param start
+	 *            The position of the token
+	 * @return -1 if the token may be received, otherwise the position of the
+	 *         token
+	 */
+	private int receiveComma(int start) {
+
+		// Declare the result. Which state are we in?
+		int errorPosition = -1;
+		switch (state) {
+
+		// The last comma is expected. Expect the last argument.
+		case EXPECTING_LAST_COMMA:
+			state = State.EXPECTING_LAST_ARGUMENT;
+			break;
+
+		/*
+		 * The comma after a 'let' variable is expected. Expect the value of
+		 * the variable.
+		 */
+		case EXPECTING_COMMA_AFTER_LET:
+			state = State.EXPECTING_SECOND_ARGUMENT_AFTER_LET;
+			break;
+
+		/*
+		 * A close is expected. Expect another last argument if the innermost
+		 * operation is variadic.
+		 */
+		case EXPECTING_CLOSE:
+			if (frameVariadics[frameCount - 1]) {
+				state = State.EXPECTING_LAST_ARGUMENT;
+			}
+
+			// The innermost operation is not variadic.
+			else {
+				errorPosition = fail(DiagnosticKind.UNEXPECTED_TOKEN, start);
+			}
+
+			break;
+
+		// A comma may not be received in any other state.
+		default:
+			errorPosition = fail(DiagnosticKind.UNEXPECTED_TOKEN, start);
+			break;
+		}
+
+		// Return the result.
+		return errorPosition;
+	}
+
+	/**
+	 * Receives an open token.
+	 * 
+	 * @param start
+	 *            The position of the token
+	 * @return -1 if the token may be received, otherwise the position of the
+	 *         token
+	 */
+	private int receiveOpen(int start) {
+
+		// Declare the result. Which state are we in?
+		int errorPosition = -1;
+		switch (state) {
+
+		// An open is expected. Expect the first argument.
+		case EXPECTING_OPEN:
+			state = State.EXPECTING_FIRST_ARGUMENT;
+			break;
+
+		/*
+		 * An open after a 'let' is expected. Expect the name of the variable.
+		 */
+		case EXPECTING_OPEN_AFTER_LET:
+			state = State.EXPECTING_FIRST_ARGUMENT_AFTER_LET;
+			break;
+
+		// An open may not be received in any other state.
+		default:
+			errorPosition = fail(DiagnosticKind.UNEXPECTED_TOKEN, start);
+			break;
+		}
+
+		// Return the result.
+		return errorPosition;
+	}
+
+	/**
+	 * Receives an operation token.
+	 * 
+	 * @param start
+	 *            The position of the token
+	 * @param let
+	 *            True if the operation is a 'let' operation, false otherwise
+	 * @param variadic
+	 *            True if the operation takes any number of arguments, false
+	 *            otherwise
+	 * @return -1 if the token may be received, otherwise the position of the
+	 *         token
+	 */
+	private int receiveOperation(int start, boolean let, boolean variadic) {
+
+		// Declare the result. May an operation be received?
+		int errorPosition = -1;
+		if (State.EXPECTING_OPERATION.equals(state) || mayReceiveArgument()) {
+
+			// An operation may be received. Grow the arrays if they are full.
+			if (frameStates.length == frameCount) {
+
+				final int capacity = grow(frameCount);
+				frameLets = Arrays.copyOf(frameLets, capacity);
+				frameNameLengths = Arrays.copyOf(frameNameLengths, capacity);
+				frameNameStarts = Arrays.copyOf(frameNameStarts, capacity);
+				frameStates = Arrays.copyOf(frameStates, capacity);
+				frameVariadics = Arrays.copyOf(frameVariadics, capacity);
+			}
+
+			// Push the operation, and expect an open.
+			frameLets[frameCount] = let;
+			frameVariadics[frameCount] = variadic;
+			frameStates[frameCount++] = state;
+			state = let ? State.EXPECTING_OPEN_AFTER_LET
+					: State.EXPECTING_OPEN;
+		}
+
+		// An operation may not be received in the current state.
+		else {
+			errorPosition = fail(DiagnosticKind.UNEXPECTED_TOKEN, start);
+		}
+
+		// Return the result.
+		return errorPosition;
+	}
+
+	/**
+	 * Receives a token.
+	 * 
+	 * @param kind
+	 *            The kind of the token
+	 * @param start
+	 *            The position of the token
+	 * @param length
+	 *            The length of the token
+	 * @param intValue
+	 *            The integer value of the token, if its kind has one
+	 * @return -1 if the token may be received, otherwise the position of the
+	 *         first error
+	 */
+	private int receiveToken(TokenKind kind, int start, int length,
+			int intValue) {
+
+		// Declare the result. What kind of token is it?
+		final int errorPosition;
+		switch (kind) {
+
+		// The token is a built-in variadic operation.
+		case ADD:
+		case MULTIPLY:
+			errorPosition = receiveOperation(start, false, true);
+			break;
+
+		// The token is a built-in operation of two arguments.
+		case DIVIDE:
+		case SUBTRACT:
+			errorPosition = receiveOperation(start, false, false);
+			break;
+
+		// The token is a 'let' operation.
+		case LET:
+			errorPosition = receiveOperation(start, true, false);
+			break;
+
+		// The token is a registered operation, which may be variadic.
+		case REGISTERED_OPERATION:
+			errorPosition = receiveOperation(start, false,
+					registry.get(intValue).isVariadic());
+			break;
+
+		// The token is a close.
+		case CLOSE:
+			errorPosition = receiveClose(start);
+			break;
+
+		// The token is a comma.
+		case COMMA:
+			errorPosition = receiveComma(start);
+			break;
+
+		// The token is an open.
+		case OPEN:
+			errorPosition = receiveOpen(start);
+			break;
+
+		// The token is a value.
+		case VALUE:
+			errorPosition = receiveValue(start, length, intValue);
+			break;
+
+		// The token is a variable.
+		case VARIABLE:
+			errorPosition = receiveVariable(start, length);
+			break;
+
+		// The token is not part of the calculator language.
+		default:
+			errorPosition = fail(DiagnosticKind.UNEXPECTED_TOKEN, start);
+			break;
+		}
+
+		// Return the result.
+		return errorPosition;
+	}
+
+	/**
+	 * Receives a value token.
+	 * 
+	 * @param start
+	 *            The position of the token
+	 * @param length
+	 *            The length of the token
+	 * @param intValue
+	 *            The value of the token, wrapped to 32 bits
+	 * @return -1 if the token may be received, otherwise the position of the
+	 *         token
+	 */
+	private int receiveValue(int start, int length, int intValue) {
+
+		/*
+		 * Declare the result. May an argument be received, and is the literal
+		 * within the range of an integer? Only a literal of ten or more
+		 * characters may not be.
+		 */
+		int errorPosition = -1;
+		if (mayReceiveArgument()) {
+
+			// Complete the argument if the literal is within range.
+			if ((10 > length)
+					|| LexicalAnalyzer.isIntegerLiteral(
+							expression.substring(start, start + length),
+							intValue)) {
+				completeArgument();
+			}
+
+			// The literal is out of range.
+			else {
+				errorPosition = fail(DiagnosticKind.VALUE_OUT_OF_RANGE, start);
+			}
+		}
+
+		// An argument may not be received in the current state.
+		else {
+			errorPosition = fail(DiagnosticKind.UNEXPECTED_TOKEN, start);
+		}
+
+		// Return the result.
+		return errorPosition;
+	}
+
+	/**
+	 * Receives a variable token.
+	 * 
+	 * @param start
+	 *            The position of the token
+	 * @param length
+	 *            The length of the token
+	 * @return -1 if the token may be received, otherwise the position of the
+	 *         token
+	 */
+	private int receiveVariable(int start, int length) {
+
+		/*
+		 * Declare the result. Is the variable the name of the variable of a
+		 * 'let' operation?
+		 */
+		int errorPosition = -1;
+		if (State.EXPECTING_FIRST_ARGUMENT_AFTER_LET.equals(state)) {
+
+			/*
+			 * The variable is the name of the variable of a 'let' operation.
+			 * Remember it, to be bound once its value completes, and expect
+			 * the comma after it.
+			 */
+			frameNameLengths[frameCount - 1] = length;
+			frameNameStarts[frameCount - 1] = start;
+			state = State.EXPECTING_COMMA_AFTER_LET;
+		}
+
+		/*
+		 * The variable is used as an argument. Complete the argument if the
+		 * variable is bound.
+		 */
+		else if (mayReceiveArgument()) {
+
+			if (isBound(start, length)) {
+				completeArgument();
+			}
+
+			// The variable is not bound.
+			else {
+				errorPosition = fail(DiagnosticKind.UNDEFINED_SYMBOL, start);
+			}
+		}
+
+		// A variable may not be received in the current state.
+		else {
+			errorPosition = fail(DiagnosticKind.UNEXPECTED_TOKEN, start);
+		}
+
+		// Return the result.
+		return errorPosition;
+	}
+}
@@ -0,0 +1,385 @@
+package com.garygregg.coverity.codingtest;
+
+/**
+ * Contains a persistent set of variable names. A set is a treap ordered by
+ * name, whose nodes are never changed once made, so that a set made from
+ * another by adding or removing a name shares all but one path of its nodes
+ * with the other. The priority of each name is a hash of it, so a set of
+ * names has one shape however it was made, and its names are always found in
+ * the same order. A syntax node keeps its free variables in a set made from
+ * those of its arguments, rather than in a copy of them.
+ * 
+ * @author Gary Gregg
+ */
+final class VariableSet {
+
+	// The set of no variables
+	static final VariableSet empty = new VariableSet(null, 0, null, null);
+
+	/**
+	 * Creates a set of one variable.
+	 * 
+	 * @param name
+	 *            The name of the variable
+	 * @return A set of the one variable
+	 */
+	static VariableSet of(String name) {
+		return new VariableSet(name, findPriority(name), null, null);
+	}
+
+	/**
+	 * Deletes a name from a treap.
+	 * 
+	 * @param root
+	 *            The root of the treap, or null if it is empty
+	 * @param name
+	 *            The name to delete
+	 * @return The root of a treap without the name, which is the given root if
+	 *         the name is not in it
+	 */
+	private static VariableSet delete(VariableSet root, String name) {
+
+		// Declare the result. Is the treap not empty?
+		VariableSet result = root;
+		if (null != root) {
+
+			/*
+			 * The treap is not empty. Delete the name from the left if it goes
+			 * before the root, from the right if it goes after, or else join
+			 * the two sides in place of the root.
+			 */
+			final int comparison = name.compareTo(root.name);
+			if (0 > comparison) {
+
+				final VariableSet left = delete(root.left, name);
+				if (left != root.left) {
+					result = new VariableSet(root.name, root.priority, left,
+							root.right);
+				}
+			}
+
+			else if (0 < comparison) {
+
+				final VariableSet right = delete(root.right, name);
+				if (right != root.right) {
+					result = new VariableSet(root.name, root.priority,
+							root.left, right);
+				}
+			}
+
+			else {
+				result = join(root.left, root.right);
+			}
+		}
+
+		// Return the result.
+		return result;
+	}
+
+	/**
+	 * Finds the priority of a name in a treap.
+	 * 
+	 * @param name
+	 *            A name
+	 * @return The priority of the name
+	 */
+	private static int findPriority(String name) {
+
+		// Mix the hash of the name, so that similar names are far apart.
+		final int hash = name.hashCode() * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Inserts a name in a treap.
+	 * 
+	 * @param root
+	 *            The root of the treap, or null if it is empty
+	 * @param name
+	 *            The name to insert
+	 * @param priority
+	 *            The priority of the name
+	 * @return The root of a treap with the name, which is the given root if
+	 *         the name is already in it
+	 */
+	private static VariableSet insert(VariableSet root, String name,
+			int priority) {
+
+		// Declare the result. Is the treap empty?
+		VariableSet result = root;
+		if (null == root) {
+			result = new VariableSet(name, priority, null, null);
+		}
+
+		// The treap is not empty. Does the name go before the root?
+		else {
+
+			final int comparison = name.compareTo(root.name);
+			if (0 > comparison) {
+
+				/*
+				 * The name goes before the root. Insert it on the left, and
+				 * rotate it above the root if it is of higher priority.
+				 */
+				final VariableSet left = insert(root.left, name, priority);
+				if (left != root.left) {
+					result = left.isAbove(root) ? new VariableSet(left.name,
+							left.priority, left.left, new VariableSet(
+									root.name, root.priority, left.right,
+									root.right)) : new VariableSet(root.name,
+							root.priority, left, root.right);
+				}
+			}
+
+			/*
+			 * The name goes after the root. Insert it on the right, and rotate
+			 * it above the root if it is of higher priority.
+			 */
+			else if (0 < comparison) {
+
+				final VariableSet right = insert(root.right, name, priority);
+				if (right != root.right) {
+					result = right.isAbove(root) ? new VariableSet(right.name,
+							right.priority, new VariableSet(root.name,
+									root.priority, root.left, right.left),
+							right.right) : new VariableSet(root.name,
+							root.priority, root.left, right);
+				}
+			}
+		}
+
+		// Return the result.
+		return result;
+	}
+
+	/**
+	 * Inserts the names of one treap in another.
+	 * 
+	 * @param root
+	 *            The root of the treap receiving the names, or null if it is
+	 *            empty
+	 * @param source
+	 *            The root of the treap whose names are inserted, or null if it
+	 *            is empty
+	 * @return The root of a treap with the names of both, which is the given
+	 *         root if it already has all the names of the source
+	 */
+	private static VariableSet insertAll(VariableSet root, VariableSet source) {
+
+		// Insert the names of the source in order, if it is not empty.
+		VariableSet result = root;
+		if (null != source) {
+
+			result = insertAll(result, source.left);
+			result = insert(result, source.name, source.priority);
+			result = insertAll(result, source.right);
+		}
+
+		// Return the result.
+		return result;
+	}
+
+	/**
+	 * Joins two treaps, each name of the first of which goes before each name
+	 * of the second.
+	 * 
+	 * @param first
+	 *            The root of the first treap, or null if it is empty
+	 * @param second
+	 *            The root of the second treap, or null if it is empty
+	 * @return The root of the joined treap
+	 */
+	private static VariableSet join(VariableSet first, VariableSet second) {
+
+		// Declare the result. Is either treap empty?
+		VariableSet result = null;
+		if ((null == first) || (null == second)) {
+			result = (null == first) ? second : first;
+		}
+
+		/*
+		 * Neither treap is empty. Keep the root of higher priority at the top,
+		 * and join the other treap to its inner side.
+		 */
+		else if (first.isAbove(second)) {
+			result = new VariableSet(first.name, first.priority, first.left,
+					join(first.right, second));
+		}
+
+		else {
+			result = new VariableSet(second.name, second.priority, join(first,
+					second.left), second.right);
+		}
+
+		// Return the result.
+		return result;
+	}
+
+	/**
+	 * Gets the size of a treap.
+	 * 
+	 * @param root
+	 *            The root of the treap, or null if it is empty
+	 * @return The number of names in the treap
+	 */
+	private static int sizeOf(VariableSet root) {
+		return (null == root) ? 0 : root.size;
+	}
+
+	/**
+	 * Gets the set for the root of a treap.
+	 * 
+	 * @param root
+	 *            The root of the treap, or null if it is empty
+	 * @return The set for the root of the treap
+	 */
+	private static VariableSet toSet(VariableSet root) {
+		return (null == root) ? empty : root;
+	}
+
+	// The names before the name of this node, or null if there are none
+	private final VariableSet left;
+
+	// The name of this node, or null if the set is empty
+	private final String name;
+
+	// The priority of the name of this node
+	private final int priority;
+
+	// The names after the name of this node, or null if there are none
+	private final VariableSet right;
+
+	// The number of names in the set
+	private final int size;
+
+	/**
+	 * Constructs a node of a treap.
+	 * 
+	 * @param name
+	 *            The name of the node, or null if the set is empty
+	 * @param priority
+	 *            The priority of the name
+	 * @param left
+	 *            The names before the name, or null if there are none
+	 * @param right
+	 *            The names after the name, or null if there are none
+	 */
+	private VariableSet(String name, int priority, VariableSet left,
+			VariableSet right) {
+
+		// Set the member variables, and count the names.
+		this.name = name;
+		this.priority = priority;
+		this.left = left;
+		this.right = right;
+		size = (null == name) ? 0 : 1 + sizeOf(left) + sizeOf(right);
+	}
+
+	/**
+	 * Gets a name of the set.
+	 * 
+	 * @param index
+	 *            The index of the name, in the order of the names
+	 * @return The name at the index
+	 * @throws IndexOutOfBoundsException
+	 *             Indicates that the index is not that of a name in the set
+	 */
+	String get(int index) {
+
+		// Throw an exception if the index is not that of a name in the set.
+		if ((0 > index) || (size <= index)) {
+			throw new IndexOutOfBoundsException("Index " + index
+					+ " is not in a set of " + size + " variables.");
+		}
+
+		/*
+		 * Descend from the root, to the left if the index is among the names
+		 * there, else to the right, until the node of the index is found.
+		 */
+		VariableSet node = this;
+		int remaining = index;
+		int leftSize = sizeOf(node.left);
+		while (remaining != leftSize) {
+
+			// Descend to the left.
+			if (remaining < leftSize) {
+				node = node.left;
+			}
+
+			// Descend to the right, skipping the names on the left.
+			else {
+
+				remaining -= leftSize + 1;
+				node = node.right;
+			}
+
+			leftSize = sizeOf(node.left);
+		}
+
+		// Return the name of the node.
+		return node.name;
+	}
+
+	/**
+	 * Removes a variable from the set.
+	 * 
+	 * @param name
+	 *            The name of the variable
+	 * @return The set without the variable, which is this set if the variable
+	 *         is not in it
+	 */
+	VariableSet remove(String name) {
+		return (0 == size) ? this : toSet(delete(this, name));
+	}
+
+	/**
+	 * Gets the number of variables in the set.
+	 * 
+	 * @return The number of variables in the set
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Unites the set with another.
+	 * 
+	 * @param other
+	 *            Another set
+	 * @return The union of the sets, which is the larger of the two if it
+	 *         already has all the variables of the other
+	 */
+	VariableSet union(VariableSet other) {
+
+		/*
+		 * Insert the names of the smaller set in the larger, unless either is
+		 * empty, or they are the same.
+		 */
+		VariableSet result = this;
+		if ((0 == size) || (this == other)) {
+			result = other;
+		}
+
+		else if (0 < other.size) {
+			result = (size < other.size) ? insertAll(other, this) : insertAll(
+					this, other);
+		}
+
+		// Return the union.
+		return result;
+	}
+
+	/**
+	 * Determines whether the node is above another in a treap: whether its
+	 * priority is higher, or the same with a name that goes first.
+	 * 
+	 * @param other
+	 *            Another node
+	 * @return True if the node is above the other, false otherwise
+	 */
+	private boolean isAbove(VariableSet other) {
+		return (priority > other.priority)
+				|| ((priority == other.priority) && (0 > name
+						.compareTo(other.name)));
+	}
+}
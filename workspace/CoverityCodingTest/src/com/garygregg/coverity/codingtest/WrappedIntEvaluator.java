@@ -0,0 +1,313 @@
+package com.garygregg.coverity.codingtest;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import com.garygregg.coverity.codingtest.metrics.MetricsRegistry;
+import com.garygregg.coverity.codingtest.metrics.Phase;
+import com.garygregg.coverity.codingtest.operation.DivideOperation;
+import com.garygregg.coverity.codingtest.operation.IntrinsicArithmetic;
+import com.garygregg.coverity.codingtest.operation.OperationRegistry;
+
+/**
+ * Contains an evaluator of programs in wrapped 32-bit arithmetic, in which
+ * overflow silently wraps around as it does in the parser.
+ * 
+ * @author Gary Gregg
+ */
+public class WrappedIntEvaluator extends ProgramEvaluator {
+
+	// The divide operation, which reports division by zero
+	private final DivideOperation divideOperation;
+
+	/**
+	 * Constructs the wrapped evaluator with a default print stream.
+	 */
+	public WrappedIntEvaluator() {
+		this(System.err);
+	}
+
+	/**
+	 * Constructs the wrapped evaluator with an explicit print stream.
+	 * 
+	 * @param reportStream
+	 *            The print stream for reporting information
+	 */
+	public WrappedIntEvaluator(PrintStream reportStream) {
+
+		// Set the mode, and create the divide operation.
+		super(NumericMode.WRAPPED_INT);
+		divideOperation = new DivideOperation(reportStream);
+	}
+
+	/**
+	 * Evaluates a program.
+	 * 
+	 * @param program
+	 *            The program to evaluate
+	 * @return The value of each top-level expression of the program, in order
+	 * @throws EvaluationException
+	 *             Indicates that the result of an operation is undefined
+	 */
+	public int[] evaluate(Program program) throws EvaluationException {
+
+		/*
+		 * Check the mode of the program. Create the evaluation stack and the
+		 * variable slots, and execute every instruction.
+		 */
+		checkMode(program);
+		final int[] stack = new int[program.getMaximumStackDepth()];
+		final int top = execute(program, 0, program.getSize(), stack, 0,
+				new int[program.getSlotCount()]);
+
+		// Return the values left on the stack.
+		return Arrays.copyOf(stack, top);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.garygregg.coverity.codingtest.ProgramEvaluator#evaluateValues(com
+	 * .garygregg.coverity.codingtest.Program)
+	 */
+	@Override
+	public Number[] evaluateValues(Program program) throws EvaluationException {
+
+		/*
+		 * Evaluate the program, recording the latency of the evaluation if
+		 * metrics are recorded. Box each of its results.
+		 */
+		final MetricsRegistry metrics = MetricsRegistry.getInstance();
+		final boolean metered = metrics.isEnabled();
+		final long startTime = metered ? System.nanoTime() : 0L;
+		final int[] results = evaluate(program);
+		if (metered) {
+			metrics.recordLatency(Phase.EVALUATE, System.nanoTime()
+					- startTime);
+		}
+
+		final Number[] values = new Number[results.length];
+		for (int i = 0; i < results.length; ++i) {
+			values[i] = results[i];
+		}
+
+		// Return the boxed results.
+		return values;
+	}
+
+	/**
+	 * Executes a range of the instructions of a program.
+	 * 
+	 * @param program
+	 *            The program being evaluated
+	 * @param start
+	 *            The index of the first instruction to execute
+	 * @param end
+	 *            The index after the last instruction to execute
+	 * @param stack
+	 *            The evaluation stack
+	 * @param top
+	 *            The depth of the evaluation stack before the first
+	 *            instruction
+	 * @param slots
+	 *            The variable slots
+	 * @return The depth of the evaluation stack after the last instruction
+	 * @throws EvaluationException
+	 *             Indicates that the result of an operation is undefined
+	 */
+	int execute(Program program, int start, int end, int[] stack, int top,
+			int[] slots) throws EvaluationException {
+
+		// Get the instruction arrays of the program.
+		final byte[] opcodes = program.getOpcodes();
+		final int[] operands = program.getOperands();
+
+		/*
+		 * Get the registry for calls to kernels, and cycle for each
+		 * instruction.
+		 */
+		final OperationRegistry registry = OperationRegistry.getInstance();
+		for (int i = start; i < end; ++i) {
+
+			/*
+			 * Which instruction is it? An arithmetic exception means that its
+			 * result is undefined.
+			 */
+			try {
+				switch (opcodes[i]) {
+
+				// Push a value.
+				case Program.pushOpcode:
+					stack[top++] = operands[i];
+					break;
+
+				// Push the value of a variable.
+				case Program.loadOpcode:
+					stack[top++] = slots[operands[i]];
+					break;
+
+				// Pop a value into the slot of a variable.
+				case Program.bindOpcode:
+					slots[operands[i]] = stack[--top];
+					break;
+
+				// End a 'let' operation; its value is already on the stack.
+				case Program.letOpcode:
+					break;
+
+				/*
+				 * Add the values on top of the stack; the operand is their
+				 * number.
+				 */
+				case Program.addOpcode: {
+
+					final int first = top - operands[i];
+					int result = stack[first];
+					for (int j = first + 1; j < top; ++j) {
+						result += stack[j];
+					}
+
+					stack[first] = result;
+					top = first + 1;
+					break;
+				}
+
+				// Subtract the two values on top of the stack.
+				case Program.subtractOpcode:
+					--top;
+					stack[top - 1] -= stack[top];
+					break;
+
+				/*
+				 * Multiply the values on top of the stack; the operand is
+				 * their number.
+				 */
+				case Program.multiplyOpcode: {
+
+					final int first = top - operands[i];
+					int result = stack[first];
+					for (int j = first + 1; j < top; ++j) {
+						result *= stack[j];
+					}
+
+					stack[first] = result;
+					top = first + 1;
+					break;
+				}
+
+				/*
+				 * Divide the two values on top of the stack. Let the divide
+				 * operation handle (and report) a divisor of zero.
+				 */
+				case Program.divideOpcode:
+					--top;
+					stack[top - 1] = (0 == stack[top]) ? divideOperation
+							.performOperation(stack[top - 1], stack[top])
+							: stack[top - 1] / stack[top];
+					break;
+
+				// Take the remainder of the two values on top of the stack.
+				case Program.moduloOpcode:
+					--top;
+					stack[top - 1] = IntrinsicArithmetic.remainder(
+							stack[top - 1], stack[top]);
+					break;
+
+				/*
+				 * Keep the smallest of the values on top of the stack; the
+				 * operand is their number.
+				 */
+				case Program.minimumOpcode: {
+
+					final int first = top - operands[i];
+					int result = stack[first];
+					for (int j = first + 1; j < top; ++j) {
+						result = Math.min(result, stack[j]);
+					}
+
+					stack[first] = result;
+					top = first + 1;
+					break;
+				}
+
+				/*
+				 * Keep the largest of the values on top of the stack; the
+				 * operand is their number.
+				 */
+				case Program.maximumOpcode: {
+
+					final int first = top - operands[i];
+					int result = stack[first];
+					for (int j = first + 1; j < top; ++j) {
+						result = Math.max(result, stack[j]);
+					}
+
+					stack[first] = result;
+					top = first + 1;
+					break;
+				}
+
+				// Raise the value below the top of the stack to a power.
+				case Program.powerOpcode:
+					--top;
+					stack[top - 1] = IntrinsicArithmetic.power(stack[top - 1],
+							stack[top]);
+					break;
+
+				// Shift the value below the top of the stack left.
+				case Program.shiftLeftOpcode:
+					--top;
+					stack[top - 1] <<= stack[top];
+					break;
+
+				// Shift the value below the top of the stack right.
+				case Program.shiftRightOpcode:
+					--top;
+					stack[top - 1] >>= stack[top];
+					break;
+
+				// And the two values on top of the stack bitwise.
+				case Program.andOpcode:
+					--top;
+					stack[top - 1] &= stack[top];
+					break;
+
+				// Or the two values on top of the stack bitwise.
+				case Program.orOpcode:
+					--top;
+					stack[top - 1] |= stack[top];
+					break;
+
+				// Exclusive-or the two values on top of the stack bitwise.
+				case Program.xorOpcode:
+					--top;
+					stack[top - 1] ^= stack[top];
+					break;
+
+				/*
+				 * Replace the two values on top of the stack with the result of
+				 * the kernel of a registered operation.
+				 */
+				case Program.callOpcode:
+					--top;
+					stack[top - 1] = registry.get(operands[i]).getIntKernel()
+							.performOperation(stack[top - 1], stack[top]);
+					break;
+
+				// There are no other instructions in this mode.
+				default:
+					failUnknown(program, i);
+				}
+			}
+
+			// Throw an exception for an instruction with an undefined result.
+			catch (ArithmeticException exception) {
+				throw createUndefinedException(program, i, exception);
+			}
+		}
+
+		// Return the depth of the stack.
+		return top;
+	}
+}
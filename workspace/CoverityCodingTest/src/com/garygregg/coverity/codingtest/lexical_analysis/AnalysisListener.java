@@ -7,13 +7,17 @@ import com.garygregg.coverity.codingtest.token.DivideToken;
 import com.garygregg.coverity.codingtest.token.LetToken;
 import com.garygregg.coverity.codingtest.token.MultiplyToken;
 import com.garygregg.coverity.codingtest.token.OpenToken;
+import com.garygregg.coverity.codingtest.token.RegisteredOperationToken;
 import com.garygregg.coverity.codingtest.token.SubtractToken;
 import com.garygregg.coverity.codingtest.token.UnknownToken;
 import com.garygregg.coverity.codingtest.token.ValueToken;
 import com.garygregg.coverity.codingtest.token.VariableToken;
 
 /**
- * Encapsulates a listener of calculator lexical analysis.
+ * Encapsulates a listener of calculator lexical analysis. A listener that
+ * receives tokens from an adapter that recycles key tokens may use a key token
+ * only until it receives the next token; it must keep the position of the
+ * token, not the token itself.
  * 
  * @author Gary Gregg
  */
@@ -75,6 +79,14 @@ public interface AnalysisListener {
 	 */
 	void receiveOpenToken(OpenToken token);
 
+	/**
+	 * Receives a registered operation token.
+	 * 
+	 * @param token
+	 *            A registered operation token
+	 */
+	void receiveRegisteredOperationToken(RegisteredOperationToken token);
+
 	/**
 	 * Receives a subtract token.
 	 * 
@@ -0,0 +1,334 @@
+package com.garygregg.coverity.codingtest.lexical_analysis;
+
+import com.garygregg.coverity.codingtest.operation.OperationDescriptor;
+import com.garygregg.coverity.codingtest.operation.OperationRegistry;
+import com.garygregg.coverity.codingtest.token.AddToken;
+import com.garygregg.coverity.codingtest.token.CloseToken;
+import com.garygregg.coverity.codingtest.token.CommaToken;
+import com.garygregg.coverity.codingtest.token.DivideToken;
+import com.garygregg.coverity.codingtest.token.KeyTokenPool;
+import com.garygregg.coverity.codingtest.token.LetToken;
+import com.garygregg.coverity.codingtest.token.MultiplyToken;
+import com.garygregg.coverity.codingtest.token.OpenToken;
+import com.garygregg.coverity.codingtest.token.RegisteredOperationToken;
+import com.garygregg.coverity.codingtest.token.SubtractToken;
+import com.garygregg.coverity.codingtest.token.Token;
+import com.garygregg.coverity.codingtest.token.UnknownToken;
+import com.garygregg.coverity.codingtest.token.ValueToken;
+import com.garygregg.coverity.codingtest.token.VariableToken;
+
+/**
+ * Contains an adapter that delivers the tokens received by a token listener
+ * to an analysis listener, as token objects. The kind of each token selects,
+ * from one table, both the class of its token object and the method of the
+ * listener that receives it, so that the lexical analyzer need know nothing
+ * of either. An adapter may recycle key tokens from a pool, rather than create
+ * one for each key token, for a listener that does not keep them.
+ * 
+ * @author Gary Gregg
+ */
+public final class AnalysisListenerAdapter implements TokenListener {
+
+	/**
+	 * Creates the token object for a token received by a token listener.
+	 * 
+	 * @param kind
+	 *            The kind of the token
+	 * @param expression
+	 *            The expression whose tokens are being received
+	 * @param start
+	 *            The position of the token in the expression
+	 * @param length
+	 *            The length of the token in the expression
+	 * @param intValue
+	 *            The value of a value token, the identifier of the operation of
+	 *            a registered operation token, or zero for any other token
+	 * @param pool
+	 *            The pool from which to recycle a key token, or null to
+	 *            create each key token
+	 * @return The token object for the token
+	 */
+	static Token createToken(TokenKind kind, CharSequence expression,
+			int start, int length, int intValue, KeyTokenPool pool) {
+
+		// Which kind of token is it?
+		final Token token;
+		switch (kind) {
+
+		// Create or recycle an add token.
+		case ADD:
+			token = (null == pool) ? new AddToken(start) : pool
+					.getAddToken(start);
+			break;
+
+		// Create or recycle a close token.
+		case CLOSE:
+			token = (null == pool) ? new CloseToken(start) : pool
+					.getCloseToken(start);
+			break;
+
+		// Create or recycle a comma token.
+		case COMMA:
+			token = (null == pool) ? new CommaToken(start) : pool
+					.getCommaToken(start);
+			break;
+
+		// Create or recycle a divide token.
+		case DIVIDE:
+			token = (null == pool) ? new DivideToken(start) : pool
+					.getDivideToken(start);
+			break;
+
+		// Create or recycle a let token.
+		case LET:
+			token = (null == pool) ? new LetToken(start) : pool
+					.getLetToken(start);
+			break;
+
+		// Create or recycle a multiply token.
+		case MULTIPLY:
+			token = (null == pool) ? new MultiplyToken(start) : pool
+					.getMultiplyToken(start);
+			break;
+
+		// Create or recycle an open token.
+		case OPEN:
+			token = (null == pool) ? new OpenToken(start) : pool
+					.getOpenToken(start);
+			break;
+
+		/*
+		 * Create or recycle a token for the registered operation with the
+		 * identifier.
+		 */
+		case REGISTERED_OPERATION:
+			final OperationDescriptor descriptor = OperationRegistry
+					.getInstance().get(intValue);
+			token = (null == pool) ? new RegisteredOperationToken(descriptor,
+					start) : pool.getRegisteredOperationToken(descriptor,
+					start);
+			break;
+
+		// Create or recycle a subtract token.
+		case SUBTRACT:
+			token = (null == pool) ? new SubtractToken(start) : pool
+					.getSubtractToken(start);
+			break;
+
+		// Create an unknown token with its text.
+		case UNKNOWN:
+			token = new UnknownToken(getText(expression, start, length),
+					start);
+			break;
+
+		// Create a value token with its literal and its value.
+		case VALUE:
+			token = new ValueToken(getText(expression, start, length),
+					intValue, start);
+			break;
+
+		// Create a variable token with its name.
+		default:
+			token = new VariableToken(getText(expression, start, length),
+					start);
+			break;
+		}
+
+		// Return the token.
+		return token;
+	}
+
+	/**
+	 * Delivers a token object to an analysis listener, by the method that
+	 * receives its kind.
+	 * 
+	 * @param listener
+	 *            The analysis listener
+	 * @param kind
+	 *            The kind of the token
+	 * @param token
+	 *            The token object, of the class that its kind creates
+	 */
+	static void deliverToken(AnalysisListener listener, TokenKind kind,
+			Token token) {
+
+		// Which kind of token is it?
+		switch (kind) {
+
+		// Deliver an add token.
+		case ADD:
+			listener.receiveAddToken((AddToken) token);
+			break;
+
+		// Deliver a close token.
+		case CLOSE:
+			listener.receiveCloseToken((CloseToken) token);
+			break;
+
+		// Deliver a comma token.
+		case COMMA:
+			listener.receiveCommaToken((CommaToken) token);
+			break;
+
+		// Deliver a divide token.
+		case DIVIDE:
+			listener.receiveDivideToken((DivideToken) token);
+			break;
+
+		// Deliver a let token.
+		case LET:
+			listener.receiveLetToken((LetToken) token);
+			break;
+
+		// Deliver a multiply token.
+		case MULTIPLY:
+			listener.receiveMultiplyToken((MultiplyToken) token);
+			break;
+
+		// Deliver an open token.
+		case OPEN:
+			listener.receiveOpenToken((OpenToken) token);
+			break;
+
+		// Deliver a registered operation token.
+		case REGISTERED_OPERATION:
+			listener.receiveRegisteredOperationToken(
+					(RegisteredOperationToken) token);
+			break;
+
+		// Deliver a subtract token.
+		case SUBTRACT:
+			listener.receiveSubtractToken((SubtractToken) token);
+			break;
+
+		// Deliver an unknown token.
+		case UNKNOWN:
+			listener.receiveUnknownToken((UnknownToken) token);
+			break;
+
+		// Deliver a value token.
+		case VALUE:
+			listener.receiveValueToken((ValueToken) token);
+			break;
+
+		// Deliver a variable token.
+		case VARIABLE:
+			listener.receiveVariableToken((VariableToken) token);
+			break;
+		}
+	}
+
+	/**
+	 * Gets the text of a token in an expression.
+	 * 
+	 * @param expression
+	 *            The expression
+	 * @param start
+	 *            The position of the token in the expression
+	 * @param length
+	 *            The length of the token in the expression
+	 * @return The text of the token
+	 */
+	private static String getText(CharSequence expression, int start,
+			int length) {
+		return expression.subSequence(start, start + length).toString();
+	}
+
+	// The expression whose tokens are being received
+	private CharSequence expression;
+
+	// The analysis listener to which tokens are delivered
+	private final AnalysisListener listener;
+
+	// The pool from which key tokens are recycled, or null if none
+	private final KeyTokenPool pool;
+
+	/**
+	 * Constructs the analysis listener adapter, which creates each key token.
+	 * 
+	 * @param listener
+	 *            The analysis listener to which tokens are delivered
+	 */
+	public AnalysisListenerAdapter(AnalysisListener listener) {
+		this(listener, false);
+	}
+
+	/**
+	 * Constructs the analysis listener adapter.
+	 * 
+	 * @param listener
+	 *            The analysis listener to which tokens are delivered
+	 * @param recycleKeyTokens
+	 *            True to recycle one key token of each kind, which is valid
+	 *            only until the listener receives the next of its kind; the
+	 *            listener must not keep key tokens. False to create each key
+	 *            token.
+	 */
+	public AnalysisListenerAdapter(AnalysisListener listener,
+			boolean recycleKeyTokens) {
+
+		// Set the member variables.
+		this.listener = listener;
+		pool = recycleKeyTokens ? new KeyTokenPool() : null;
+	}
+
+	/**
+	 * Gets the analysis listener to which tokens are delivered.
+	 * 
+	 * @return The analysis listener to which tokens are delivered
+	 */
+	public AnalysisListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * Determines whether the adapter recycles key tokens.
+	 * 
+	 * @return True if the adapter recycles key tokens, false if it creates
+	 *         each key token
+	 */
+	public boolean isRecyclingKeyTokens() {
+		return null != pool;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.garygregg.coverity.codingtest.lexical_analysis.TokenListener#
+	 * onToken(com.garygregg.coverity.codingtest.lexical_analysis.TokenKind,
+	 * int, int, int)
+	 */
+	@Override
+	public void onToken(TokenKind kind, int start, int length, int intValue) {
+		deliverToken(listener, kind,
+				createToken(kind, expression, start, length, intValue, pool));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.garygregg.coverity.codingtest.lexical_analysis.TokenListener#
+	 * startTokens(java.lang.CharSequence)
+	 */
+	@Override
+	public void startTokens(CharSequence expression) {
+
+		// Remember the expression, and start analysis for the listener.
+		this.expression = expression;
+		listener.startAnalysis();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.garygregg.coverity.codingtest.lexical_analysis.TokenListener#
+	 * stopTokens()
+	 */
+	@Override
+	public void stopTokens() {
+
+		// Stop analysis for the listener, and forget the expression.
+		listener.stopAnalysis();
+		expression = null;
+	}
+}
@@ -0,0 +1,163 @@
+package com.garygregg.coverity.codingtest.lexical_analysis;
+
+import java.util.Arrays;
+
+import com.garygregg.coverity.codingtest.recording.CalculatorEvent;
+
+/**
+ * Contains a token listener that counts the tokens of an expression by kind,
+ * and the deepest nesting of their operations, on their way to another
+ * listener. It describes the expression to a flight recorder event or to the
+ * metrics, and is put in the way of the tokens only while either is enabled,
+ * so that nothing is counted when nothing is recorded. A counting listener
+ * may be attached to only one listener at a time, and reused.
+ * 
+ * @author Gary Gregg
+ */
+public final class CountingTokenListener implements TokenListener {
+
+	// The current nesting of operations
+	private int depth;
+
+	// The length of the expression
+	private int expressionLength;
+
+	// The listener to which tokens are passed
+	private TokenListener listener;
+
+	// The deepest nesting of operations
+	private int maximumDepth;
+
+	// The number of tokens counted
+	private int tokenCount;
+
+	// The number of tokens counted of each kind, by ordinal
+	private final int[] tokenCounts = new int[TokenKind.values().length];
+
+	/**
+	 * Attaches the counting listener to another listener, clearing its counts.
+	 * 
+	 * @param listener
+	 *            The listener to receive the tokens
+	 * @param counting
+	 *            True if the tokens are to be counted, typically because an
+	 *            event is enabled; false otherwise
+	 * @return The listener to which the tokens are to be delivered: the
+	 *         counting listener if the tokens are to be counted, or else the
+	 *         given listener itself
+	 */
+	public TokenListener attach(TokenListener listener, boolean counting) {
+
+		// Clear the counts.
+		depth = 0;
+		expressionLength = 0;
+		maximumDepth = 0;
+		tokenCount = 0;
+		Arrays.fill(tokenCounts, 0);
+
+		// Pass the tokens through the counting listener if they are counted.
+		this.listener = counting ? listener : null;
+		return counting ? this : listener;
+	}
+
+	/**
+	 * Ends an event, and commits it with a description of the expression
+	 * if it should be committed.
+	 * 
+	 * @param event
+	 *            The event to end and commit
+	 */
+	public void commit(CalculatorEvent event) {
+
+		// End the event. Should it be committed?
+		event.end();
+		if (event.shouldCommit()) {
+
+			// Describe the expression in the event, and commit it.
+			describe(event);
+			event.commit();
+		}
+	}
+
+	/**
+	 * Describes the expression in an event, so far as it has been counted.
+	 * 
+	 * @param event
+	 *            The event in which to describe the expression
+	 */
+	public void describe(CalculatorEvent event) {
+
+		// Set the length, the number of tokens and the deepest nesting.
+		event.setExpressionLength(expressionLength);
+		event.setMaximumDepth(maximumDepth);
+		event.setTokenCount(tokenCount);
+	}
+
+	/**
+	 * Gets the number of tokens counted of a kind.
+	 * 
+	 * @param kind
+	 *            The kind of token
+	 * @return The number of tokens counted of the kind
+	 */
+	public int getTokenCount(TokenKind kind) {
+		return tokenCounts[kind.ordinal()];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.garygregg.coverity.codingtest.lexical_analysis.TokenListener#
+	 * onToken(com.garygregg.coverity.codingtest.lexical_analysis.TokenKind,
+	 * int, int, int)
+	 */
+	@Override
+	public void onToken(TokenKind kind, int start, int length, int intValue) {
+
+		/*
+		 * Count the token, and its kind. An open token nests an operation, and
+		 * a close token ends one.
+		 */
+		++tokenCount;
+		++tokenCounts[kind.ordinal()];
+		if (TokenKind.OPEN == kind) {
+			maximumDepth = Math.max(maximumDepth, ++depth);
+		}
+
+		// Otherwise a close token ends the innermost operation, if any.
+		else if ((TokenKind.CLOSE == kind) && (0 < depth)) {
+			--depth;
+		}
+
+		// Pass the token on.
+		listener.onToken(kind, start, length, intValue);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.garygregg.coverity.codingtest.lexical_analysis.TokenListener#
+	 * startTokens(java.lang.CharSequence)
+	 */
+	@Override
+	public void startTokens(CharSequence expression) {
+
+		// Note the length of the expression, and pass the start on.
+		expressionLength = (null == expression) ? 0 : expression.length();
+		listener.startTokens(expression);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.garygregg.coverity.codingtest.lexical_analysis.TokenListener#
+	 * stopTokens()
+	 */
+	@Override
+	public void stopTokens() {
+		listener.stopTokens();
+	}
+}
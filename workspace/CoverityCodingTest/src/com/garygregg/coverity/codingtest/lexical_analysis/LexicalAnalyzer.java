@@ -1,12 +1,19 @@
 package com.garygregg.coverity.codingtest.lexical_analysis;
 
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.garygregg.coverity.codingtest.operation.OperationDescriptor;
+import com.garygregg.coverity.codingtest.operation.OperationRegistry;
+import com.garygregg.coverity.codingtest.recording.AllocationAccounting;
+import com.garygregg.coverity.codingtest.recording.LexEvent;
 import com.garygregg.coverity.codingtest.token.CloseToken;
 import com.garygregg.coverity.codingtest.token.CommaToken;
 import com.garygregg.coverity.codingtest.token.OpenToken;
-import com.garygregg.coverity.codingtest.token.Token;
 
 /**
  * Contains a lexical analyzer for the calculator.
@@ -15,8 +22,34 @@ import com.garygregg.coverity.codingtest.token.Token;
  */
 public class LexicalAnalyzer implements ListenerCollection<AnalysisListener> {
 
-	// A non-whitespace regular expression
-	private static final Pattern pattern = Pattern.compile(buildSearchRegex());
+	/**
+	 * Holds the compiled regular expression that searches an expression. Only
+	 * launches that find tokens one at a time need the pattern, and not fills
+	 * of token buffers, so it is compiled the first time such a launch runs,
+	 * when the holder is initialized, rather than whenever the analyzer is.
+	 * 
+	 * @author Gary Gregg
+	 */
+	private static final class PatternHolder {
+
+		// A non-whitespace regular expression
+		private static final Pattern pattern = Pattern
+				.compile(buildSearchRegex());
+	}
+
+	// The minimum length of a chunk of an expression lexed in parallel
+	private static final int chunkLength = 1 << 20;
+
+	/*
+	 * The number of chunks lexed in parallel ahead of delivery, for each
+	 * thread of a fork-join pool
+	 */
+	private static final int chunksPerThread = 2;
+
+	// The kinds of key token whose expressions are words
+	private static final TokenKind[] keywordKinds = { TokenKind.ADD,
+			TokenKind.DIVIDE, TokenKind.LET, TokenKind.MULTIPLY,
+			TokenKind.SUBTRACT };
 
 	// The regular expression for values
 	private static final String valueRegex = "(\\+|-)?\\d+";
@@ -25,7 +58,99 @@ public class LexicalAnalyzer implements ListenerCollection<AnalysisListener> {
 	private static final String variableRegex = "[a-zA-Z_][a-zA-Z0-9_]*";
 
 	/**
-	 * Builds the regular expression used to search the input expression.
+	 * Determines whether a value literal is within the range of an integer.
+	 * 
+	 * @param literal
+	 *            The value literal
+	 * @param value
+	 *            The value of the literal, wrapped to 32 bits
+	 * @return True if the literal is within the range of an integer, false
+	 *         otherwise
+	 */
+	public static boolean isIntegerLiteral(String literal, int value) {
+
+		/*
+		 * Any literal of fewer than ten digits is within range. Otherwise the
+		 * literal is within range only if its wrapped value is its full value.
+		 */
+		final int digitCount = literal.length()
+				- (Character.isDigit(literal.charAt(0)) ? 0 : 1);
+		return (10 > digitCount)
+				|| BigInteger.valueOf(value).equals(new BigInteger(literal));
+	}
+
+	/**
+	 * Parses the literal text of a value token. A literal outside the range of
+	 * an integer is parsed to its low 32 bits; its full text remains available
+	 * in the expression of the token, so that a listener may find that it is
+	 * out of range with isIntegerLiteral(String, int).
+	 * 
+	 * @param literal
+	 *            The literal text of a value token
+	 * @return The value of the literal, wrapped to 32 bits
+	 */
+	public static int parseValue(String literal) {
+
+		/*
+		 * Try to parse the literal as an integer. That fails only if the
+		 * literal is out of range, in which case parse it with arbitrary
+		 * precision and keep its low 32 bits.
+		 */
+		try {
+			return Integer.parseInt(literal);
+		} catch (NumberFormatException exception) {
+			return new BigInteger(literal).intValue();
+		}
+	}
+
+	/**
+	 * Fills a token buffer with the tokens of a range of a text, until the
+	 * buffer is full or the range is exhausted. The range must start at the
+	 * start of a token, or at whitespace; a token is not allowed to extend
+	 * beyond the end of the range.
+	 * 
+	 * @param text
+	 *            A text
+	 * @param start
+	 *            The position in the text at which to start
+	 * @param end
+	 *            The position in the text at which the range ends
+	 * @param buffer
+	 *            The token buffer to which to add the tokens
+	 * @return The position in the text at which to resume
+	 */
+	static int fill(String text, int start, int end, TokenBuffer buffer) {
+
+		// Cycle until the buffer is full, or the range is exhausted.
+		int position = start;
+		while ((!buffer.isFull()) && (position < end)) {
+
+			// Skip whitespace; scan a token from anything else.
+			position = isWhitespace(text.charAt(position)) ? position + 1
+					: scanToken(text, position, end, buffer);
+		}
+
+		// Return the position at which to resume.
+		return position;
+	}
+
+	/**
+	 * Determines if a character is whitespace, as '\s' matches it.
+	 * 
+	 * @param character
+	 *            A character
+	 * @return True if the character is whitespace, false otherwise
+	 */
+	static boolean isWhitespace(char character) {
+		return (' ' == character) || ('\t' == character)
+				|| ('\n' == character) || ('\u000B' == character)
+				|| ('\f' == character) || ('\r' == character);
+	}
+
+	/**
+	 * Builds the regular expression used to search the input expression. The
+	 * scanner used to fill token buffers must find exactly the tokens that
+	 * this expression does.
 	 * 
 	 * @return The regular expression used to search the input expression
 	 */
@@ -51,26 +176,251 @@ public class LexicalAnalyzer implements ListenerCollection<AnalysisListener> {
 				+ openTokenExpression + "[\\S]+" + closeTokenExpression;
 	}
 
+	/**
+	 * Finds the kind of key token whose expression is a word in a text.
+	 * 
+	 * @param text
+	 *            A text
+	 * @param start
+	 *            The position of the word in the text
+	 * @param length
+	 *            The length of the word
+	 * @return The kind of key token whose expression is the word, or null if
+	 *         there is none
+	 */
+	private static TokenKind findKeywordKind(String text, int start,
+			int length) {
+
+		// Declare the kind. Cycle until it is found.
+		TokenKind kind = null;
+		for (int i = 0; (null == kind) && (i < keywordKinds.length); ++i) {
+
+			// Use the current kind if its expression is the word.
+			final String keyExpression = keywordKinds[i].getKeyExpression();
+			if ((keyExpression.length() == length)
+					&& text.regionMatches(start, keyExpression, 0, length)) {
+				kind = keywordKinds[i];
+			}
+		}
+
+		// Return the kind.
+		return kind;
+	}
+
+	/**
+	 * Determines if a character is a digit, as '\d' matches it.
+	 * 
+	 * @param character
+	 *            A character
+	 * @return True if the character is a digit, false otherwise
+	 */
+	private static boolean isDigit(char character) {
+		return ('0' <= character) && ('9' >= character);
+	}
+
+	/**
+	 * Determines if the next character in a text other than whitespace is an
+	 * open, so that a word before it that names a registered operation is the
+	 * operation rather than a variable.
+	 * 
+	 * @param text
+	 *            A text
+	 * @param position
+	 *            The position in the text after a word
+	 * @return True if the next character in the text other than whitespace is
+	 *         an open, false otherwise
+	 */
+	private static boolean isFollowedByOpen(String text, int position) {
+
+		// Skip whitespace, and test the character after it, if any.
+		int index = position;
+		final int length = text.length();
+		while ((index < length) && isWhitespace(text.charAt(index))) {
+			++index;
+		}
+
+		return (index < length) && ('(' == text.charAt(index));
+	}
+
+	/**
+	 * Determines if a character may follow the first character of a
+	 * variable.
+	 * 
+	 * @param character
+	 *            A character
+	 * @return True if the character may follow the first character of a
+	 *         variable, false otherwise
+	 */
+	private static boolean isIdentifierPart(char character) {
+		return isIdentifierStart(character) || isDigit(character);
+	}
+
+	/**
+	 * Determines if a character may be the first character of a variable.
+	 * 
+	 * @param character
+	 *            A character
+	 * @return True if the character may be the first character of a
+	 *         variable, false otherwise
+	 */
+	private static boolean isIdentifierStart(char character) {
+		return (('a' <= character) && ('z' >= character))
+				|| (('A' <= character) && ('Z' >= character))
+				|| ('_' == character);
+	}
+
+	/**
+	 * Scans a token that starts with a character other than whitespace, and
+	 * adds it to a token buffer. The alternatives of the regular expression
+	 * are tried in the same order: a value, a variable, a close, a comma, an
+	 * open, and otherwise a run of characters other than whitespace.
+	 * 
+	 * @param text
+	 *            The expression
+	 * @param start
+	 *            The position of the token in the expression
+	 * @param end
+	 *            The position at which the expression, or the range of it
+	 *            being scanned, ends
+	 * @param buffer
+	 *            The token buffer, which must not be full
+	 * @return The position in the expression after the token
+	 */
+	private static int scanToken(String text, int start, int end,
+			TokenBuffer buffer) {
+
+		/*
+		 * Get the first character of the token, and the one after it, if any.
+		 * Is the token a value, which may have a sign?
+		 */
+		final char first = text.charAt(start);
+		final char second = (start + 1 < end) ? text.charAt(start + 1) : ' ';
+		int position = start + 1;
+		if (isDigit(first)
+				|| ((('+' == first) || ('-' == first)) && isDigit(second))) {
+
+			/*
+			 * The token is a value. Accumulate its digits in 32-bit arithmetic,
+			 * which keeps the low 32 bits of the value, as parsing its literal
+			 * does.
+			 */
+			int value = isDigit(first) ? first - '0' : 0;
+			char character = 0;
+			while ((position < end)
+					&& isDigit(character = text.charAt(position))) {
+
+				value = (value * 10) + (character - '0');
+				++position;
+			}
+
+			// Add the value token, negated if it has a minus sign.
+			buffer.add(TokenKind.VALUE, start, position - start,
+					('-' == first) ? -value : value);
+		}
+
+		// Otherwise is the token a word?
+		else if (isIdentifierStart(first)) {
+
+			// The token is a word. Find its end.
+			while ((position < end) && isIdentifierPart(text.charAt(position))) {
+				++position;
+			}
+
+			/*
+			 * Add a key token if the word is the expression of one. Otherwise
+			 * add a token for a registered operation if the word names one,
+			 * and an open follows it; else add a variable token.
+			 */
+			final int length = position - start;
+			final TokenKind kind = findKeywordKind(text, start, length);
+			if (null != kind) {
+				buffer.add(kind, start, length, 0);
+			}
+
+			else {
+
+				final OperationDescriptor descriptor = isFollowedByOpen(text,
+						position) ? OperationRegistry.getInstance().find(
+						text.substring(start, position)) : null;
+				if (null != descriptor) {
+					buffer.add(TokenKind.REGISTERED_OPERATION, start, length,
+							descriptor.getId());
+				}
+
+				else {
+					buffer.add(TokenKind.VARIABLE, start, length, 0);
+				}
+			}
+		}
+
+		// Otherwise add a close token if the token is a close.
+		else if (')' == first) {
+			buffer.add(TokenKind.CLOSE, start, 1, 0);
+		}
+
+		// Otherwise add a comma token if the token is a comma.
+		else if (',' == first) {
+			buffer.add(TokenKind.COMMA, start, 1, 0);
+		}
+
+		// Otherwise add an open token if the token is an open.
+		else if ('(' == first) {
+			buffer.add(TokenKind.OPEN, start, 1, 0);
+		}
+
+		/*
+		 * Otherwise the token is unknown, and runs to the next whitespace. Add
+		 * an unknown token.
+		 */
+		else {
+
+			while ((position < end) && !isWhitespace(text.charAt(position))) {
+				++position;
+			}
+
+			buffer.add(TokenKind.UNKNOWN, start, position - start, 0);
+		}
+
+		// Return the position after the token.
+		return position;
+	}
+
+	// The accounting of the allocations of the calculator
+	private final AllocationAccounting accounting = AllocationAccounting
+			.getInstance();
+
+	/*
+	 * The listener that counts the tokens of a launch for a token listener
+	 * while lexical analysis is recorded
+	 */
+	private final CountingTokenListener counter = new CountingTokenListener();
+
 	// The expression to be used by this lexical analyzer
 	private String expression;
 
-	// A dispatcher for key tokens
-	private final KeyTokenDispatcher keyTokenDispatcher = new KeyTokenDispatcher();
-
-	// A dispatcher for listeners
+	// The dispatcher that delivers token objects to the listeners of launches
 	private final ListenerDispatcher listenerDispatcher = new ListenerDispatcher();
 
-	// The pattern matcher for this lexical analyzer
+	/*
+	 * The pattern matcher for this lexical analyzer, created when a launch
+	 * first needs it
+	 */
 	private Matcher matcher;
 
-	// The dispatcher for unknown tokens
-	private final UnknownTokenDispatcher unknownTokenDispatcher = new UnknownTokenDispatcher();
+	/*
+	 * The bytes allocated filling token buffers since the expression was set
+	 * or the analyzer reset, while allocations are accounted
+	 */
+	private long scanAllocation;
 
-	// The dispatcher for value tokens
-	private final ValueTokenDispatcher valueTokenDispatcher = new ValueTokenDispatcher();
+	// The position in the expression at which filling a token buffer resumes
+	private int scanPosition;
 
-	// The dispatcher for variable tokens
-	private final VariableTokenDispatcher variableTokenDispatcher = new VariableTokenDispatcher();
+	/*
+	 * The time spent filling token buffers since the expression was set or the
+	 * analyzer reset, in nanoseconds
+	 */
+	private long scanTime;
 
 	/**
 	 * Constructs the lexical analyzer with a default expression
@@ -97,23 +447,46 @@ public class LexicalAnalyzer implements ListenerCollection<AnalysisListener> {
 	 * #addListener(java.lang.Object)
 	 */
 	public boolean addListener(AnalysisListener listener) {
+		return listenerDispatcher.addListener(listener);
+	}
+
+	/**
+	 * Fills a token buffer with the next tokens of the expression, as many as
+	 * the buffer holds. The tokens are the same as those found by launching
+	 * the analyzer, but are found by a scanner rather than the regular
+	 * expression, and are not dispatched to the listeners of the analyzer.
+	 * 
+	 * @param buffer
+	 *            The token buffer to fill; any tokens already in it are
+	 *            discarded
+	 * @return The number of tokens in the buffer, which is zero only if there
+	 *         are no more tokens
+	 */
+	public int fill(TokenBuffer buffer) {
 
 		/*
-		 * Add the listener to our own dispatcher listener. Was the add
-		 * successful?
+		 * Note the bytes allocated so far if allocations are accounted. Empty
+		 * the buffer, and fill it from where the last fill stopped. Remember
+		 * where to resume, and add the time the fill took to the scan time.
 		 */
-		boolean listenerAdded = listenerDispatcher.addListener(listener);
-		if (listenerAdded) {
+		final long startBytes = accounting.getAllocatedBytes();
+		final long startTime = System.nanoTime();
+		buffer.clear();
+		final String text = getExpression();
+		scanPosition = fill(text, scanPosition,
+				(null == text) ? 0 : text.length(), buffer);
+		scanTime += System.nanoTime() - startTime;
 
-			/*
-			 * Adding the listener to our own dispatcher listener was
-			 * successful. Add the listener to the KeyToken dispatcher.
-			 */
-			keyTokenDispatcher.addListener(listener);
+		/*
+		 * Add the bytes the fill allocated to the scan allocation if
+		 * allocations are accounted.
+		 */
+		if (accounting.isEnabled()) {
+			scanAllocation += accounting.getAllocatedBytes() - startBytes;
 		}
 
-		// Return whether the listener was successfully added.
-		return listenerAdded;
+		// Return the number of tokens.
+		return buffer.getSize();
 	}
 
 	/**
@@ -137,6 +510,28 @@ public class LexicalAnalyzer implements ListenerCollection<AnalysisListener> {
 		return listenerDispatcher.getListenerCount();
 	}
 
+	/**
+	 * Gets the bytes allocated filling token buffers since the expression was
+	 * set or the analyzer reset, while allocations were accounted.
+	 * 
+	 * @return The bytes allocated filling token buffers
+	 */
+	public long getScanAllocation() {
+		return scanAllocation;
+	}
+
+	/**
+	 * Gets the time spent filling token buffers since the expression was set
+	 * or the analyzer reset. This is the time spent finding tokens by a launch
+	 * that delivers them in batches, without the time its listener spends on
+	 * them.
+	 * 
+	 * @return The time spent filling token buffers, in nanoseconds
+	 */
+	public long getScanTime() {
+		return scanTime;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -150,77 +545,226 @@ public class LexicalAnalyzer implements ListenerCollection<AnalysisListener> {
 	}
 
 	/**
-	 * Launches the lexical analyzer.
+	 * Launches the lexical analyzer, delivering each token as a token object
+	 * to every listener of the analyzer. The tokens are found as they are for
+	 * a single token listener, and the listener dispatcher adapts them.
 	 */
 	public void launch() {
+		launch(listenerDispatcher);
+	}
+
+	/**
+	 * Launches the lexical analyzer for a single token listener, which
+	 * receives each token by one call, without a token object. The token
+	 * listener need not be one of the listeners of the analyzer.
+	 * 
+	 * @param listener
+	 *            The token listener to receive the tokens
+	 */
+	public void launch(TokenListener listener) {
 
 		/*
-		 * Declare and initialize a token start position, and a variable to
-		 * receive token strings.
+		 * Begin an event for the launch, counting the tokens on their way to
+		 * the listener if the event is enabled.
 		 */
-		int position = 0;
-		String tokenString = null;
+		final LexEvent event = new LexEvent();
+		final TokenListener target = counter.attach(listener,
+				event.isEnabled());
+		event.begin();
 
-		// Dispatch start to each listener. Cycle while tokens exist.
-		listenerDispatcher.dispatchStart();
-		while ((null != matcher) && matcher.find()) {
+		/*
+		 * Get the operation registry and the matcher. Start the listener, and
+		 * cycle while tokens exist.
+		 */
+		final OperationRegistry registry = OperationRegistry.getInstance();
+		final Matcher expressionMatcher = getMatcher();
+		target.startTokens(getExpression());
+		while ((null != expressionMatcher) && expressionMatcher.find()) {
 
 			/*
-			 * Get the first next token string. Call the key token dispatcher to
-			 * dispatch any key tokens. Does the token string not represent a
-			 * key token?
+			 * Get the extent of the next token, and its string. Is the string
+			 * the expression of a key token?
 			 */
-			tokenString = getExpression().substring(position = matcher.start(),
-					matcher.end());
-			if (!keyTokenDispatcher.dispatchToken(tokenString, position)) {
+			final int start = expressionMatcher.start();
+			final int end = expressionMatcher.end();
+			final String tokenString = getExpression().substring(start, end);
+			TokenKind kind = TokenKind.forKeyExpression(tokenString);
+			int intValue = 0;
+			if (null == kind) {
 
 				/*
-				 * The token string does not represent a key token. Does it
-				 * represent a variable?
+				 * The string is not the expression of a key token. Does it name
+				 * a registered operation, and does an open follow it?
 				 */
-				if (tokenString.matches(variableRegex)) {
-
-					/*
-					 * The token string represents a variable. Set the
-					 * expression in the variable token dispatcher, and dispatch
-					 * the token to all listeners.
-					 */
-					variableTokenDispatcher.setExpression(tokenString);
-					createTokenAndDispatch(position, variableTokenDispatcher);
+				final OperationDescriptor descriptor = isFollowedByOpen(
+						getExpression(), end) ? registry.find(tokenString)
+						: null;
+				if (null != descriptor) {
+
+					// The string names a registered operation. Use its identifier.
+					kind = TokenKind.REGISTERED_OPERATION;
+					intValue = descriptor.getId();
 				}
 
-				/*
-				 * The token string does not represent either a key token nor a
-				 * variable token. Does it represent a value token?
-				 */
+				// Otherwise does the string represent a variable?
+				else if (tokenString.matches(variableRegex)) {
+					kind = TokenKind.VARIABLE;
+				}
+
+				// Otherwise does it represent a value? Use the value if so.
 				else if (tokenString.matches(valueRegex)) {
 
-					/*
-					 * The token string represents a value token. Set the value
-					 * in the value token dispatcher, and dispatch the token to
-					 * all listeners.
-					 */
-					valueTokenDispatcher
-							.setValue(Integer.parseInt(tokenString));
-					createTokenAndDispatch(position, valueTokenDispatcher);
+					kind = TokenKind.VALUE;
+					intValue = parseValue(tokenString);
 				}
 
-				// The token string represents no known token.
+				// The string represents no known token.
 				else {
+					kind = TokenKind.UNKNOWN;
+				}
+			}
+
+			// Deliver the token to the listener.
+			target.onToken(kind, start, end - start, intValue);
+		}
+
+		// Stop the listener, and commit the event.
+		target.stopTokens();
+		counter.commit(event);
+	}
+
+	/**
+	 * Launches the lexical analyzer for a single token listener, delivering
+	 * tokens in batches: the analyzer fills the given token buffer, the buffer
+	 * delivers its tokens to the listener, and so on until the expression is
+	 * exhausted.
+	 * 
+	 * @param listener
+	 *            The token listener to receive the tokens
+	 * @param buffer
+	 *            The token buffer in which to collect each batch of tokens
+	 */
+	public void launch(TokenListener listener, TokenBuffer buffer) {
+
+		/*
+		 * Begin an event for the launch, counting the tokens on their way to
+		 * the listener if the event is enabled.
+		 */
+		final LexEvent event = new LexEvent();
+		final TokenListener target = counter.attach(listener,
+				event.isEnabled());
+		event.begin();
+
+		// Start the listener, and deliver each batch of tokens.
+		target.startTokens(getExpression());
+		while (0 < fill(buffer)) {
+			buffer.deliver(target);
+		}
 
-					/*
-					 * The token string represents no known token. Set the
-					 * expression in the unknown token dispatcher, and dispatch
-					 * the token to all listeners.
-					 */
-					unknownTokenDispatcher.setExpression(tokenString);
-					createTokenAndDispatch(position, unknownTokenDispatcher);
+		// Stop the listener, and commit the event.
+		target.stopTokens();
+		counter.commit(event);
+	}
+
+	/**
+	 * Launches the lexical analyzer for a single token listener, finding the
+	 * tokens of chunks of the expression in parallel on a fork-join pool. The
+	 * chunks are delivered in order as they are completed, with no more than a
+	 * few for each thread of the pool in progress at a time, and the listener
+	 * receives exactly the tokens it would receive from a serial launch.
+	 * 
+	 * @param listener
+	 *            The token listener to receive the tokens
+	 * @param pool
+	 *            The fork-join pool on which to find the tokens of the chunks
+	 */
+	public void launch(TokenListener listener, ForkJoinPool pool) {
+
+		/*
+		 * Begin an event for the launch, counting the tokens on their way to
+		 * the listener if the event is enabled.
+		 */
+		final LexEvent event = new LexEvent();
+		final TokenListener target = counter.attach(listener,
+				event.isEnabled());
+		event.begin();
+
+		/*
+		 * Start the listener. Declare a deque of chunks in progress, the
+		 * position of the next chunk, and the position of an unknown token
+		 * that runs from one chunk into the next.
+		 */
+		final String text = getExpression();
+		target.startTokens(text);
+		final int length = (null == text) ? 0 : text.length();
+		final int window = chunksPerThread * pool.getParallelism();
+		final Deque<TokenChunk> chunks = new ArrayDeque<TokenChunk>();
+		int position = 0;
+		int unknownStart = -1;
+
+		// Cycle until every chunk has been delivered.
+		try {
+			while ((position < length) || (!chunks.isEmpty())) {
+
+				/*
+				 * Start chunks until enough are in progress, or the expression
+				 * is exhausted.
+				 */
+				while ((position < length) && (window > chunks.size())) {
+
+					final int end = TokenChunk.findEnd(text, position,
+							chunkLength);
+					final TokenChunk chunk = new TokenChunk(text, position, end);
+					position = end;
+					pool.execute(chunk);
+					chunks.add(chunk);
 				}
+
+				/*
+				 * Wait for the oldest chunk to be completed, and deliver its
+				 * tokens.
+				 */
+				final TokenChunk chunk = chunks.remove();
+				chunk.join();
+				unknownStart = chunk.deliver(target, unknownStart);
+			}
+		}
+
+		// Cancel any chunks still in progress if delivery fails.
+		finally {
+			for (TokenChunk chunk : chunks) {
+				chunk.cancel(false);
 			}
 		}
 
-		// Dispatch stop to each listener.
-		listenerDispatcher.dispatchStop();
+		// Stop the listener, and commit the event.
+		target.stopTokens();
+		counter.commit(event);
+	}
+
+	/**
+	 * Launches the lexical analyzer for a single token listener, pipelined: the
+	 * analyzer fills the buffers of the given token ring on a producer thread,
+	 * while the current thread delivers them to the listener. The listener is
+	 * stopped at the end of the tokens, or if the analyzer fails, in which case
+	 * the failure is rethrown here.
+	 * 
+	 * @param listener
+	 *            The token listener to receive the tokens
+	 * @param ring
+	 *            The token ring through which to pass each batch of tokens
+	 */
+	public void launch(TokenListener listener, TokenRing ring) {
+
+		/*
+		 * Begin an event for the launch, counting the tokens on their way to
+		 * the listener if the event is enabled. Launch through the ring, and
+		 * commit the event.
+		 */
+		final LexEvent event = new LexEvent();
+		event.begin();
+		ring.launch(this, counter.attach(listener, event.isEnabled()));
+		counter.commit(event);
 	}
 
 	/*
@@ -231,23 +775,7 @@ public class LexicalAnalyzer implements ListenerCollection<AnalysisListener> {
 	 * #removeListener(java.lang.Object)
 	 */
 	public boolean removeListener(AnalysisListener listener) {
-
-		/*
-		 * Remove the listener from our own dispatcher listener. Was the remove
-		 * successful?
-		 */
-		boolean listenerRemoved = listenerDispatcher.removeListener(listener);
-		if (listenerRemoved) {
-
-			/*
-			 * Removing the listener from our own dispatcher listener was
-			 * successful. Remove the listener to the KeyToken dispatcher.
-			 */
-			keyTokenDispatcher.removeListener(listener);
-		}
-
-		// Return whether the listener was successfully removed.
-		return listenerRemoved;
+		return listenerDispatcher.removeListener(listener);
 	}
 
 	/**
@@ -259,6 +787,14 @@ public class LexicalAnalyzer implements ListenerCollection<AnalysisListener> {
 		if (null != matcher) {
 			matcher.reset();
 		}
+
+		/*
+		 * Fill token buffers from the start of the expression, and clear the
+		 * scan allocation and time.
+		 */
+		scanAllocation = 0L;
+		scanPosition = 0;
+		scanTime = 0L;
 	}
 
 	/**
@@ -269,36 +805,43 @@ public class LexicalAnalyzer implements ListenerCollection<AnalysisListener> {
 	 */
 	public void setExpression(String expression) {
 
-		// Set the expression. Clear the matcher if the expression is null.
-		if (null == (this.expression = expression)) {
-			matcher = null;
-		}
-
-		// The expression is not null. Create a new matcher for the expression.
-		else {
-			matcher = pattern.matcher(this.expression = expression);
-		}
-
-		// Reset the analyzer.
+		/*
+		 * Set the expression, and clear the matcher; a launch that needs one
+		 * creates it. Reset the analyzer.
+		 */
+		this.expression = expression;
+		matcher = null;
 		reset();
 	}
 
 	/**
-	 * Creates a token and dispatches it to the listeners of the analyzer.
+	 * Sets the position in the expression from which the next fill of a token
+	 * buffer scans. Tokens found from a position are those of the whole
+	 * expression if the position is the end of a token, or the start of the
+	 * expression.
 	 * 
-	 * @param position
-	 *            The position to be used for token creation
-	 * @param dispatcher
-	 *            The token dispatcher to dispatch the token
+	 * @param scanPosition
+	 *            The position from which the next fill scans
 	 */
-	private void createTokenAndDispatch(int position,
-			TokenDispatcher<? extends Token> dispatcher) {
+	public void setScanPosition(int scanPosition) {
+		this.scanPosition = scanPosition;
+	}
 
-		/*
-		 * Create the token in the dispatcher, and call all the listeners with
-		 * the dispatcher.
-		 */
-		dispatcher.createToken(position);
-		listenerDispatcher.dispatch(dispatcher);
+	/**
+	 * Gets the pattern matcher for the expression, creating it if a launch
+	 * has not already.
+	 * 
+	 * @return The pattern matcher for the expression, or null if the
+	 *         expression is null
+	 */
+	private Matcher getMatcher() {
+
+		// Create the matcher if there is an expression, but no matcher yet.
+		if ((null == matcher) && (null != expression)) {
+			matcher = PatternHolder.pattern.matcher(expression);
+		}
+
+		// Return the matcher.
+		return matcher;
 	}
 }
@@ -1,52 +1,30 @@
 package com.garygregg.coverity.codingtest.lexical_analysis;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Arrays;
 
 import com.garygregg.coverity.codingtest.token.Token;
 
 /**
- * Contains a listener dispatcher.
+ * Contains a listener dispatcher, which receives tokens as a token listener
+ * and delivers each, as one token object, to every analysis listener. The
+ * listeners are kept in an array that is copied when a listener is added or
+ * removed, and never modified otherwise, so that dispatch reads it without
+ * locking. There is usually exactly one listener, which dispatch calls
+ * directly.
  * 
  * @author Gary Gregg
  */
-class ListenerDispatcher implements ListenerCollection<AnalysisListener> {
+class ListenerDispatcher implements ListenerCollection<AnalysisListener>,
+		TokenListener {
 
-	// A set of analysis listeners
-	private final Set<AnalysisListener> listeners = new HashSet<AnalysisListener>();
+	// The listeners of a dispatcher that has none
+	private static final AnalysisListener[] noListeners = new AnalysisListener[0];
 
-	// A start operation listener
-	private final Operation<AnalysisListener> startOperation = new Operation<AnalysisListener>() {
+	// The expression whose tokens are being received
+	private CharSequence expression;
 
-		/**
-		 * Starts analysis for the given listener.
-		 * 
-		 * @param argument
-		 *            An analysis listener
-		 */
-		@Override
-		public void perform(AnalysisListener argument) {
-			argument.startAnalysis();
-		}
-	};
-
-	// A stop operation listener
-	private final Operation<AnalysisListener> stopOperation = new Operation<AnalysisListener>() {
-
-		/**
-		 * Stops analysis for the given listener.
-		 * 
-		 * @param argument
-		 *            An analysis listener
-		 */
-		@Override
-		public void perform(AnalysisListener argument) {
-			argument.stopAnalysis();
-		}
-	};
-
-	// A token dispatch operation
-	private final TokenDispatchOperation<TokenDispatcher<? extends Token>> tokenDispatchOperation = new TokenDispatchOperation<TokenDispatcher<? extends Token>>();
+	// The analysis listeners, in the order they were added
+	private volatile AnalysisListener[] listeners = noListeners;
 
 	/*
 	 * (non-Javadoc)
@@ -55,38 +33,29 @@ class ListenerDispatcher implements ListenerCollection<AnalysisListener> {
 	 * com.garygregg.coverity.codingtest.lexical_analysis.Listener#addListener
 	 * (java.lang.Object)
 	 */
-	public boolean addListener(AnalysisListener listener) {
-		return (null == listener) ? false : listeners.add(listener);
-	}
-
-	/**
-	 * Calls a dispatcher for each listener.
-	 * 
-	 * @param dispatcher
-	 *            The dispatcher to be called for each listener
-	 */
-	public void dispatch(TokenDispatcher<? extends Token> dispatcher) {
+	public synchronized boolean addListener(AnalysisListener listener) {
 
 		/*
-		 * Set the given dispatcher in the token dispatch operation, and perform
-		 * the operation for each listener.
+		 * The listener may be added if it is not null, and is not already a
+		 * listener. May it be added?
 		 */
-		tokenDispatchOperation.setDispatcher(dispatcher);
-		perform(tokenDispatchOperation);
-	}
-
-	/**
-	 * Dispatches start to each listener.
-	 */
-	public void dispatchStart() {
-		perform(startOperation);
-	}
+		final AnalysisListener[] current = listeners;
+		final boolean listenerAdded = (null != listener)
+				&& (0 > indexOf(current, listener));
+		if (listenerAdded) {
+
+			/*
+			 * The listener may be added. Replace the listeners with a copy that
+			 * ends with the new listener.
+			 */
+			final AnalysisListener[] replacement = Arrays.copyOf(current,
+					current.length + 1);
+			replacement[current.length] = listener;
+			listeners = replacement;
+		}
 
-	/**
-	 * Dispatches stop to each listener.
-	 */
-	public void dispatchStop() {
-		perform(stopOperation);
+		// Return whether the listener was added.
+		return listenerAdded;
 	}
 
 	/*
@@ -97,7 +66,7 @@ class ListenerDispatcher implements ListenerCollection<AnalysisListener> {
 	 * ()
 	 */
 	public int getListenerCount() {
-		return listeners.size();
+		return listeners.length;
 	}
 
 	/*
@@ -111,6 +80,39 @@ class ListenerDispatcher implements ListenerCollection<AnalysisListener> {
 		return 0 < getListenerCount();
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.garygregg.coverity.codingtest.lexical_analysis.TokenListener#
+	 * onToken(com.garygregg.coverity.codingtest.lexical_analysis.TokenKind,
+	 * int, int, int)
+	 */
+	@Override
+	public void onToken(TokenKind kind, int start, int length, int intValue) {
+
+		/*
+		 * Read the listeners once. Create a token object only if there are
+		 * listeners. Key tokens are not recycled, since any of the listeners
+		 * may keep them. Deliver the token directly to a single listener.
+		 */
+		final AnalysisListener[] current = listeners;
+		if (1 == current.length) {
+			AnalysisListenerAdapter.deliverToken(current[0], kind,
+					AnalysisListenerAdapter.createToken(kind, expression, start,
+							length, intValue, null));
+		}
+
+		// Otherwise deliver the same token to each listener, if there are any.
+		else if (0 < current.length) {
+
+			final Token token = AnalysisListenerAdapter.createToken(kind,
+					expression, start, length, intValue, null);
+			for (int i = 0; i < current.length; ++i) {
+				AnalysisListenerAdapter.deliverToken(current[i], kind, token);
+			}
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -118,21 +120,88 @@ class ListenerDispatcher implements ListenerCollection<AnalysisListener> {
 	 * com.garygregg.coverity.codingtest.lexical_analysis.Listener#removeListener
 	 * (java.lang.Object)
 	 */
-	public boolean removeListener(AnalysisListener listener) {
-		return listeners.remove(listener);
+	public synchronized boolean removeListener(AnalysisListener listener) {
+
+		// Find the listener. Was it found?
+		final AnalysisListener[] current = listeners;
+		final int index = indexOf(current, listener);
+		final boolean listenerRemoved = (0 <= index);
+		if (listenerRemoved) {
+
+			/*
+			 * The listener was found. Replace the listeners with a copy that
+			 * omits it.
+			 */
+			final AnalysisListener[] replacement = (1 == current.length) ? noListeners
+					: new AnalysisListener[current.length - 1];
+			System.arraycopy(current, 0, replacement, 0, index);
+			System.arraycopy(current, index + 1, replacement, index,
+					replacement.length - index);
+			listeners = replacement;
+		}
+
+		// Return whether the listener was removed.
+		return listenerRemoved;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.garygregg.coverity.codingtest.lexical_analysis.TokenListener#
+	 * startTokens(java.lang.CharSequence)
+	 */
+	@Override
+	public void startTokens(CharSequence expression) {
+
+		// Remember the expression, and start analysis for each listener.
+		this.expression = expression;
+		final AnalysisListener[] current = listeners;
+		for (int i = 0; i < current.length; ++i) {
+			current[i].startAnalysis();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.garygregg.coverity.codingtest.lexical_analysis.TokenListener#
+	 * stopTokens()
+	 */
+	@Override
+	public void stopTokens() {
+
+		// Stop analysis for each listener, and forget the expression.
+		final AnalysisListener[] current = listeners;
+		for (int i = 0; i < current.length; ++i) {
+			current[i].stopAnalysis();
+		}
+
+		expression = null;
 	}
 
 	/**
-	 * Performs an operation for each listener.
+	 * Finds a listener in an array of listeners.
 	 * 
-	 * @param operation
-	 *            An operation to be performed for each listener
+	 * @param array
+	 *            An array of listeners
+	 * @param listener
+	 *            The listener to find
+	 * @return The index of the listener in the array, or -1 if it is not there
 	 */
-	private void perform(Operation<AnalysisListener> operation) {
+	private static int indexOf(AnalysisListener[] array,
+			AnalysisListener listener) {
+
+		// Declare the index. Cycle until the listener is found.
+		int index = -1;
+		for (int i = 0; (0 > index) && (i < array.length); ++i) {
 
-		// Perform the operation for each listener.
-		for (AnalysisListener listener : listeners) {
-			operation.perform(listener);
+			// Record the index if the listener is the current one.
+			if (array[i].equals(listener)) {
+				index = i;
+			}
 		}
+
+		// Return the index.
+		return index;
 	}
 }
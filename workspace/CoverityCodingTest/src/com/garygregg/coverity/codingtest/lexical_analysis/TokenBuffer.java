@@ -0,0 +1,179 @@
+package com.garygregg.coverity.codingtest.lexical_analysis;
+
+/**
+ * Contains a reusable buffer of tokens, kept as parallel arrays of kinds,
+ * starts, lengths and integer values rather than as token objects. The
+ * lexical analyzer fills the buffer with up to its capacity of tokens at a
+ * time, and a consumer delivers them to a token listener in one loop.
+ * 
+ * @author Gary Gregg
+ */
+public final class TokenBuffer {
+
+	// The default capacity of a token buffer
+	public static final int defaultCapacity = 1024;
+
+	// The token kinds, by ordinal
+	private static final TokenKind[] tokenKinds = TokenKind.values();
+
+	// The integer value of each token
+	private final int[] intValues;
+
+	// The ordinal of the kind of each token
+	private final byte[] kinds;
+
+	// The length of each token in the expression
+	private final int[] lengths;
+
+	// The number of tokens in the buffer
+	private int size;
+
+	// The position of each token in the expression
+	private final int[] starts;
+
+	/**
+	 * Constructs the token buffer with a default capacity.
+	 */
+	public TokenBuffer() {
+		this(defaultCapacity);
+	}
+
+	/**
+	 * Constructs the token buffer with an explicit capacity.
+	 * 
+	 * @param capacity
+	 *            The number of tokens the buffer holds
+	 * @throws IllegalArgumentException
+	 *             Indicates that the capacity is not positive
+	 */
+	public TokenBuffer(int capacity) {
+
+		// Throw an exception if the capacity is not positive.
+		if (0 >= capacity) {
+			throw new IllegalArgumentException(
+					"Capacity of a token buffer must be positive; it is "
+							+ capacity + ".");
+		}
+
+		// Create the arrays.
+		intValues = new int[capacity];
+		kinds = new byte[capacity];
+		lengths = new int[capacity];
+		starts = new int[capacity];
+	}
+
+	/**
+	 * Delivers each token in the buffer, in order, to a token listener.
+	 * 
+	 * @param listener
+	 *            The token listener to receive the tokens
+	 */
+	public void deliver(TokenListener listener) {
+
+		// Deliver each token.
+		for (int i = 0; i < size; ++i) {
+			listener.onToken(tokenKinds[kinds[i]], starts[i], lengths[i],
+					intValues[i]);
+		}
+	}
+
+	/**
+	 * Gets the number of tokens the buffer holds.
+	 * 
+	 * @return The number of tokens the buffer holds
+	 */
+	public int getCapacity() {
+		return kinds.length;
+	}
+
+	/**
+	 * Gets the integer value of a token.
+	 * 
+	 * @param index
+	 *            The index of the token in the buffer
+	 * @return The value of a value token, the identifier of the operation of a
+	 *         registered operation token, or zero for any other token
+	 */
+	public int getIntValue(int index) {
+		return intValues[index];
+	}
+
+	/**
+	 * Gets the kind of a token.
+	 * 
+	 * @param index
+	 *            The index of the token in the buffer
+	 * @return The kind of the token
+	 */
+	public TokenKind getKind(int index) {
+		return tokenKinds[kinds[index]];
+	}
+
+	/**
+	 * Gets the length of a token in the expression.
+	 * 
+	 * @param index
+	 *            The index of the token in the buffer
+	 * @return The length of the token in the expression
+	 */
+	public int getLength(int index) {
+		return lengths[index];
+	}
+
+	/**
+	 * Gets the number of tokens in the buffer.
+	 * 
+	 * @return The number of tokens in the buffer
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Gets the position of a token in the expression.
+	 * 
+	 * @param index
+	 *            The index of the token in the buffer
+	 * @return The position of the token in the expression
+	 */
+	public int getStart(int index) {
+		return starts[index];
+	}
+
+	/**
+	 * Determines if the buffer is full.
+	 * 
+	 * @return True if the buffer is full, false otherwise
+	 */
+	public boolean isFull() {
+		return kinds.length == size;
+	}
+
+	/**
+	 * Adds a token to the buffer, which must not be full.
+	 * 
+	 * @param kind
+	 *            The kind of the token
+	 * @param start
+	 *            The position of the token in the expression
+	 * @param length
+	 *            The length of the token in the expression
+	 * @param intValue
+	 *            The integer value of the token
+	 */
+	void add(TokenKind kind, int start, int length, int intValue) {
+
+		// Set the fields of the token, and count it.
+		kinds[size] = (byte) kind.ordinal();
+		starts[size] = start;
+		lengths[size] = length;
+		intValues[size++] = intValue;
+	}
+
+	/**
+	 * Empties the buffer.
+	 */
+	void clear() {
+		size = 0;
+	}
+}
@@ -0,0 +1,199 @@
+package com.garygregg.coverity.codingtest.lexical_analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Contains a chunk of an expression whose tokens are found as a fork-join task,
+ * in parallel with the other chunks. A chunk ends before a delimiter ('(', ')'
+ * or ',') or before whitespace. Only an unknown token can run through such a
+ * boundary, and then only to the next whitespace; the chunk delivers its
+ * tokens so that such a token is stitched back together, and the tokens of
+ * all the chunks together are exactly those of the whole expression.
+ * 
+ * @author Gary Gregg
+ */
+final class TokenChunk extends RecursiveAction {
+
+	// The serial version UID of the class
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Finds the end of a chunk: the first delimiter or whitespace at or after a
+	 * minimum length from the start of the chunk, or the end of the text.
+	 * 
+	 * @param text
+	 *            A text
+	 * @param start
+	 *            The position of the chunk in the text
+	 * @param length
+	 *            The minimum length of the chunk
+	 * @return The position in the text at which the chunk ends
+	 */
+	static int findEnd(String text, int start, int length) {
+
+		/*
+		 * Start at the minimum length, or at the end of the text if that is
+		 * closer. Cycle until a delimiter or whitespace is found.
+		 */
+		final int textLength = text.length();
+		int position = (length < textLength - start) ? start + length
+				: textLength;
+		while ((position < textLength) && (!isBoundary(text.charAt(position)))) {
+			++position;
+		}
+
+		// Return the end of the chunk.
+		return position;
+	}
+
+	/**
+	 * Determines if a chunk may end before a character.
+	 * 
+	 * @param character
+	 *            A character
+	 * @return True if a chunk may end before the character, false otherwise
+	 */
+	private static boolean isBoundary(char character) {
+		return ('(' == character) || (')' == character) || (',' == character)
+				|| LexicalAnalyzer.isWhitespace(character);
+	}
+
+	// The token buffers filled with the tokens of the chunk, in order
+	private final List<TokenBuffer> buffers = new ArrayList<TokenBuffer>();
+
+	// The position in the text at which the chunk ends
+	private final int end;
+
+	// The position of the chunk in the text
+	private final int start;
+
+	// The text of which this is a chunk
+	private final String text;
+
+	/**
+	 * Constructs the token chunk.
+	 * 
+	 * @param text
+	 *            The text of which this is a chunk
+	 * @param start
+	 *            The position of the chunk in the text
+	 * @param end
+	 *            The position in the text at which the chunk ends
+	 */
+	TokenChunk(String text, int start, int end) {
+
+		// Set the member variables.
+		this.text = text;
+		this.start = start;
+		this.end = end;
+	}
+
+	/**
+	 * Delivers the tokens of the chunk to a token listener, once the task is
+	 * complete. An unknown token that runs into the chunk from the chunks
+	 * before it is delivered first, and an unknown token that runs out of the
+	 * chunk is held back for the chunk after it.
+	 * 
+	 * @param listener
+	 *            The token listener to receive the tokens
+	 * @param unknownStart
+	 *            The position of an unknown token that runs into the chunk, or
+	 *            -1 if there is none
+	 * @return The position of an unknown token that runs out of the chunk, or
+	 *         -1 if there is none
+	 */
+	int deliver(TokenListener listener, int unknownStart) {
+
+		/*
+		 * Does an unknown token run into the chunk? If so, it runs to the
+		 * first whitespace in the chunk, and replaces the tokens before it.
+		 */
+		int from = start;
+		int openStart = unknownStart;
+		if (0 <= openStart) {
+
+			while ((from < end) && (!LexicalAnalyzer.isWhitespace(text
+					.charAt(from)))) {
+				++from;
+			}
+
+			// Deliver the unknown token unless it also runs out of the chunk.
+			if ((from < end) || (!runsPastEnd())) {
+				listener.onToken(TokenKind.UNKNOWN, openStart, from
+						- openStart, 0);
+				openStart = -1;
+			}
+		}
+
+		/*
+		 * Deliver the tokens of the chunk from there on, unless an unknown
+		 * token runs through the whole chunk.
+		 */
+		if (0 > openStart) {
+			for (TokenBuffer buffer : buffers) {
+				for (int i = 0; i < buffer.getSize(); ++i) {
+
+					/*
+					 * Hold back an unknown token that runs out of the chunk; it
+					 * is necessarily the last. Skip any token that an unknown
+					 * token from before the chunk replaces.
+					 */
+					final int tokenStart = buffer.getStart(i);
+					final int length = buffer.getLength(i);
+					final TokenKind kind = buffer.getKind(i);
+					if ((from <= tokenStart) && (TokenKind.UNKNOWN == kind)
+							&& (end == tokenStart + length) && runsPastEnd()) {
+						openStart = tokenStart;
+					}
+
+					// Deliver any other token that is not replaced.
+					else if (from <= tokenStart) {
+						listener.onToken(kind, tokenStart, length,
+								buffer.getIntValue(i));
+					}
+				}
+			}
+		}
+
+		// Return the position of an unknown token that runs out of the chunk.
+		return openStart;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.RecursiveAction#compute()
+	 */
+	@Override
+	protected void compute() {
+
+		/*
+		 * Fill token buffers with the tokens of the chunk until it is
+		 * exhausted. Keep each buffer that received tokens.
+		 */
+		int position = start;
+		while (position < end) {
+
+			final TokenBuffer buffer = new TokenBuffer();
+			position = LexicalAnalyzer.fill(text, position, end, buffer);
+			if (0 < buffer.getSize()) {
+				buffers.add(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Determines if a token that reaches the end of the chunk may run past it,
+	 * that is, if the chunk ends before a delimiter rather than before
+	 * whitespace or at the end of the text.
+	 * 
+	 * @return True if a token that reaches the end of the chunk may run past
+	 *         it, false otherwise
+	 */
+	private boolean runsPastEnd() {
+		return (end < text.length())
+				&& (!LexicalAnalyzer.isWhitespace(text.charAt(end)));
+	}
+}
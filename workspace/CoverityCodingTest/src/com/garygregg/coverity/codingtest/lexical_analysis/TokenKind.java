@@ -0,0 +1,142 @@
+package com.garygregg.coverity.codingtest.lexical_analysis;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.garygregg.coverity.codingtest.token.AddToken;
+import com.garygregg.coverity.codingtest.token.CloseToken;
+import com.garygregg.coverity.codingtest.token.CommaToken;
+import com.garygregg.coverity.codingtest.token.DivideToken;
+import com.garygregg.coverity.codingtest.token.LetToken;
+import com.garygregg.coverity.codingtest.token.MultiplyToken;
+import com.garygregg.coverity.codingtest.token.OpenToken;
+import com.garygregg.coverity.codingtest.token.SubtractToken;
+
+/**
+ * Enumerates the kinds of token that the lexical analyzer delivers to a token
+ * listener.
+ * 
+ * @author Gary Gregg
+ */
+public enum TokenKind {
+
+	// An add ('add') token
+	ADD(AddToken.getCommonExpression()),
+
+	// A close (')') token
+	CLOSE(CloseToken.getCommonExpression()),
+
+	// A comma (',') token
+	COMMA(CommaToken.getCommonExpression()),
+
+	// A divide ('div') token
+	DIVIDE(DivideToken.getCommonExpression()),
+
+	// A let ('let') token
+	LET(LetToken.getCommonExpression()),
+
+	// A multiply ('mult') token
+	MULTIPLY(MultiplyToken.getCommonExpression()),
+
+	// An open ('(') token
+	OPEN(OpenToken.getCommonExpression()),
+
+	/*
+	 * A token naming an operation in the operation registry; its integer value
+	 * is the identifier of the operation
+	 */
+	REGISTERED_OPERATION(null),
+
+	// A subtract ('sub') token
+	SUBTRACT(SubtractToken.getCommonExpression()),
+
+	// A token that is not part of the calculator language
+	UNKNOWN(null),
+
+	// A value token; its integer value is the value of its literal
+	VALUE(null),
+
+	// A variable token
+	VARIABLE(null);
+
+	// A map of key token expressions to their kinds
+	private static final Map<String, TokenKind> keyKindMap = new HashMap<String, TokenKind>();
+
+	static {
+
+		// Map the expression of each kind of key token to the kind.
+		for (TokenKind kind : values()) {
+			if (null != kind.getKeyExpression()) {
+				keyKindMap.put(kind.getKeyExpression(), kind);
+			}
+		}
+	}
+
+	/**
+	 * Gets the kind of key token with a given expression.
+	 * 
+	 * @param expression
+	 *            A token expression
+	 * @return The kind of key token with the given expression, or null if the
+	 *         expression is not that of a key token
+	 */
+	public static TokenKind forKeyExpression(String expression) {
+		return keyKindMap.get(expression);
+	}
+
+	// The expression of a key token, or null if the kind is not a key token
+	private final String keyExpression;
+
+	/**
+	 * Constructs the token kind.
+	 * 
+	 * @param keyExpression
+	 *            The expression of a key token, or null if the kind is not a
+	 *            key token
+	 */
+	private TokenKind(String keyExpression) {
+		this.keyExpression = keyExpression;
+	}
+
+	/**
+	 * Gets the expression of a key token.
+	 * 
+	 * @return The expression of a key token, or null if the kind is not a key
+	 *         token
+	 */
+	public String getKeyExpression() {
+		return keyExpression;
+	}
+
+	/**
+	 * Determines whether the kind is that of an operation token: a built-in
+	 * operation, or a registered operation.
+	 * 
+	 * @return True if the kind is that of an operation token, false otherwise
+	 */
+	public boolean isOperation() {
+
+		// Which kind is it?
+		final boolean operation;
+		switch (this) {
+
+		// The kind is that of an operation token.
+		case ADD:
+		case DIVIDE:
+		case LET:
+		case MULTIPLY:
+		case REGISTERED_OPERATION:
+		case SUBTRACT:
+			operation = true;
+			break;
+
+		// The kind is not that of an operation token.
+		default:
+			operation = false;
+			break;
+		}
+
+		// Return whether the kind is that of an operation token.
+		return operation;
+	}
+}
@@ -0,0 +1,39 @@
+package com.garygregg.coverity.codingtest.lexical_analysis;
+
+/**
+ * Implements a low-level listener for lexical analysis, which receives each
+ * token as its kind and its extent in the expression rather than as a token
+ * object.
+ * 
+ * @author Gary Gregg
+ */
+public interface TokenListener {
+
+	/**
+	 * Receives a token.
+	 * 
+	 * @param kind
+	 *            The kind of the token
+	 * @param start
+	 *            The position of the token in the expression
+	 * @param length
+	 *            The length of the token in the expression
+	 * @param intValue
+	 *            The value of a value token, the identifier of the operation of
+	 *            a registered operation token, or zero for any other token
+	 */
+	void onToken(TokenKind kind, int start, int length, int intValue);
+
+	/**
+	 * Starts receiving the tokens of an expression.
+	 * 
+	 * @param expression
+	 *            The expression whose tokens are to be received
+	 */
+	void startTokens(CharSequence expression);
+
+	/**
+	 * Stops receiving the tokens of an expression.
+	 */
+	void stopTokens();
+}
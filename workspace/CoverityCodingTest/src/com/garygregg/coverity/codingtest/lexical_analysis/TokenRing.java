@@ -0,0 +1,321 @@
+package com.garygregg.coverity.codingtest.lexical_analysis;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Contains a single-producer, single-consumer ring of token buffers that
+ * pipelines lexical analysis with the consumption of its tokens. A producer
+ * thread fills each free buffer in the ring with the next batch of tokens and
+ * publishes it; the launching thread delivers each published buffer to a
+ * token listener and releases it. Neither side locks: each advances its own
+ * sequence counter, and waits on the other's only when the ring is full or
+ * empty. A ring may be used by only one launch at a time.
+ * 
+ * @author Gary Gregg
+ */
+public final class TokenRing {
+
+	// The default number of token buffers in a ring
+	public static final int defaultSlotCount = 8;
+
+	// The time a waiting thread parks once it has stopped spinning and yielding
+	private static final long parkNanos = TimeUnit.MICROSECONDS.toNanos(50);
+
+	// The number of times a waiting thread spins before it starts to yield
+	private static final int spinLimit = 64;
+
+	// The number of times a waiting thread spins or yields before it parks
+	private static final int yieldLimit = 128;
+
+	/**
+	 * Waits briefly for the other side of the ring: spins at first, then
+	 * yields, then parks.
+	 * 
+	 * @param attempt
+	 *            The number of times the caller has already waited for the
+	 *            same condition
+	 */
+	private static void idle(int attempt) {
+
+		// Park if the caller has waited long enough to stop yielding.
+		if (yieldLimit <= attempt) {
+			LockSupport.parkNanos(parkNanos);
+		}
+
+		// Yield if the caller has waited long enough to stop spinning.
+		else if (spinLimit <= attempt) {
+			Thread.yield();
+		}
+	}
+
+	/**
+	 * Waits for a thread to die, even if the current thread is interrupted.
+	 * The interrupt status of the current thread is restored afterward.
+	 * 
+	 * @param thread
+	 *            The thread to wait for
+	 */
+	private static void joinUninterruptibly(Thread thread) {
+
+		// Cycle until the thread has died.
+		boolean interrupted = false;
+		while (thread.isAlive()) {
+
+			// Wait for the thread.
+			try {
+				thread.join();
+			}
+
+			// Remember that the current thread was interrupted.
+			catch (InterruptedException exception) {
+				interrupted = true;
+			}
+		}
+
+		// Restore the interrupt status of the current thread.
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Throws a failure caught on the producer thread from the consumer thread,
+	 * unchanged if it is unchecked.
+	 * 
+	 * @param failure
+	 *            The failure to throw
+	 */
+	private static void rethrow(Throwable failure) {
+
+		// Throw an unchecked exception as it is.
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		}
+
+		// Throw an error as it is.
+		else if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+
+		// Wrap any other failure in an unchecked exception.
+		else {
+			throw new IllegalStateException("Lexical analysis failed.",
+					failure);
+		}
+	}
+
+	// The token buffers of the ring
+	private final TokenBuffer[] buffers;
+
+	// True if the consumer has stopped before the end of the tokens
+	private volatile boolean cancelled;
+
+	// The number of buffers the consumer has released
+	private final AtomicLong consumed = new AtomicLong();
+
+	// A failure of lexical analysis on the producer thread, or null
+	private volatile Throwable failure;
+
+	// A mask that maps a sequence number to the index of its buffer
+	private final int mask;
+
+	// The number of buffers the producer has published
+	private final AtomicLong published = new AtomicLong();
+
+	/**
+	 * Constructs the token ring with a default number of token buffers, each
+	 * with a default capacity.
+	 */
+	public TokenRing() {
+		this(defaultSlotCount, TokenBuffer.defaultCapacity);
+	}
+
+	/**
+	 * Constructs the token ring with an explicit number of token buffers, each
+	 * with an explicit capacity.
+	 * 
+	 * @param slotCount
+	 *            The number of token buffers in the ring, which must be a
+	 *            power of two
+	 * @param slotCapacity
+	 *            The number of tokens each buffer holds
+	 * @throws IllegalArgumentException
+	 *             Indicates that the number of buffers is not a positive power
+	 *             of two, or that the capacity is not positive
+	 */
+	public TokenRing(int slotCount, int slotCapacity) {
+
+		/*
+		 * Throw an exception if the number of buffers is not a positive power
+		 * of two.
+		 */
+		if ((0 >= slotCount) || (0 != (slotCount & (slotCount - 1)))) {
+			throw new IllegalArgumentException(
+					"Slot count of a token ring must be a positive power of two; it is "
+							+ slotCount + ".");
+		}
+
+		// Create the buffers, and the mask.
+		buffers = new TokenBuffer[slotCount];
+		for (int i = 0; i < slotCount; ++i) {
+			buffers[i] = new TokenBuffer(slotCapacity);
+		}
+
+		mask = slotCount - 1;
+	}
+
+	/**
+	 * Gets the number of token buffers in the ring.
+	 * 
+	 * @return The number of token buffers in the ring
+	 */
+	public int getSlotCount() {
+		return buffers.length;
+	}
+
+	/**
+	 * Runs a lexical analyzer on a new producer thread, and delivers its tokens
+	 * to a token listener on the current thread. The listener is stopped when
+	 * the tokens are exhausted, or when lexical analysis fails; a failure is
+	 * then rethrown on the current thread. If the listener throws, the
+	 * producer is cancelled, and the listener is not stopped.
+	 * 
+	 * @param analyzer
+	 *            The lexical analyzer, which is used only by the producer
+	 *            thread until this method returns
+	 * @param listener
+	 *            The token listener to receive the tokens
+	 */
+	void launch(final LexicalAnalyzer analyzer, TokenListener listener) {
+
+		// Empty the ring, and start the listener.
+		cancelled = false;
+		consumed.set(0L);
+		failure = null;
+		published.set(0L);
+		listener.startTokens(analyzer.getExpression());
+
+		// Create and start the producer thread.
+		final Thread producer = new Thread(new Runnable() {
+
+			/*
+			 * (non-Javadoc)
+			 * 
+			 * @see java.lang.Runnable#run()
+			 */
+			@Override
+			public void run() {
+				produce(analyzer);
+			}
+		}, "calculator-lexer");
+		producer.setDaemon(true);
+		producer.start();
+
+		/*
+		 * Deliver the published buffers until the empty buffer that marks the
+		 * end of the tokens. Cancel the producer if the listener throws, and
+		 * wait for the producer to die in any case.
+		 */
+		boolean finished = false;
+		try {
+			finished = consume(listener);
+		}
+
+		// Cancel the producer unless finished, and wait for it.
+		finally {
+			if (!finished) {
+				cancelled = true;
+			}
+
+			joinUninterruptibly(producer);
+		}
+
+		// Stop the listener, and rethrow any failure of lexical analysis.
+		listener.stopTokens();
+		if (null != failure) {
+			rethrow(failure);
+		}
+	}
+
+	/**
+	 * Delivers published buffers to a token listener, and releases them, until
+	 * the empty buffer that marks the end of the tokens.
+	 * 
+	 * @param listener
+	 *            The token listener to receive the tokens
+	 * @return True when the end of the tokens has been reached
+	 */
+	private boolean consume(TokenListener listener) {
+
+		// Cycle until the end of the tokens.
+		boolean finished = false;
+		for (long sequence = 0L; !finished; ++sequence) {
+
+			// Wait until the next buffer has been published.
+			for (int attempt = 0; sequence >= published.get(); ++attempt) {
+				idle(attempt);
+			}
+
+			/*
+			 * Deliver the tokens in the buffer; an empty buffer marks the end.
+			 * Release the buffer to the producer.
+			 */
+			final TokenBuffer buffer = buffers[(int) sequence & mask];
+			finished = (0 == buffer.getSize());
+			buffer.deliver(listener);
+			consumed.lazySet(sequence + 1L);
+		}
+
+		// Report that the end of the tokens has been reached.
+		return finished;
+	}
+
+	/**
+	 * Fills free buffers with tokens from a lexical analyzer, and publishes
+	 * them, until the analyzer is exhausted or fails, or the consumer is
+	 * cancelled. The last buffer published is empty, and marks the end.
+	 * 
+	 * @param analyzer
+	 *            The lexical analyzer that finds the tokens
+	 */
+	private void produce(LexicalAnalyzer analyzer) {
+
+		// Cycle until the end of the tokens, or cancellation.
+		final int slotCount = buffers.length;
+		boolean finished = false;
+		for (long sequence = 0L; (!finished) && (!cancelled); ++sequence) {
+
+			/*
+			 * Wait until the next buffer has been released by the consumer, or
+			 * the consumer is cancelled. This is the backpressure on the
+			 * producer.
+			 */
+			for (int attempt = 0; (!cancelled)
+					&& (sequence - slotCount >= consumed.get()); ++attempt) {
+				idle(attempt);
+			}
+
+			/*
+			 * Fill the buffer with the next tokens; the analyzer returns an
+			 * empty buffer when it is exhausted. If the analyzer fails, record
+			 * the failure and empty the buffer.
+			 */
+			final TokenBuffer buffer = buffers[(int) sequence & mask];
+			try {
+				finished = (0 == analyzer.fill(buffer));
+			}
+
+			// Record a failure of the analyzer, and end the tokens.
+			catch (Throwable exception) {
+				failure = exception;
+				buffer.clear();
+				finished = true;
+			}
+
+			// Publish the buffer.
+			published.lazySet(sequence + 1L);
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package com.garygregg.coverity.codingtest.metrics;
+
+/**
+ * Enumerates the kinds of diagnostic the calculator emits.
+ * 
+ * @author Gary Gregg
+ */
+public enum DiagnosticKind {
+
+	// An operation was closed with too few arguments
+	MISSING_ARGUMENT,
+
+	// A close token was received with no operation to close
+	MISSING_OPERATION,
+
+	// A registered operation had no result for its arguments
+	NO_RESULT,
+
+	// An arithmetic operation reported an overflow or a division by zero
+	OPERATION_REPORT,
+
+	// A variable was used that was not bound
+	UNDEFINED_SYMBOL,
+
+	// A token was received in a state that does not expect it
+	UNEXPECTED_TOKEN,
+
+	// The parse of an expression ended before the expression was complete
+	UNFINISHED_PARSE,
+
+	// A token had neither a value nor a bound variable
+	UNRESOLVED_VALUE,
+
+	// A value literal was outside the range of an integer
+	VALUE_OUT_OF_RANGE
+}
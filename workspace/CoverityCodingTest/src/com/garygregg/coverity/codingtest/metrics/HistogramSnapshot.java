@@ -0,0 +1,150 @@
+package com.garygregg.coverity.codingtest.metrics;
+
+/**
+ * Contains an immutable snapshot of a log histogram. Each value reported by a
+ * snapshot other than the count and the mean is the highest value in its
+ * bucket, and so is known only to within the precision of the histogram.
+ * 
+ * @author Gary Gregg
+ */
+public final class HistogramSnapshot {
+
+	// The percentiles reported by the string form of a snapshot
+	private static final double[] reportedPercentiles = { 50.0, 90.0, 99.0,
+			99.9 };
+
+	// The count of each bucket
+	private final long[] bucketCounts;
+
+	// The number of recorded values
+	private final long count;
+
+	// The sum of the recorded values
+	private final long sum;
+
+	/**
+	 * Constructs the histogram snapshot.
+	 * 
+	 * @param bucketCounts
+	 *            The count of each bucket, which the snapshot keeps
+	 * @param sum
+	 *            The sum of the recorded values
+	 */
+	HistogramSnapshot(long[] bucketCounts, long sum) {
+
+		// Set the member variables, and total the counts.
+		this.bucketCounts = bucketCounts;
+		this.sum = sum;
+		long total = 0L;
+		for (long bucketCount : bucketCounts) {
+			total += bucketCount;
+		}
+
+		count = total;
+	}
+
+	/**
+	 * Gets the number of recorded values.
+	 * 
+	 * @return The number of recorded values
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Gets the greatest recorded value.
+	 * 
+	 * @return The greatest recorded value, or zero if there are none
+	 */
+	public long getMaximum() {
+
+		// Find the highest bucket with a count.
+		int index = bucketCounts.length - 1;
+		while ((0 <= index) && (0L == bucketCounts[index])) {
+			--index;
+		}
+
+		// Return the highest value in the bucket, or zero if there is none.
+		return (0 > index) ? 0L : LogHistogram.getHighest(index);
+	}
+
+	/**
+	 * Gets the mean of the recorded values.
+	 * 
+	 * @return The mean of the recorded values, or zero if there are none
+	 */
+	public double getMean() {
+		return (0L == count) ? 0.0 : ((double) sum / count);
+	}
+
+	/**
+	 * Gets the sum of the recorded values.
+	 * 
+	 * @return The sum of the recorded values
+	 */
+	public long getSum() {
+		return sum;
+	}
+
+	/**
+	 * Gets the value at a percentile of the recorded values: the least value
+	 * such that the given percentage of the recorded values are no greater.
+	 * 
+	 * @param percentile
+	 *            The percentile, from zero to one hundred
+	 * @return The value at the percentile, or zero if there are no recorded
+	 *         values
+	 * @throws IllegalArgumentException
+	 *             Indicates that the percentile is out of range
+	 */
+	public long getValueAtPercentile(double percentile) {
+
+		// Throw an exception if the percentile is out of range.
+		if (!((0.0 <= percentile) && (100.0 >= percentile))) {
+			throw new IllegalArgumentException("The percentile " + percentile
+					+ " is not from zero to one hundred.");
+		}
+
+		/*
+		 * Find the number of values at or below the percentile, at least one,
+		 * and cycle through the buckets until that many have been counted.
+		 */
+		final long target = Math.max(1L,
+				(long) Math.ceil(percentile / 100.0 * count));
+		long counted = 0L;
+		int index = 0;
+		while ((index < bucketCounts.length)
+				&& (target > (counted += bucketCounts[index]))) {
+			++index;
+		}
+
+		/*
+		 * Return the highest value in the bucket in which the count was
+		 * reached, or zero if there are no values.
+		 */
+		return ((0L == count) || (index >= bucketCounts.length)) ? 0L
+				: LogHistogram.getHighest(index);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+
+		// Report the count, the mean, the reported percentiles and the maximum.
+		final StringBuilder builder = new StringBuilder("count=")
+				.append(count).append(" mean=")
+				.append(String.format("%.1f", getMean()));
+		for (double percentile : reportedPercentiles) {
+			builder.append(" p").append(
+					String.valueOf(percentile).replaceAll("\\.0$", ""))
+					.append('=').append(getValueAtPercentile(percentile));
+		}
+
+		return builder.append(" max=").append(getMaximum()).toString();
+	}
+}
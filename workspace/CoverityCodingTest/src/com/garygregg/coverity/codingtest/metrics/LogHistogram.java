@@ -0,0 +1,185 @@
+package com.garygregg.coverity.codingtest.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contains a histogram of non-negative values, such as latencies in
+ * nanoseconds, that may be recorded by any number of threads without locking.
+ * The buckets are logarithmic in the manner of an HDR histogram: values below
+ * a small limit have a bucket each, and each power of two above it is divided
+ * into the same number of linear buckets, so that any value is known to
+ * within a fixed relative error of about six percent. The counts are striped
+ * by thread, so that threads recording the same value seldom contend for the
+ * same count; a snapshot sums the stripes.
+ * 
+ * @author Gary Gregg
+ */
+public final class LogHistogram {
+
+	// The most stripes of counts in a histogram
+	private static final int maximumStripeCount = 16;
+
+	// The number of stripes of counts, a power of two
+	private static final int stripeCount = getStripeCount();
+
+	// The number of bits of a value kept below its leading bit
+	private static final int subBucketBits = 4;
+
+	// The number of buckets into which each power of two is divided
+	private static final int subBucketCount = 1 << subBucketBits;
+
+	/*
+	 * The number of buckets, enough for any non-negative long value; declared
+	 * after the sizes on which it depends
+	 */
+	private static final int bucketCount = (Long.SIZE - subBucketBits)
+			* subBucketCount;
+
+	/**
+	 * Gets the index of the bucket of a value.
+	 * 
+	 * @param value
+	 *            A non-negative value
+	 * @return The index of the bucket of the value
+	 */
+	static int getIndex(long value) {
+
+		/*
+		 * Values below the sub-bucket count have a bucket each. Otherwise
+		 * keep the bits of the value below its leading bit, and index the
+		 * buckets of its power of two with them.
+		 */
+		final int index;
+		if (subBucketCount > value) {
+			index = (int) value;
+		}
+
+		// The value is at least the sub-bucket count.
+		else {
+
+			final int shift = Long.SIZE - 1 - subBucketBits
+					- Long.numberOfLeadingZeros(value);
+			index = ((shift + 1) << subBucketBits)
+					+ (int) ((value >>> shift) - subBucketCount);
+		}
+
+		// Return the index.
+		return index;
+	}
+
+	/**
+	 * Gets the number of buckets of a histogram.
+	 * 
+	 * @return The number of buckets of a histogram
+	 */
+	static int getBucketCount() {
+		return bucketCount;
+	}
+
+	/**
+	 * Gets the highest value in a bucket.
+	 * 
+	 * @param index
+	 *            The index of the bucket
+	 * @return The highest value in the bucket
+	 */
+	static long getHighest(int index) {
+
+		// The highest value is one less than the lowest value of the next.
+		return (bucketCount - 1 == index) ? Long.MAX_VALUE
+				: (getLowest(index + 1) - 1L);
+	}
+
+	/**
+	 * Gets the lowest value in a bucket.
+	 * 
+	 * @param index
+	 *            The index of the bucket
+	 * @return The lowest value in the bucket
+	 */
+	static long getLowest(int index) {
+
+		/*
+		 * Buckets below the sub-bucket count hold a value each. Otherwise the
+		 * bucket holds the values whose bits below the leading bit are those
+		 * of the index.
+		 */
+		final long subBucket = subBucketCount + (index & (subBucketCount - 1));
+		return (subBucketCount > index) ? index
+				: (subBucket << ((index >>> subBucketBits) - 1));
+	}
+
+	/**
+	 * Gets the number of stripes of counts: the least power of two at least
+	 * the number of processors, but no more than a maximum.
+	 * 
+	 * @return The number of stripes of counts
+	 */
+	private static int getStripeCount() {
+
+		// Return the number of processors rounded up to a power of two.
+		final int processorCount = Math.min(maximumStripeCount, Runtime
+				.getRuntime().availableProcessors());
+		return (1 >= processorCount) ? 1 : Integer
+				.highestOneBit((processorCount - 1) << 1);
+	}
+
+	// The count of each bucket, for each stripe
+	private final AtomicLongArray counts = new AtomicLongArray(stripeCount
+			* bucketCount);
+
+	// The sum of the recorded values
+	private final LongAdder sum = new LongAdder();
+
+	/**
+	 * Records a value.
+	 * 
+	 * @param value
+	 *            The value to record; a negative value is recorded as zero
+	 */
+	public void record(long value) {
+
+		/*
+		 * Count the value in the stripe of the current thread, and add it to
+		 * the sum.
+		 */
+		final long recorded = Math.max(0L, value);
+		final int stripe = (int) Thread.currentThread().getId()
+				& (stripeCount - 1);
+		counts.incrementAndGet(stripe * bucketCount + getIndex(recorded));
+		sum.add(recorded);
+	}
+
+	/**
+	 * Clears the histogram. Values recorded while the histogram is cleared
+	 * may or may not be kept.
+	 */
+	public void reset() {
+
+		// Clear each count, and the sum.
+		for (int i = 0; i < counts.length(); ++i) {
+			counts.set(i, 0L);
+		}
+
+		sum.reset();
+	}
+
+	/**
+	 * Takes a snapshot of the histogram. Values recorded while the snapshot is
+	 * taken may or may not be in it.
+	 * 
+	 * @return A snapshot of the histogram
+	 */
+	public HistogramSnapshot snapshot() {
+
+		// Sum the counts of each bucket over the stripes.
+		final long[] bucketCounts = new long[bucketCount];
+		for (int i = 0; i < counts.length(); ++i) {
+			bucketCounts[i % bucketCount] += counts.get(i);
+		}
+
+		// Return the snapshot.
+		return new HistogramSnapshot(bucketCounts, sum.sum());
+	}
+}
@@ -0,0 +1,287 @@
+package com.garygregg.coverity.codingtest.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.garygregg.coverity.codingtest.lexical_analysis.CountingTokenListener;
+import com.garygregg.coverity.codingtest.lexical_analysis.TokenKind;
+
+/**
+ * Contains the metrics of the calculator: the tokens it has found by kind, the
+ * operations it has reduced by operator, its symbol lookups and the number of
+ * symbols each compared, its diagnostics by kind, the hits and misses of its
+ * caches, and histograms of the latencies of its phases. Every count is kept
+ * without locking, and is cheap enough to leave on; the components of the
+ * calculator record metrics only while the registry is enabled, which it is
+ * by default. A snapshot of the metrics may be taken at any time.
+ * 
+ * @author Gary Gregg
+ */
+public final class MetricsRegistry {
+
+	// The registry used by every component of the calculator
+	private static final MetricsRegistry instance = new MetricsRegistry();
+
+	// The token kinds, by ordinal
+	private static final TokenKind[] tokenKinds = TokenKind.values();
+
+	/**
+	 * Gets the registry used by every component of the calculator.
+	 * 
+	 * @return The registry used by every component of the calculator
+	 */
+	public static MetricsRegistry getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Adds one to the count of a key in a map of counts, creating the count if
+	 * it does not exist.
+	 * 
+	 * @param counts
+	 *            The map of counts
+	 * @param key
+	 *            The key whose count to increment
+	 */
+	private static void increment(Map<String, LongAdder> counts, String key) {
+
+		/*
+		 * Get the count of the key, creating it if it does not exist, and
+		 * increment it.
+		 */
+		LongAdder count = counts.get(key);
+		if (null == count) {
+
+			final LongAdder created = new LongAdder();
+			count = counts.putIfAbsent(key, created);
+			if (null == count) {
+				count = created;
+			}
+		}
+
+		count.increment();
+	}
+
+	/**
+	 * Sums each count in a map of counts.
+	 * 
+	 * @param counts
+	 *            The map of counts
+	 * @return A map of the sum of each count, sorted by key
+	 */
+	private static Map<String, Long> sum(Map<String, LongAdder> counts) {
+
+		// Sum each count into a sorted map, and return the map.
+		final Map<String, Long> sums = new TreeMap<String, Long>();
+		for (Map.Entry<String, LongAdder> entry : counts.entrySet()) {
+			sums.put(entry.getKey(), entry.getValue().sum());
+		}
+
+		return sums;
+	}
+
+	// The hits of each cache, by name
+	private final Map<String, LongAdder> cacheHitCounts = new ConcurrentHashMap<String, LongAdder>();
+
+	// The misses of each cache, by name
+	private final Map<String, LongAdder> cacheMissCounts = new ConcurrentHashMap<String, LongAdder>();
+
+	// The count of diagnostics of each kind, by ordinal
+	private final LongAdder[] diagnosticCounts = new LongAdder[DiagnosticKind
+			.values().length];
+
+	// True if the registry is enabled, false otherwise
+	private volatile boolean enabled = true;
+
+	// The histogram of the latencies of each phase, by ordinal
+	private final LogHistogram[] latencies = new LogHistogram[Phase.values().length];
+
+	// The count of reductions of each operation, by expression
+	private final Map<String, LongAdder> reductionCounts = new ConcurrentHashMap<String, LongAdder>();
+
+	// The histogram of the number of symbols compared by each symbol lookup
+	private final LogHistogram scanLengths = new LogHistogram();
+
+	// The count of tokens of each kind, by ordinal
+	private final LongAdder[] tokenCounts = new LongAdder[TokenKind.values().length];
+
+	/**
+	 * Constructs the metrics registry.
+	 */
+	private MetricsRegistry() {
+
+		// Create the counts of diagnostics and tokens.
+		for (int i = 0; i < diagnosticCounts.length; ++i) {
+			diagnosticCounts[i] = new LongAdder();
+		}
+
+		for (int i = 0; i < tokenCounts.length; ++i) {
+			tokenCounts[i] = new LongAdder();
+		}
+
+		// Create the histogram of the latencies of each phase.
+		for (int i = 0; i < latencies.length; ++i) {
+			latencies[i] = new LogHistogram();
+		}
+	}
+
+	/**
+	 * Counts a hit of a cache.
+	 * 
+	 * @param cache
+	 *            The name of the cache
+	 */
+	public void countCacheHit(String cache) {
+		increment(cacheHitCounts, cache);
+	}
+
+	/**
+	 * Counts a miss of a cache.
+	 * 
+	 * @param cache
+	 *            The name of the cache
+	 */
+	public void countCacheMiss(String cache) {
+		increment(cacheMissCounts, cache);
+	}
+
+	/**
+	 * Counts a diagnostic.
+	 * 
+	 * @param kind
+	 *            The kind of the diagnostic
+	 */
+	public void countDiagnostic(DiagnosticKind kind) {
+		diagnosticCounts[kind.ordinal()].increment();
+	}
+
+	/**
+	 * Counts a reduction of an operation.
+	 * 
+	 * @param operation
+	 *            The expression of the operation, such as 'add'
+	 */
+	public void countReduction(String operation) {
+		increment(reductionCounts, operation);
+	}
+
+	/**
+	 * Counts a symbol lookup.
+	 * 
+	 * @param scanLength
+	 *            The number of symbols the lookup compared
+	 */
+	public void countSymbolLookup(int scanLength) {
+		scanLengths.record(scanLength);
+	}
+
+	/**
+	 * Counts the tokens counted by a counting token listener, by kind.
+	 * 
+	 * @param counter
+	 *            The counting token listener
+	 */
+	public void countTokens(CountingTokenListener counter) {
+
+		// Add the count of each kind of token that was found.
+		for (TokenKind kind : tokenKinds) {
+
+			final int count = counter.getTokenCount(kind);
+			if (0 < count) {
+				tokenCounts[kind.ordinal()].add(count);
+			}
+		}
+	}
+
+	/**
+	 * Determines if the registry is enabled.
+	 * 
+	 * @return True if the components of the calculator record metrics, false
+	 *         otherwise
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Records the latency of a phase.
+	 * 
+	 * @param phase
+	 *            The phase
+	 * @param nanoseconds
+	 *            The latency of the phase, in nanoseconds
+	 */
+	public void recordLatency(Phase phase, long nanoseconds) {
+		latencies[phase.ordinal()].record(nanoseconds);
+	}
+
+	/**
+	 * Clears the metrics. Metrics recorded while the registry is cleared may or
+	 * may not be kept.
+	 */
+	public void reset() {
+
+		// Clear the counts of caches, diagnostics, reductions and tokens.
+		cacheHitCounts.clear();
+		cacheMissCounts.clear();
+		for (LongAdder count : diagnosticCounts) {
+			count.reset();
+		}
+
+		reductionCounts.clear();
+		for (LongAdder count : tokenCounts) {
+			count.reset();
+		}
+
+		// Clear the histograms.
+		for (LogHistogram latency : latencies) {
+			latency.reset();
+		}
+
+		scanLengths.reset();
+	}
+
+	/**
+	 * Enables or disables the registry.
+	 * 
+	 * @param enabled
+	 *            True if the components of the calculator are to record
+	 *            metrics, false otherwise
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Takes a snapshot of the metrics. Metrics recorded while the snapshot is
+	 * taken may or may not be in it.
+	 * 
+	 * @return A snapshot of the metrics
+	 */
+	public MetricsSnapshot snapshot() {
+
+		// Sum the counts of diagnostics and tokens.
+		final long[] diagnostics = new long[diagnosticCounts.length];
+		for (int i = 0; i < diagnostics.length; ++i) {
+			diagnostics[i] = diagnosticCounts[i].sum();
+		}
+
+		final long[] tokens = new long[tokenCounts.length];
+		for (int i = 0; i < tokens.length; ++i) {
+			tokens[i] = tokenCounts[i].sum();
+		}
+
+		// Take a snapshot of the latencies of each phase.
+		final HistogramSnapshot[] latencySnapshots = new HistogramSnapshot[latencies.length];
+		for (int i = 0; i < latencySnapshots.length; ++i) {
+			latencySnapshots[i] = latencies[i].snapshot();
+		}
+
+		// Return the snapshot.
+		return new MetricsSnapshot(sum(cacheHitCounts), sum(cacheMissCounts),
+				diagnostics, latencySnapshots, sum(reductionCounts),
+				scanLengths.snapshot(), tokens);
+	}
+}
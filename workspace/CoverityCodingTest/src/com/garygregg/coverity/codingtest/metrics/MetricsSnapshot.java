@@ -0,0 +1,195 @@
+package com.garygregg.coverity.codingtest.metrics;
+
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.Map;
+
+import com.garygregg.coverity.codingtest.lexical_analysis.TokenKind;
+
+/**
+ * Contains an immutable snapshot of the metrics of the calculator, which may
+ * be queried, or exported as text of one metric to a line: its name, a space,
+ * and its value.
+ * 
+ * @author Gary Gregg
+ */
+public final class MetricsSnapshot {
+
+	// The diagnostic kinds, by ordinal
+	private static final DiagnosticKind[] diagnosticKinds = DiagnosticKind
+			.values();
+
+	// The phases, by ordinal
+	private static final Phase[] phases = Phase.values();
+
+	// The token kinds, by ordinal
+	private static final TokenKind[] tokenKinds = TokenKind.values();
+
+	// The hits of each cache, by name
+	private final Map<String, Long> cacheHitCounts;
+
+	// The misses of each cache, by name
+	private final Map<String, Long> cacheMissCounts;
+
+	// The count of diagnostics of each kind, by ordinal
+	private final long[] diagnosticCounts;
+
+	// The latencies of each phase, by ordinal
+	private final HistogramSnapshot[] latencies;
+
+	// The count of reductions of each operation, by expression
+	private final Map<String, Long> reductionCounts;
+
+	// The number of symbols compared by each symbol lookup
+	private final HistogramSnapshot scanLengths;
+
+	// The count of tokens of each kind, by ordinal
+	private final long[] tokenCounts;
+
+	/**
+	 * Constructs the metrics snapshot, which keeps the given maps and arrays.
+	 * 
+	 * @param cacheHitCounts
+	 *            The hits of each cache, by name
+	 * @param cacheMissCounts
+	 *            The misses of each cache, by name
+	 * @param diagnosticCounts
+	 *            The count of diagnostics of each kind, by ordinal
+	 * @param latencies
+	 *            The latencies of each phase, by ordinal
+	 * @param reductionCounts
+	 *            The count of reductions of each operation, by expression
+	 * @param scanLengths
+	 *            The number of symbols compared by each symbol lookup
+	 * @param tokenCounts
+	 *            The count of tokens of each kind, by ordinal
+	 */
+	MetricsSnapshot(Map<String, Long> cacheHitCounts,
+			Map<String, Long> cacheMissCounts, long[] diagnosticCounts,
+			HistogramSnapshot[] latencies, Map<String, Long> reductionCounts,
+			HistogramSnapshot scanLengths, long[] tokenCounts) {
+
+		// Set the member variables.
+		this.cacheHitCounts = Collections.unmodifiableMap(cacheHitCounts);
+		this.cacheMissCounts = Collections.unmodifiableMap(cacheMissCounts);
+		this.diagnosticCounts = diagnosticCounts;
+		this.latencies = latencies;
+		this.reductionCounts = Collections.unmodifiableMap(reductionCounts);
+		this.scanLengths = scanLengths;
+		this.tokenCounts = tokenCounts;
+	}
+
+	/**
+	 * Gets the hits of each cache.
+	 * 
+	 * @return The hits of each cache, by name
+	 */
+	public Map<String, Long> getCacheHitCounts() {
+		return cacheHitCounts;
+	}
+
+	/**
+	 * Gets the misses of each cache.
+	 * 
+	 * @return The misses of each cache, by name
+	 */
+	public Map<String, Long> getCacheMissCounts() {
+		return cacheMissCounts;
+	}
+
+	/**
+	 * Gets the count of diagnostics of a kind.
+	 * 
+	 * @param kind
+	 *            The kind of diagnostic
+	 * @return The count of diagnostics of the kind
+	 */
+	public long getDiagnosticCount(DiagnosticKind kind) {
+		return diagnosticCounts[kind.ordinal()];
+	}
+
+	/**
+	 * Gets the latencies of a phase.
+	 * 
+	 * @param phase
+	 *            The phase
+	 * @return The latencies of the phase, in nanoseconds
+	 */
+	public HistogramSnapshot getLatencies(Phase phase) {
+		return latencies[phase.ordinal()];
+	}
+
+	/**
+	 * Gets the count of reductions of each operation.
+	 * 
+	 * @return The count of reductions of each operation, by expression
+	 */
+	public Map<String, Long> getReductionCounts() {
+		return reductionCounts;
+	}
+
+	/**
+	 * Gets the number of symbols compared by each symbol lookup; its count is
+	 * the number of lookups.
+	 * 
+	 * @return The number of symbols compared by each symbol lookup
+	 */
+	public HistogramSnapshot getScanLengths() {
+		return scanLengths;
+	}
+
+	/**
+	 * Gets the count of tokens of a kind.
+	 * 
+	 * @param kind
+	 *            The kind of token
+	 * @return The count of tokens of the kind
+	 */
+	public long getTokenCount(TokenKind kind) {
+		return tokenCounts[kind.ordinal()];
+	}
+
+	/**
+	 * Exports the snapshot to a print stream as text, one metric to a line.
+	 * 
+	 * @param stream
+	 *            The print stream
+	 */
+	public void print(PrintStream stream) {
+
+		// Print the count of tokens of each kind.
+		for (TokenKind kind : tokenKinds) {
+			stream.println("tokens." + kind + " " + getTokenCount(kind));
+		}
+
+		// Print the count of reductions of each operation.
+		for (Map.Entry<String, Long> entry : reductionCounts.entrySet()) {
+			stream.println("reductions." + entry.getKey() + " "
+					+ entry.getValue());
+		}
+
+		// Print the lookups, and the count of diagnostics of each kind.
+		stream.println("lookups.scanLength " + scanLengths);
+		for (DiagnosticKind kind : diagnosticKinds) {
+			stream.println("diagnostics." + kind + " "
+					+ getDiagnosticCount(kind));
+		}
+
+		// Print the hits and misses of each cache.
+		for (Map.Entry<String, Long> entry : cacheHitCounts.entrySet()) {
+			stream.println("cache." + entry.getKey() + ".hits "
+					+ entry.getValue());
+		}
+
+		for (Map.Entry<String, Long> entry : cacheMissCounts.entrySet()) {
+			stream.println("cache." + entry.getKey() + ".misses "
+					+ entry.getValue());
+		}
+
+		// Print the latencies of each phase.
+		for (Phase phase : phases) {
+			stream.println("latency." + phase + ".nanoseconds "
+					+ getLatencies(phase));
+		}
+	}
+}
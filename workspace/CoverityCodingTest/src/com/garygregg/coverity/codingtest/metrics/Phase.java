@@ -0,0 +1,28 @@
+package com.garygregg.coverity.codingtest.metrics;
+
+/**
+ * Enumerates the phases of the calculator whose latencies are recorded.
+ * 
+ * @author Gary Gregg
+ */
+public enum Phase {
+
+	/*
+	 * The evaluation of a compiled program, from its instructions to its
+	 * results
+	 */
+	EVALUATE,
+
+	/*
+	 * The lexical analysis of an expression delivered in batches, counting
+	 * only the time spent finding tokens, and not the time spent by the
+	 * listener on them
+	 */
+	LEX,
+
+	/*
+	 * The evaluation of an expression by the parser, or its compilation by the
+	 * compiler, including its lexical analysis
+	 */
+	PARSE
+}
@@ -0,0 +1,24 @@
+package com.garygregg.coverity.codingtest.operation;
+
+import java.math.BigInteger;
+
+/**
+ * Encapsulates a binary operation on arbitrary precision arguments.
+ * 
+ * @author Gary Gregg
+ */
+public interface BigIntegerBinaryOperation {
+
+	/**
+	 * Performs the binary operation.
+	 * 
+	 * @param argument1
+	 *            The first argument of the operation
+	 * @param argument2
+	 *            The second argument of the operation
+	 * @return The result of the operation
+	 * @throws ArithmeticException
+	 *             Indicates that the result of the operation is undefined
+	 */
+	BigInteger performOperation(BigInteger argument1, BigInteger argument2);
+}
@@ -3,11 +3,12 @@ package com.garygregg.coverity.codingtest.operation;
 import java.io.PrintStream;
 
 /**
- * Contains a divide operation.
+ * Contains a divide operation on 32-bit or 64-bit arguments.
  * 
  * @author Gary Gregg
  */
-public class DivideOperation extends ReportingOperation {
+public class DivideOperation extends ReportingOperation implements
+		LongBinaryOperation {
 
 	/**
 	 * Creates the divide operation with a default print stream.
@@ -91,4 +92,69 @@ public class DivideOperation extends ReportingOperation {
 		// Return the result.
 		return result;
 	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.garygregg.coverity.codingtest.operation.LongBinaryOperation#
+	 * performOperation(long, long)
+	 */
+	@Override
+	public long performOperation(long argument1, long argument2) {
+
+		// Declare and initialize the result. Is the second argument zero?
+		long result = 0;
+		if (0 == argument2) {
+
+			/*
+			 * The second argument is zero. Declare and initialize a message
+			 * object. Is the first argument less than zero?
+			 */
+			String message = "Divisor of a divide operation is zero - ";
+			if (argument1 < 0) {
+
+				/*
+				 * The first argument is less than zero. Use the minimum long in
+				 * place of negative infinity. Update the message.
+				 */
+				result = Long.MIN_VALUE;
+				message += " dividend is negative; using minimum long as a result.";
+			}
+
+			else if (0 == argument1) {
+
+				/*
+				 * The first argument is zero too. Use a result of one. Update
+				 * the message.
+				 */
+				result = 1;
+				message += " dividend is also zero; using one as a result.";
+			}
+
+			// The first argument is greater than zero.
+			else {
+
+				/*
+				 * The first argument is positive. Use the maximum long in place
+				 * of positive infinity. Update the message.
+				 */
+				result = Long.MAX_VALUE;
+				message += " dividend is postive; using maximum long as a result.";
+			}
+
+			// Print the message.
+			println(message);
+		}
+
+		/*
+		 * The second argument is not zero; a divide operation is okay to
+		 * perform, so perform it and assign the result.
+		 */
+		else {
+			result = argument1 / argument2;
+		}
+
+		// Return the result.
+		return result;
+	}
 }
@@ -0,0 +1,260 @@
+package com.garygregg.coverity.codingtest.operation;
+
+import java.math.BigInteger;
+
+/**
+ * Enumerates the intrinsic operations: operations that are not built into the
+ * calculator language, but that the compiled evaluators perform inline rather
+ * than by calling a kernel. Each intrinsic is its own kernel, for use where no
+ * evaluator inlines it. The 32-bit kernel wraps around on overflow; the 64-bit
+ * kernel is exact. A variadic intrinsic reduces any number of arguments, from
+ * the first to the last, by repeated application of its kernel.
+ * 
+ * @author Gary Gregg
+ */
+public enum Intrinsic implements BinaryOperation, LongBinaryOperation,
+		BigIntegerBinaryOperation {
+
+	// The bitwise conjunction of two integers
+	AND("and") {
+
+		@Override
+		public int performOperation(int argument1, int argument2) {
+			return argument1 & argument2;
+		}
+
+		@Override
+		public long performOperation(long argument1, long argument2) {
+			return argument1 & argument2;
+		}
+
+		@Override
+		public BigInteger performOperation(BigInteger argument1,
+				BigInteger argument2) {
+			return argument1.and(argument2);
+		}
+	},
+
+	// The larger of two integers
+	MAXIMUM("max", true) {
+
+		@Override
+		public int performOperation(int argument1, int argument2) {
+			return Math.max(argument1, argument2);
+		}
+
+		@Override
+		public long performOperation(long argument1, long argument2) {
+			return Math.max(argument1, argument2);
+		}
+
+		@Override
+		public BigInteger performOperation(BigInteger argument1,
+				BigInteger argument2) {
+			return argument1.max(argument2);
+		}
+	},
+
+	// The smaller of two integers
+	MINIMUM("min", true) {
+
+		@Override
+		public int performOperation(int argument1, int argument2) {
+			return Math.min(argument1, argument2);
+		}
+
+		@Override
+		public long performOperation(long argument1, long argument2) {
+			return Math.min(argument1, argument2);
+		}
+
+		@Override
+		public BigInteger performOperation(BigInteger argument1,
+				BigInteger argument2) {
+			return argument1.min(argument2);
+		}
+	},
+
+	/*
+	 * The remainder of dividing two integers, with the sign of the dividend;
+	 * undefined for a divisor of zero
+	 */
+	MODULO("mod") {
+
+		@Override
+		public int performOperation(int argument1, int argument2) {
+			return IntrinsicArithmetic.remainder(argument1, argument2);
+		}
+
+		@Override
+		public long performOperation(long argument1, long argument2) {
+			return IntrinsicArithmetic.remainder(argument1, argument2);
+		}
+
+		@Override
+		public BigInteger performOperation(BigInteger argument1,
+				BigInteger argument2) {
+			return argument1.remainder(argument2);
+		}
+	},
+
+	// The bitwise disjunction of two integers
+	OR("or") {
+
+		@Override
+		public int performOperation(int argument1, int argument2) {
+			return argument1 | argument2;
+		}
+
+		@Override
+		public long performOperation(long argument1, long argument2) {
+			return argument1 | argument2;
+		}
+
+		@Override
+		public BigInteger performOperation(BigInteger argument1,
+				BigInteger argument2) {
+			return argument1.or(argument2);
+		}
+	},
+
+	/*
+	 * An integer raised to the power of another, truncated towards zero for a
+	 * negative power; undefined for zero raised to a negative power
+	 */
+	POWER("pow") {
+
+		@Override
+		public int performOperation(int argument1, int argument2) {
+			return IntrinsicArithmetic.power(argument1, argument2);
+		}
+
+		@Override
+		public long performOperation(long argument1, long argument2) {
+			return IntrinsicArithmetic.powerExact(argument1, argument2);
+		}
+
+		@Override
+		public BigInteger performOperation(BigInteger argument1,
+				BigInteger argument2) {
+			return IntrinsicArithmetic.power(argument1, argument2);
+		}
+	},
+
+	/*
+	 * An integer shifted left by a count of bits; the 32-bit kernel uses the
+	 * low five bits of the count
+	 */
+	SHIFT_LEFT("shl") {
+
+		@Override
+		public int performOperation(int argument1, int argument2) {
+			return argument1 << argument2;
+		}
+
+		@Override
+		public long performOperation(long argument1, long argument2) {
+			return IntrinsicArithmetic.shiftLeftExact(argument1, argument2);
+		}
+
+		@Override
+		public BigInteger performOperation(BigInteger argument1,
+				BigInteger argument2) {
+			return IntrinsicArithmetic.shiftLeft(argument1, argument2);
+		}
+	},
+
+	/*
+	 * An integer shifted right by a count of bits, keeping its sign; the
+	 * 32-bit kernel uses the low five bits of the count
+	 */
+	SHIFT_RIGHT("shr") {
+
+		@Override
+		public int performOperation(int argument1, int argument2) {
+			return argument1 >> argument2;
+		}
+
+		@Override
+		public long performOperation(long argument1, long argument2) {
+			return IntrinsicArithmetic.shiftRightExact(argument1, argument2);
+		}
+
+		@Override
+		public BigInteger performOperation(BigInteger argument1,
+				BigInteger argument2) {
+			return IntrinsicArithmetic.shiftRight(argument1, argument2);
+		}
+	},
+
+	// The bitwise exclusive disjunction of two integers
+	XOR("xor") {
+
+		@Override
+		public int performOperation(int argument1, int argument2) {
+			return argument1 ^ argument2;
+		}
+
+		@Override
+		public long performOperation(long argument1, long argument2) {
+			return argument1 ^ argument2;
+		}
+
+		@Override
+		public BigInteger performOperation(BigInteger argument1,
+				BigInteger argument2) {
+			return argument1.xor(argument2);
+		}
+	};
+
+	// The name of the intrinsic operation in an expression
+	private final String name;
+
+	// True if the intrinsic operation accepts more than two arguments
+	private final boolean variadic;
+
+	/**
+	 * Constructs the intrinsic operation with exactly two arguments.
+	 * 
+	 * @param name
+	 *            The name of the intrinsic operation in an expression
+	 */
+	private Intrinsic(String name) {
+		this(name, false);
+	}
+
+	/**
+	 * Constructs the intrinsic operation with an explicit variadic flag.
+	 * 
+	 * @param name
+	 *            The name of the intrinsic operation in an expression
+	 * @param variadic
+	 *            True if the intrinsic operation accepts more than two
+	 *            arguments
+	 */
+	private Intrinsic(String name, boolean variadic) {
+
+		// Set the name and the variadic flag.
+		this.name = name;
+		this.variadic = variadic;
+	}
+
+	/**
+	 * Gets the name of the intrinsic operation in an expression.
+	 * 
+	 * @return The name of the intrinsic operation in an expression
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Determines if the intrinsic operation accepts more than two arguments.
+	 * 
+	 * @return True if the intrinsic operation accepts more than two
+	 *         arguments, false otherwise
+	 */
+	public boolean isVariadic() {
+		return variadic;
+	}
+}
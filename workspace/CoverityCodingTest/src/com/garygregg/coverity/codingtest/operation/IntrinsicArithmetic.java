@@ -0,0 +1,557 @@
+package com.garygregg.coverity.codingtest.operation;
+
+import java.math.BigInteger;
+
+/**
+ * Contains the arithmetic of the intrinsic operations that is too involved to
+ * be written inline. Each method either returns an exact result, or throws an
+ * arithmetic exception if the result is undefined or, for the exact methods,
+ * overflows.
+ * 
+ * @author Gary Gregg
+ */
+public final class IntrinsicArithmetic {
+
+	/*
+	 * The limit on the bit length of an arbitrary precision result; an
+	 * operation whose result is sure to exceed it is undefined, rather than
+	 * computed at a cost in time and memory that one short expression could
+	 * otherwise make unbounded
+	 */
+	public static final int maximumBitLength = 1 << 22;
+
+	// The message for a negative shift count
+	private static final String negativeShiftMessage = "negative shift count";
+
+	// The message for a result that overflows
+	private static final String overflowMessage = "integer overflow";
+
+	// The message for an arbitrary precision result that is too large
+	private static final String tooLargeMessage = "result exceeds "
+			+ maximumBitLength + " bits";
+
+	/*
+	 * The message for a divisor of zero, given explicitly because the message
+	 * of the exception the virtual machine throws may be omitted once the
+	 * code that throws it is compiled
+	 */
+	private static final String zeroDivisorMessage = "/ by zero";
+
+	/**
+	 * Multiplies two arbitrary precision integers.
+	 * 
+	 * @param argument1
+	 *            The first argument
+	 * @param argument2
+	 *            The second argument
+	 * @return The product of the arguments
+	 * @throws ArithmeticException
+	 *             Indicates that the product would have more bits than the
+	 *             limit
+	 */
+	public static BigInteger multiply(BigInteger argument1,
+			BigInteger argument2) {
+
+		/*
+		 * The product of nonzero integers has at least one bit fewer than the
+		 * sum of their bit lengths. Throw an exception if that exceeds the
+		 * limit.
+		 */
+		if ((0 != argument1.signum())
+				&& (0 != argument2.signum())
+				&& (maximumBitLength < (long) argument1.bitLength()
+						+ argument2.bitLength() - 1)) {
+			throw new ArithmeticException(tooLargeMessage);
+		}
+
+		// Multiply the arguments.
+		return argument1.multiply(argument2);
+	}
+
+	/**
+	 * Multiplies two longs, checking for overflow.
+	 * 
+	 * @param argument1
+	 *            The first argument
+	 * @param argument2
+	 *            The second argument
+	 * @return The product of the arguments
+	 * @throws ArithmeticException
+	 *             Indicates that the product overflows
+	 */
+	public static long multiplyExact(long argument1, long argument2) {
+
+		/*
+		 * Multiply the arguments. The product overflows if dividing it by the
+		 * second argument does not give back the first, or if it is the minimum
+		 * long negated.
+		 */
+		final long result = argument1 * argument2;
+		if ((0 != argument2)
+				&& (((result / argument2) != argument1) || ((Long.MIN_VALUE == argument1) && (-1 == argument2)))) {
+			throw new ArithmeticException(overflowMessage);
+		}
+
+		// Return the product.
+		return result;
+	}
+
+	/**
+	 * Raises an integer to a power, wrapping around on overflow.
+	 * 
+	 * @param base
+	 *            The base
+	 * @param exponent
+	 *            The exponent
+	 * @return The base raised to the exponent, truncated towards zero if the
+	 *         exponent is negative
+	 * @throws ArithmeticException
+	 *             Indicates that zero is raised to a negative power
+	 */
+	public static int power(int base, int exponent) {
+
+		// Declare the result. Is the exponent negative?
+		int result = 1;
+		if (0 > exponent) {
+			result = (int) reciprocalPower(base, exponent);
+		}
+
+		/*
+		 * The exponent is not negative. Square the base for each bit of the
+		 * exponent, multiplying the result by it for each set bit.
+		 */
+		else {
+
+			int factor = base;
+			for (int remaining = exponent; 0 != remaining; remaining >>>= 1) {
+
+				// Multiply the result if the low bit is set, then square.
+				if (0 != (remaining & 1)) {
+					result *= factor;
+				}
+
+				factor *= factor;
+			}
+		}
+
+		// Return the result.
+		return result;
+	}
+
+	/**
+	 * Raises an arbitrary precision integer to a power.
+	 * 
+	 * @param base
+	 *            The base
+	 * @param exponent
+	 *            The exponent
+	 * @return The base raised to the exponent, truncated towards zero if the
+	 *         exponent is negative
+	 * @throws ArithmeticException
+	 *             Indicates that zero is raised to a negative power, or that
+	 *             the result would have more bits than the limit
+	 */
+	public static BigInteger power(BigInteger base, BigInteger exponent) {
+
+		/*
+		 * Declare the result. Get the bit length of the magnitude of the
+		 * base. Is the exponent negative? If so, only a base of -1, 0 or 1 has
+		 * a reciprocal that does not truncate to zero.
+		 */
+		BigInteger result = null;
+		final int baseLength = base.abs().bitLength();
+		if (0 > exponent.signum()) {
+			result = (1 < baseLength) ? BigInteger.ZERO : BigInteger
+					.valueOf(reciprocalPower(base.longValue(),
+							exponent.testBit(0) ? -1 : -2));
+		}
+
+		/*
+		 * The exponent is not negative. Raise the base to it directly if it
+		 * fits in an integer, and the base is -1, 0 or 1, or has a power that
+		 * is not sure to exceed the limit: one with at least one bit fewer
+		 * than its bit length for each factor.
+		 */
+		else if ((Integer.SIZE > exponent.bitLength())
+				&& ((1 >= baseLength) || (maximumBitLength >= (long) (baseLength - 1)
+						* exponent.intValue()))) {
+			result = base.pow(exponent.intValue());
+		}
+
+		// Otherwise only a base of -1, 0 or 1 has a representable result.
+		else if (1 >= baseLength) {
+			result = ((0 > base.signum()) && !exponent.testBit(0)) ? BigInteger.ONE
+					: base;
+		}
+
+		// Otherwise the result is too large.
+		else {
+			throw new ArithmeticException(tooLargeMessage);
+		}
+
+		// Return the result.
+		return result;
+	}
+
+	/**
+	 * Raises an integer to a power, checking for overflow.
+	 * 
+	 * @param base
+	 *            The base
+	 * @param exponent
+	 *            The exponent
+	 * @return The base raised to the exponent, truncated towards zero if the
+	 *         exponent is negative
+	 * @throws ArithmeticException
+	 *             Indicates that zero is raised to a negative power, or that
+	 *             the result overflows
+	 */
+	public static int powerExact(int base, int exponent) {
+
+		/*
+		 * Declare the result as a long, so that each product of two integers
+		 * is exact. Is the exponent negative?
+		 */
+		long result = 1;
+		if (0 > exponent) {
+			result = reciprocalPower(base, exponent);
+		}
+
+		/*
+		 * The exponent is not negative. Square the base for each bit of the
+		 * exponent, multiplying the result by it for each set bit. A square
+		 * that overflows while bits remain means the result overflows too.
+		 */
+		else {
+
+			long factor = base;
+			for (int remaining = exponent; 0 != remaining; remaining >>>= 1) {
+
+				// Multiply the result if the low bit is set.
+				if (0 != (remaining & 1)) {
+					result = checkInt(result * factor);
+				}
+
+				// Square the factor if any bits remain.
+				if (1 < remaining) {
+					factor = checkInt(factor * factor);
+				}
+			}
+		}
+
+		// Return the result.
+		return (int) result;
+	}
+
+	/**
+	 * Raises a long to a power, checking for overflow.
+	 * 
+	 * @param base
+	 *            The base
+	 * @param exponent
+	 *            The exponent
+	 * @return The base raised to the exponent, truncated towards zero if the
+	 *         exponent is negative
+	 * @throws ArithmeticException
+	 *             Indicates that zero is raised to a negative power, or that
+	 *             the result overflows
+	 */
+	public static long powerExact(long base, long exponent) {
+
+		// Declare the result. Is the exponent negative?
+		long result = 1;
+		if (0 > exponent) {
+			result = reciprocalPower(base, exponent);
+		}
+
+		/*
+		 * The exponent is not negative. Square the base for each bit of the
+		 * exponent, multiplying the result by it for each set bit. A square
+		 * that overflows while bits remain means the result overflows too.
+		 */
+		else {
+
+			long factor = base;
+			for (long remaining = exponent; 0 != remaining; remaining >>>= 1) {
+
+				// Multiply the result if the low bit is set.
+				if (0 != (remaining & 1)) {
+					result = multiplyExact(result, factor);
+				}
+
+				// Square the factor if any bits remain.
+				if (1 < remaining) {
+					factor = multiplyExact(factor, factor);
+				}
+			}
+		}
+
+		// Return the result.
+		return result;
+	}
+
+	/**
+	 * Takes the remainder of dividing one integer by another.
+	 * 
+	 * @param dividend
+	 *            The dividend
+	 * @param divisor
+	 *            The divisor
+	 * @return The remainder, with the sign of the dividend
+	 * @throws ArithmeticException
+	 *             Indicates that the divisor is zero
+	 */
+	public static int remainder(int dividend, int divisor) {
+
+		// Throw an exception if the divisor is zero.
+		if (0 == divisor) {
+			throw new ArithmeticException(zeroDivisorMessage);
+		}
+
+		// Return the remainder.
+		return dividend % divisor;
+	}
+
+	/**
+	 * Takes the remainder of dividing one long by another.
+	 * 
+	 * @param dividend
+	 *            The dividend
+	 * @param divisor
+	 *            The divisor
+	 * @return The remainder, with the sign of the dividend
+	 * @throws ArithmeticException
+	 *             Indicates that the divisor is zero
+	 */
+	public static long remainder(long dividend, long divisor) {
+
+		// Throw an exception if the divisor is zero.
+		if (0 == divisor) {
+			throw new ArithmeticException(zeroDivisorMessage);
+		}
+
+		// Return the remainder.
+		return dividend % divisor;
+	}
+
+	/**
+	 * Shifts an arbitrary precision integer left.
+	 * 
+	 * @param argument
+	 *            The integer to shift
+	 * @param count
+	 *            The number of bits by which to shift
+	 * @return The shifted integer
+	 * @throws ArithmeticException
+	 *             Indicates that the count is negative, or that the shifted
+	 *             nonzero integer would have more bits than the limit
+	 */
+	public static BigInteger shiftLeft(BigInteger argument, BigInteger count) {
+
+		// Throw an exception if the count is negative.
+		if (0 > count.signum()) {
+			throw new ArithmeticException(negativeShiftMessage);
+		}
+
+		/*
+		 * Throw an exception if the shifted integer is nonzero, and would have
+		 * more bits than the limit.
+		 */
+		if ((0 != argument.signum())
+				&& ((Integer.SIZE <= count.bitLength()) || (maximumBitLength < (long) argument
+						.bitLength() + count.intValue()))) {
+			throw new ArithmeticException(tooLargeMessage);
+		}
+
+		// Shift the integer.
+		return (0 == argument.signum()) ? argument : argument.shiftLeft(count
+				.intValue());
+	}
+
+	/**
+	 * Shifts an integer left, checking for overflow.
+	 * 
+	 * @param argument
+	 *            The integer to shift
+	 * @param count
+	 *            The number of bits by which to shift
+	 * @return The shifted integer
+	 * @throws ArithmeticException
+	 *             Indicates that the count is negative, or that a set bit or
+	 *             the sign is shifted out
+	 */
+	public static int shiftLeftExact(int argument, int count) {
+
+		// Throw an exception if the count is negative.
+		if (0 > count) {
+			throw new ArithmeticException(negativeShiftMessage);
+		}
+
+		/*
+		 * Shift the integer. The shift overflows if shifting back does not give
+		 * back the integer.
+		 */
+		final int result = (Integer.SIZE > count) ? (argument << count) : 0;
+		if (((Integer.SIZE > count) ? (result >> count) : 0) != argument) {
+			throw new ArithmeticException(overflowMessage);
+		}
+
+		// Return the shifted integer.
+		return result;
+	}
+
+	/**
+	 * Shifts a long left, checking for overflow.
+	 * 
+	 * @param argument
+	 *            The long to shift
+	 * @param count
+	 *            The number of bits by which to shift
+	 * @return The shifted long
+	 * @throws ArithmeticException
+	 *             Indicates that the count is negative, or that a set bit or
+	 *             the sign is shifted out
+	 */
+	public static long shiftLeftExact(long argument, long count) {
+
+		// Throw an exception if the count is negative.
+		if (0 > count) {
+			throw new ArithmeticException(negativeShiftMessage);
+		}
+
+		/*
+		 * Shift the long. The shift overflows if shifting back does not give
+		 * back the long.
+		 */
+		final long result = (Long.SIZE > count) ? (argument << count) : 0;
+		if (((Long.SIZE > count) ? (result >> count) : 0) != argument) {
+			throw new ArithmeticException(overflowMessage);
+		}
+
+		// Return the shifted long.
+		return result;
+	}
+
+	/**
+	 * Shifts an arbitrary precision integer right, rounding towards negative
+	 * infinity.
+	 * 
+	 * @param argument
+	 *            The integer to shift
+	 * @param count
+	 *            The number of bits by which to shift
+	 * @return The shifted integer
+	 * @throws ArithmeticException
+	 *             Indicates that the count is negative
+	 */
+	public static BigInteger shiftRight(BigInteger argument, BigInteger count) {
+
+		// Throw an exception if the count is negative.
+		if (0 > count.signum()) {
+			throw new ArithmeticException(negativeShiftMessage);
+		}
+
+		/*
+		 * Shift the integer. A count too large for an integer shifts out every
+		 * bit but the sign.
+		 */
+		return (Integer.SIZE > count.bitLength()) ? argument.shiftRight(count
+				.intValue()) : BigInteger.valueOf(argument.signum() >> 1);
+	}
+
+	/**
+	 * Shifts an integer right, rounding towards negative infinity.
+	 * 
+	 * @param argument
+	 *            The integer to shift
+	 * @param count
+	 *            The number of bits by which to shift
+	 * @return The shifted integer
+	 * @throws ArithmeticException
+	 *             Indicates that the count is negative
+	 */
+	public static int shiftRightExact(int argument, int count) {
+
+		// Throw an exception if the count is negative.
+		if (0 > count) {
+			throw new ArithmeticException(negativeShiftMessage);
+		}
+
+		// Shift the integer. A count of the width or more leaves only the sign.
+		return argument >> Math.min(count, Integer.SIZE - 1);
+	}
+
+	/**
+	 * Shifts a long right, rounding towards negative infinity.
+	 * 
+	 * @param argument
+	 *            The long to shift
+	 * @param count
+	 *            The number of bits by which to shift
+	 * @return The shifted long
+	 * @throws ArithmeticException
+	 *             Indicates that the count is negative
+	 */
+	public static long shiftRightExact(long argument, long count) {
+
+		// Throw an exception if the count is negative.
+		if (0 > count) {
+			throw new ArithmeticException(negativeShiftMessage);
+		}
+
+		// Shift the long. A count of the width or more leaves only the sign.
+		return argument >> Math.min(count, Long.SIZE - 1);
+	}
+
+	/**
+	 * Checks that a long is within the range of an integer.
+	 * 
+	 * @param value
+	 *            The long to check
+	 * @return The long
+	 * @throws ArithmeticException
+	 *             Indicates that the long is out of the range of an integer
+	 */
+	private static long checkInt(long value) {
+
+		// Throw an exception if the long does not survive narrowing.
+		if ((int) value != value) {
+			throw new ArithmeticException(overflowMessage);
+		}
+
+		// Return the long.
+		return value;
+	}
+
+	/**
+	 * Calculates a base raised to a negative power, truncated towards zero.
+	 * 
+	 * @param base
+	 *            The base
+	 * @param exponent
+	 *            The negative exponent
+	 * @return The base raised to the exponent, truncated towards zero
+	 * @throws ArithmeticException
+	 *             Indicates that the base is zero
+	 */
+	private static long reciprocalPower(long base, long exponent) {
+
+		// Throw an exception if the base is zero.
+		if (0 == base) {
+			throw new ArithmeticException("zero raised to a negative power");
+		}
+
+		/*
+		 * The reciprocal of one is one, and that of -1 alternates in sign;
+		 * every other reciprocal truncates to zero.
+		 */
+		return (1 == base) ? 1 : (-1 == base) ? (((0 == (exponent & 1)) ? 1
+				: -1)) : 0;
+	}
+
+	/**
+	 * Prevents construction of the class, which has only static methods.
+	 */
+	private IntrinsicArithmetic() {
+	}
+}
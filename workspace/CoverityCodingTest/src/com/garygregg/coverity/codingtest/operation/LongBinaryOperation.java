@@ -0,0 +1,20 @@
+package com.garygregg.coverity.codingtest.operation;
+
+/**
+ * Encapsulates a binary operation on 64-bit arguments
+ * 
+ * @author Gary Gregg
+ */
+public interface LongBinaryOperation {
+
+	/**
+	 * Performs the binary operation.
+	 * 
+	 * @param argument1
+	 *            The first argument of the operation
+	 * @param argument2
+	 *            The second argument of the operation
+	 * @return The result of the operation
+	 */
+	long performOperation(long argument1, long argument2);
+}
@@ -0,0 +1,143 @@
+package com.garygregg.coverity.codingtest.operation;
+
+/**
+ * Describes an operation in the operation registry: its name in an
+ * expression, the identifier by which compiled programs refer to it, its
+ * arity, and its kernels for each width of arithmetic. An intrinsic operation
+ * also names the intrinsic that the compiled evaluators perform inline.
+ * 
+ * @author Gary Gregg
+ */
+public final class OperationDescriptor {
+
+	/*
+	 * The arity of every registered operation, and the least number of
+	 * arguments of a variadic one
+	 */
+	private static final int binaryArity = 2;
+
+	// The kernel for arbitrary precision arithmetic
+	private final BigIntegerBinaryOperation bigIntegerKernel;
+
+	// The identifier of the operation in compiled programs
+	private final int id;
+
+	// The kernel for 32-bit arithmetic
+	private final BinaryOperation intKernel;
+
+	// The intrinsic for the operation, or null if it has none
+	private final Intrinsic intrinsic;
+
+	// The kernel for 64-bit arithmetic
+	private final LongBinaryOperation longKernel;
+
+	// The name of the operation in an expression
+	private final String name;
+
+	/**
+	 * Constructs the operation descriptor.
+	 * 
+	 * @param id
+	 *            The identifier of the operation in compiled programs
+	 * @param name
+	 *            The name of the operation in an expression
+	 * @param intrinsic
+	 *            The intrinsic for the operation, or null if it has none
+	 * @param intKernel
+	 *            The kernel for 32-bit arithmetic
+	 * @param longKernel
+	 *            The kernel for 64-bit arithmetic
+	 * @param bigIntegerKernel
+	 *            The kernel for arbitrary precision arithmetic
+	 */
+	OperationDescriptor(int id, String name, Intrinsic intrinsic,
+			BinaryOperation intKernel, LongBinaryOperation longKernel,
+			BigIntegerBinaryOperation bigIntegerKernel) {
+
+		// Set the identity of the operation.
+		this.id = id;
+		this.name = name;
+		this.intrinsic = intrinsic;
+
+		// Set the kernels.
+		this.intKernel = intKernel;
+		this.longKernel = longKernel;
+		this.bigIntegerKernel = bigIntegerKernel;
+	}
+
+	/**
+	 * Gets the number of arguments of the operation, or the least number of
+	 * arguments if the operation is variadic.
+	 * 
+	 * @return The number of arguments of the operation
+	 */
+	public int getArity() {
+		return binaryArity;
+	}
+
+	/**
+	 * Gets the kernel for arbitrary precision arithmetic.
+	 * 
+	 * @return The kernel for arbitrary precision arithmetic
+	 */
+	public BigIntegerBinaryOperation getBigIntegerKernel() {
+		return bigIntegerKernel;
+	}
+
+	/**
+	 * Gets the identifier of the operation in compiled programs.
+	 * 
+	 * @return The identifier of the operation in compiled programs
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * Gets the kernel for 32-bit arithmetic.
+	 * 
+	 * @return The kernel for 32-bit arithmetic
+	 */
+	public BinaryOperation getIntKernel() {
+		return intKernel;
+	}
+
+	/**
+	 * Gets the intrinsic for the operation.
+	 * 
+	 * @return The intrinsic for the operation, or null if it has none
+	 */
+	public Intrinsic getIntrinsic() {
+		return intrinsic;
+	}
+
+	/**
+	 * Gets the kernel for 64-bit arithmetic.
+	 * 
+	 * @return The kernel for 64-bit arithmetic
+	 */
+	public LongBinaryOperation getLongKernel() {
+		return longKernel;
+	}
+
+	/**
+	 * Gets the name of the operation in an expression.
+	 * 
+	 * @return The name of the operation in an expression
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Determines if the operation accepts more than two arguments, which it
+	 * reduces from the first to the last. Only a variadic intrinsic is
+	 * variadic.
+	 * 
+	 * @return True if the operation accepts more than two arguments, false
+	 *         otherwise
+	 */
+	public boolean isVariadic() {
+		return (null != intrinsic) && intrinsic.isVariadic();
+	}
+}
@@ -0,0 +1,214 @@
+package com.garygregg.coverity.codingtest.operation;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.garygregg.coverity.codingtest.token.AddToken;
+import com.garygregg.coverity.codingtest.token.DivideToken;
+import com.garygregg.coverity.codingtest.token.LetToken;
+import com.garygregg.coverity.codingtest.token.MultiplyToken;
+import com.garygregg.coverity.codingtest.token.SubtractToken;
+
+/**
+ * Contains the registry of operations beyond those built into the calculator
+ * language. The registry starts with the intrinsic operations; further
+ * operations may be registered with a name and a kernel for each width of
+ * arithmetic. Registration is expected at startup, but is safe at any time:
+ * lookups never lock, and a registered operation is never removed.
+ * 
+ * @author Gary Gregg
+ */
+public final class OperationRegistry {
+
+	// The registry used by the lexical analyzer, the parser and the compiler
+	private static final OperationRegistry instance = new OperationRegistry();
+
+	/*
+	 * The regular expression for the name of an operation, which must be
+	 * lexically a variable
+	 */
+	private static final String nameRegex = "[a-zA-Z_][a-zA-Z0-9_]*";
+
+	/**
+	 * Gets the registry used by the lexical analyzer, the parser and the
+	 * compiler.
+	 * 
+	 * @return The registry used by the lexical analyzer, the parser and the
+	 *         compiler
+	 */
+	public static OperationRegistry getInstance() {
+		return instance;
+	}
+
+	// The registered operations, by name
+	private final Map<String, OperationDescriptor> descriptorMap = new ConcurrentHashMap<String, OperationDescriptor>();
+
+	// The registered operations, by identifier; replaced on each registration
+	private volatile OperationDescriptor[] descriptors = new OperationDescriptor[0];
+
+	/**
+	 * Constructs the operation registry with the intrinsic operations.
+	 */
+	private OperationRegistry() {
+
+		// Register each intrinsic as its own kernel for every width.
+		for (Intrinsic intrinsic : Intrinsic.values()) {
+			add(intrinsic.getName(), intrinsic, intrinsic, intrinsic, intrinsic);
+		}
+	}
+
+	/**
+	 * Finds a registered operation by name.
+	 * 
+	 * @param name
+	 *            The name of the operation in an expression
+	 * @return The descriptor of the operation, or null if no operation has
+	 *         the name
+	 */
+	public OperationDescriptor find(String name) {
+		return (null == name) ? null : descriptorMap.get(name);
+	}
+
+	/**
+	 * Gets a registered operation by identifier.
+	 * 
+	 * @param id
+	 *            The identifier of the operation in compiled programs
+	 * @return The descriptor of the operation
+	 * @throws ArrayIndexOutOfBoundsException
+	 *             Indicates that no operation has the identifier
+	 */
+	public OperationDescriptor get(int id) {
+		return descriptors[id];
+	}
+
+	/**
+	 * Gets the names of the registered operations, in order of registration.
+	 * 
+	 * @return The names of the registered operations
+	 */
+	public String[] getNames() {
+
+		// Get the names from a snapshot of the descriptors.
+		final OperationDescriptor[] snapshot = descriptors;
+		final String[] names = new String[snapshot.length];
+		for (int i = 0; i < snapshot.length; ++i) {
+			names[i] = snapshot[i].getName();
+		}
+
+		// Return the names.
+		return names;
+	}
+
+	/**
+	 * Gets the number of registered operations.
+	 * 
+	 * @return The number of registered operations
+	 */
+	public int getSize() {
+		return descriptors.length;
+	}
+
+	/**
+	 * Registers an operation.
+	 * 
+	 * @param name
+	 *            The name of the operation in an expression; it must be
+	 *            lexically a variable, and may not be taken
+	 * @param intKernel
+	 *            The kernel for 32-bit arithmetic
+	 * @param longKernel
+	 *            The kernel for 64-bit arithmetic
+	 * @param bigIntegerKernel
+	 *            The kernel for arbitrary precision arithmetic
+	 * @return The descriptor of the registered operation
+	 * @throws IllegalArgumentException
+	 *             Indicates that the name is malformed or taken, or that a
+	 *             kernel is missing
+	 */
+	public OperationDescriptor register(String name, BinaryOperation intKernel,
+			LongBinaryOperation longKernel,
+			BigIntegerBinaryOperation bigIntegerKernel) {
+
+		// Throw an exception if a kernel is missing.
+		if ((null == intKernel) || (null == longKernel)
+				|| (null == bigIntegerKernel)) {
+			throw new IllegalArgumentException("Operation '" + name
+					+ "' is missing a kernel.");
+		}
+
+		// Add the operation without an intrinsic.
+		return add(name, null, intKernel, longKernel, bigIntegerKernel);
+	}
+
+	/**
+	 * Adds an operation.
+	 * 
+	 * @param name
+	 *            The name of the operation in an expression
+	 * @param intrinsic
+	 *            The intrinsic for the operation, or null if it has none
+	 * @param intKernel
+	 *            The kernel for 32-bit arithmetic
+	 * @param longKernel
+	 *            The kernel for 64-bit arithmetic
+	 * @param bigIntegerKernel
+	 *            The kernel for arbitrary precision arithmetic
+	 * @return The descriptor of the added operation
+	 * @throws IllegalArgumentException
+	 *             Indicates that the name is malformed or taken
+	 */
+	private synchronized OperationDescriptor add(String name,
+			Intrinsic intrinsic, BinaryOperation intKernel,
+			LongBinaryOperation longKernel,
+			BigIntegerBinaryOperation bigIntegerKernel) {
+
+		// Throw an exception if the name is not lexically a variable.
+		if ((null == name) || !name.matches(nameRegex)) {
+			throw new IllegalArgumentException("Operation name '" + name
+					+ "' is not a valid name.");
+		}
+
+		// Throw an exception if the name is taken.
+		if (isBuiltInName(name) || descriptorMap.containsKey(name)) {
+			throw new IllegalArgumentException("Operation name '" + name
+					+ "' is already taken.");
+		}
+
+		/*
+		 * Create the descriptor with the next identifier. Publish it by
+		 * identifier before publishing it by name, so that a descriptor found
+		 * by name can always be found by identifier.
+		 */
+		final OperationDescriptor[] snapshot = descriptors;
+		final OperationDescriptor descriptor = new OperationDescriptor(
+				snapshot.length, name, intrinsic, intKernel, longKernel,
+				bigIntegerKernel);
+		final OperationDescriptor[] newDescriptors = Arrays.copyOf(snapshot,
+				snapshot.length + 1);
+		newDescriptors[snapshot.length] = descriptor;
+		descriptors = newDescriptors;
+		descriptorMap.put(name, descriptor);
+
+		// Return the descriptor.
+		return descriptor;
+	}
+
+	/**
+	 * Determines whether a name is that of an operation built into the
+	 * calculator language.
+	 * 
+	 * @param name
+	 *            The name to check
+	 * @return True if the name is that of a built-in operation, false
+	 *         otherwise
+	 */
+	private boolean isBuiltInName(String name) {
+		return AddToken.getCommonExpression().equals(name)
+				|| DivideToken.getCommonExpression().equals(name)
+				|| LetToken.getCommonExpression().equals(name)
+				|| MultiplyToken.getCommonExpression().equals(name)
+				|| SubtractToken.getCommonExpression().equals(name);
+	}
+}
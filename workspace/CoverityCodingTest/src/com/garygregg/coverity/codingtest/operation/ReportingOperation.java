@@ -2,6 +2,9 @@ package com.garygregg.coverity.codingtest.operation;
 
 import java.io.PrintStream;
 
+import com.garygregg.coverity.codingtest.metrics.DiagnosticKind;
+import com.garygregg.coverity.codingtest.metrics.MetricsRegistry;
+
 /**
  * Contains an operation with a print stream for reporting information.
  * 
@@ -105,13 +108,21 @@ public abstract class ReportingOperation implements BinaryOperation {
 	}
 
 	/**
-	 * Prints a message with a new line.
+	 * Prints a message with a new line, and counts it as a diagnostic if
+	 * metrics are recorded.
 	 * 
 	 * @param message
 	 *            An arbitrary message
 	 * @return True if the println was performed, false otherwise
 	 */
 	public boolean println(String message) {
+
+		// Count the diagnostic if metrics are recorded, and print it.
+		final MetricsRegistry metrics = MetricsRegistry.getInstance();
+		if (metrics.isEnabled()) {
+			metrics.countDiagnostic(DiagnosticKind.OPERATION_REPORT);
+		}
+
 		return perform(message, println);
 	}
 
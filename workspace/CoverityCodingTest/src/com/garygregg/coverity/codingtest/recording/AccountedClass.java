@@ -0,0 +1,19 @@
+package com.garygregg.coverity.codingtest.recording;
+
+/**
+ * Enumerates the classes whose instances are counted when allocations are
+ * accounted.
+ * 
+ * @author Gary Gregg
+ */
+public enum AccountedClass {
+
+	// The pairs of a symbol table
+	PAIR,
+
+	// Tokens of every kind
+	TOKEN,
+
+	// The token metadata of the parser stacks
+	TOKEN_INFORMATION
+}
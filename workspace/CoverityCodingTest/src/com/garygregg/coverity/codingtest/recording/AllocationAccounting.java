@@ -0,0 +1,160 @@
+package com.garygregg.coverity.codingtest.recording;
+
+import java.lang.management.ManagementFactory;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Contains the accounting of the allocations of the calculator, by thread: the
+ * bytes a thread has allocated, as the virtual machine measures them, and the
+ * number of instances of each accounted class it has created. Accounting is a
+ * diagnostic mode, off by default; while it is off, counting an instance
+ * costs only the check of a flag. Both the bytes and the counts only grow, so
+ * the allocations of a stretch of work are the differences between readings
+ * taken before and after it on the same thread.
+ * 
+ * @author Gary Gregg
+ */
+public final class AllocationAccounting {
+
+	// The accounting used by every component of the calculator
+	private static final AllocationAccounting instance = new AllocationAccounting();
+
+	/**
+	 * Gets the accounting used by every component of the calculator.
+	 * 
+	 * @return The accounting used by every component of the calculator
+	 */
+	public static AllocationAccounting getInstance() {
+		return instance;
+	}
+
+	/**
+	 * The management bean of the threads of the virtual machine, or null if
+	 * it cannot measure the bytes allocated by a thread
+	 */
+	private final ThreadMXBean bean;
+
+	// The count of instances of each accounted class, by ordinal, by thread
+	private final ThreadLocal<long[]> counts = new ThreadLocal<long[]>() {
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.lang.ThreadLocal#initialValue()
+		 */
+		@Override
+		protected long[] initialValue() {
+			return new long[AccountedClass.values().length];
+		}
+	};
+
+	// True if allocations are accounted, false otherwise
+	private volatile boolean enabled;
+
+	/**
+	 * Constructs the allocation accounting.
+	 */
+	private AllocationAccounting() {
+
+		/*
+		 * Keep the management bean of the threads only if it can measure the
+		 * bytes allocated by a thread.
+		 */
+		final Object threadBean = ManagementFactory.getThreadMXBean();
+		final boolean supported = (threadBean instanceof ThreadMXBean)
+				&& ((ThreadMXBean) threadBean)
+						.isThreadAllocatedMemorySupported();
+		bean = supported ? (ThreadMXBean) threadBean : null;
+	}
+
+	/**
+	 * Counts the creation of an instance of an accounted class by the current
+	 * thread, if allocations are accounted.
+	 * 
+	 * @param accountedClass
+	 *            The class of the instance
+	 */
+	public void count(AccountedClass accountedClass) {
+
+		// Count the instance only if allocations are accounted.
+		if (enabled) {
+			++counts.get()[accountedClass.ordinal()];
+		}
+	}
+
+	/**
+	 * Gets the number of bytes allocated by the current thread since it
+	 * started.
+	 * 
+	 * @return The number of bytes allocated by the current thread, or -1 if
+	 *         allocations are not accounted
+	 */
+	public long getAllocatedBytes() {
+		return enabled ? bean.getThreadAllocatedBytes(Thread.currentThread()
+				.getId()) : -1L;
+	}
+
+	/**
+	 * Gets the number of instances of an accounted class created by the
+	 * current thread while allocations were accounted.
+	 * 
+	 * @param accountedClass
+	 *            The accounted class
+	 * @return The number of instances of the class created by the current
+	 *         thread
+	 */
+	public long getCount(AccountedClass accountedClass) {
+		return counts.get()[accountedClass.ordinal()];
+	}
+
+	/**
+	 * Determines if allocations are accounted.
+	 * 
+	 * @return True if allocations are accounted, false otherwise
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Determines if the virtual machine can measure the bytes allocated by a
+	 * thread, so that allocations may be accounted.
+	 * 
+	 * @return True if allocations may be accounted, false otherwise
+	 */
+	public boolean isSupported() {
+		return null != bean;
+	}
+
+	/**
+	 * Sets whether allocations are accounted.
+	 * 
+	 * @param enabled
+	 *            True if allocations are to be accounted, false otherwise
+	 * @throws UnsupportedOperationException
+	 *             Indicates that accounting is to be enabled, but the virtual
+	 *             machine cannot measure the bytes allocated by a thread
+	 */
+	public void setEnabled(boolean enabled) {
+
+		/*
+		 * Refuse to enable accounting if the virtual machine cannot support
+		 * it. Otherwise make sure the virtual machine measures the bytes
+		 * allocated by each thread.
+		 */
+		if (enabled) {
+
+			if (!isSupported()) {
+				throw new UnsupportedOperationException(
+						"This virtual machine cannot measure the bytes"
+								+ " allocated by a thread.");
+			}
+
+			bean.setThreadAllocatedMemoryEnabled(true);
+		}
+
+		// Set the flag.
+		this.enabled = enabled;
+	}
+}
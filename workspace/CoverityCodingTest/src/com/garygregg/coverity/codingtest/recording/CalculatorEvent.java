@@ -0,0 +1,62 @@
+package com.garygregg.coverity.codingtest.recording;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Contains a flight recorder event of the calculator, which describes the
+ * expression in which it occurred: its length, the number of its tokens, and
+ * the deepest nesting of its operations. The tokens and the nesting are
+ * counted only while the event that counts them is enabled, and only so far as
+ * the expression has been analyzed when the event is committed; they are zero
+ * if they were not counted. The fields are protected because the flight
+ * recorder records no private field of the superclass of an event.
+ * 
+ * @author Gary Gregg
+ */
+@Category("Calculator")
+public abstract class CalculatorEvent extends Event {
+
+	// The length of the expression
+	@Label("Expression Length")
+	protected int expressionLength;
+
+	// The deepest nesting of operations in the expression
+	@Label("Maximum Depth")
+	protected int maximumDepth;
+
+	// The number of tokens in the expression
+	@Label("Token Count")
+	protected int tokenCount;
+
+	/**
+	 * Sets the length of the expression.
+	 * 
+	 * @param expressionLength
+	 *            The length of the expression
+	 */
+	public void setExpressionLength(int expressionLength) {
+		this.expressionLength = expressionLength;
+	}
+
+	/**
+	 * Sets the deepest nesting of operations in the expression.
+	 * 
+	 * @param maximumDepth
+	 *            The deepest nesting of operations in the expression
+	 */
+	public void setMaximumDepth(int maximumDepth) {
+		this.maximumDepth = maximumDepth;
+	}
+
+	/**
+	 * Sets the number of tokens in the expression.
+	 * 
+	 * @param tokenCount
+	 *            The number of tokens in the expression
+	 */
+	public void setTokenCount(int tokenCount) {
+		this.tokenCount = tokenCount;
+	}
+}
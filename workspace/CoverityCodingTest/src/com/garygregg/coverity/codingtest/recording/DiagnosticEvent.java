@@ -0,0 +1,45 @@
+package com.garygregg.coverity.codingtest.recording;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Contains a flight recorder event for a diagnostic emitted by the parser to
+ * its print stream for errors.
+ * 
+ * @author Gary Gregg
+ */
+@Description("A diagnostic emitted by the parser")
+@Label("Diagnostic")
+@Name("com.garygregg.coverity.codingtest.Diagnostic")
+public class DiagnosticEvent extends CalculatorEvent {
+
+	// The kind of the diagnostic
+	@Label("Kind")
+	private String kind;
+
+	// The message of the diagnostic
+	@Label("Message")
+	private String message;
+
+	/**
+	 * Sets the kind of the diagnostic.
+	 * 
+	 * @param kind
+	 *            The kind of the diagnostic
+	 */
+	public void setKind(String kind) {
+		this.kind = kind;
+	}
+
+	/**
+	 * Sets the message of the diagnostic.
+	 * 
+	 * @param message
+	 *            The message of the diagnostic
+	 */
+	public void setMessage(String message) {
+		this.message = message;
+	}
+}
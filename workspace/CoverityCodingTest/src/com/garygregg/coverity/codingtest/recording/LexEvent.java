@@ -0,0 +1,17 @@
+package com.garygregg.coverity.codingtest.recording;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Contains a flight recorder event for one launch of the lexical analyzer,
+ * from the start of its tokens to their stop.
+ * 
+ * @author Gary Gregg
+ */
+@Description("A launch of the lexical analyzer on an expression")
+@Label("Lexical Analysis")
+@Name("com.garygregg.coverity.codingtest.Lex")
+public class LexEvent extends CalculatorEvent {
+}
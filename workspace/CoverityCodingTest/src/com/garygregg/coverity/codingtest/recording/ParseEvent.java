@@ -0,0 +1,17 @@
+package com.garygregg.coverity.codingtest.recording;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Contains a flight recorder event for the evaluation of an expression by the
+ * parser, including its lexical analysis.
+ * 
+ * @author Gary Gregg
+ */
+@Description("An evaluation of an expression by the parser")
+@Label("Parse")
+@Name("com.garygregg.coverity.codingtest.Parse")
+public class ParseEvent extends CalculatorEvent {
+}
@@ -0,0 +1,79 @@
+package com.garygregg.coverity.codingtest.recording;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Contains a flight recorder event for the reduction of one operation by the
+ * parser. Reductions are very many and very short, so by default only those
+ * that take longer than a threshold are recorded, and without a stack trace.
+ * 
+ * @author Gary Gregg
+ */
+@Description("A reduction of an operation by the parser")
+@Label("Reduction")
+@Name("com.garygregg.coverity.codingtest.Reduction")
+@StackTrace(false)
+@Threshold("10 us")
+public class ReductionEvent extends CalculatorEvent {
+
+	// The number of arguments of the operation
+	@Label("Argument Count")
+	private int argumentCount;
+
+	// The depth of the operation in the expression, the outermost being one
+	@Label("Depth")
+	private int depth;
+
+	// The expression of the operation
+	@Label("Operation")
+	private String operation;
+
+	// The position of the operation in the expression
+	@Label("Position")
+	private int position;
+
+	/**
+	 * Sets the number of arguments of the operation.
+	 * 
+	 * @param argumentCount
+	 *            The number of arguments of the operation
+	 */
+	public void setArgumentCount(int argumentCount) {
+		this.argumentCount = argumentCount;
+	}
+
+	/**
+	 * Sets the depth of the operation in the expression.
+	 * 
+	 * @param depth
+	 *            The depth of the operation in the expression, the outermost
+	 *            being one
+	 */
+	public void setDepth(int depth) {
+		this.depth = depth;
+	}
+
+	/**
+	 * Sets the expression of the operation.
+	 * 
+	 * @param operation
+	 *            The expression of the operation
+	 */
+	public void setOperation(String operation) {
+		this.operation = operation;
+	}
+
+	/**
+	 * Sets the position of the operation in the expression.
+	 * 
+	 * @param position
+	 *            The position of the operation in the expression
+	 */
+	public void setPosition(int position) {
+		this.position = position;
+	}
+}
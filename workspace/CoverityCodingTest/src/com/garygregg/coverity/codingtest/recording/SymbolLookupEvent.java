@@ -0,0 +1,84 @@
+package com.garygregg.coverity.codingtest.recording;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Contains a flight recorder event for the lookup of a symbol in a symbol
+ * table. A symbol table knows nothing of the expression being parsed, so the
+ * event describes the table instead: the number of symbols it holds, and the
+ * number it compared before finding the symbol or giving up. Lookups are very
+ * many and very short, so by default only those that take longer than a
+ * threshold are recorded, and without a stack trace.
+ * 
+ * @author Gary Gregg
+ */
+@Category("Calculator")
+@Description("A lookup of a symbol in a symbol table")
+@Label("Symbol Lookup")
+@Name("com.garygregg.coverity.codingtest.SymbolLookup")
+@StackTrace(false)
+@Threshold("10 us")
+public class SymbolLookupEvent extends Event {
+
+	// True if the symbol was found, false otherwise
+	@Label("Found")
+	private boolean found;
+
+	// The number of symbols compared
+	@Label("Scan Length")
+	private int scanLength;
+
+	// The symbol
+	@Label("Symbol")
+	private String symbol;
+
+	// The number of symbols in the table
+	@Label("Table Size")
+	private int tableSize;
+
+	/**
+	 * Sets whether the symbol was found.
+	 * 
+	 * @param found
+	 *            True if the symbol was found, false otherwise
+	 */
+	public void setFound(boolean found) {
+		this.found = found;
+	}
+
+	/**
+	 * Sets the number of symbols compared.
+	 * 
+	 * @param scanLength
+	 *            The number of symbols compared
+	 */
+	public void setScanLength(int scanLength) {
+		this.scanLength = scanLength;
+	}
+
+	/**
+	 * Sets the symbol.
+	 * 
+	 * @param symbol
+	 *            The symbol
+	 */
+	public void setSymbol(String symbol) {
+		this.symbol = symbol;
+	}
+
+	/**
+	 * Sets the number of symbols in the table.
+	 * 
+	 * @param tableSize
+	 *            The number of symbols in the table
+	 */
+	public void setTableSize(int tableSize) {
+		this.tableSize = tableSize;
+	}
+}
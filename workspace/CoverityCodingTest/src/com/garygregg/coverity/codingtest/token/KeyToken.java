@@ -2,12 +2,17 @@ package com.garygregg.coverity.codingtest.token;
 
 /**
  * Encapsulates a key token in the calculator. The token is either a keyword or
- * required syntactic punctuation.
+ * required syntactic punctuation. A key token keeps its position unboxed, and
+ * a key token pool may move it to another position, so that one key token of
+ * each kind may serve every position of an expression.
  * 
  * @author Gary Gregg
  */
 public abstract class KeyToken extends Token {
 
+	// The position of the token in the input stream
+	private int position;
+
 	/**
 	 * Creates a key token with an expression.
 	 * 
@@ -17,6 +22,41 @@ public abstract class KeyToken extends Token {
 	 *            The position of the token in the input stream
 	 */
 	KeyToken(String expression, int position) {
-		super(expression, position);
+
+		/*
+		 * Create the token without a boxed position, and keep the position
+		 * here.
+		 */
+		super(expression, null);
+		this.position = position;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.garygregg.coverity.codingtest.token.Token#getPosition()
+	 */
+	@Override
+	public Integer getPosition() {
+		return position;
+	}
+
+	/**
+	 * Gets the position of the token in the input stream, without boxing it.
+	 * 
+	 * @return The position of the token in the input stream
+	 */
+	public int getStart() {
+		return position;
+	}
+
+	/**
+	 * Moves the token to another position in the input stream.
+	 * 
+	 * @param position
+	 *            The new position of the token in the input stream
+	 */
+	void setPosition(int position) {
+		this.position = position;
 	}
 }
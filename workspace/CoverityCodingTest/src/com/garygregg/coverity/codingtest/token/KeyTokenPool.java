@@ -0,0 +1,261 @@
+package com.garygregg.coverity.codingtest.token;
+
+import java.util.Arrays;
+
+import com.garygregg.coverity.codingtest.operation.OperationDescriptor;
+
+/**
+ * Contains a pool of recycled key tokens: one token of each kind of key token,
+ * and of each registered operation, that the pool moves to the position of
+ * each key token it is asked for. Once the pool holds a token of a kind, it
+ * creates no more. A token from the pool is valid only until the pool is next
+ * asked for a token of its kind, so the pool may serve only listeners that do
+ * not keep key tokens. A pool may be used by only one thread at a time.
+ * 
+ * @author Gary Gregg
+ */
+public final class KeyTokenPool {
+
+	// The recycled add token, or null if none has been asked for
+	private AddToken addToken;
+
+	// The recycled close token, or null if none has been asked for
+	private CloseToken closeToken;
+
+	// The recycled comma token, or null if none has been asked for
+	private CommaToken commaToken;
+
+	// The recycled divide token, or null if none has been asked for
+	private DivideToken divideToken;
+
+	// The recycled let token, or null if none has been asked for
+	private LetToken letToken;
+
+	// The recycled multiply token, or null if none has been asked for
+	private MultiplyToken multiplyToken;
+
+	// The recycled open token, or null if none has been asked for
+	private OpenToken openToken;
+
+	/*
+	 * The recycled registered operation tokens, indexed by the identifiers of
+	 * their operations
+	 */
+	private RegisteredOperationToken[] registeredOperationTokens = new RegisteredOperationToken[0];
+
+	// The recycled subtract token, or null if none has been asked for
+	private SubtractToken subtractToken;
+
+	/**
+	 * Gets an add token at a position.
+	 * 
+	 * @param position
+	 *            The position of the token in the input stream
+	 * @return An add token at the position
+	 */
+	public AddToken getAddToken(int position) {
+
+		// Create the token if there is none to recycle, else move it.
+		if (null == addToken) {
+			addToken = new AddToken(position);
+		}
+
+		else {
+			addToken.setPosition(position);
+		}
+
+		// Return the token.
+		return addToken;
+	}
+
+	/**
+	 * Gets a close token at a position.
+	 * 
+	 * @param position
+	 *            The position of the token in the input stream
+	 * @return A close token at the position
+	 */
+	public CloseToken getCloseToken(int position) {
+
+		// Create the token if there is none to recycle, else move it.
+		if (null == closeToken) {
+			closeToken = new CloseToken(position);
+		}
+
+		else {
+			closeToken.setPosition(position);
+		}
+
+		// Return the token.
+		return closeToken;
+	}
+
+	/**
+	 * Gets a comma token at a position.
+	 * 
+	 * @param position
+	 *            The position of the token in the input stream
+	 * @return A comma token at the position
+	 */
+	public CommaToken getCommaToken(int position) {
+
+		// Create the token if there is none to recycle, else move it.
+		if (null == commaToken) {
+			commaToken = new CommaToken(position);
+		}
+
+		else {
+			commaToken.setPosition(position);
+		}
+
+		// Return the token.
+		return commaToken;
+	}
+
+	/**
+	 * Gets a divide token at a position.
+	 * 
+	 * @param position
+	 *            The position of the token in the input stream
+	 * @return A divide token at the position
+	 */
+	public DivideToken getDivideToken(int position) {
+
+		// Create the token if there is none to recycle, else move it.
+		if (null == divideToken) {
+			divideToken = new DivideToken(position);
+		}
+
+		else {
+			divideToken.setPosition(position);
+		}
+
+		// Return the token.
+		return divideToken;
+	}
+
+	/**
+	 * Gets a let token at a position.
+	 * 
+	 * @param position
+	 *            The position of the token in the input stream
+	 * @return A let token at the position
+	 */
+	public LetToken getLetToken(int position) {
+
+		// Create the token if there is none to recycle, else move it.
+		if (null == letToken) {
+			letToken = new LetToken(position);
+		}
+
+		else {
+			letToken.setPosition(position);
+		}
+
+		// Return the token.
+		return letToken;
+	}
+
+	/**
+	 * Gets a multiply token at a position.
+	 * 
+	 * @param position
+	 *            The position of the token in the input stream
+	 * @return A multiply token at the position
+	 */
+	public MultiplyToken getMultiplyToken(int position) {
+
+		// Create the token if there is none to recycle, else move it.
+		if (null == multiplyToken) {
+			multiplyToken = new MultiplyToken(position);
+		}
+
+		else {
+			multiplyToken.setPosition(position);
+		}
+
+		// Return the token.
+		return multiplyToken;
+	}
+
+	/**
+	 * Gets an open token at a position.
+	 * 
+	 * @param position
+	 *            The position of the token in the input stream
+	 * @return An open token at the position
+	 */
+	public OpenToken getOpenToken(int position) {
+
+		// Create the token if there is none to recycle, else move it.
+		if (null == openToken) {
+			openToken = new OpenToken(position);
+		}
+
+		else {
+			openToken.setPosition(position);
+		}
+
+		// Return the token.
+		return openToken;
+	}
+
+	/**
+	 * Gets a token for a registered operation at a position.
+	 * 
+	 * @param descriptor
+	 *            The descriptor of the registered operation
+	 * @param position
+	 *            The position of the token in the input stream
+	 * @return A token for the registered operation at the position
+	 */
+	public RegisteredOperationToken getRegisteredOperationToken(
+			OperationDescriptor descriptor, int position) {
+
+		// Grow the recycled tokens if the identifier is beyond them.
+		final int id = descriptor.getId();
+		if (registeredOperationTokens.length <= id) {
+			registeredOperationTokens = Arrays.copyOf(
+					registeredOperationTokens, id + 1);
+		}
+
+		/*
+		 * Create the token if there is none to recycle for the operation, else
+		 * move it.
+		 */
+		RegisteredOperationToken token = registeredOperationTokens[id];
+		if ((null == token) || (descriptor != token.getDescriptor())) {
+			token = new RegisteredOperationToken(descriptor, position);
+			registeredOperationTokens[id] = token;
+		}
+
+		else {
+			token.setPosition(position);
+		}
+
+		// Return the token.
+		return token;
+	}
+
+	/**
+	 * Gets a subtract token at a position.
+	 * 
+	 * @param position
+	 *            The position of the token in the input stream
+	 * @return A subtract token at the position
+	 */
+	public SubtractToken getSubtractToken(int position) {
+
+		// Create the token if there is none to recycle, else move it.
+		if (null == subtractToken) {
+			subtractToken = new SubtractToken(position);
+		}
+
+		else {
+			subtractToken.setPosition(position);
+		}
+
+		// Return the token.
+		return subtractToken;
+	}
+}
@@ -0,0 +1,40 @@
+package com.garygregg.coverity.codingtest.token;
+
+import com.garygregg.coverity.codingtest.operation.OperationDescriptor;
+
+/**
+ * Contains a token for an operation in the operation registry, such as 'mod'
+ * or 'max', in the calculator.
+ * 
+ * @author Gary Gregg
+ */
+public class RegisteredOperationToken extends ArithmeticOperationToken {
+
+	// The descriptor of the registered operation
+	private final OperationDescriptor descriptor;
+
+	/**
+	 * Creates a registered operation token.
+	 * 
+	 * @param descriptor
+	 *            The descriptor of the registered operation
+	 * @param position
+	 *            The position of the token in the input stream
+	 */
+	public RegisteredOperationToken(OperationDescriptor descriptor,
+			int position) {
+
+		// Use the name of the operation as the expression of the token.
+		super(descriptor.getName(), position);
+		this.descriptor = descriptor;
+	}
+
+	/**
+	 * Gets the descriptor of the registered operation.
+	 * 
+	 * @return The descriptor of the registered operation
+	 */
+	public OperationDescriptor getDescriptor() {
+		return descriptor;
+	}
+}
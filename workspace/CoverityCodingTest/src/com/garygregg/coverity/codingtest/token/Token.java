@@ -1,5 +1,8 @@
 package com.garygregg.coverity.codingtest.token;
 
+import com.garygregg.coverity.codingtest.recording.AccountedClass;
+import com.garygregg.coverity.codingtest.recording.AllocationAccounting;
+
 /**
  * Encapsulates a token in the calculator.
  * 
@@ -87,12 +90,13 @@ public class Token {
 	 *            The position of the token in the input stream, or null if the
 	 *            token was synthesized outside of the input stream
 	 */
-	private Token(String expression, Integer value, Integer position) {
+	Token(String expression, Integer value, Integer position) {
 
-		// Set member variables.
+		// Set member variables, and count the token.
 		this.expression = expression;
 		this.value = value;
 		this.position = position;
+		AllocationAccounting.getInstance().count(AccountedClass.TOKEN);
 	}
 
 	/**
@@ -28,4 +28,20 @@ public class ValueToken extends Token {
 	public ValueToken(int value, int position) {
 		super(value, position);
 	}
+
+	/**
+	 * Constructs a value token whose expression is the literal text from which
+	 * the value was parsed. The literal may exceed the range of the value, in
+	 * which case the value holds its low 32 bits.
+	 * 
+	 * @param expression
+	 *            The literal text of the token
+	 * @param value
+	 *            The value of the token
+	 * @param position
+	 *            The position of the token in the input stream
+	 */
+	public ValueToken(String expression, int value, int position) {
+		super(expression, value, position);
+	}
 }